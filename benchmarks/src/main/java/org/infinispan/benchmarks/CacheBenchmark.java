@@ -0,0 +1,113 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.benchmarks;
+
+import org.infinispan.Cache;
+import org.infinispan.configuration.cache.CacheMode;
+import org.infinispan.configuration.cache.ConfigurationBuilder;
+import org.infinispan.manager.EmbeddedCacheManager;
+import org.infinispan.test.TestingUtil;
+import org.infinispan.test.fwk.TestCacheManagerFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link Cache#get(Object)} and {@link Cache#put(Object, Object)} through the whole interceptor chain, on a
+ * local cache and on clusters of caches running in the same JVM.
+ *
+ * @since 5.2
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+public class CacheBenchmark {
+
+   @Param({"LOCAL", "REPL_SYNC", "DIST_SYNC"})
+   public String cacheMode;
+
+   @Param("3")
+   public int clusterSize;
+
+   @Param("1024")
+   public int keySpace;
+
+   private EmbeddedCacheManager[] cacheManagers;
+   private Cache<Object, Object> cache;
+   private Object[] keys;
+   private final Object value = "value";
+
+   @Setup
+   public void setUp() {
+      CacheMode mode = CacheMode.valueOf(cacheMode);
+      ConfigurationBuilder builder = new ConfigurationBuilder();
+      builder.clustering().cacheMode(mode);
+      if (mode.isClustered()) {
+         cacheManagers = new EmbeddedCacheManager[clusterSize];
+         Cache<?, ?>[] caches = new Cache[clusterSize];
+         for (int i = 0; i < clusterSize; i++) {
+            cacheManagers[i] = TestCacheManagerFactory.createClusteredCacheManager(builder);
+            caches[i] = cacheManagers[i].getCache();
+         }
+         TestingUtil.blockUntilViewsReceived(10000, caches);
+         TestingUtil.waitForRehashToComplete(caches);
+      } else {
+         cacheManagers = new EmbeddedCacheManager[]{TestCacheManagerFactory.createCacheManager(builder)};
+      }
+      cache = cacheManagers[0].getCache();
+      keys = new Object[keySpace];
+      for (int i = 0; i < keySpace; i++) {
+         keys[i] = "key" + i;
+         cache.put(keys[i], value);
+      }
+   }
+
+   @TearDown
+   public void tearDown() {
+      TestingUtil.killCacheManagers(cacheManagers);
+   }
+
+   @Benchmark
+   public Object get(KeySequence sequence) {
+      return cache.get(keys[sequence.next(keySpace)]);
+   }
+
+   @Benchmark
+   public Object put(KeySequence sequence) {
+      return cache.put(keys[sequence.next(keySpace)], value);
+   }
+}
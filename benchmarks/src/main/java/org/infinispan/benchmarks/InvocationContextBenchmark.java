@@ -0,0 +1,103 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.benchmarks;
+
+import org.infinispan.container.entries.ReadCommittedEntry;
+import org.infinispan.context.InvocationContext;
+import org.infinispan.context.NonTransactionalInvocationContextContainer;
+import org.infinispan.context.SingleKeyNonTxInvocationContext;
+import org.infinispan.context.impl.NonTxInvocationContext;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the contexts recycled by the {@link NonTransactionalInvocationContextContainer} with allocating a new
+ * context, and entry wrapper, for every invocation. Run it with the GC profiler to see the allocation rate per
+ * operation, e.g. <code>java -jar benchmarks/target/benchmarks.jar InvocationContextBenchmark -prof gc</code>. The
+ * same profiler applied to {@link CacheBenchmark} shows the effect on whole cache operations.
+ *
+ * @since 5.2
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+public class InvocationContextBenchmark {
+
+   private final NonTransactionalInvocationContextContainer icc = new NonTransactionalInvocationContextContainer();
+   private final Object key = "key";
+   private final Object value = "value";
+
+   @Benchmark
+   public Object recycledSingleKey() {
+      SingleKeyNonTxInvocationContext ctx = (SingleKeyNonTxInvocationContext) icc.createInvocationContext(true, 1);
+      try {
+         ReadCommittedEntry entry = ctx.claimRecycledEntry();
+         entry.reinitialize(key, value, -1);
+         ctx.putLookedUpEntry(key, entry);
+         return ctx.lookupEntry(key);
+      } finally {
+         icc.clearThreadLocal();
+         icc.releaseInvocationContext(ctx);
+      }
+   }
+
+   @Benchmark
+   public Object allocatedSingleKey() {
+      SingleKeyNonTxInvocationContext ctx = new SingleKeyNonTxInvocationContext(true);
+      ctx.putLookedUpEntry(key, new ReadCommittedEntry(key, value, null, -1));
+      return ctx.lookupEntry(key);
+   }
+
+   @Benchmark
+   public Object recycledMultiKey() {
+      InvocationContext ctx = icc.createInvocationContext(true, 2);
+      try {
+         ctx.putLookedUpEntry(key, null);
+         ctx.putLookedUpEntry(value, null);
+         return ctx.getLookedUpEntries();
+      } finally {
+         icc.clearThreadLocal();
+         icc.releaseInvocationContext(ctx);
+      }
+   }
+
+   @Benchmark
+   public Object allocatedMultiKey() {
+      InvocationContext ctx = new NonTxInvocationContext(2, true);
+      ctx.putLookedUpEntry(key, null);
+      ctx.putLookedUpEntry(value, null);
+      return ctx.getLookedUpEntries();
+   }
+}
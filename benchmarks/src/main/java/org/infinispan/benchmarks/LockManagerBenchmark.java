@@ -0,0 +1,95 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.benchmarks;
+
+import org.infinispan.Cache;
+import org.infinispan.context.InvocationContext;
+import org.infinispan.context.InvocationContextContainer;
+import org.infinispan.manager.EmbeddedCacheManager;
+import org.infinispan.test.TestingUtil;
+import org.infinispan.test.fwk.TestCacheManagerFactory;
+import org.infinispan.util.concurrent.locks.LockManager;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures acquiring and releasing a lock through the {@link LockManager} of a local cache. A key space of 1 makes
+ * all the benchmark threads contend on the same lock.
+ *
+ * @since 5.2
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+public class LockManagerBenchmark {
+
+   @Param({"1", "1024"})
+   public int keySpace;
+
+   private EmbeddedCacheManager cacheManager;
+   private LockManager lockManager;
+   private InvocationContextContainer icc;
+   private Object[] keys;
+
+   @Setup
+   public void setUp() {
+      cacheManager = TestCacheManagerFactory.createCacheManager();
+      Cache<Object, Object> cache = cacheManager.getCache();
+      lockManager = TestingUtil.extractComponent(cache, LockManager.class);
+      icc = TestingUtil.extractComponent(cache, InvocationContextContainer.class);
+      keys = new Object[keySpace];
+      for (int i = 0; i < keySpace; i++) keys[i] = "key" + i;
+   }
+
+   @TearDown
+   public void tearDown() {
+      TestingUtil.killCacheManagers(cacheManager);
+   }
+
+   @Benchmark
+   public boolean lockAndUnlock(KeySequence sequence) throws InterruptedException {
+      InvocationContext ctx = icc.createNonTxInvocationContext();
+      try {
+         boolean locked = lockManager.lockAndRecord(keys[sequence.next(keySpace)], ctx, 10000);
+         lockManager.unlockAll(ctx);
+         return locked;
+      } finally {
+         icc.clearThreadLocal();
+      }
+   }
+}
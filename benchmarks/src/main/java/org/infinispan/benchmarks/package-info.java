@@ -0,0 +1,37 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+/**
+ * JMH micro benchmarks of the hot paths of Infinispan: cache operations through the interceptor chain, data
+ * containers, marshalling, locking and the Hot Rod protocol.
+ * <p/>
+ * The module builds an executable jar, which runs all the benchmarks or the ones matching the given regular
+ * expression, e.g.:
+ * <p/>
+ * <code>mvn -pl benchmarks -am package -DskipTests && java -jar benchmarks/target/benchmarks.jar CacheBenchmark</code>
+ * <p/>
+ * Options such as the number of threads, forks or iterations are the usual JMH ones, see <code>-h</code>.
+ *
+ * @since 5.2
+ */
+package org.infinispan.benchmarks;
@@ -283,7 +283,7 @@ public void prepare(List<? extends Modification> mods, GlobalTransaction tx, boo
     * @throws CacheLoaderException on problems during the transaction
     */
    @Override
-   protected void applyModifications(List<? extends Modification> mods) throws CacheLoaderException {
+   public void applyModifications(List<? extends Modification> mods) throws CacheLoaderException {
       if (trace) log.trace("performing one phase transaction");
       try {
          transactionRunner.run(new ModificationsTransactionWorker(this, mods));
@@ -32,6 +32,7 @@
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -65,6 +66,9 @@
 import org.infinispan.loaders.cassandra.logging.Log;
 import org.infinispan.loaders.keymappers.TwoWayKey2StringMapper;
 import org.infinispan.loaders.keymappers.UnsupportedKeyTypeException;
+import org.infinispan.loaders.modifications.Modification;
+import org.infinispan.loaders.modifications.Remove;
+import org.infinispan.loaders.modifications.Store;
 import org.infinispan.marshall.StreamingMarshaller;
 import org.infinispan.util.Util;
 import org.infinispan.util.logging.LogFactory;
@@ -452,6 +456,54 @@ private void store0(InternalCacheEntry entry,
       }
    }
 
+   /**
+    * Sends the modifications in a single <code>batch_mutate</code> call. Only the last modification of every key is
+    * sent, since the mutations of a batch are not applied in order.
+    */
+   @Override
+   public void applyModifications(List<? extends Modification> mods) throws CacheLoaderException {
+      Map<String, Modification> lastModifications = new LinkedHashMap<String, Modification>();
+      for (Modification mod : mods) {
+         switch (mod.getType()) {
+            case STORE:
+               lastModifications.put(hashKey(((Store) mod).getStoredEntry().getKey()), mod);
+               break;
+            case REMOVE:
+               lastModifications.put(hashKey(((Remove) mod).getKey()), mod);
+               break;
+            case CLEAR:
+               // anything before a clear would be wiped out anyway
+               lastModifications.clear();
+               clear();
+               break;
+            default:
+               throw new IllegalArgumentException("Unknown modification type " + mod.getType());
+         }
+      }
+      if (lastModifications.isEmpty())
+         return;
+
+      Cassandra.Client cassandraClient = null;
+      try {
+         Map<ByteBuffer, Map<String, List<Mutation>>> mutationMap = new HashMap<ByteBuffer, Map<String, List<Mutation>>>();
+         for (Map.Entry<String, Modification> e : lastModifications.entrySet()) {
+            Modification mod = e.getValue();
+            if (mod.getType() == Modification.Type.STORE)
+               store0(((Store) mod).getStoredEntry(), mutationMap);
+            else
+               remove0(ByteBufferUtil.bytes(e.getKey()), mutationMap);
+         }
+         if (trace)
+            log.tracef("Applying %d modifications in a batch", lastModifications.size());
+         cassandraClient = dataSource.getConnection();
+         cassandraClient.batch_mutate(mutationMap, writeConsistencyLevel);
+      } catch (Exception e) {
+         throw new CacheLoaderException(e);
+      } finally {
+         dataSource.releaseConnection(cassandraClient);
+      }
+   }
+
    private void addExpiryEntry(String cassandraKey, long expiryTime,
             Map<ByteBuffer, Map<String, List<Mutation>>> mutationMap) {
       try {
@@ -74,6 +74,36 @@ public static void safeClose(ResultSet rs) {
       }
    }
 
+   /**
+    * Groups the statements executed through the connection in a single transaction, so that a batch of modifications
+    * is committed at once. Returns the auto-commit mode to be restored once the transaction is over.
+    */
+   public static boolean beginTransaction(Connection connection) throws SQLException {
+      boolean autoCommit = connection.getAutoCommit();
+      if (autoCommit) connection.setAutoCommit(false);
+      return autoCommit;
+   }
+
+   public static void safeRollback(Connection connection) {
+      if (connection != null) {
+         try {
+            connection.rollback();
+         } catch (SQLException e) {
+            log.sqlFailureRollingBack(e);
+         }
+      }
+   }
+
+   public static void restoreAutoCommit(Connection connection, boolean autoCommit) {
+      if (connection != null && autoCommit) {
+         try {
+            connection.setAutoCommit(true);
+         } catch (SQLException e) {
+            log.sqlFailureUnexpected(e);
+         }
+      }
+   }
+
    public static ByteBuffer marshall(StreamingMarshaller marshaller, Object bucket) throws CacheLoaderException, InterruptedException {
       try {
          return marshaller.objectToBuffer(bucket);
@@ -35,6 +35,9 @@
 import org.infinispan.loaders.jdbc.TableManipulation;
 import org.infinispan.loaders.jdbc.connectionfactory.ConnectionFactory;
 import org.infinispan.loaders.jdbc.logging.Log;
+import org.infinispan.loaders.modifications.Modification;
+import org.infinispan.loaders.modifications.Remove;
+import org.infinispan.loaders.modifications.Store;
 import org.infinispan.marshall.StreamingMarshaller;
 import org.infinispan.util.logging.LogFactory;
 
@@ -47,8 +50,11 @@
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 /**
@@ -297,6 +303,130 @@ protected Bucket loadBucket(Integer keyHashCode) throws CacheLoaderException {
       }
    }
 
+   /**
+    * Groups the modifications by bucket, so that every bucket touched by the batch is read and written only once. The
+    * buckets are then written with JDBC batches sharing a single connection and transaction.
+    */
+   @Override
+   public void applyModifications(List<? extends Modification> mods) throws CacheLoaderException {
+      // anything before the last clear would be wiped out anyway
+      int i = mods.size() - 1;
+      while (i >= 0 && mods.get(i).getType() != Modification.Type.CLEAR) i--;
+      if (i >= 0) clear();
+      applyBatch(mods.subList(i + 1, mods.size()));
+   }
+
+   private void applyBatch(List<? extends Modification> mods) throws CacheLoaderException {
+      if (mods.isEmpty()) return;
+      Set<Integer> bucketIds = new HashSet<Integer>();
+      for (Modification mod : mods) {
+         bucketIds.add(getLockFromKey(keyOf(mod)));
+      }
+      lockAllForWriting(bucketIds);
+      try {
+         long now = System.currentTimeMillis();
+         Map<Integer, Bucket> buckets = new HashMap<Integer, Bucket>();
+         Set<Integer> newBuckets = new HashSet<Integer>();
+         Set<Integer> modified = new HashSet<Integer>();
+         for (Modification mod : mods) {
+            Object key = keyOf(mod);
+            Integer bucketId = getLockFromKey(key);
+            if (mod.getType() == Modification.Type.STORE) {
+               InternalCacheEntry entry = ((Store) mod).getStoredEntry();
+               if (!entry.canExpire() || !entry.isExpired(now)) {
+                  getBucket(bucketId, buckets, newBuckets, true).addEntry(entry);
+                  modified.add(bucketId);
+                  continue;
+               }
+            }
+            Bucket bucket = getBucket(bucketId, buckets, newBuckets, false);
+            if (bucket != null && bucket.removeEntry(key)) {
+               modified.add(bucketId);
+            }
+         }
+         if (!modified.isEmpty()) writeBuckets(buckets, newBuckets, modified);
+      } finally {
+         unlockAll(bucketIds);
+      }
+   }
+
+   private Object keyOf(Modification mod) {
+      switch (mod.getType()) {
+         case STORE:
+            return ((Store) mod).getStoredEntry().getKey();
+         case REMOVE:
+            return ((Remove) mod).getKey();
+         default:
+            throw new IllegalArgumentException("Unknown modification type " + mod.getType());
+      }
+   }
+
+   private Bucket getBucket(Integer bucketId, Map<Integer, Bucket> buckets, Set<Integer> newBuckets, boolean create)
+         throws CacheLoaderException {
+      Bucket bucket = buckets.get(bucketId);
+      if (bucket == null && !buckets.containsKey(bucketId)) {
+         bucket = loadBucket(bucketId);
+         buckets.put(bucketId, bucket);
+      }
+      if (bucket == null && create) {
+         bucket = new Bucket();
+         bucket.setBucketId(bucketId);
+         buckets.put(bucketId, bucket);
+         newBuckets.add(bucketId);
+      }
+      return bucket;
+   }
+
+   private void writeBuckets(Map<Integer, Bucket> buckets, Set<Integer> newBuckets, Set<Integer> modified)
+         throws CacheLoaderException {
+      Connection conn = null;
+      boolean autoCommit = false;
+      boolean committed = false;
+      try {
+         conn = connectionFactory.getConnection();
+         autoCommit = JdbcUtil.beginTransaction(conn);
+         PreparedStatement update = null;
+         PreparedStatement insert = null;
+         try {
+            update = conn.prepareStatement(tableManipulation.getUpdateRowSql());
+            insert = conn.prepareStatement(tableManipulation.getInsertRowSql());
+            for (Integer bucketId : modified) {
+               Bucket bucket = buckets.get(bucketId);
+               PreparedStatement ps = newBuckets.contains(bucketId) ? insert : update;
+               ByteBuffer buffer = JdbcUtil.marshall(getMarshaller(), bucket);
+               ps.setBinaryStream(1, buffer.getStream(), buffer.getLength());
+               ps.setLong(2, bucket.timestampOfFirstEntryToExpire());
+               ps.setString(3, bucket.getBucketIdAsString());
+               ps.addBatch();
+            }
+            if (log.isTraceEnabled()) {
+               log.tracef("Writing buckets %s in a batch, of which %s are new", modified, newBuckets);
+            }
+            update.executeBatch();
+            insert.executeBatch();
+         } finally {
+            JdbcUtil.safeClose(update);
+            JdbcUtil.safeClose(insert);
+         }
+         conn.commit();
+         committed = true;
+      } catch (SQLException ex) {
+         log.sqlFailureApplyingModifications(modified.size(), ex);
+         throw new CacheLoaderException("Sql failure while writing a batch of buckets", ex);
+      } catch (InterruptedException ie) {
+         if (log.isTraceEnabled()) {
+            log.trace("Interrupted while marshalling a batch of buckets");
+         }
+         Thread.currentThread().interrupt();
+      } finally {
+         if (conn != null) {
+            if (!committed) JdbcUtil.safeRollback(conn);
+            JdbcUtil.restoreAutoCommit(conn, autoCommit);
+         }
+         connectionFactory.releaseConnection(conn);
+      }
+   }
+
    @Override
    public Set<InternalCacheEntry> loadAllLockSafe() throws CacheLoaderException {
       return dmHelper.loadAllSupport(false);
@@ -492,6 +622,14 @@ private void releaseLocks(Set<Bucket> expiredBucketKeys) {
       }
    }
 
+   /**
+    * Buckets are loaded with a single select, which the database isolates from concurrent writes.
+    */
+   @Override
+   protected boolean supportsOptimisticReads() {
+      return true;
+   }
+
    @Override
    public Class<? extends CacheLoaderConfig> getConfigurationClass() {
       return JdbcBinaryCacheStoreConfig.class;
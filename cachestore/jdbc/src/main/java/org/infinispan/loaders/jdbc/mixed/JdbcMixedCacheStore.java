@@ -33,12 +33,17 @@
 import org.infinispan.loaders.jdbc.connectionfactory.ConnectionFactory;
 import org.infinispan.loaders.jdbc.connectionfactory.ConnectionFactoryConfig;
 import org.infinispan.loaders.jdbc.stringbased.JdbcStringBasedCacheStore;
+import org.infinispan.loaders.modifications.Modification;
+import org.infinispan.loaders.modifications.Remove;
+import org.infinispan.loaders.modifications.Store;
 import org.infinispan.marshall.StreamingMarshaller;
 import org.infinispan.util.logging.Log;
 import org.infinispan.util.logging.LogFactory;
 
 import java.io.ObjectInput;
 import java.io.ObjectOutput;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Set;
 
 /**
@@ -190,6 +195,41 @@ public boolean remove(Object key) throws CacheLoaderException {
       return getCacheStore(key).remove(key);
    }
 
+   /**
+    * Splits the modifications between the two underlying stores, which apply them in batches.
+    */
+   @Override
+   public void applyModifications(List<? extends Modification> mods) throws CacheLoaderException {
+      List<Modification> forBinary = new ArrayList<Modification>();
+      List<Modification> forStrings = new ArrayList<Modification>();
+      for (Modification mod : mods) {
+         Object key;
+         switch (mod.getType()) {
+            case STORE:
+               key = ((Store) mod).getStoredEntry().getKey();
+               break;
+            case REMOVE:
+               key = ((Remove) mod).getKey();
+               break;
+            case CLEAR:
+               // anything before a clear would be wiped out anyway
+               forBinary.clear();
+               forStrings.clear();
+               clear();
+               continue;
+            default:
+               throw new IllegalArgumentException("Unknown modification type " + mod.getType());
+         }
+         if (getCacheStore(key) == stringBasedCacheStore) {
+            forStrings.add(mod);
+         } else {
+            forBinary.add(mod);
+         }
+      }
+      if (!forBinary.isEmpty()) binaryCacheStore.applyModifications(forBinary);
+      if (!forStrings.isEmpty()) stringBasedCacheStore.applyModifications(forStrings);
+   }
+
    @Override
    public void clear() throws CacheLoaderException {
       binaryCacheStore.clear();
@@ -38,6 +38,9 @@
 import org.infinispan.loaders.keymappers.Key2StringMapper;
 import org.infinispan.loaders.keymappers.TwoWayKey2StringMapper;
 import org.infinispan.loaders.keymappers.UnsupportedKeyTypeException;
+import org.infinispan.loaders.modifications.Modification;
+import org.infinispan.loaders.modifications.Remove;
+import org.infinispan.loaders.modifications.Store;
 import org.infinispan.marshall.StreamingMarshaller;
 import org.infinispan.util.logging.LogFactory;
 
@@ -49,6 +52,13 @@
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 /**
@@ -286,6 +296,165 @@ public boolean removeLockSafe(Object key, String keyStr) throws CacheLoaderExcep
       }
    }
 
+   /**
+    * Applies the modifications with JDBC batches sharing a single connection and transaction: a batch of deletes, a
+    * batch of updates and a batch of inserts for the keys which were not in the table yet. Only the last modification
+    * of every key is applied.
+    */
+   @Override
+   public void applyModifications(List<? extends Modification> mods) throws CacheLoaderException {
+      // anything before the last clear would be wiped out anyway
+      int i = mods.size() - 1;
+      while (i >= 0 && mods.get(i).getType() != Modification.Type.CLEAR) i--;
+      if (i >= 0) clear();
+      applyBatch(mods.subList(i + 1, mods.size()));
+   }
+
+   private void applyBatch(List<? extends Modification> mods) throws CacheLoaderException {
+      if (mods.isEmpty()) return;
+      long now = System.currentTimeMillis();
+      Map<String, InternalCacheEntry> toStore = new LinkedHashMap<String, InternalCacheEntry>();
+      Set<String> toRemove = new HashSet<String>();
+      for (Modification mod : mods) {
+         switch (mod.getType()) {
+            case STORE:
+               InternalCacheEntry entry = ((Store) mod).getStoredEntry();
+               String keyStr = getLockFromKey(entry.getKey());
+               if (entry.canExpire() && entry.isExpired(now)) {
+                  toStore.remove(keyStr);
+                  toRemove.add(keyStr);
+               } else {
+                  toRemove.remove(keyStr);
+                  toStore.put(keyStr, entry);
+               }
+               break;
+            case REMOVE:
+               keyStr = getLockFromKey(((Remove) mod).getKey());
+               toStore.remove(keyStr);
+               toRemove.add(keyStr);
+               break;
+            default:
+               throw new IllegalArgumentException("Unknown modification type " + mod.getType());
+         }
+      }
+
+      Set<String> lockingKeys = new HashSet<String>(toStore.keySet());
+      lockingKeys.addAll(toRemove);
+      lockAllForWriting(lockingKeys);
+      Connection connection = null;
+      boolean autoCommit = false;
+      boolean committed = false;
+      try {
+         connection = connectionFactory.getConnection();
+         autoCommit = JdbcUtil.beginTransaction(connection);
+         if (!toRemove.isEmpty()) deleteRows(connection, toRemove);
+         if (!toStore.isEmpty()) storeRows(connection, toStore);
+         connection.commit();
+         committed = true;
+      } catch (SQLException ex) {
+         log.sqlFailureApplyingModifications(mods.size(), ex);
+         throw new CacheLoaderException("Error while applying a batch of modifications to the database", ex);
+      } catch (InterruptedException e) {
+         if (log.isTraceEnabled()) {
+            log.trace("Interrupted while marshalling to store");
+         }
+         Thread.currentThread().interrupt();
+      } finally {
+         if (connection != null) {
+            if (!committed) JdbcUtil.safeRollback(connection);
+            JdbcUtil.restoreAutoCommit(connection, autoCommit);
+         }
+         connectionFactory.releaseConnection(connection);
+         unlockAll(lockingKeys);
+      }
+   }
+
+   private void deleteRows(Connection connection, Set<String> keys) throws SQLException {
+      String sql = tableManipulation.getDeleteRowSql();
+      if (log.isTraceEnabled()) {
+         log.tracef("Running sql '%s' in a batch on %s", sql, keys);
+      }
+      PreparedStatement ps = connection.prepareStatement(sql);
+      try {
+         for (String keyStr : keys) {
+            ps.setString(1, keyStr);
+            ps.addBatch();
+         }
+         ps.executeBatch();
+      } finally {
+         JdbcUtil.safeClose(ps);
+      }
+   }
+
+   private void storeRows(Connection connection, Map<String, InternalCacheEntry> entries)
+         throws SQLException, CacheLoaderException, InterruptedException {
+      List<String> keys = new ArrayList<String>(entries.keySet());
+      Map<String, ByteBuffer> values = new HashMap<String, ByteBuffer>();
+      for (String keyStr : keys) {
+         values.put(keyStr, JdbcUtil.marshall(getMarshaller(), entries.get(keyStr).toInternalCacheValue()));
+      }
+
+      String sql = tableManipulation.getUpdateRowSql();
+      if (log.isTraceEnabled()) {
+         log.tracef("Running sql '%s' in a batch on %s", sql, keys);
+      }
+      int[] updatedRows;
+      PreparedStatement ps = connection.prepareStatement(sql);
+      try {
+         for (String keyStr : keys) {
+            addRowToBatch(ps, keyStr, values.get(keyStr), entries.get(keyStr).getExpiryTime());
+         }
+         updatedRows = ps.executeBatch();
+      } finally {
+         JdbcUtil.safeClose(ps);
+      }
+
+      // the rows which did not exist yet have to be inserted
+      List<String> missing = new ArrayList<String>();
+      for (int i = 0; i < keys.size(); i++) {
+         String keyStr = keys.get(i);
+         int count = i < updatedRows.length ? updatedRows[i] : Statement.SUCCESS_NO_INFO;
+         if (count == 0 || (count == Statement.SUCCESS_NO_INFO && !rowExists(connection, keyStr))) {
+            missing.add(keyStr);
+         }
+      }
+      if (missing.isEmpty()) return;
+
+      sql = tableManipulation.getInsertRowSql();
+      if (log.isTraceEnabled()) {
+         log.tracef("Running sql '%s' in a batch on %s", sql, missing);
+      }
+      ps = connection.prepareStatement(sql);
+      try {
+         for (String keyStr : missing) {
+            addRowToBatch(ps, keyStr, values.get(keyStr), entries.get(keyStr).getExpiryTime());
+         }
+         ps.executeBatch();
+      } finally {
+         JdbcUtil.safeClose(ps);
+      }
+   }
+
+   private void addRowToBatch(PreparedStatement ps, String keyStr, ByteBuffer value, long expiryTime) throws SQLException {
+      ps.setBinaryStream(1, value.getStream(), value.getLength());
+      ps.setLong(2, expiryTime);
+      ps.setString(3, keyStr);
+      ps.addBatch();
+   }
+
+   private boolean rowExists(Connection connection, String keyStr) throws SQLException {
+      PreparedStatement ps = connection.prepareStatement(tableManipulation.getSelectIdRowSql());
+      ResultSet rs = null;
+      try {
+         ps.setString(1, keyStr);
+         rs = ps.executeQuery();
+         return rs.next();
+      } finally {
+         JdbcUtil.safeClose(rs);
+         JdbcUtil.safeClose(ps);
+      }
+   }
+
    @Override
    public void fromStreamLockSafe(ObjectInput objectInput) throws CacheLoaderException {
       dmHelper.fromStreamSupport(objectInput);
@@ -338,6 +507,14 @@ public void purgeInternal() throws CacheLoaderException {
       }
    }
 
+   /**
+    * Loads are a single select, which the database isolates from concurrent writes.
+    */
+   @Override
+   protected boolean supportsOptimisticReads() {
+      return true;
+   }
+
    @Override
    protected InternalCacheEntry loadLockSafe(Object key, String lockingKey) throws CacheLoaderException {
       InternalCacheEntry storedEntry = readStoredEntry(key, lockingKey);
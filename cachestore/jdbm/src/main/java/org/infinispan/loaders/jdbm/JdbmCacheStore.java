@@ -474,7 +474,7 @@ private void purgeInternal0() throws Exception {
    }
 
    @Override
-   protected void applyModifications(List<? extends Modification> mods) throws CacheLoaderException {
+   public void applyModifications(List<? extends Modification> mods) throws CacheLoaderException {
       for (Modification m : mods) {
          switch (m.getType()) {
             case STORE:
@@ -36,19 +36,30 @@
 import org.infinispan.loaders.CacheLoaderConfig;
 import org.infinispan.loaders.CacheLoaderException;
 import org.infinispan.loaders.CacheLoaderMetadata;
+import org.infinispan.loaders.NonBlockingCacheStore;
+import org.infinispan.loaders.modifications.Modification;
+import org.infinispan.loaders.modifications.Remove;
+import org.infinispan.loaders.modifications.Store;
 import org.infinispan.loaders.remote.logging.Log;
 import org.infinispan.loaders.remote.wrapper.EntryWrapper;
 import org.infinispan.marshall.Marshaller;
 import org.infinispan.marshall.StreamingMarshaller;
 import org.infinispan.marshall.jboss.GenericJBossMarshaller;
+import org.infinispan.util.concurrent.NoOpFuture;
+import org.infinispan.util.concurrent.NotifyingFuture;
 import org.infinispan.util.logging.LogFactory;
 
 import java.io.IOException;
 import java.io.ObjectInput;
 import java.io.ObjectOutput;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -57,6 +68,10 @@
  * the nodes that have the highest chance of containing the given key. This cache store supports both preloading
  * and <b>fetchPersistentState</b>.
  * <p/>
+ * The store is a {@link NonBlockingCacheStore}: loads and writes can be issued through the asynchronous operations of
+ * the HotRod client, and the modifications of a transaction are applied concurrently. Loads of raw values still
+ * block, as the client has no asynchronous counterpart of {@link RemoteCache#getWithMetadata(Object)}.
+ * <p/>
  * Purging elements is not possible, as HotRod does not support the fetching of all remote keys (this would be a
  * very costly operation as well). Purging takes place at the remote end (infinispan cluster).
  * <p/>
@@ -68,7 +83,7 @@
  */
 @ThreadSafe
 @CacheLoaderMetadata(configurationClass = RemoteCacheStoreConfig.class)
-public class RemoteCacheStore extends AbstractCacheStore {
+public class RemoteCacheStore extends AbstractCacheStore implements NonBlockingCacheStore {
 
    private static final Log log = LogFactory.getLog(RemoteCacheStore.class, Log.class);
 
@@ -94,6 +109,16 @@ public InternalCacheEntry load(Object key) throws CacheLoaderException {
       }
    }
 
+   @Override
+   @SuppressWarnings("unchecked")
+   public NotifyingFuture<InternalCacheEntry> loadAsync(Object key) throws CacheLoaderException {
+      if (config.isRawValues()) {
+         return new NoOpFuture<InternalCacheEntry>(load(key));
+      } else {
+         return (NotifyingFuture) remoteCache.getAsync(key);
+      }
+   }
+
    @Override
    protected void purgeInternal() throws CacheLoaderException {
       if (log.isTraceEnabled()) {
@@ -114,6 +139,46 @@ public void store(InternalCacheEntry entry) throws CacheLoaderException {
       remoteCache.put(entry.getKey(), config.isRawValues() ? entry.getValue() : entry, toSeconds(entry.getLifespan(), entry, LIFESPAN), TimeUnit.SECONDS, toSeconds(entry.getMaxIdle(), entry, MAXIDLE), TimeUnit.SECONDS);
    }
 
+   @Override
+   public NotifyingFuture<?> storeAsync(InternalCacheEntry entry) throws CacheLoaderException {
+      if (log.isTraceEnabled()) {
+         log.tracef("Adding entry asynchronously: %s", entry);
+      }
+      return remoteCache.putAsync(entry.getKey(), config.isRawValues() ? entry.getValue() : entry, toSeconds(entry.getLifespan(), entry, LIFESPAN), TimeUnit.SECONDS, toSeconds(entry.getMaxIdle(), entry, MAXIDLE), TimeUnit.SECONDS);
+   }
+
+   @Override
+   public NotifyingFuture<?> removeAsync(Object key) throws CacheLoaderException {
+      return remoteCache.removeAsync(key);
+   }
+
+   /**
+    * Sends all the stores and removals of the list at once, waiting for them only before a clear or once the whole
+    * list has been sent. Requests for different keys may be applied in any order, so only the last modification of
+    * each key is sent.
+    */
+   @Override
+   public void applyModifications(List<? extends Modification> mods) throws CacheLoaderException {
+      Map<Object, Modification> lastModifications = new HashMap<Object, Modification>(mods.size());
+      for (Modification m : mods) {
+         switch (m.getType()) {
+            case STORE:
+               lastModifications.put(((Store) m).getStoredEntry().getKey(), m);
+               break;
+            case REMOVE:
+               lastModifications.put(((Remove) m).getKey(), m);
+               break;
+            case CLEAR:
+               sendAll(lastModifications);
+               clear();
+               break;
+            default:
+               throw new IllegalArgumentException("Unknown modification type " + m.getType());
+         }
+      }
+      sendAll(lastModifications);
+   }
+
    @Override
    @SuppressWarnings("unchecked")
    public void fromStream(ObjectInput inputStream) throws CacheLoaderException {
@@ -214,6 +279,32 @@ private long toSeconds(long millis, InternalCacheEntry entry, String desc) {
       return TimeUnit.MILLISECONDS.toSeconds(millis);
    }
 
+   private void sendAll(Map<Object, Modification> lastModifications) throws CacheLoaderException {
+      List<Future<?>> pending = new ArrayList<Future<?>>(lastModifications.size());
+      for (Modification m : lastModifications.values()) {
+         if (m.getType() == Modification.Type.STORE) {
+            pending.add(storeAsync(((Store) m).getStoredEntry()));
+         } else {
+            pending.add(removeAsync(((Remove) m).getKey()));
+         }
+      }
+      lastModifications.clear();
+      awaitAll(pending);
+   }
+
+   private void awaitAll(List<Future<?>> pending) throws CacheLoaderException {
+      try {
+         for (Future<?> f : pending) f.get();
+      } catch (InterruptedException e) {
+         Thread.currentThread().interrupt();
+         throw new CacheLoaderException("Interrupted while applying modifications", e);
+      } catch (ExecutionException e) {
+         throw new CacheLoaderException("Exception while applying modifications", e.getCause());
+      } finally {
+         pending.clear();
+      }
+   }
+
    private Set<InternalCacheEntry> convertToInternalCacheEntries(Map<Object, Object> map) throws CacheLoaderException {
       Set<InternalCacheEntry> result = new HashSet<InternalCacheEntry>(map.size());
       Set<Map.Entry<Object, Object>> set = map.entrySet();
@@ -30,6 +30,9 @@
 import org.infinispan.loaders.BaseCacheStoreTest;
 import org.infinispan.loaders.CacheLoaderException;
 import org.infinispan.loaders.CacheStore;
+import org.infinispan.loaders.modifications.Modification;
+import org.infinispan.loaders.modifications.Remove;
+import org.infinispan.loaders.modifications.Store;
 import org.infinispan.manager.EmbeddedCacheManager;
 import org.infinispan.server.hotrod.HotRodServer;
 import org.infinispan.test.TestingUtil;
@@ -37,6 +40,8 @@
 import org.testng.annotations.AfterMethod;
 import org.testng.annotations.Test;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Properties;
 
 /**
@@ -116,6 +121,22 @@ public void testReplaceExpiredEntry() throws Exception {
       cs.store(TestInternalCacheEntryFactory.create("k1", "v2", 100));
       assert cs.load("k1").getValue().equals("v2");
    }
-}
-
 
+   public void testModificationsOfSameKeyApplyInOrder() throws CacheLoaderException {
+      cs.store(TestInternalCacheEntryFactory.create("k2", "v2"));
+      for (int i = 0; i < 20; i++) {
+         List<Modification> mods = new ArrayList<Modification>();
+         mods.add(new Store(TestInternalCacheEntryFactory.create("k1", "v1-" + i)));
+         mods.add(new Remove("k1"));
+         mods.add(new Store(TestInternalCacheEntryFactory.create("k1", "v1")));
+         mods.add(new Remove("k2"));
+         mods.add(new Store(TestInternalCacheEntryFactory.create("k2", "v2-" + i)));
+         mods.add(new Store(TestInternalCacheEntryFactory.create("k3", "v3")));
+         mods.add(new Remove("k3"));
+         cs.applyModifications(mods);
+         assert "v1".equals(cs.load("k1").getValue());
+         assert ("v2-" + i).equals(cs.load("k2").getValue());
+         assert cs.load("k3") == null;
+      }
+   }
+}
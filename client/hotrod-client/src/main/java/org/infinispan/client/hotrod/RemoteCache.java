@@ -354,4 +354,11 @@
     * guarantee that "size" elements are returned( e.g. if the number of elements in the back-end server is smaller that "size")
     */
    Map<K, V> getBulk(int size);
+
+   /**
+    * Retrieves the values of the given keys. The keys are grouped by the server owning them and a single request is
+    * sent to each of these servers, in parallel. Keys that are not present in the remote cache are not part of the
+    * returned map, which is unmodifiable.
+    */
+   Map<K, V> getAll(Set<? extends K> keys);
 }
@@ -38,12 +38,14 @@
 import org.infinispan.api.BasicCacheContainer;
 import org.infinispan.client.hotrod.exceptions.HotRodClientException;
 import org.infinispan.client.hotrod.impl.ConfigurationProperties;
+import org.infinispan.client.hotrod.impl.NearCache;
 import org.infinispan.client.hotrod.impl.RemoteCacheImpl;
 import org.infinispan.client.hotrod.impl.operations.OperationsFactory;
 import org.infinispan.client.hotrod.impl.operations.PingOperation.PingResult;
 import org.infinispan.client.hotrod.impl.protocol.Codec;
 import org.infinispan.client.hotrod.impl.protocol.CodecFactory;
 import org.infinispan.client.hotrod.impl.transport.TransportFactory;
+import org.infinispan.client.hotrod.impl.transport.nio.NioConnectionManager;
 import org.infinispan.client.hotrod.logging.Log;
 import org.infinispan.client.hotrod.logging.LogFactory;
 import org.infinispan.executors.ExecutorFactory;
@@ -51,6 +53,7 @@
 import org.infinispan.util.FileLookupFactory;
 import org.infinispan.util.SysPropertyActions;
 import org.infinispan.util.Util;
+import org.infinispan.util.concurrent.BoundedConcurrentHashMap.Eviction;
 
 /**
  * Factory for {@link org.infinispan.client.hotrod.RemoteCache}s. <p/> <p> <b>Lifecycle:</b> </p> In order to be able to
@@ -90,8 +93,12 @@
  * <li><tt>infinispan.client.hotrod.key_size_estimate</tt>, default = 64.  This hint allows sizing of byte buffers when serializing and deserializing keys, to minimize array resizing.</li>
  * <li><tt>infinispan.client.hotrod.value_size_estimate</tt>, default = 512.  This hint allows sizing of byte buffers when serializing and deserializing values, to minimize array resizing.</li>
  * <li><tt>infinispan.client.hotrod.socket_timeout</tt>, default = 60000 (60 seconds).  This property defines the maximum socket read timeout before giving up waiting for bytes from the server.</li>
- * <li><tt>infinispan.client.hotrod.protocol_version</tt>, default = 1.1 .This property defines the protocol version that this client should use. Other valid values include 1.0.</li>
+ * <li><tt>infinispan.client.hotrod.protocol_version</tt>, default = 1.2 .This property defines the protocol version that this client should use. Other valid values include 1.0, 1.1 and 1.3.</li>
  * <li><tt>infinispan.client.hotrod.connect_timeout</tt>, default = 60000 (60 seconds).  This property defines the maximum socket connect timeout before giving up connecting to the server.</li>
+ * <li><tt>infinispan.client.hotrod.near_cache.max_entries</tt>, default = 0.  If greater than 0, each remote cache keeps up to this many of the values it reads in a local near cache. Modifications made through the same remote cache invalidate its near cache entries, while modifications made by other clients are only seen once the entry is revalidated.</li>
+ * <li><tt>infinispan.client.hotrod.near_cache.eviction</tt>, default = LRU.  The eviction algorithm of the near cache, either LRU or LIRS.</li>
+ * <li><tt>infinispan.client.hotrod.near_cache.revalidation_interval</tt>, default = 1000.  Number of milliseconds a near cache entry is used for before its version is checked against the server again.</li>
+ * <li><tt>infinispan.client.hotrod.nio_transport</tt>, default = false.  If true, the asynchronous operations are sent over a single non-blocking connection per server, instead of holding a thread of the async executor while waiting for the response. Such operations are not retried on other servers when they fail.</li>
  * </ul>
  * <br/>
  * <i>The following properties are related to connection pooling</i>:
@@ -160,6 +167,7 @@ public class RemoteCacheManager implements BasicCacheContainer {
    private volatile boolean started = false;
    private boolean forceReturnValueDefault = false;
    private ExecutorService asyncExecutorService;
+   private NioConnectionManager nioConnectionManager;
    private final Map<String, RemoteCacheHolder> cacheName2RemoteCache = new HashMap<String, RemoteCacheHolder>();
    // Use an invalid topologyID (-1) so we always get a topology update on connection.
    private AtomicInteger topologyId = new AtomicInteger(-1);
@@ -476,6 +484,11 @@ public void start() {
          asyncExecutorService = executorFactory.getExecutor(config.getProperties());
       }
 
+      if (config.getNioTransport()) {
+         nioConnectionManager = new NioConnectionManager(transportFactory);
+         nioConnectionManager.start();
+      }
+
       synchronized (cacheName2RemoteCache) {
          for (RemoteCacheHolder rcc : cacheName2RemoteCache.values()) {
             startRemoteCache(rcc);
@@ -487,6 +500,10 @@ public void start() {
    @Override
    public void stop() {
       if (isStarted()) {
+         if (nioConnectionManager != null) {
+            nioConnectionManager.stop();
+            nioConnectionManager = null;
+         }
          transportFactory.destroy();
          asyncExecutorService.shutdownNow();
       }
@@ -544,7 +561,14 @@ private void startRemoteCache(RemoteCacheHolder remoteCacheHolder) {
       RemoteCacheImpl<?, ?> remoteCache = remoteCacheHolder.remoteCache;
       OperationsFactory operationsFactory = new OperationsFactory(
             transportFactory, remoteCache.getName(), topologyId, remoteCacheHolder.forceReturnValue, codec);
-      remoteCache.init(marshaller, asyncExecutorService, operationsFactory, config.getKeySizeEstimate(), config.getValueSizeEstimate());
+      remoteCache.init(marshaller, asyncExecutorService, operationsFactory, config.getKeySizeEstimate(), config.getValueSizeEstimate(), nioConnectionManager, createNearCache());
+   }
+
+   private NearCache createNearCache() {
+      int maxEntries = config.getNearCacheMaxEntries();
+      if (maxEntries <= 0) return null;
+      Eviction eviction = Eviction.valueOf(config.getNearCacheEviction().toUpperCase());
+      return new NearCache(maxEntries, eviction, config.getNearCacheRevalidationInterval());
    }
 
    private void setMarshaller(Marshaller marshaller) {
@@ -81,6 +81,21 @@ public interface ServerStatistics {
     */
    String REMOVE_MISSES = "removeMisses";
 
+   /**
+    * Number of reads served by the client's near cache. Only present if the near cache is enabled.
+    */
+   String NEAR_CACHE_HITS = "nearCacheHits";
+
+   /**
+    * Number of reads the client's near cache had to forward to the server. Only present if the near cache is enabled.
+    */
+   String NEAR_CACHE_MISSES = "nearCacheMisses";
+
+   /**
+    * Number of entries in the client's near cache. Only present if the near cache is enabled.
+    */
+   String NEAR_CACHE_SIZE = "nearCacheSize";
+
    Map<String, String> getStatsMap();
 
    String getStatistic(String statsName);
@@ -57,6 +57,10 @@ public class ConfigurationProperties {
    public static final String SO_TIMEOUT = "infinispan.client.hotrod.socket_timeout";
    public static final String CONNECT_TIMEOUT = "infinispan.client.hotrod.connect_timeout";
    public static final String PROTOCOL_VERSION = "infinispan.client.hotrod.protocol_version";
+   public static final String NIO_TRANSPORT = "infinispan.client.hotrod.nio_transport";
+   public static final String NEAR_CACHE_MAX_ENTRIES = "infinispan.client.hotrod.near_cache.max_entries";
+   public static final String NEAR_CACHE_EVICTION = "infinispan.client.hotrod.near_cache.eviction";
+   public static final String NEAR_CACHE_REVALIDATION_INTERVAL = "infinispan.client.hotrod.near_cache.revalidation_interval";
 
    // defaults
 
@@ -65,6 +69,8 @@ public class ConfigurationProperties {
    public static final int DEFAULT_HOTROD_PORT = 11222;
    public static final int DEFAULT_SO_TIMEOUT = 60000;
    public static final int DEFAULT_CONNECT_TIMEOUT = 60000;
+   public static final int DEFAULT_NEAR_CACHE_REVALIDATION_INTERVAL = 1000;
+   public static final String PROTOCOL_VERSION_13 = "1.3";
    public static final String PROTOCOL_VERSION_12 = "1.2";
    public static final String PROTOCOL_VERSION_11 = "1.1";
    public static final String PROTOCOL_VERSION_10 = "1.0";
@@ -162,4 +168,20 @@ public int getConnectTimeout() {
       return props.getIntProperty(CONNECT_TIMEOUT, DEFAULT_CONNECT_TIMEOUT);
    }
 
+   public boolean getNioTransport() {
+      return props.getBooleanProperty(NIO_TRANSPORT, false);
+   }
+
+   public int getNearCacheMaxEntries() {
+      return props.getIntProperty(NEAR_CACHE_MAX_ENTRIES, 0);
+   }
+
+   public String getNearCacheEviction() {
+      return props.getProperty(NEAR_CACHE_EVICTION, "LRU");
+   }
+
+   public int getNearCacheRevalidationInterval() {
+      return props.getIntProperty(NEAR_CACHE_REVALIDATION_INTERVAL, DEFAULT_NEAR_CACHE_REVALIDATION_INTERVAL);
+   }
+
 }
@@ -0,0 +1,164 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.client.hotrod.impl;
+
+import org.infinispan.util.ByteArrayKey;
+import org.infinispan.util.concurrent.BoundedConcurrentHashMap;
+import org.infinispan.util.concurrent.BoundedConcurrentHashMap.Eviction;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bounded client side cache of the values read from a remote cache, keyed by the marshalled key.
+ * <p/>
+ * The Hot Rod protocol does not notify clients of modifications made by other clients, so an entry is trusted for
+ * at most <tt>revalidationInterval</tt> milliseconds after it was last read from the server. Past that, the value is
+ * read again with its version, and the unmarshalled value held here is reused if the version has not changed.
+ * Modifications made through the owning {@link RemoteCacheImpl} invalidate the affected entries immediately.
+ * <p/>
+ * A value read from the server is only cached if its key was not invalidated while it was being read: readers take
+ * the {@link #invalidationSequence(byte[]) invalidation sequence} of the key before reading it, and hand it to
+ * {@link #put(byte[], long, Object, long)}. Sequences are striped, so an invalidation may also prevent values of
+ * other keys from being cached.
+ *
+ * @since 5.2
+ */
+public class NearCache {
+
+   private static final int SEQUENCE_STRIPES = 64;
+
+   private final ConcurrentMap<ByteArrayKey, Entry> entries;
+   private final long revalidationInterval;
+   private final AtomicLong hits = new AtomicLong();
+   private final AtomicLong misses = new AtomicLong();
+   private final AtomicLongArray invalidations = new AtomicLongArray(SEQUENCE_STRIPES);
+
+   public NearCache(int maxEntries, Eviction eviction, long revalidationInterval) {
+      this.entries = new BoundedConcurrentHashMap<ByteArrayKey, Entry>(maxEntries, 16, eviction);
+      this.revalidationInterval = revalidationInterval;
+   }
+
+   /**
+    * Returns the entry for the key, which might need to be revalidated before being used, or <code>null</code> if
+    * the key is not cached.
+    */
+   public Entry get(byte[] key) {
+      return entries.get(new ByteArrayKey(key));
+   }
+
+   /**
+    * @return the number of invalidations of the key so far, to be taken before reading its value from the server
+    */
+   public long invalidationSequence(byte[] key) {
+      return invalidations.get(stripe(key));
+   }
+
+   /**
+    * Caches a value read from the server, unless the key was invalidated since the given invalidation sequence was
+    * taken.
+    */
+   public void put(byte[] key, long version, Object value, long sequence) {
+      int stripe = stripe(key);
+      if (invalidations.get(stripe) != sequence) return;
+      ByteArrayKey cacheKey = new ByteArrayKey(key);
+      Entry entry = new Entry(version, value, System.currentTimeMillis());
+      entries.put(cacheKey, entry);
+      // an invalidation bumps the sequence before removing the key, so either it removes this entry or we do
+      if (invalidations.get(stripe) != sequence) entries.remove(cacheKey, entry);
+   }
+
+   public void invalidate(byte[] key) {
+      invalidations.incrementAndGet(stripe(key));
+      entries.remove(new ByteArrayKey(key));
+   }
+
+   public void clear() {
+      for (int i = 0; i < SEQUENCE_STRIPES; i++) invalidations.incrementAndGet(i);
+      entries.clear();
+   }
+
+   private static int stripe(byte[] key) {
+      return Arrays.hashCode(key) & (SEQUENCE_STRIPES - 1);
+   }
+
+   public int size() {
+      return entries.size();
+   }
+
+   void recordHit() {
+      hits.incrementAndGet();
+   }
+
+   void recordMiss() {
+      misses.incrementAndGet();
+   }
+
+   /**
+    * @return the number of reads served without contacting the server
+    */
+   public long getHits() {
+      return hits.get();
+   }
+
+   /**
+    * @return the number of reads that had to contact the server, either because the key was not cached or because
+    *         the cached entry was due for revalidation
+    */
+   public long getMisses() {
+      return misses.get();
+   }
+
+   public class Entry {
+      private final long version;
+      private final Object value;
+      private volatile long validated;
+
+      Entry(long version, Object value, long validated) {
+         this.version = version;
+         this.value = value;
+         this.validated = validated;
+      }
+
+      public long getVersion() {
+         return version;
+      }
+
+      public Object getValue() {
+         return value;
+      }
+
+      public boolean isValid(long now) {
+         return now - validated < revalidationInterval;
+      }
+
+      /**
+       * Marks the entry as up to date with the server, after its version has been checked.
+       */
+      public void revalidated(long now) {
+         validated = now;
+      }
+   }
+}
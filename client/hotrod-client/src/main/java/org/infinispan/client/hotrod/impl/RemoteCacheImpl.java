@@ -25,12 +25,18 @@
 import static java.util.concurrent.TimeUnit.MILLISECONDS;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
 
 import org.infinispan.client.hotrod.Flag;
@@ -40,27 +46,34 @@
 import org.infinispan.client.hotrod.MetadataValue;
 import org.infinispan.client.hotrod.Version;
 import org.infinispan.client.hotrod.VersionedValue;
+import org.infinispan.client.hotrod.exceptions.HotRodClientException;
 import org.infinispan.client.hotrod.exceptions.RemoteCacheManagerNotStartedException;
 import org.infinispan.client.hotrod.exceptions.TransportException;
 import org.infinispan.client.hotrod.impl.async.NotifyingFutureImpl;
+import org.infinispan.client.hotrod.impl.async.NotifyingResponseFuture;
 import org.infinispan.client.hotrod.impl.operations.BulkGetOperation;
 import org.infinispan.client.hotrod.impl.operations.ClearOperation;
 import org.infinispan.client.hotrod.impl.operations.ContainsKeyOperation;
 import org.infinispan.client.hotrod.impl.operations.GetOperation;
 import org.infinispan.client.hotrod.impl.operations.GetWithMetadataOperation;
 import org.infinispan.client.hotrod.impl.operations.GetWithVersionOperation;
+import org.infinispan.client.hotrod.impl.operations.NonBlockingOperation;
 import org.infinispan.client.hotrod.impl.operations.OperationsFactory;
 import org.infinispan.client.hotrod.impl.operations.PingOperation;
+import org.infinispan.client.hotrod.impl.operations.PutAllOperation;
 import org.infinispan.client.hotrod.impl.operations.PutIfAbsentOperation;
 import org.infinispan.client.hotrod.impl.operations.PutOperation;
 import org.infinispan.client.hotrod.impl.operations.RemoveIfUnmodifiedOperation;
 import org.infinispan.client.hotrod.impl.operations.RemoveOperation;
 import org.infinispan.client.hotrod.impl.operations.ReplaceIfUnmodifiedOperation;
 import org.infinispan.client.hotrod.impl.operations.ReplaceOperation;
+import org.infinispan.client.hotrod.impl.operations.RetryOnFailureOperation;
 import org.infinispan.client.hotrod.impl.operations.StatsOperation;
+import org.infinispan.client.hotrod.impl.transport.nio.NioConnectionManager;
 import org.infinispan.client.hotrod.logging.Log;
 import org.infinispan.client.hotrod.logging.LogFactory;
 import org.infinispan.marshall.Marshaller;
+import org.infinispan.util.concurrent.FutureListener;
 import org.infinispan.util.concurrent.NotifyingFuture;
 
 /**
@@ -78,6 +91,8 @@
    private OperationsFactory operationsFactory;
    private int estimateKeySize;
    private int estimateValueSize;
+   private NioConnectionManager nioConnectionManager;
+   private NearCache nearCache;
 
 
    public RemoteCacheImpl(RemoteCacheManager rcm, String name) {
@@ -89,11 +104,22 @@ public RemoteCacheImpl(RemoteCacheManager rcm, String name) {
    }
 
    public void init(Marshaller marshaller, ExecutorService executorService, OperationsFactory operationsFactory, int estimateKeySize, int estimateValueSize) {
+      init(marshaller, executorService, operationsFactory, estimateKeySize, estimateValueSize, null, null);
+   }
+
+   /**
+    * @param nioConnectionManager if not <code>null</code>, the async operations are sent through it instead of
+    *                             being executed by the async executor
+    * @param nearCache            if not <code>null</code>, the values read are cached locally
+    */
+   public void init(Marshaller marshaller, ExecutorService executorService, OperationsFactory operationsFactory, int estimateKeySize, int estimateValueSize, NioConnectionManager nioConnectionManager, NearCache nearCache) {
       this.marshaller = marshaller;
       this.executorService = executorService;
       this.operationsFactory = operationsFactory;
       this.estimateKeySize = estimateKeySize;
       this.estimateValueSize = estimateValueSize;
+      this.nioConnectionManager = nioConnectionManager;
+      this.nearCache = nearCache;
    }
 
    @Override
@@ -104,14 +130,24 @@ public RemoteCacheManager getRemoteCacheManager() {
    @Override
    public boolean removeWithVersion(K key, long version) {
       assertRemoteCacheManagerIsStarted();
-      RemoveIfUnmodifiedOperation op = operationsFactory.newRemoveIfUnmodifiedOperation(obj2bytes(key, true), version);
-      VersionedOperationResponse response = op.execute();
-      return response.getCode().isUpdated();
+      byte[] keyBytes = obj2bytes(key, true);
+      RemoveIfUnmodifiedOperation op = operationsFactory.newRemoveIfUnmodifiedOperation(keyBytes, version);
+      try {
+         VersionedOperationResponse response = op.execute();
+         return response.getCode().isUpdated();
+      } finally {
+         invalidateNearCache(keyBytes);
+      }
    }
 
    @Override
    public NotifyingFuture<Boolean> removeWithVersionAsync(final K key, final long version) {
       assertRemoteCacheManagerIsStarted();
+      if (nioConnectionManager != null) {
+         byte[] keyBytes = obj2bytes(key, true);
+         RemoveIfUnmodifiedOperation op = operationsFactory.newRemoveIfUnmodifiedOperation(keyBytes, version);
+         return executeNonBlocking(op, new VersionedResponseFuture(), keyBytes);
+      }
       final NotifyingFutureImpl<Boolean> result = new NotifyingFutureImpl<Boolean>();
       Future<Boolean> future = executorService.submit(new Callable<Boolean>() {
          @Override
@@ -128,14 +164,24 @@ public Boolean call() throws Exception {
    @Override
    public boolean replaceWithVersion(K key, V newValue, long version, int lifespanSeconds, int maxIdleTimeSeconds) {
       assertRemoteCacheManagerIsStarted();
-      ReplaceIfUnmodifiedOperation op = operationsFactory.newReplaceIfUnmodifiedOperation(obj2bytes(key, true), obj2bytes(newValue, false), lifespanSeconds, maxIdleTimeSeconds, version);
-      VersionedOperationResponse response = op.execute();
-      return response.getCode().isUpdated();
+      byte[] keyBytes = obj2bytes(key, true);
+      ReplaceIfUnmodifiedOperation op = operationsFactory.newReplaceIfUnmodifiedOperation(keyBytes, obj2bytes(newValue, false), lifespanSeconds, maxIdleTimeSeconds, version);
+      try {
+         VersionedOperationResponse response = op.execute();
+         return response.getCode().isUpdated();
+      } finally {
+         invalidateNearCache(keyBytes);
+      }
    }
 
    @Override
    public NotifyingFuture<Boolean> replaceWithVersionAsync(final K key, final V newValue, final long version, final int lifespanSeconds, final int maxIdleSeconds) {
       assertRemoteCacheManagerIsStarted();
+      if (nioConnectionManager != null) {
+         byte[] keyBytes = obj2bytes(key, true);
+         ReplaceIfUnmodifiedOperation op = operationsFactory.newReplaceIfUnmodifiedOperation(keyBytes, obj2bytes(newValue, false), lifespanSeconds, maxIdleSeconds, version);
+         return executeNonBlocking(op, new VersionedResponseFuture(), keyBytes);
+      }
       final NotifyingFutureImpl<Boolean> result = new NotifyingFutureImpl<Boolean>();
       Future<Boolean> future = executorService.submit(new Callable<Boolean>() {
          @Override
@@ -168,14 +214,58 @@ public MetadataValue<V> getWithMetadata(K key) {
    @Override
    public void putAll(Map<? extends K, ? extends V> map, long lifespan, TimeUnit lifespanUnit, long maxIdleTime, TimeUnit maxIdleTimeUnit) {
       assertRemoteCacheManagerIsStarted();
+      if (!operationsFactory.isBulkOperationSupported()) {
+         for (Entry<? extends K, ? extends V> entry : map.entrySet()) {
+            put(entry.getKey(), entry.getValue(), lifespan, lifespanUnit, maxIdleTime, maxIdleTimeUnit);
+         }
+         return;
+      }
+      int lifespanSecs = toSeconds(lifespan, lifespanUnit);
+      int maxIdleSecs = toSeconds(maxIdleTime, maxIdleTimeUnit);
+      applyDefaultExpirationFlags(lifespan, maxIdleTime);
+      if (log.isTraceEnabled()) {
+         log.tracef("About to add %d entries, lifespanSecs:%d, maxIdleSecs:%d", map.size(), lifespanSecs, maxIdleSecs);
+      }
+      Map<byte[], byte[]> entries = new HashMap<byte[], byte[]>();
       for (Entry<? extends K, ? extends V> entry : map.entrySet()) {
-         put(entry.getKey(), entry.getValue(), lifespan, lifespanUnit, maxIdleTime, maxIdleTimeUnit);
+         entries.put(obj2bytes(entry.getKey(), true), obj2bytes(entry.getValue(), false));
+      }
+      try {
+         executeInParallel(operationsFactory.newPutAllOperations(entries, lifespanSecs, maxIdleSecs));
+      } finally {
+         for (byte[] keyBytes : entries.keySet()) {
+            invalidateNearCache(keyBytes);
+         }
       }
    }
 
    @Override
    public NotifyingFuture<Void> putAllAsync(final Map<? extends K, ? extends V> data, final long lifespan, final TimeUnit lifespanUnit, final long maxIdle, final TimeUnit maxIdleUnit) {
       assertRemoteCacheManagerIsStarted();
+      if (nioConnectionManager != null && operationsFactory.isBulkOperationSupported()) {
+         int lifespanSecs = toSeconds(lifespan, lifespanUnit);
+         int maxIdleSecs = toSeconds(maxIdle, maxIdleUnit);
+         applyDefaultExpirationFlags(lifespan, maxIdle);
+         Map<byte[], byte[]> entries = new HashMap<byte[], byte[]>();
+         for (Entry<? extends K, ? extends V> entry : data.entrySet()) {
+            entries.put(obj2bytes(entry.getKey(), true), obj2bytes(entry.getValue(), false));
+         }
+         List<PutAllOperation> ops = operationsFactory.newPutAllOperations(entries, lifespanSecs, maxIdleSecs);
+         if (ops.isEmpty()) {
+            // nothing to send, there will be no response to wait for
+            NotifyingResponseFuture<Void> done = new NotifyingResponseFuture<Void>();
+            done.responseReceived(null);
+            return done;
+         }
+         NotifyingResponseFuture<Void> result = new NotifyingResponseFuture<Void>(ops.size());
+         for (byte[] keyBytes : entries.keySet()) {
+            invalidateNearCacheOnCompletion(result, keyBytes);
+         }
+         for (PutAllOperation op : ops) {
+            nioConnectionManager.execute(op, result);
+         }
+         return result;
+      }
       final NotifyingFutureImpl<Void> result = new NotifyingFutureImpl<Void>();
       Future<Void> future = executorService.submit(new Callable<Void>() {
          @Override
@@ -211,6 +301,11 @@ public ServerStatistics stats() {
       for (Map.Entry<String, String> entry : statsMap.entrySet()) {
          stats.addStats(entry.getKey(), entry.getValue());
       }
+      if (nearCache != null) {
+         stats.addStats(ServerStatistics.NEAR_CACHE_HITS, String.valueOf(nearCache.getHits()));
+         stats.addStats(ServerStatistics.NEAR_CACHE_MISSES, String.valueOf(nearCache.getMisses()));
+         stats.addStats(ServerStatistics.NEAR_CACHE_SIZE, String.valueOf(nearCache.size()));
+      }
       return stats;
    }
 
@@ -224,8 +319,14 @@ public V put(K key, V value, long lifespan, TimeUnit lifespanUnit, long maxIdleT
       if (log.isTraceEnabled()) {
          log.tracef("About to add (K,V): (%s, %s) lifespanSecs:%d, maxIdleSecs:%d", key, value, lifespanSecs, maxIdleSecs);
       }
-      PutOperation op = operationsFactory.newPutKeyValueOperation(obj2bytes(key, true), obj2bytes(value, false), lifespanSecs, maxIdleSecs);
-      byte[] result = op.execute();
+      byte[] keyBytes = obj2bytes(key, true);
+      PutOperation op = operationsFactory.newPutKeyValueOperation(keyBytes, obj2bytes(value, false), lifespanSecs, maxIdleSecs);
+      byte[] result;
+      try {
+         result = op.execute();
+      } finally {
+         invalidateNearCache(keyBytes);
+      }
       return (V) bytes2obj(result);
    }
 
@@ -237,8 +338,14 @@ public V putIfAbsent(K key, V value, long lifespan, TimeUnit lifespanUnit, long
       int lifespanSecs = toSeconds(lifespan, lifespanUnit);
       int maxIdleSecs = toSeconds(maxIdleTime, maxIdleTimeUnit);
       applyDefaultExpirationFlags(lifespan, maxIdleTime);
-      PutIfAbsentOperation op = operationsFactory.newPutIfAbsentOperation(obj2bytes(key, true), obj2bytes(value, false), lifespanSecs, maxIdleSecs);
-      byte[] bytes = op.execute();
+      byte[] keyBytes = obj2bytes(key, true);
+      PutIfAbsentOperation op = operationsFactory.newPutIfAbsentOperation(keyBytes, obj2bytes(value, false), lifespanSecs, maxIdleSecs);
+      byte[] bytes;
+      try {
+         bytes = op.execute();
+      } finally {
+         invalidateNearCache(keyBytes);
+      }
       return (V) bytes2obj(bytes);
    }
 
@@ -249,14 +356,26 @@ public V replace(K key, V value, long lifespan, TimeUnit lifespanUnit, long maxI
       int lifespanSecs = toSeconds(lifespan, lifespanUnit);
       int maxIdleSecs = toSeconds(maxIdleTime, maxIdleTimeUnit);
       applyDefaultExpirationFlags(lifespan, maxIdleTime);
-      ReplaceOperation op = operationsFactory.newReplaceOperation(obj2bytes(key, true), obj2bytes(value, false), lifespanSecs, maxIdleSecs);
-      byte[] bytes = op.execute();
+      byte[] keyBytes = obj2bytes(key, true);
+      ReplaceOperation op = operationsFactory.newReplaceOperation(keyBytes, obj2bytes(value, false), lifespanSecs, maxIdleSecs);
+      byte[] bytes;
+      try {
+         bytes = op.execute();
+      } finally {
+         invalidateNearCache(keyBytes);
+      }
       return (V) bytes2obj(bytes);
    }
 
    @Override
    public NotifyingFuture<V> putAsync(final K key, final V value, final long lifespan, final TimeUnit lifespanUnit, final long maxIdle, final TimeUnit maxIdleUnit) {
       assertRemoteCacheManagerIsStarted();
+      if (nioConnectionManager != null) {
+         applyDefaultExpirationFlags(lifespan, maxIdle);
+         byte[] keyBytes = obj2bytes(key, true);
+         PutOperation op = operationsFactory.newPutKeyValueOperation(keyBytes, obj2bytes(value, false), toSeconds(lifespan, lifespanUnit), toSeconds(maxIdle, maxIdleUnit));
+         return executeNonBlocking(op, new ValueResponseFuture(), keyBytes);
+      }
       final NotifyingFutureImpl<V> result = new NotifyingFutureImpl<V>();
       Future<V> future = executorService.submit(new Callable<V>() {
          @Override
@@ -273,6 +392,19 @@ public V call() throws Exception {
    @Override
    public NotifyingFuture<Void> clearAsync() {
       assertRemoteCacheManagerIsStarted();
+      if (nioConnectionManager != null) {
+         NotifyingResponseFuture<Void> result = new NotifyingResponseFuture<Void>();
+         if (nearCache != null) {
+            nearCache.clear();
+            result.attachListener(new FutureListener<Void>() {
+               @Override
+               public void futureDone(Future<Void> future) {
+                  nearCache.clear();
+               }
+            });
+         }
+         return executeNonBlocking(operationsFactory.newClearOperation(), result);
+      }
       final NotifyingFutureImpl<Void> result = new NotifyingFutureImpl<Void>();
       Future<Void> future = executorService.submit(new Callable<Void>() {
          @Override
@@ -289,6 +421,12 @@ public Void call() throws Exception {
    @Override
    public NotifyingFuture<V> putIfAbsentAsync(final K key,final V value,final long lifespan,final TimeUnit lifespanUnit,final long maxIdle,final TimeUnit maxIdleUnit) {
       assertRemoteCacheManagerIsStarted();
+      if (nioConnectionManager != null) {
+         applyDefaultExpirationFlags(lifespan, maxIdle);
+         byte[] keyBytes = obj2bytes(key, true);
+         PutIfAbsentOperation op = operationsFactory.newPutIfAbsentOperation(keyBytes, obj2bytes(value, false), toSeconds(lifespan, lifespanUnit), toSeconds(maxIdle, maxIdleUnit));
+         return executeNonBlocking(op, new ValueResponseFuture(), keyBytes);
+      }
       final NotifyingFutureImpl<V> result = new NotifyingFutureImpl<V>();
       Future<V> future = executorService.submit(new Callable<V>() {
          @Override
@@ -305,6 +443,10 @@ public V call() throws Exception {
    @Override
    public NotifyingFuture<V> removeAsync(final Object key) {
       assertRemoteCacheManagerIsStarted();
+      if (nioConnectionManager != null) {
+         byte[] keyBytes = obj2bytes(key, true);
+         return executeNonBlocking(operationsFactory.newRemoveOperation(keyBytes), new ValueResponseFuture(), keyBytes);
+      }
       final NotifyingFutureImpl<V> result = new NotifyingFutureImpl<V>();
       Future<V> future = executorService.submit(new Callable<V>() {
          @Override
@@ -321,6 +463,12 @@ public V call() throws Exception {
    @Override
    public NotifyingFuture<V> replaceAsync(final K key,final V value,final long lifespan,final TimeUnit lifespanUnit,final long maxIdle,final TimeUnit maxIdleUnit) {
       assertRemoteCacheManagerIsStarted();
+      if (nioConnectionManager != null) {
+         applyDefaultExpirationFlags(lifespan, maxIdle);
+         byte[] keyBytes = obj2bytes(key, true);
+         ReplaceOperation op = operationsFactory.newReplaceOperation(keyBytes, obj2bytes(value, false), toSeconds(lifespan, lifespanUnit), toSeconds(maxIdle, maxIdleUnit));
+         return executeNonBlocking(op, new ValueResponseFuture(), keyBytes);
+      }
       final NotifyingFutureImpl<V> result = new NotifyingFutureImpl<V>();
       Future<V> future = executorService.submit(new Callable<V>() {
          @Override
@@ -346,9 +494,14 @@ public boolean containsKey(Object key) {
    public V get(Object key) {
       assertRemoteCacheManagerIsStarted();
       byte[] keyBytes = obj2bytes(key, true);
-      GetOperation gco = operationsFactory.newGetKeyOperation(keyBytes);
-      byte[] bytes = gco.execute();
-      V result = (V) bytes2obj(bytes);
+      V result;
+      if (nearCache != null) {
+         result = getFromNearCache(keyBytes);
+      } else {
+         GetOperation gco = operationsFactory.newGetKeyOperation(keyBytes);
+         byte[] bytes = gco.execute();
+         result = (V) bytes2obj(bytes);
+      }
       if (log.isTraceEnabled()) {
          log.tracef("For key(%s) returning %s", key, result);
       }
@@ -375,12 +528,55 @@ public Map<K, V> getBulk(int size) {
       return Collections.unmodifiableMap(toReturn);
    }
 
+   @Override
+   @SuppressWarnings("unchecked")
+   public Map<K, V> getAll(Set<? extends K> keys) {
+      assertRemoteCacheManagerIsStarted();
+      if (!operationsFactory.isBulkOperationSupported()) {
+         Map<K, V> toReturn = new HashMap<K, V>();
+         for (K key : keys) {
+            V value = get(key);
+            if (value != null) toReturn.put(key, value);
+         }
+         return Collections.unmodifiableMap(toReturn);
+      }
+      Set<byte[]> keyBytes = new HashSet<byte[]>();
+      Map<K, V> toReturn = new HashMap<K, V>();
+      long now = System.currentTimeMillis();
+      for (K key : keys) {
+         byte[] bytes = obj2bytes(key, true);
+         if (nearCache != null) {
+            // the values read in bulk carry no version, so they are not cached, but the cached ones are used
+            NearCache.Entry entry = nearCache.get(bytes);
+            if (entry != null && entry.isValid(now)) {
+               nearCache.recordHit();
+               toReturn.put(key, (V) entry.getValue());
+               continue;
+            }
+            nearCache.recordMiss();
+         }
+         keyBytes.add(bytes);
+      }
+      for (Map<byte[], byte[]> result : executeInParallel(operationsFactory.newGetAllOperations(keyBytes))) {
+         for (Map.Entry<byte[], byte[]> entry : result.entrySet()) {
+            toReturn.put((K) bytes2obj(entry.getKey()), (V) bytes2obj(entry.getValue()));
+         }
+      }
+      return Collections.unmodifiableMap(toReturn);
+   }
+
    @Override
    @SuppressWarnings("unchecked")
    public V remove(Object key) {
       assertRemoteCacheManagerIsStarted();
-      RemoveOperation removeOperation = operationsFactory.newRemoveOperation(obj2bytes(key, true));
-      byte[] existingValue = removeOperation.execute();
+      byte[] keyBytes = obj2bytes(key, true);
+      RemoveOperation removeOperation = operationsFactory.newRemoveOperation(keyBytes);
+      byte[] existingValue;
+      try {
+         existingValue = removeOperation.execute();
+      } finally {
+         invalidateNearCache(keyBytes);
+      }
       // TODO: It sucks that you need the prev value to see if it works...
       // We need to find a better API for RemoteCache...
       return (V) bytes2obj(existingValue);
@@ -390,7 +586,11 @@ public V remove(Object key) {
    public void clear() {
       assertRemoteCacheManagerIsStarted();
       ClearOperation op = operationsFactory.newClearOperation() ;
-      op.execute();
+      try {
+         op.execute();
+      } finally {
+         if (nearCache != null) nearCache.clear();
+      }
    }
 
    @Override
@@ -426,6 +626,10 @@ public RemoteCache<K, V> withFlags(Flag... flags) {
    @Override
    public NotifyingFuture<V> getAsync(final K key) {
       assertRemoteCacheManagerIsStarted();
+      // the near cache is read and filled by get
+      if (nioConnectionManager != null && nearCache == null) {
+         return executeNonBlocking(operationsFactory.newGetKeyOperation(obj2bytes(key, true)), new ValueResponseFuture());
+      }
       final NotifyingFutureImpl<V> result = new NotifyingFutureImpl<V>();
       Future<V> future = executorService.submit(new Callable<V>() {
          @Override
@@ -439,10 +643,109 @@ public V call() throws Exception {
       return result;
    }
 
+   /**
+    * Sends the operation through the NIO transport. The operation has been created, and has consumed the flags, in
+    * the calling thread, the response is decoded by the I/O thread and unmarshalled by the future.
+    */
+   private <T> NotifyingFuture<T> executeNonBlocking(NonBlockingOperation<?> op, NotifyingResponseFuture<T> future) {
+      nioConnectionManager.execute(op, future);
+      return future;
+   }
+
+   private <T> NotifyingFuture<T> executeNonBlocking(NonBlockingOperation<?> op, NotifyingResponseFuture<T> future, byte[] modifiedKey) {
+      invalidateNearCacheOnCompletion(future, modifiedKey);
+      return executeNonBlocking(op, future);
+   }
+
+   /**
+    * Reads the value from the near cache, or from the server if it is not cached or is due for revalidation.
+    */
+   @SuppressWarnings("unchecked")
+   private V getFromNearCache(byte[] keyBytes) {
+      NearCache.Entry entry = nearCache.get(keyBytes);
+      long now = System.currentTimeMillis();
+      if (entry != null && entry.isValid(now)) {
+         nearCache.recordHit();
+         return (V) entry.getValue();
+      }
+      nearCache.recordMiss();
+      long sequence = nearCache.invalidationSequence(keyBytes);
+      VersionedValue<byte[]> value = operationsFactory.newGetWithVersionOperation(keyBytes).execute();
+      if (value == null) {
+         nearCache.invalidate(keyBytes);
+         return null;
+      }
+      if (entry != null && entry.getVersion() == value.getVersion()) {
+         // not modified since it was cached, no need to unmarshall it again
+         entry.revalidated(now);
+         return (V) entry.getValue();
+      }
+      V result = (V) bytes2obj(value.getValue());
+      nearCache.put(keyBytes, value.getVersion(), result, sequence);
+      return result;
+   }
+
+   private void invalidateNearCache(byte[] keyBytes) {
+      if (nearCache != null) nearCache.invalidate(keyBytes);
+   }
+
+   /**
+    * Invalidates the key now and once the modification completes, so that a read running concurrently with the
+    * modification does not leave the previous value in the near cache.
+    */
+   private <T> void invalidateNearCacheOnCompletion(NotifyingResponseFuture<T> future, final byte[] keyBytes) {
+      if (nearCache == null) return;
+      nearCache.invalidate(keyBytes);
+      future.attachListener(new FutureListener<T>() {
+         @Override
+         public void futureDone(Future<T> future) {
+            nearCache.invalidate(keyBytes);
+         }
+      });
+   }
+
    public PingOperation.PingResult ping() {
       return operationsFactory.newFaultTolerantPingOperation().execute();
    }
 
+   /**
+    * Executes the given operations, each of them targeting a different server, in parallel. The calling thread
+    * executes one of them itself, the others are handed to the async executor.
+    */
+   private <T> List<T> executeInParallel(List<? extends RetryOnFailureOperation<T>> ops) {
+      List<T> results = new ArrayList<T>(ops.size());
+      if (ops.isEmpty()) return results;
+
+      List<Future<T>> futures = new ArrayList<Future<T>>(ops.size() - 1);
+      for (final RetryOnFailureOperation<T> op : ops.subList(1, ops.size())) {
+         try {
+            futures.add(executorService.submit(new Callable<T>() {
+               @Override
+               public T call() throws Exception {
+                  return op.execute();
+               }
+            }));
+         } catch (RejectedExecutionException e) {
+            // the async executor is saturated, don't wait for it
+            results.add(op.execute());
+         }
+      }
+      results.add(ops.get(0).execute());
+      for (Future<T> future : futures) {
+         try {
+            results.add(future.get());
+         } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new HotRodClientException(e);
+         } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException)
+               throw (RuntimeException) e.getCause();
+            throw new HotRodClientException(e.getCause());
+         }
+      }
+      return results;
+   }
+
    private byte[] obj2bytes(Object o, boolean isKey) {
       try {
          return marshaller.objectToByteBuffer(o, isKey ? estimateKeySize : estimateValueSize);
@@ -501,6 +804,21 @@ protected void set(K key, V value) {
       put(key, value, defaultLifespan, MILLISECONDS, defaultMaxIdleTime, MILLISECONDS);
    }
 
+   private class ValueResponseFuture extends NotifyingResponseFuture<V> {
+      @Override
+      @SuppressWarnings("unchecked")
+      protected V convert(Object response) {
+         return (V) bytes2obj((byte[]) response);
+      }
+   }
+
+   private static class VersionedResponseFuture extends NotifyingResponseFuture<Boolean> {
+      @Override
+      protected Boolean convert(Object response) {
+         return ((VersionedOperationResponse) response).getCode().isUpdated();
+      }
+   }
+
    private void applyDefaultExpirationFlags(long lifespan, long maxIdle) {
       if (lifespan == 0) {
          operationsFactory.addFlags(Flag.DEFAULT_LIFESPAN);
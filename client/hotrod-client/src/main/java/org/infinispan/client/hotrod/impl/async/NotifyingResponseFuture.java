@@ -0,0 +1,166 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.client.hotrod.impl.async;
+
+import org.infinispan.util.concurrent.FutureListener;
+import org.infinispan.util.concurrent.NotifyingFuture;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Notifying future completed by the thread reading the responses of one or more requests, rather than by a thread
+ * executing the request. The raw response is converted to the result type by {@link #convert(Object)} in the
+ * thread retrieving the result, so that unmarshalling does not hold up the I/O thread.
+ *
+ * @since 5.2
+ */
+public class NotifyingResponseFuture<T> implements NotifyingFuture<T> {
+
+   private final CountDownLatch done = new CountDownLatch(1);
+   private final AtomicBoolean completed = new AtomicBoolean();
+   private final AtomicInteger pendingResponses;
+   private final CopyOnWriteArraySet<FutureListener<T>> listeners = new CopyOnWriteArraySet<FutureListener<T>>();
+   private volatile Object response;
+   private volatile Throwable failure;
+   private volatile boolean cancelled;
+   private volatile boolean converted;
+   private volatile T result;
+
+   public NotifyingResponseFuture() {
+      this(1);
+   }
+
+   /**
+    * @param expectedResponses the number of responses to receive before the future is done
+    */
+   public NotifyingResponseFuture(int expectedResponses) {
+      this.pendingResponses = new AtomicInteger(expectedResponses);
+   }
+
+   /**
+    * Records one of the expected responses. The future is done once all of them have been received, and its
+    * result is derived from the last one.
+    */
+   public void responseReceived(Object response) {
+      if (pendingResponses.decrementAndGet() == 0 && completed.compareAndSet(false, true)) {
+         this.response = response;
+         done();
+      }
+   }
+
+   /**
+    * Completes the future with the given failure, regardless of how many responses are still expected.
+    */
+   public void failed(Throwable failure) {
+      if (completed.compareAndSet(false, true)) {
+         this.failure = failure;
+         done();
+      }
+   }
+
+   /**
+    * Converts the raw response to the result of the future. By default the response is the result.
+    */
+   @SuppressWarnings("unchecked")
+   protected T convert(Object response) {
+      return (T) response;
+   }
+
+   private void done() {
+      done.countDown();
+      for (FutureListener<T> listener : listeners) {
+         notifyListener(listener);
+      }
+   }
+
+   private void notifyListener(FutureListener<T> listener) {
+      // whoever removes the listener notifies it, so that it is notified exactly once
+      if (listeners.remove(listener)) {
+         listener.futureDone(this);
+      }
+   }
+
+   @Override
+   public NotifyingFuture<T> attachListener(FutureListener<T> futureListener) {
+      listeners.add(futureListener);
+      if (isDone()) {
+         notifyListener(futureListener);
+      }
+      return this;
+   }
+
+   @Override
+   public boolean cancel(boolean mayInterruptIfRunning) {
+      if (completed.compareAndSet(false, true)) {
+         cancelled = true;
+         done();
+         return true;
+      }
+      return false;
+   }
+
+   @Override
+   public boolean isCancelled() {
+      return cancelled;
+   }
+
+   @Override
+   public boolean isDone() {
+      return done.getCount() == 0;
+   }
+
+   @Override
+   public T get() throws InterruptedException, ExecutionException {
+      done.await();
+      return getResult();
+   }
+
+   @Override
+   public T get(long timeout, TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException {
+      if (!done.await(timeout, unit)) {
+         throw new TimeoutException();
+      }
+      return getResult();
+   }
+
+   private T getResult() throws ExecutionException {
+      if (cancelled) {
+         throw new CancellationException();
+      }
+      if (failure != null) {
+         throw new ExecutionException(failure);
+      }
+      if (!converted) {
+         result = convert(response);
+         converted = true;
+      }
+      return result;
+   }
+}
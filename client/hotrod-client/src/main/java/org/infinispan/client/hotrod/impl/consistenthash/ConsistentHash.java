@@ -32,12 +32,14 @@
  * @author Mircea.Markus@jboss.com
  * @since 4.1
  */
-public interface ConsistentHash {
+public interface ConsistentHash extends ServerLocator {
    
    void init(Map<SocketAddress, Set<Integer>> servers2Hash, int numKeyOwners, int hashSpace);
 
+   @Override
    SocketAddress getServer(byte[] key);
 
+   @Override
    int getNormalizedHash(Object key);
 
 }
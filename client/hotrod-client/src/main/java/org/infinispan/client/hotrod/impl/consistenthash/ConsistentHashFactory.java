@@ -25,6 +25,7 @@
 
 import static org.infinispan.client.hotrod.impl.ConfigurationProperties.HASH_FUNCTION_PREFIX;
 
+import java.net.SocketAddress;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
@@ -84,6 +85,17 @@ public ConsistentHash newConsistentHash(int version) {
       return (ConsistentHash) Util.getInstance(hashFunctionClass, classLoader);
    }
 
+   /**
+    * Creates the consistent hash of servers speaking version 1.3 of the protocol, hashing keys with the consistent
+    * hash configured, or defaulted, for the given version.
+    *
+    * @param segmentOwners the owners of each segment, primary owner first
+    */
+   public SegmentConsistentHash newSegmentConsistentHash(int version, SocketAddress[][] segmentOwners) {
+      ConsistentHash hashFunction = newConsistentHash(version);
+      return hashFunction == null ? null : new SegmentConsistentHash(segmentOwners, hashFunction);
+   }
+
    public Map<Integer, String> getVersion2ConsistentHash() {
       return Collections.unmodifiableMap(version2ConsistentHash);
    }
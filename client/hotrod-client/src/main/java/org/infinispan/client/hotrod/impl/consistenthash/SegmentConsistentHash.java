@@ -0,0 +1,74 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.client.hotrod.impl.consistenthash;
+
+import java.net.SocketAddress;
+
+/**
+ * Consistent hash built from the segment owners sent by servers speaking version 1.3 of the protocol. Keys are
+ * mapped to segments exactly like the server side {@link org.infinispan.distribution.ch.DefaultConsistentHash}
+ * does it, and requests go to the primary owner of the key's segment.
+ * <p/>
+ * Keys are hashed by the {@link ConsistentHash} that {@link ConsistentHashFactory} resolves for the hash function
+ * version sent by the servers, so the hash function can be overridden the same way as with older versions of the
+ * protocol.
+ *
+ * @since 5.2
+ */
+public class SegmentConsistentHash implements ServerLocator {
+
+   private final SocketAddress[][] segmentOwners;
+   private final int segmentSize;
+   private final ConsistentHash hashFunction;
+
+   public SegmentConsistentHash(SocketAddress[][] segmentOwners, ConsistentHash hashFunction) {
+      if (segmentOwners.length == 0)
+         throw new IllegalArgumentException("At least one segment is required");
+      this.segmentOwners = segmentOwners;
+      this.hashFunction = hashFunction;
+      // same partitioning as the server
+      this.segmentSize = (int) Math.ceil((double) Integer.MAX_VALUE / segmentOwners.length);
+   }
+
+   /**
+    * @return the primary owner of the key, or <code>null</code> if its segment has no known owner
+    */
+   @Override
+   public SocketAddress getServer(byte[] key) {
+      SocketAddress[] owners = segmentOwners[getSegment(key)];
+      return owners.length == 0 ? null : owners[0];
+   }
+
+   @Override
+   public int getNormalizedHash(Object key) {
+      return hashFunction.getNormalizedHash(key);
+   }
+
+   public int getSegment(Object key) {
+      return getNormalizedHash(key) / segmentSize;
+   }
+
+   public int getNumSegments() {
+      return segmentOwners.length;
+   }
+}
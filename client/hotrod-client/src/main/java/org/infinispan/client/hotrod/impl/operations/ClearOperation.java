@@ -29,6 +29,7 @@
 import org.infinispan.client.hotrod.impl.transport.Transport;
 import org.infinispan.client.hotrod.impl.transport.TransportFactory;
 
+import java.net.SocketAddress;
 import java.util.concurrent.atomic.AtomicInteger;
 
 /**
@@ -38,7 +39,7 @@
  * @since 4.1
  */
 @Immutable
-public class ClearOperation extends RetryOnFailureOperation<Void> {
+public class ClearOperation extends RetryOnFailureOperation<Void> implements NonBlockingOperation<Void> {
 
    public ClearOperation(Codec codec, TransportFactory transportFactory,
             byte[] cacheName, AtomicInteger topologyId, Flag[] flags) {
@@ -52,10 +53,24 @@ protected Transport getTransport(int retryCount) {
 
    @Override
    protected Void executeOperation(Transport transport) {
-      HeaderParams params = writeHeader(transport, CLEAR_REQUEST);
+      HeaderParams params = writeRequest(transport);
       transport.flush();
+      return readResponse(transport, params);
+   }
 
+   @Override
+   public HeaderParams writeRequest(Transport transport) {
+      return writeHeader(transport, CLEAR_REQUEST);
+   }
+
+   @Override
+   public Void readResponse(Transport transport, HeaderParams params) {
       readHeaderAndValidate(transport, params);
       return null;
    }
+
+   @Override
+   public SocketAddress getTargetServer() {
+      return null;
+   }
 }
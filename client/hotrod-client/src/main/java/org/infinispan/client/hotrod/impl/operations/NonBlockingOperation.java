@@ -0,0 +1,58 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.client.hotrod.impl.operations;
+
+import org.infinispan.client.hotrod.impl.protocol.HeaderParams;
+import org.infinispan.client.hotrod.impl.transport.Transport;
+
+import java.net.SocketAddress;
+
+/**
+ * An operation whose request can be written and whose response can be read independently, so that it can be sent
+ * over a multiplexed connection without blocking a thread until the response arrives.
+ * <p/>
+ * {@link #readResponse(Transport, HeaderParams)} is invoked again on the same response if it was not fully received
+ * the first time, so anything it does besides consuming the response, like applying a new topology, must be safe to
+ * repeat.
+ *
+ * @since 5.2
+ */
+public interface NonBlockingOperation<T> {
+
+   /**
+    * Writes the whole request, without flushing the transport.
+    *
+    * @return the header parameters needed to read the response
+    */
+   HeaderParams writeRequest(Transport transport);
+
+   /**
+    * Reads the response of a request previously written with {@link #writeRequest(Transport)}.
+    */
+   T readResponse(Transport transport, HeaderParams params);
+
+   /**
+    * @return the server this operation should preferably be sent to, or <code>null</code> if any server will do
+    */
+   SocketAddress getTargetServer();
+}
@@ -31,8 +31,13 @@
 import org.infinispan.client.hotrod.impl.transport.Transport;
 import org.infinispan.client.hotrod.impl.transport.TransportFactory;
 
+import java.net.SocketAddress;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.atomic.AtomicInteger;
 
 /**
@@ -141,6 +146,62 @@ public BulkGetOperation newBulkGetOperation(int size) {
             codec, transportFactory, cacheNameBytes, topologyId, flags(), size);
    }
 
+   /**
+    * @return true if the servers handle {@link #newGetAllOperations(Set)} and {@link #newPutAllOperations(Map, int, int)}
+    *         with the configured protocol version
+    */
+   public boolean isBulkOperationSupported() {
+      return codec.isBulkOperationSupported();
+   }
+
+   /**
+    * Construct the get all requests needed to read the given keys, one per server owning some of them, so that
+    * they can be sent in parallel.
+    */
+   public List<GetAllOperation> newGetAllOperations(Set<byte[]> keys) {
+      Flag[] flags = flags();
+      Map<SocketAddress, Set<byte[]>> keysByServer = new HashMap<SocketAddress, Set<byte[]>>();
+      for (byte[] key : keys) {
+         SocketAddress server = transportFactory.getServer(key);
+         Set<byte[]> serverKeys = keysByServer.get(server);
+         if (serverKeys == null) {
+            serverKeys = new HashSet<byte[]>();
+            keysByServer.put(server, serverKeys);
+         }
+         serverKeys.add(key);
+      }
+      List<GetAllOperation> ops = new ArrayList<GetAllOperation>(keysByServer.size());
+      for (Map.Entry<SocketAddress, Set<byte[]>> e : keysByServer.entrySet()) {
+         ops.add(new GetAllOperation(
+               codec, transportFactory, cacheNameBytes, topologyId, flags, e.getValue(), e.getKey()));
+      }
+      return ops;
+   }
+
+   /**
+    * Construct the put all requests needed to store the given entries, one per server owning some of them, so that
+    * they can be sent in parallel.
+    */
+   public List<PutAllOperation> newPutAllOperations(Map<byte[], byte[]> entries, int lifespanSecs, int maxIdleSecs) {
+      Flag[] flags = flags();
+      Map<SocketAddress, Map<byte[], byte[]>> entriesByServer = new HashMap<SocketAddress, Map<byte[], byte[]>>();
+      for (Map.Entry<byte[], byte[]> entry : entries.entrySet()) {
+         SocketAddress server = transportFactory.getServer(entry.getKey());
+         Map<byte[], byte[]> serverEntries = entriesByServer.get(server);
+         if (serverEntries == null) {
+            serverEntries = new HashMap<byte[], byte[]>();
+            entriesByServer.put(server, serverEntries);
+         }
+         serverEntries.put(entry.getKey(), entry.getValue());
+      }
+      List<PutAllOperation> ops = new ArrayList<PutAllOperation>(entriesByServer.size());
+      for (Map.Entry<SocketAddress, Map<byte[], byte[]>> e : entriesByServer.entrySet()) {
+         ops.add(new PutAllOperation(codec, transportFactory, cacheNameBytes, topologyId, flags,
+               e.getValue(), lifespanSecs, maxIdleSecs, e.getKey()));
+      }
+      return ops;
+   }
+
    /**
     * Construct a ping request directed to a particular node.
     *
@@ -40,7 +40,8 @@
  * @since 4.1
  */
 @Immutable
-public class RemoveIfUnmodifiedOperation extends AbstractKeyOperation<VersionedOperationResponse> {
+public class RemoveIfUnmodifiedOperation extends AbstractKeyOperation<VersionedOperationResponse>
+      implements NonBlockingOperation<VersionedOperationResponse> {
 
    private final long version;
 
@@ -52,15 +53,26 @@ public RemoveIfUnmodifiedOperation(Codec codec, TransportFactory transportFactor
 
    @Override
    protected VersionedOperationResponse executeOperation(Transport transport) {
+      HeaderParams params = writeRequest(transport);
+      transport.flush();
+
+      //process response and return
+      return readResponse(transport, params);
+   }
+
+   @Override
+   public HeaderParams writeRequest(Transport transport) {
       // 1) write header
       HeaderParams params = writeHeader(transport, REMOVE_IF_UNMODIFIED_REQUEST);
 
       //2) write message body
       transport.writeArray(key);
       transport.writeLong(version);
-      transport.flush();
+      return params;
+   }
 
-      //process response and return
+   @Override
+   public VersionedOperationResponse readResponse(Transport transport, HeaderParams params) {
       return returnVersionedOperationResponse(transport, params);
    }
 }
@@ -38,7 +38,8 @@
  * @author Mircea.Markus@jboss.com
  * @since 4.1
  */
-public class ReplaceIfUnmodifiedOperation extends AbstractKeyValueOperation<VersionedOperationResponse> {
+public class ReplaceIfUnmodifiedOperation extends AbstractKeyValueOperation<VersionedOperationResponse>
+      implements NonBlockingOperation<VersionedOperationResponse> {
    private final long version;
 
    public ReplaceIfUnmodifiedOperation(Codec codec, TransportFactory transportFactory, byte[] key, byte[] cacheName,
@@ -50,6 +51,13 @@ public ReplaceIfUnmodifiedOperation(Codec codec, TransportFactory transportFacto
 
    @Override
    protected VersionedOperationResponse executeOperation(Transport transport) {
+      HeaderParams params = writeRequest(transport);
+      transport.flush();
+      return readResponse(transport, params);
+   }
+
+   @Override
+   public HeaderParams writeRequest(Transport transport) {
       // 1) write header
       HeaderParams params = writeHeader(transport, REPLACE_IF_UNMODIFIED_REQUEST);
 
@@ -59,8 +67,11 @@ protected VersionedOperationResponse executeOperation(Transport transport) {
       transport.writeVInt(maxIdle);
       transport.writeLong(version);
       transport.writeArray(value);
-      transport.flush();
+      return params;
+   }
 
+   @Override
+   public VersionedOperationResponse readResponse(Transport transport, HeaderParams params) {
       return returnVersionedOperationResponse(transport, params);
    }
 }
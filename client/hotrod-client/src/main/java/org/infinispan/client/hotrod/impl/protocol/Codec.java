@@ -42,6 +42,12 @@ public interface Codec {
     */
    short readHeader(Transport transport, HeaderParams params);
 
+   /**
+    * Tells whether the servers speaking this version of the protocol handle the get all and put all operations, which
+    * otherwise have to be sent as one get or put per key.
+    */
+   boolean isBulkOperationSupported();
+
    /**
     * Logger for Hot Rod client codec
     */
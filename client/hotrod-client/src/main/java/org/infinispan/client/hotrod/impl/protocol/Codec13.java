@@ -0,0 +1,106 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.client.hotrod.impl.protocol;
+
+import org.infinispan.client.hotrod.impl.transport.Transport;
+import org.infinispan.client.hotrod.logging.Log;
+import org.infinispan.client.hotrod.logging.LogFactory;
+
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A Hot Rod encoder/decoder for version 1.3 of the protocol.
+ * <p/>
+ * Instead of hash ids from which the client builds its own hash wheel, topology updates carry the list of servers
+ * followed by the owners of every segment of the server side consistent hash, as indexes into that list.
+ *
+ * @since 5.2
+ */
+public class Codec13 extends Codec12 {
+
+   private static final Log log = LogFactory.getLog(Codec13.class, Log.class);
+
+   @Override
+   public HeaderParams writeHeader(Transport transport, HeaderParams params) {
+      return writeHeader(transport, params, HotRodConstants.VERSION_13);
+   }
+
+   @Override
+   public boolean isBulkOperationSupported() {
+      return true;
+   }
+
+   @Override
+   protected void readNewTopologyAndHash(Transport transport, AtomicInteger topologyId) {
+      final Log localLog = getLog();
+      int newTopologyId = transport.readVInt();
+      topologyId.set(newTopologyId);
+
+      int clusterSize = transport.readVInt();
+      SocketAddress[] servers = new SocketAddress[clusterSize];
+      for (int i = 0; i < clusterSize; i++) {
+         String host = transport.readString();
+         int port = transport.readUnsignedShort();
+         localLog.tracef("Server read: %s:%d", host, port);
+         servers[i] = new InetSocketAddress(host, port);
+      }
+
+      short hashFunctionVersion = transport.readByte();
+      int numSegments = transport.readVInt();
+      if (localLog.isTraceEnabled()) {
+         localLog.tracef("Topology change request: newTopologyId=%d, hashFunctionVersion=%d, clusterSize=%d, " +
+               "numSegments=%d", newTopologyId, hashFunctionVersion, clusterSize, numSegments);
+      }
+      SocketAddress[][] segmentOwners = new SocketAddress[numSegments][];
+      for (int i = 0; i < numSegments; i++) {
+         short numOwners = transport.readByte();
+         segmentOwners[i] = new SocketAddress[numOwners];
+         for (int j = 0; j < numOwners; j++) {
+            segmentOwners[i][j] = servers[transport.readVInt()];
+         }
+      }
+
+      Set<SocketAddress> socketAddresses = new LinkedHashSet<SocketAddress>(clusterSize);
+      for (SocketAddress server : servers) socketAddresses.add(server);
+      if (localLog.isInfoEnabled()) {
+         localLog.newTopology(transport.getRemoteSocketAddress(), newTopologyId,
+               socketAddresses.size(), socketAddresses);
+      }
+      transport.getTransportFactory().updateServers(socketAddresses);
+      if (hashFunctionVersion == 0 || numSegments == 0) {
+         localLog.trace("Not using a consistent hash function (hash function version == 0).");
+      } else {
+         transport.getTransportFactory().updateHashFunction(segmentOwners, hashFunctionVersion);
+      }
+   }
+
+   @Override
+   public Log getLog() {
+      return log;
+   }
+
+}
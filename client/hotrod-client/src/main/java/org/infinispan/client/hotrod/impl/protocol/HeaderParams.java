@@ -76,6 +76,14 @@ public HeaderParams messageId(long messageId) {
       return this;
    }
 
+   public long getMessageId() {
+      return messageId;
+   }
+
+   public short getOpRespCode() {
+      return opRespCode;
+   }
+
    private short toOpRespCode(short opCode) {
       switch (opCode) {
          case HotRodConstants.PUT_REQUEST:
@@ -106,6 +114,10 @@ private short toOpRespCode(short opCode) {
             return HotRodConstants.BULK_GET_RESPONSE;
          case HotRodConstants.GET_WITH_METADATA:
             return HotRodConstants.GET_WITH_METADATA_RESPONSE;
+         case HotRodConstants.GET_ALL_REQUEST:
+            return HotRodConstants.GET_ALL_RESPONSE;
+         case HotRodConstants.PUT_ALL_REQUEST:
+            return HotRodConstants.PUT_ALL_RESPONSE;
          default:
             throw new IllegalStateException("Unknown operation code: " + opCode);
       }
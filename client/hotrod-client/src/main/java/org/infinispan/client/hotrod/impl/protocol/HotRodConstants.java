@@ -38,6 +38,7 @@ public interface HotRodConstants {
    static final byte VERSION_10 = 10;
    static final byte VERSION_11 = 11;
    static final byte VERSION_12 = 12;
+   static final byte VERSION_13 = 13;
 
    //requests
    static final byte PUT_REQUEST = 0x01;
@@ -54,6 +55,8 @@ public interface HotRodConstants {
    static final byte PING_REQUEST = 0x17;
    static final byte BULK_GET_REQUEST = 0x19;
    static final byte GET_WITH_METADATA = 0x1B;
+   static final byte GET_ALL_REQUEST = 0x1D;
+   static final byte PUT_ALL_REQUEST = 0x1F;
 
 
    //responses
@@ -71,6 +74,8 @@ public interface HotRodConstants {
    static final byte PING_RESPONSE = 0x18;
    static final byte BULK_GET_RESPONSE = 0x1A;
    static final byte GET_WITH_METADATA_RESPONSE = 0x1C;
+   static final byte GET_ALL_RESPONSE = 0x1E;
+   static final byte PUT_ALL_RESPONSE = 0x20;
    static final byte ERROR_RESPONSE = 0x50;
 
    //response status
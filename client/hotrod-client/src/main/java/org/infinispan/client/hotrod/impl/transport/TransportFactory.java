@@ -52,10 +52,33 @@ public interface TransportFactory {
 
    void updateHashFunction(Map<SocketAddress, Set<Integer>> servers2Hash, int numKeyOwners, short hashFunctionVersion, int hashSpace);
 
+   /**
+    * Installs a consistent hash routing keys by segment, as sent by servers speaking version 1.3 of the protocol.
+    *
+    * @param segmentOwners the owners of each segment, primary owner first
+    */
+   void updateHashFunction(SocketAddress[][] segmentOwners, short hashFunctionVersion);
+
    ConsistentHashFactory getConsistentHashFactory();
 
    Transport getTransport(byte[] key);
 
+   /**
+    * Returns a transport connected to the given server, or to any server if it is <code>null</code>.
+    */
+   Transport getTransport(SocketAddress server);
+
+   /**
+    * Returns the server owning the given key according to the current consistent hash, or <code>null</code> if no
+    * hash information has been received from the servers yet.
+    */
+   SocketAddress getServer(byte[] key);
+
+   /**
+    * Returns the servers currently known to the client.
+    */
+   Collection<SocketAddress> getServers();
+
    boolean isTcpNoDelay();
 
    int getTransportCount();
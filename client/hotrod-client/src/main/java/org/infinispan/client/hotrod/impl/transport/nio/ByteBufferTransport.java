@@ -0,0 +1,154 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.client.hotrod.impl.transport.nio;
+
+import org.infinispan.client.hotrod.exceptions.TransportException;
+import org.infinispan.client.hotrod.impl.transport.AbstractTransport;
+import org.infinispan.client.hotrod.impl.transport.TransportFactory;
+import org.infinispan.io.ExposedByteArrayOutputStream;
+
+import java.io.IOException;
+import java.net.SocketAddress;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+
+import static org.infinispan.io.UnsignedNumeric.readUnsignedInt;
+import static org.infinispan.io.UnsignedNumeric.readUnsignedLong;
+import static org.infinispan.io.UnsignedNumeric.writeUnsignedInt;
+import static org.infinispan.io.UnsignedNumeric.writeUnsignedLong;
+
+/**
+ * Transport working on in-memory buffers, used to encode requests and decode responses exchanged over a
+ * {@link MultiplexedConnection}. Writes are accumulated in a growable buffer, while reads are served from the
+ * response buffer set with {@link #setResponseBuffer(ByteBuffer)}. Reading past the data received so far throws
+ * a {@link BufferUnderflowException}, which tells the connection to wait for more data before decoding again.
+ *
+ * @since 5.2
+ */
+public class ByteBufferTransport extends AbstractTransport {
+
+   private final SocketAddress serverAddress;
+   private ExposedByteArrayOutputStream out;
+   private ByteBuffer in;
+
+   public ByteBufferTransport(TransportFactory transportFactory, SocketAddress serverAddress) {
+      super(transportFactory);
+      this.serverAddress = serverAddress;
+   }
+
+   /**
+    * @return the bytes written so far, ready to be sent
+    */
+   public ByteBuffer getRequestBuffer() {
+      return ByteBuffer.wrap(out.getRawBuffer(), 0, out.size());
+   }
+
+   /**
+    * Sets the buffer the responses are read from, which must be ready to be read from.
+    */
+   public void setResponseBuffer(ByteBuffer in) {
+      this.in = in;
+   }
+
+   private ExposedByteArrayOutputStream out() {
+      if (out == null) out = new ExposedByteArrayOutputStream(256);
+      return out;
+   }
+
+   @Override
+   public void writeByte(short toWrite) {
+      out().write(toWrite);
+   }
+
+   @Override
+   protected void writeBytes(byte[] toAppend) {
+      out().write(toAppend, 0, toAppend.length);
+   }
+
+   @Override
+   public void writeVInt(int vint) {
+      try {
+         writeUnsignedInt(out(), vint);
+      } catch (IOException e) {
+         // cannot happen when writing to memory
+         throw new TransportException(e);
+      }
+   }
+
+   @Override
+   public void writeVLong(long l) {
+      try {
+         writeUnsignedLong(out(), l);
+      } catch (IOException e) {
+         throw new TransportException(e);
+      }
+   }
+
+   @Override
+   public void flush() {
+      // requests are sent by the connection once fully written
+   }
+
+   @Override
+   public short readByte() {
+      return (short) (in.get() & 0xFF);
+   }
+
+   @Override
+   public int readVInt() {
+      return readUnsignedInt(in);
+   }
+
+   @Override
+   public long readVLong() {
+      return readUnsignedLong(in);
+   }
+
+   @Override
+   public byte[] readByteArray(int size) {
+      if (in.remaining() < size) {
+         throw new BufferUnderflowException();
+      }
+      byte[] result = new byte[size];
+      in.get(result);
+      return result;
+   }
+
+   @Override
+   public void release() {
+      // nothing to release, the connection is shared
+   }
+
+   @Override
+   public byte[] dumpStream() {
+      ByteBuffer dump = in.duplicate();
+      byte[] bytes = new byte[dump.remaining()];
+      dump.get(bytes);
+      return bytes;
+   }
+
+   @Override
+   public SocketAddress getRemoteSocketAddress() {
+      return serverAddress;
+   }
+}
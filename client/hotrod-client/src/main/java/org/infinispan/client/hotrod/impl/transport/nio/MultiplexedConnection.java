@@ -0,0 +1,355 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.client.hotrod.impl.transport.nio;
+
+import org.infinispan.client.hotrod.exceptions.HotRodClientException;
+import org.infinispan.client.hotrod.exceptions.HotRodTimeoutException;
+import org.infinispan.client.hotrod.exceptions.InvalidResponseException;
+import org.infinispan.client.hotrod.exceptions.TransportException;
+import org.infinispan.client.hotrod.impl.async.NotifyingResponseFuture;
+import org.infinispan.client.hotrod.impl.operations.NonBlockingOperation;
+import org.infinispan.client.hotrod.impl.protocol.HeaderParams;
+import org.infinispan.client.hotrod.impl.protocol.HotRodConstants;
+import org.infinispan.client.hotrod.impl.transport.TransportFactory;
+import org.infinispan.client.hotrod.logging.Log;
+import org.infinispan.client.hotrod.logging.LogFactory;
+
+import java.io.IOException;
+import java.net.SocketAddress;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A non-blocking connection to a Hot Rod server carrying any number of in-flight requests. Responses are matched to
+ * their requests through the message id, so they can be received in any order.
+ * <p/>
+ * Requests can be sent from any thread, but all socket I/O, as well as the completion of the futures, happens in
+ * the I/O thread of the {@link NioConnectionManager} owning the connection. That includes connecting: the connection is
+ * established in the background, and requests sent in the meantime are queued until it is.
+ * <p/>
+ * A response which cannot be decoded only fails the request it belongs to. As responses carry no length, the
+ * connection then skips to the next byte sequence starting like a response to a request which is still waiting for
+ * one: the magic byte, the message id of that request and the response code of its operation.
+ *
+ * @since 5.2
+ */
+class MultiplexedConnection {
+
+   private static final Log log = LogFactory.getLog(MultiplexedConnection.class, Log.class);
+
+   private static final int INITIAL_READ_BUFFER_SIZE = 8 * 1024;
+   // how many socket timeouts the late response of an expired request is waited for before being considered lost
+   private static final int EXPIRED_RETENTION_TIMEOUTS = 4;
+
+   private final NioConnectionManager manager;
+   private final TransportFactory transportFactory;
+   private final SocketAddress serverAddress;
+   private final SocketChannel channel;
+   private final long connectStarted = System.currentTimeMillis();
+   private final ConcurrentMap<Long, PendingRequest> pending = new ConcurrentHashMap<Long, PendingRequest>();
+   // only accessed by the I/O thread
+   private final Map<Long, PendingRequest> expired = new HashMap<Long, PendingRequest>();
+   private final Queue<ByteBuffer> writeQueue = new ConcurrentLinkedQueue<ByteBuffer>();
+   private final AtomicBoolean writeScheduled = new AtomicBoolean();
+   private final ByteBufferTransport responseTransport;
+   private ByteBuffer readBuffer = ByteBuffer.allocate(INITIAL_READ_BUFFER_SIZE);
+   private SelectionKey key;
+   private boolean resyncing;
+   private volatile boolean open = true;
+
+   MultiplexedConnection(NioConnectionManager manager, TransportFactory transportFactory,
+                         SocketAddress serverAddress) {
+      this.manager = manager;
+      this.transportFactory = transportFactory;
+      this.serverAddress = serverAddress;
+      this.responseTransport = new ByteBufferTransport(transportFactory, serverAddress);
+      SocketChannel channel = null;
+      try {
+         channel = SocketChannel.open();
+         channel.configureBlocking(false);
+         channel.socket().setTcpNoDelay(transportFactory.isTcpNoDelay());
+         // finished by the I/O thread, unless it connects right away
+         channel.connect(serverAddress);
+      } catch (IOException e) {
+         closeQuietly(channel);
+         throw new TransportException(String.format("Could not connect to server: %s", serverAddress), e);
+      }
+      this.channel = channel;
+   }
+
+   SocketAddress getServerAddress() {
+      return serverAddress;
+   }
+
+   boolean isOpen() {
+      return open;
+   }
+
+   /**
+    * Encodes the request in the calling thread and queues it for the I/O thread.
+    */
+   void send(NonBlockingOperation<?> op, NotifyingResponseFuture<?> future) {
+      ByteBufferTransport requestTransport = new ByteBufferTransport(transportFactory, serverAddress);
+      HeaderParams params = op.writeRequest(requestTransport);
+      pending.put(params.getMessageId(), new PendingRequest(op, params, future));
+      writeQueue.add(requestTransport.getRequestBuffer());
+      if (!open) {
+         // closed concurrently, the I/O thread might not see this request anymore
+         pending.remove(params.getMessageId());
+         future.failed(new TransportException("Connection to " + serverAddress + " is closed"));
+         return;
+      }
+      if (writeScheduled.compareAndSet(false, true)) {
+         manager.scheduleWrite(this);
+      }
+   }
+
+   // Everything below runs in the I/O thread
+
+   void register(Selector selector) throws IOException {
+      if (channel.isConnectionPending()) {
+         key = channel.register(selector, SelectionKey.OP_CONNECT, this);
+      } else {
+         key = channel.register(selector, SelectionKey.OP_READ, this);
+         // requests might have been queued before the registration
+         flushWrites();
+      }
+   }
+
+   void finishConnect() throws IOException {
+      if (!channel.finishConnect()) return;
+      if (log.isTraceEnabled()) log.tracef("Connected to %s", serverAddress);
+      key.interestOps(SelectionKey.OP_READ);
+      // requests might have been queued while connecting
+      flushWrites();
+   }
+
+   /**
+    * Closes the connection if it could not be established within the given timeout.
+    */
+   void checkConnectTimeout(long now, long connectTimeoutMillis) {
+      if (open && !channel.isConnected() && now - connectStarted > connectTimeoutMillis) {
+         close(new TransportException(String.format("Could not connect to server %s within %d ms", serverAddress,
+                                                    connectTimeoutMillis)));
+      }
+   }
+
+   void flushWrites() throws IOException {
+      writeScheduled.set(false);
+      if (key == null || !open || !channel.isConnected()) return;
+      ByteBuffer buffer;
+      while ((buffer = writeQueue.peek()) != null) {
+         channel.write(buffer);
+         if (buffer.hasRemaining()) {
+            // the socket buffer is full, wait until it can be written to again
+            key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+            return;
+         }
+         writeQueue.poll();
+      }
+      key.interestOps(SelectionKey.OP_READ);
+   }
+
+   void read() throws IOException {
+      if (!readBuffer.hasRemaining()) {
+         // a single response is bigger than the buffer
+         ByteBuffer bigger = ByteBuffer.allocate(readBuffer.capacity() * 2);
+         readBuffer.flip();
+         bigger.put(readBuffer);
+         readBuffer = bigger;
+      }
+      int read = channel.read(readBuffer);
+      if (read < 0) {
+         close(new TransportException("Connection closed by server " + serverAddress));
+         return;
+      }
+      readBuffer.flip();
+      try {
+         decodeResponses();
+      } finally {
+         readBuffer.compact();
+      }
+   }
+
+   private void decodeResponses() {
+      responseTransport.setResponseBuffer(readBuffer);
+      while (open && readBuffer.hasRemaining()) {
+         if (resyncing && !skipToNextResponse()) return;
+         int start = readBuffer.position();
+         PendingRequest request = null;
+         long messageId = -1;
+         try {
+            // peek at the message id to find out which request the response belongs to
+            short magic = responseTransport.readByte();
+            messageId = responseTransport.readVLong();
+            readBuffer.position(start);
+            if (magic == HotRodConstants.RESPONSE_MAGIC) {
+               request = pending.get(messageId);
+               // a late response, decoded and discarded
+               if (request == null) request = expired.get(messageId);
+            }
+            if (request == null) {
+               log.debugf("Received unexpected response with message id %d from %s, skipping it", messageId, serverAddress);
+               readBuffer.position(start + 1);
+               resyncing = true;
+               continue;
+            }
+            Object response = request.op.readResponse(responseTransport, request.params);
+            forget(messageId);
+            request.future.responseReceived(response);
+         } catch (BufferUnderflowException e) {
+            // the response has not been fully received yet, decode it again when more data arrives
+            readBuffer.position(start);
+            return;
+         } catch (InvalidResponseException e) {
+            // where this response ends is unknown, skip to the next one
+            forget(messageId);
+            request.future.failed(e);
+            readBuffer.position(start + 1);
+            resyncing = true;
+         } catch (HotRodClientException e) {
+            // an error response, which has been fully read, so the next response can be decoded
+            forget(messageId);
+            request.future.failed(e);
+         } catch (RuntimeException e) {
+            close(new TransportException(e));
+            return;
+         }
+      }
+   }
+
+   /**
+    * Skips the bytes received until the start of a response to a request which is still waiting for one.
+    *
+    * @return true if such a response starts at the current position, false if more data is needed
+    */
+   private boolean skipToNextResponse() {
+      while (readBuffer.hasRemaining()) {
+         int start = readBuffer.position();
+         try {
+            if (responseTransport.readByte() == HotRodConstants.RESPONSE_MAGIC) {
+               long messageId = responseTransport.readVLong();
+               PendingRequest request = pending.get(messageId);
+               if (request == null) request = expired.get(messageId);
+               if (request != null) {
+                  short opCode = responseTransport.readByte();
+                  if (opCode == request.params.getOpRespCode() || opCode == HotRodConstants.ERROR_RESPONSE) {
+                     readBuffer.position(start);
+                     resyncing = false;
+                     return true;
+                  }
+               }
+            }
+            readBuffer.position(start + 1);
+         } catch (BufferUnderflowException e) {
+            readBuffer.position(start);
+            return false;
+         }
+      }
+      return false;
+   }
+
+   private void forget(long messageId) {
+      if (pending.remove(messageId) == null) expired.remove(messageId);
+   }
+
+   /**
+    * Fails the requests that have been waiting for longer than the socket timeout. Their responses are still
+    * consumed and discarded if they eventually arrive, unless they are late by several timeouts.
+    */
+   void expireRequests(long now, long timeoutMillis) {
+      for (Iterator<PendingRequest> it = pending.values().iterator(); it.hasNext(); ) {
+         PendingRequest request = it.next();
+         if (now - request.sent > timeoutMillis) {
+            it.remove();
+            expired.put(request.params.getMessageId(), request);
+            request.future.failed(new HotRodTimeoutException(String.format(
+                  "No response received from %s for message %d within %d ms",
+                  serverAddress, request.params.getMessageId(), timeoutMillis)));
+         }
+      }
+      for (Iterator<PendingRequest> it = expired.values().iterator(); it.hasNext(); ) {
+         if (now - it.next().sent > EXPIRED_RETENTION_TIMEOUTS * timeoutMillis) it.remove();
+      }
+   }
+
+   void close(Throwable cause) {
+      if (!open) return;
+      open = false;
+      manager.connectionClosed(this);
+      if (log.isDebugEnabled()) {
+         log.debugf(cause, "Closing multiplexed connection to %s", serverAddress);
+      }
+      if (key != null) key.cancel();
+      closeQuietly(channel);
+      for (Iterator<PendingRequest> it = pending.values().iterator(); it.hasNext(); ) {
+         PendingRequest request = it.next();
+         it.remove();
+         request.future.failed(cause);
+      }
+      expired.clear();
+      writeQueue.clear();
+   }
+
+   private void closeQuietly(SocketChannel channel) {
+      if (channel == null) return;
+      try {
+         channel.close();
+      } catch (IOException e) {
+         log.tracef(e, "Error closing channel to %s", serverAddress);
+      }
+   }
+
+   @Override
+   public String toString() {
+      return "MultiplexedConnection{" +
+            "serverAddress=" + serverAddress +
+            ", pendingRequests=" + pending.size() +
+            ", open=" + open +
+            '}';
+   }
+
+   private static class PendingRequest {
+      final NonBlockingOperation<?> op;
+      final HeaderParams params;
+      final NotifyingResponseFuture<?> future;
+      final long sent = System.currentTimeMillis();
+
+      PendingRequest(NonBlockingOperation<?> op, HeaderParams params, NotifyingResponseFuture<?> future) {
+         this.op = op;
+         this.params = params;
+         this.future = future;
+      }
+   }
+}
@@ -0,0 +1,247 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.client.hotrod.impl.transport.nio;
+
+import org.infinispan.client.hotrod.exceptions.HotRodClientException;
+import org.infinispan.client.hotrod.exceptions.TransportException;
+import org.infinispan.client.hotrod.impl.async.NotifyingResponseFuture;
+import org.infinispan.client.hotrod.impl.operations.NonBlockingOperation;
+import org.infinispan.client.hotrod.impl.transport.TransportFactory;
+import org.infinispan.client.hotrod.logging.Log;
+import org.infinispan.client.hotrod.logging.LogFactory;
+
+import java.io.IOException;
+import java.net.SocketAddress;
+import java.nio.channels.CancelledKeyException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Sends {@link NonBlockingOperation}s over one {@link MultiplexedConnection} per server and completes their futures
+ * when the responses arrive, without holding a thread per in-flight request. A single I/O thread drives all the
+ * connections through a {@link Selector}.
+ * <p/>
+ * Operations are routed to the server returned by {@link NonBlockingOperation#getTargetServer()}, or to the next
+ * server in round robin order if the operation does not target a specific server. Failed operations are not retried
+ * on other servers: the failure is reported through the future.
+ *
+ * @since 5.2
+ */
+public class NioConnectionManager {
+
+   private static final Log log = LogFactory.getLog(NioConnectionManager.class, Log.class);
+
+   private final TransportFactory transportFactory;
+   private final ConcurrentMap<SocketAddress, MultiplexedConnection> connections =
+         new ConcurrentHashMap<SocketAddress, MultiplexedConnection>();
+   private final Queue<MultiplexedConnection> pendingRegistrations = new ConcurrentLinkedQueue<MultiplexedConnection>();
+   private final Queue<MultiplexedConnection> pendingWrites = new ConcurrentLinkedQueue<MultiplexedConnection>();
+   private final AtomicInteger roundRobin = new AtomicInteger();
+   private final long timeoutMillis;
+   private final long connectTimeoutMillis;
+   private final long selectTimeoutMillis;
+   private Selector selector;
+   private Thread ioThread;
+   private volatile boolean running;
+
+   /**
+    * @param transportFactory provides the servers, the connection settings, and the socket timeout after which
+    *                         requests without a response fail
+    */
+   public NioConnectionManager(TransportFactory transportFactory) {
+      this.transportFactory = transportFactory;
+      this.timeoutMillis = transportFactory.getSoTimeout();
+      this.connectTimeoutMillis = transportFactory.getConnectTimeout();
+      // wake up often enough to enforce both timeouts, 0 waits for I/O indefinitely
+      if (timeoutMillis <= 0 || connectTimeoutMillis <= 0)
+         selectTimeoutMillis = Math.max(0, Math.max(timeoutMillis, connectTimeoutMillis));
+      else
+         selectTimeoutMillis = Math.min(timeoutMillis, connectTimeoutMillis);
+   }
+
+   /**
+    * Starts the I/O thread. Connections are opened lazily, on the first request sent to each server.
+    */
+   public void start() {
+      try {
+         selector = Selector.open();
+      } catch (IOException e) {
+         throw new TransportException("Could not open selector", e);
+      }
+      running = true;
+      ioThread = new Thread(new Runnable() {
+         @Override
+         public void run() {
+            ioLoop();
+         }
+      }, "HotRod-client-nio");
+      ioThread.setDaemon(true);
+      ioThread.start();
+   }
+
+   /**
+    * Stops the I/O thread, which closes all the connections and fails the requests still waiting for a response.
+    */
+   public void stop() {
+      running = false;
+      selector.wakeup();
+      try {
+         ioThread.join(timeoutMillis);
+      } catch (InterruptedException e) {
+         Thread.currentThread().interrupt();
+      }
+   }
+
+   /**
+    * Sends the operation's request and returns immediately. The future is completed with the decoded response, or
+    * failed, by the I/O thread.
+    */
+   public void execute(NonBlockingOperation<?> op, NotifyingResponseFuture<?> future) {
+      if (!running) {
+         future.failed(new HotRodClientException("The NIO transport has been stopped"));
+         return;
+      }
+      SocketAddress server = op.getTargetServer();
+      if (server == null) server = nextServer();
+      MultiplexedConnection connection;
+      try {
+         connection = getConnection(server);
+      } catch (TransportException e) {
+         future.failed(e);
+         return;
+      }
+      try {
+         connection.send(op, future);
+      } catch (HotRodClientException e) {
+         future.failed(e);
+      }
+   }
+
+   private SocketAddress nextServer() {
+      List<SocketAddress> servers = new ArrayList<SocketAddress>(transportFactory.getServers());
+      if (servers.isEmpty()) throw new TransportException("No Hot Rod servers are available");
+      int index = roundRobin.getAndIncrement() & Integer.MAX_VALUE;
+      return servers.get(index % servers.size());
+   }
+
+   /**
+    * Returns the connection to the server, opening it if needed. Opening a connection doesn't wait for it to be
+    * established, the I/O thread completes the connect, so the lock is never held for long.
+    */
+   private MultiplexedConnection getConnection(SocketAddress server) {
+      MultiplexedConnection connection = connections.get(server);
+      if (connection != null && connection.isOpen()) return connection;
+      synchronized (this) {
+         connection = connections.get(server);
+         if (connection == null || !connection.isOpen()) {
+            if (log.isTraceEnabled()) log.tracef("Opening multiplexed connection to %s", server);
+            connection = new MultiplexedConnection(this, transportFactory, server);
+            connections.put(server, connection);
+            pendingRegistrations.add(connection);
+            selector.wakeup();
+         }
+         return connection;
+      }
+   }
+
+   void scheduleWrite(MultiplexedConnection connection) {
+      pendingWrites.add(connection);
+      selector.wakeup();
+   }
+
+   void connectionClosed(MultiplexedConnection connection) {
+      connections.remove(connection.getServerAddress(), connection);
+   }
+
+   private void ioLoop() {
+      long nextExpiration = System.currentTimeMillis() + timeoutMillis;
+      try {
+         while (running) {
+            selector.select(selectTimeoutMillis);
+            MultiplexedConnection connection;
+            while ((connection = pendingRegistrations.poll()) != null) {
+               try {
+                  connection.register(selector);
+               } catch (IOException e) {
+                  connection.close(new TransportException(e));
+               }
+            }
+            while ((connection = pendingWrites.poll()) != null) {
+               try {
+                  connection.flushWrites();
+               } catch (IOException e) {
+                  connection.close(new TransportException(e));
+               }
+            }
+            for (Iterator<SelectionKey> it = selector.selectedKeys().iterator(); it.hasNext(); ) {
+               SelectionKey key = it.next();
+               it.remove();
+               connection = (MultiplexedConnection) key.attachment();
+               try {
+                  if (key.isConnectable()) connection.finishConnect();
+                  if (key.isWritable()) connection.flushWrites();
+                  if (key.isReadable()) connection.read();
+               } catch (CancelledKeyException e) {
+                  connection.close(new TransportException(e));
+               } catch (IOException e) {
+                  connection.close(new TransportException(e));
+               }
+            }
+            long now = System.currentTimeMillis();
+            if (timeoutMillis > 0 && now >= nextExpiration) {
+               for (MultiplexedConnection c : connections.values()) c.expireRequests(now, timeoutMillis);
+               nextExpiration = now + timeoutMillis;
+            }
+            if (connectTimeoutMillis > 0) {
+               for (MultiplexedConnection c : connections.values()) c.checkConnectTimeout(now, connectTimeoutMillis);
+            }
+         }
+      } catch (Throwable t) {
+         log.debugf(t, "Unexpected error in the NIO transport I/O thread");
+      } finally {
+         closeAll(new TransportException("The NIO transport has been stopped"));
+      }
+   }
+
+   private void closeAll(TransportException cause) {
+      running = false;
+      Collection<MultiplexedConnection> all = new ArrayList<MultiplexedConnection>(connections.values());
+      for (MultiplexedConnection connection : all) connection.close(cause);
+      MultiplexedConnection connection;
+      while ((connection = pendingRegistrations.poll()) != null) connection.close(cause);
+      try {
+         selector.close();
+      } catch (IOException e) {
+         log.tracef(e, "Error closing selector");
+      }
+   }
+}
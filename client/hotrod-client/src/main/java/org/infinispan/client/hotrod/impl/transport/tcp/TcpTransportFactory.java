@@ -39,6 +39,8 @@
 import org.infinispan.client.hotrod.impl.ConfigurationProperties;
 import org.infinispan.client.hotrod.impl.consistenthash.ConsistentHash;
 import org.infinispan.client.hotrod.impl.consistenthash.ConsistentHashFactory;
+import org.infinispan.client.hotrod.impl.consistenthash.SegmentConsistentHash;
+import org.infinispan.client.hotrod.impl.consistenthash.ServerLocator;
 import org.infinispan.client.hotrod.impl.protocol.Codec;
 import org.infinispan.client.hotrod.impl.transport.Transport;
 import org.infinispan.client.hotrod.impl.transport.TransportFactory;
@@ -64,7 +66,7 @@ public class TcpTransportFactory implements TransportFactory {
    private GenericKeyedObjectPool connectionPool;
    private RequestBalancingStrategy balancer;
    private Collection<SocketAddress> servers;
-   private ConsistentHash consistentHash;
+   private ServerLocator consistentHash;
    private final ConsistentHashFactory hashFactory = new ConsistentHashFactory();
    
    // the primitive fields are often accessed separately from the rest so it makes sense not to require synchronization for them
@@ -136,6 +138,17 @@ public void updateHashFunction(Map<SocketAddress, Set<Integer>> servers2Hash, in
       }
    }
 
+   @Override
+   public void updateHashFunction(SocketAddress[][] segmentOwners, short hashFunctionVersion) {
+      synchronized (lock) {
+         SegmentConsistentHash hash = hashFactory.newSegmentConsistentHash(hashFunctionVersion, segmentOwners);
+         if (hash == null) {
+            log.noHasHFunctionConfigured(hashFunctionVersion);
+         }
+         consistentHash = hash;
+      }
+   }
+
    @Override
    public Transport getTransport() {
       SocketAddress server;
@@ -149,8 +162,9 @@ public Transport getTransport() {
    public Transport getTransport(byte[] key) {
       SocketAddress server;
       synchronized (lock) {
-         if (consistentHash != null) {
-            server = consistentHash.getServer(key);
+         // a segment without any known owner falls back to the balancer too
+         server = consistentHash != null ? consistentHash.getServer(key) : null;
+         if (server != null) {
             if (log.isTraceEnabled()) {
                log.tracef("Using consistent hash for determining the server: " + server);
             }
@@ -164,6 +178,20 @@ public Transport getTransport(byte[] key) {
       return borrowTransportFromPool(server);
    }
 
+   @Override
+   public Transport getTransport(SocketAddress server) {
+      if (server == null)
+         return getTransport();
+      return borrowTransportFromPool(server);
+   }
+
+   @Override
+   public SocketAddress getServer(byte[] key) {
+      synchronized (lock) {
+         return consistentHash != null ? consistentHash.getServer(key) : null;
+      }
+   }
+
    @Override
    public void releaseTransport(Transport transport) {
       // The invalidateObject()/returnObject() calls could take a long time, so we hold the lock only until we get the connection pool reference
@@ -234,6 +262,7 @@ public void updateServers(Collection<SocketAddress> newServers) {
       }
    }
 
+   @Override
    public Collection<SocketAddress> getServers() {
       synchronized (lock) {
          return servers;
@@ -264,7 +293,7 @@ private Transport borrowTransportFromPool(SocketAddress server) {
    /**
     * Note that the returned <code>ConsistentHash</code> may not be thread-safe.
     */
-   public ConsistentHash getConsistentHash() {
+   public ServerLocator getConsistentHash() {
       synchronized (lock) {
          return consistentHash;
       }
@@ -0,0 +1,147 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.client.hotrod;
+
+import org.infinispan.client.hotrod.impl.ConfigurationProperties;
+import org.infinispan.configuration.cache.CacheMode;
+import org.infinispan.configuration.cache.ConfigurationBuilder;
+import org.infinispan.server.hotrod.HotRodServer;
+import org.infinispan.test.MultipleCacheManagersTest;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.Test;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static org.infinispan.client.hotrod.test.HotRodClientTestingUtil.killRemoteCacheManager;
+import static org.infinispan.client.hotrod.test.HotRodClientTestingUtil.killServers;
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertNull;
+import static org.testng.AssertJUnit.assertTrue;
+
+/**
+ * Tests the multi-key get and put operations against a distributed cluster, where the client splits the keys
+ * between the servers owning them.
+ *
+ * @since 5.2
+ */
+@Test(groups = "functional", testName = "client.hotrod.GetAllPutAllDistTest")
+public class GetAllPutAllDistTest extends MultipleCacheManagersTest {
+
+   private HotRodServer hotRodServer1;
+   private HotRodServer hotRodServer2;
+   private HotRodServer hotRodServer3;
+   private RemoteCacheManager remoteCacheManager;
+   private RemoteCache<Object, Object> remoteCache;
+
+   @Override
+   protected void createCacheManagers() throws Throwable {
+      ConfigurationBuilder builder = getDefaultClusteredCacheConfig(CacheMode.DIST_SYNC, false);
+      builder.clustering().hash().numOwners(1);
+      createCluster(builder, 3);
+      waitForClusterToForm();
+
+      hotRodServer1 = TestHelper.startHotRodServer(manager(0));
+      hotRodServer2 = TestHelper.startHotRodServer(manager(1));
+      hotRodServer3 = TestHelper.startHotRodServer(manager(2));
+
+      Properties props = new Properties();
+      props.put(ConfigurationProperties.SERVER_LIST, "localhost:" + hotRodServer1.getPort());
+      // the bulk operations came along with version 1.3, which is opt-in
+      props.put(ConfigurationProperties.PROTOCOL_VERSION, ConfigurationProperties.PROTOCOL_VERSION_13);
+      remoteCacheManager = new RemoteCacheManager(props);
+      remoteCache = remoteCacheManager.getCache();
+      // any response carries the hash topology, make sure the client has it before bulk operations are used
+      remoteCache.put("k_test", "v");
+   }
+
+   @AfterClass(alwaysRun = true)
+   @Override
+   protected void destroy() {
+      killRemoteCacheManager(remoteCacheManager);
+      killServers(hotRodServer1, hotRodServer2, hotRodServer3);
+      super.destroy();
+   }
+
+   public void testPutAllAndGetAll() {
+      Map<Object, Object> data = new HashMap<Object, Object>();
+      for (int i = 0; i < 100; i++) {
+         data.put("k" + i, "v" + i);
+      }
+      remoteCache.putAll(data);
+
+      for (int i = 0; i < 100; i++) {
+         assertEquals("v" + i, remoteCache.get("k" + i));
+      }
+      // with a single owner, every node should hold a part of the data
+      for (int i = 0; i < 3; i++) {
+         assertTrue(cache(i).getAdvancedCache().getDataContainer().size() > 0);
+      }
+
+      Set<Object> keys = new HashSet<Object>(data.keySet());
+      keys.add("missing");
+      Map<Object, Object> result = remoteCache.getAll(keys);
+      assertEquals(data, result);
+      assertNull(result.get("missing"));
+   }
+
+   public void testEmptyKeySet() {
+      assertTrue(remoteCache.getAll(new HashSet<Object>()).isEmpty());
+      remoteCache.putAll(new HashMap<Object, Object>());
+   }
+
+   public void testOlderProtocolVersionFallsBackToSingleKeyOperations() {
+      Properties props = new Properties();
+      props.put(ConfigurationProperties.SERVER_LIST, "localhost:" + hotRodServer1.getPort());
+      // the bulk operations came along with version 1.3
+      props.put(ConfigurationProperties.PROTOCOL_VERSION, ConfigurationProperties.PROTOCOL_VERSION_12);
+      RemoteCacheManager rcm = new RemoteCacheManager(props);
+      try {
+         RemoteCache<Object, Object> cache = rcm.getCache();
+         Map<Object, Object> data = new HashMap<Object, Object>();
+         for (int i = 0; i < 10; i++) {
+            data.put("old" + i, "v" + i);
+         }
+         cache.putAll(data);
+         assertEquals(data, remoteCache.getAll(data.keySet()));
+         assertEquals(data, cache.getAll(data.keySet()));
+      } finally {
+         killRemoteCacheManager(rcm);
+      }
+   }
+
+   public void testPutAllWithLifespan() throws Exception {
+      Map<Object, Object> data = new HashMap<Object, Object>();
+      for (int i = 0; i < 10; i++) {
+         data.put("exp" + i, "v" + i);
+      }
+      remoteCache.putAll(data, 1, TimeUnit.SECONDS);
+      assertEquals(data, remoteCache.getAll(data.keySet()));
+      Thread.sleep(2000);
+      assertTrue(remoteCache.getAll(data.keySet()).isEmpty());
+   }
+}
@@ -0,0 +1,158 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.client.hotrod;
+
+import org.infinispan.client.hotrod.impl.ConfigurationProperties;
+import org.infinispan.client.hotrod.impl.NearCache;
+import org.infinispan.manager.EmbeddedCacheManager;
+import org.infinispan.server.hotrod.HotRodServer;
+import org.infinispan.test.SingleCacheManagerTest;
+import org.infinispan.test.fwk.TestCacheManagerFactory;
+import org.infinispan.util.concurrent.BoundedConcurrentHashMap.Eviction;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.Test;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Properties;
+
+import static org.infinispan.client.hotrod.test.HotRodClientTestingUtil.killRemoteCacheManager;
+import static org.infinispan.client.hotrod.test.HotRodClientTestingUtil.killServers;
+
+/**
+ * Tests the client near cache, both against modifications made through the same remote cache and against
+ * modifications made by another client.
+ *
+ * @since 5.2
+ */
+@Test(groups = "functional", testName = "client.hotrod.NearCacheTest")
+public class NearCacheTest extends SingleCacheManagerTest {
+
+   private static final int REVALIDATION_INTERVAL = 500;
+
+   private HotRodServer hotrodServer;
+   private RemoteCacheManager nearRcm;
+   private RemoteCacheManager otherRcm;
+   private RemoteCache<String, String> near;
+   private RemoteCache<String, String> other;
+
+   @Override
+   protected EmbeddedCacheManager createCacheManager() throws Exception {
+      EmbeddedCacheManager cm = TestCacheManagerFactory.createLocalCacheManager(false);
+      cache = cm.getCache();
+      hotrodServer = TestHelper.startHotRodServer(cm);
+      Properties props = new Properties();
+      props.put(ConfigurationProperties.SERVER_LIST, "127.0.0.1:" + hotrodServer.getPort());
+      props.put(ConfigurationProperties.NEAR_CACHE_MAX_ENTRIES, "100");
+      props.put(ConfigurationProperties.NEAR_CACHE_REVALIDATION_INTERVAL, String.valueOf(REVALIDATION_INTERVAL));
+      nearRcm = new RemoteCacheManager(props);
+      near = nearRcm.getCache();
+      otherRcm = new RemoteCacheManager("127.0.0.1", hotrodServer.getPort());
+      other = otherRcm.getCache();
+      return cm;
+   }
+
+   @AfterClass(alwaysRun = true)
+   @Override
+   protected void destroyAfterClass() {
+      super.destroyAfterClass();
+      killRemoteCacheManager(nearRcm);
+      killRemoteCacheManager(otherRcm);
+      killServers(hotrodServer);
+   }
+
+   public void testReadsServedLocally() {
+      near.put("k1", "v1");
+      long hits = nearCacheHits();
+      assert "v1".equals(near.get("k1"));
+      assert "v1".equals(near.get("k1"));
+      assert "v1".equals(near.get("k1"));
+      assert nearCacheHits() >= hits + 2 : "Expected at least 2 near cache hits";
+   }
+
+   public void testLocalModificationsInvalidate() {
+      near.put("k2", "v1");
+      assert "v1".equals(near.get("k2"));
+      near.put("k2", "v2");
+      assert "v2".equals(near.get("k2"));
+      near.replace("k2", "v3");
+      assert "v3".equals(near.get("k2"));
+      near.remove("k2");
+      assert near.get("k2") == null;
+      near.put("k2", "v4");
+      assert "v4".equals(near.get("k2"));
+      near.clear();
+      assert near.get("k2") == null;
+   }
+
+   public void testRemoteModificationsSeenAfterRevalidation() throws Exception {
+      other.put("k3", "v1");
+      assert "v1".equals(near.get("k3"));
+      other.put("k3", "v2");
+      Thread.sleep(REVALIDATION_INTERVAL + 100);
+      assert "v2".equals(near.get("k3"));
+      other.remove("k3");
+      Thread.sleep(REVALIDATION_INTERVAL + 100);
+      assert near.get("k3") == null;
+   }
+
+   public void testValueInvalidatedWhileReadIsNotCached() {
+      NearCache nearCache = new NearCache(10, Eviction.LRU, 60000);
+      byte[] key = {1, 2, 3};
+      long sequence = nearCache.invalidationSequence(key);
+      // modified while the value was being read from the server
+      nearCache.invalidate(key);
+      nearCache.put(key, 1, "stale", sequence);
+      assert nearCache.get(key) == null;
+
+      sequence = nearCache.invalidationSequence(key);
+      nearCache.put(key, 2, "v", sequence);
+      assert "v".equals(nearCache.get(key).getValue());
+      sequence = nearCache.invalidationSequence(key);
+      nearCache.clear();
+      nearCache.put(key, 3, "stale", sequence);
+      assert nearCache.get(key) == null;
+   }
+
+   public void testAsyncAndBulkReadsServedLocally() throws Exception {
+      near.put("k4", "v1");
+      assert "v1".equals(near.get("k4"));
+      long hits = nearCacheHits();
+      assert "v1".equals(near.getAsync("k4").get());
+      Map<String, String> all = near.getAll(Collections.singleton("k4"));
+      assert Collections.singletonMap("k4", "v1").equals(all) : all;
+      assert nearCacheHits() >= hits + 2 : "Expected at least 2 near cache hits";
+   }
+
+   public void testStatistics() {
+      ServerStatistics stats = near.stats();
+      assert stats.getStatistic(ServerStatistics.NEAR_CACHE_HITS) != null;
+      assert stats.getStatistic(ServerStatistics.NEAR_CACHE_MISSES) != null;
+      assert stats.getStatistic(ServerStatistics.NEAR_CACHE_SIZE) != null;
+      assert other.stats().getStatistic(ServerStatistics.NEAR_CACHE_HITS) == null;
+   }
+
+   private long nearCacheHits() {
+      return Long.parseLong(near.stats().getStatistic(ServerStatistics.NEAR_CACHE_HITS));
+   }
+}
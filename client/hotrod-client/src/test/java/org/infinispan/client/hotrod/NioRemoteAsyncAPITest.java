@@ -0,0 +1,147 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.client.hotrod;
+
+import org.infinispan.client.hotrod.impl.ConfigurationProperties;
+import org.infinispan.manager.EmbeddedCacheManager;
+import org.infinispan.server.hotrod.HotRodServer;
+import org.infinispan.test.SingleCacheManagerTest;
+import org.infinispan.test.fwk.TestCacheManagerFactory;
+import org.infinispan.util.concurrent.FutureListener;
+import org.infinispan.util.concurrent.NotifyingFuture;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.infinispan.client.hotrod.test.HotRodClientTestingUtil.killRemoteCacheManager;
+import static org.infinispan.client.hotrod.test.HotRodClientTestingUtil.killServers;
+
+/**
+ * Tests the async operations sent over the non-blocking transport.
+ *
+ * @since 5.2
+ */
+@Test(groups = "functional", testName = "client.hotrod.NioRemoteAsyncAPITest")
+public class NioRemoteAsyncAPITest extends SingleCacheManagerTest {
+   private HotRodServer hotrodServer;
+   private RemoteCacheManager rcm;
+   private RemoteCache<String, String> c;
+
+   @Override
+   protected EmbeddedCacheManager createCacheManager() throws Exception {
+      EmbeddedCacheManager cm = TestCacheManagerFactory.createLocalCacheManager(false);
+      cache = cm.getCache();
+      hotrodServer = TestHelper.startHotRodServer(cm);
+      Properties props = new Properties();
+      props.put(ConfigurationProperties.SERVER_LIST, "127.0.0.1:" + hotrodServer.getPort());
+      props.put(ConfigurationProperties.FORCE_RETURN_VALUES, "true");
+      props.put(ConfigurationProperties.NIO_TRANSPORT, "true");
+      // exercise the bulk put all operation
+      props.put(ConfigurationProperties.PROTOCOL_VERSION, ConfigurationProperties.PROTOCOL_VERSION_13);
+      rcm = new RemoteCacheManager(props);
+      c = rcm.getCache(true);
+      return cm;
+   }
+
+   @AfterClass(alwaysRun = true)
+   @Override
+   protected void destroyAfterClass() {
+      super.destroyAfterClass();
+      killRemoteCacheManager(rcm);
+      killServers(hotrodServer);
+   }
+
+   public void testPutGetRemove() throws Exception {
+      assert c.putAsync("k", "v").get() == null;
+      assert "v".equals(c.putAsync("k", "v2").get());
+      assert "v2".equals(c.getAsync("k").get());
+      assert "v2".equals(c.putIfAbsentAsync("k", "v3").get());
+      assert "v2".equals(c.replaceAsync("k", "v4").get());
+      assert "v4".equals(c.removeAsync("k").get());
+      assert c.getAsync("k").get() == null;
+   }
+
+   public void testVersionedOperations() throws Exception {
+      c.put("vk", "v");
+      VersionedValue<String> value = c.getVersioned("vk");
+      assert !c.replaceWithVersionAsync("vk", "v2", value.getVersion() + 1).get();
+      assert c.replaceWithVersionAsync("vk", "v2", value.getVersion()).get();
+      assert "v2".equals(c.get("vk"));
+      value = c.getVersioned("vk");
+      assert c.removeWithVersionAsync("vk", value.getVersion()).get();
+      assert c.get("vk") == null;
+   }
+
+   public void testManyRequestsInFlight() throws Exception {
+      int count = 1000;
+      List<Future<String>> puts = new ArrayList<Future<String>>(count);
+      for (int i = 0; i < count; i++) {
+         puts.add(c.putAsync("key" + i, "value" + i));
+      }
+      for (Future<String> f : puts) {
+         assert f.get(10, TimeUnit.SECONDS) == null;
+      }
+      List<Future<String>> gets = new ArrayList<Future<String>>(count);
+      for (int i = 0; i < count; i++) {
+         gets.add(c.getAsync("key" + i));
+      }
+      for (int i = 0; i < count; i++) {
+         assert ("value" + i).equals(gets.get(i).get(10, TimeUnit.SECONDS));
+      }
+   }
+
+   public void testPutAllAndClear() throws Exception {
+      Map<String, String> data = new HashMap<String, String>();
+      for (int i = 0; i < 10; i++) data.put("pk" + i, "pv" + i);
+      assert c.putAllAsync(data).get() == null;
+      assert "pv5".equals(c.get("pk5"));
+      assert c.clearAsync().get() == null;
+      assert c.get("pk5") == null;
+   }
+
+   public void testPutAllOfNothing() throws Exception {
+      assert c.putAllAsync(new HashMap<String, String>()).get(10, TimeUnit.SECONDS) == null;
+   }
+
+   public void testListenerNotified() throws Exception {
+      final CountDownLatch latch = new CountDownLatch(1);
+      NotifyingFuture<String> f = c.putAsync("lk", "lv");
+      f.attachListener(new FutureListener<String>() {
+         @Override
+         public void futureDone(Future<String> future) {
+            latch.countDown();
+         }
+      });
+      assert latch.await(10, TimeUnit.SECONDS);
+      assert f.isDone();
+      assert "lv".equals(c.get("lk"));
+   }
+}
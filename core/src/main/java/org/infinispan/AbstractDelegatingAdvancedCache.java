@@ -32,6 +32,7 @@
 import org.infinispan.eviction.EvictionManager;
 import org.infinispan.factories.ComponentRegistry;
 import org.infinispan.interceptors.base.CommandInterceptor;
+import org.infinispan.notifications.KeyFilter;
 import org.infinispan.remoting.rpc.RpcManager;
 import org.infinispan.util.concurrent.locks.LockManager;
 import org.infinispan.stats.Stats;
@@ -89,6 +90,11 @@ public AdvancedCache<K, V> getAdvancedCache() {
       return this;
    }
 
+   @Override
+   public void addListener(Object listener, KeyFilter filter) {
+      cache.addListener(listener, filter);
+   }
+
    @Override
    public List<CommandInterceptor> getInterceptorChain() {
       return cache.getInterceptorChain();
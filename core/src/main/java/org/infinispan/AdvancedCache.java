@@ -32,6 +32,7 @@
 import org.infinispan.eviction.EvictionManager;
 import org.infinispan.factories.ComponentRegistry;
 import org.infinispan.interceptors.base.CommandInterceptor;
+import org.infinispan.notifications.KeyFilter;
 import org.infinispan.remoting.rpc.RpcManager;
 import org.infinispan.stats.Stats;
 import org.infinispan.util.concurrent.locks.LockManager;
@@ -120,6 +121,17 @@
     */
    void removeInterceptor(Class<? extends CommandInterceptor> interceptorType);
 
+   /**
+    * Adds a listener that is only notified of events about the keys accepted by the given filter. The filter is
+    * checked before the event is created, which is cheaper than filtering inside the listener when only a few keys
+    * are of interest. See {@link org.infinispan.notifications.Listenable#addListener(Object)} for the requirements
+    * on the listener itself.
+    *
+    * @param listener must not be null
+    * @param filter   the keys the listener is interested in, or null for all keys
+    */
+   void addListener(Object listener, KeyFilter filter);
+
    /**
     * Retrieves the current Interceptor chain.
     *
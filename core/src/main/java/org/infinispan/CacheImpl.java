@@ -67,6 +67,7 @@
 import org.infinispan.manager.EmbeddedCacheManager;
 import org.infinispan.marshall.MarshalledValue;
 import org.infinispan.marshall.StreamingMarshaller;
+import org.infinispan.notifications.KeyFilter;
 import org.infinispan.notifications.cachelistener.CacheNotifier;
 import org.infinispan.remoting.responses.ResponseGenerator;
 import org.infinispan.remoting.rpc.RpcManager;
@@ -428,6 +429,11 @@ public void addListener(Object listener) {
       notifier.addListener(listener);
    }
 
+   @Override
+   public void addListener(Object listener, KeyFilter filter) {
+      notifier.addListener(listener, filter);
+   }
+
    @Override
    public void removeListener(Object listener) {
       notifier.removeListener(listener);
@@ -32,6 +32,7 @@
 import org.infinispan.commands.read.ReduceCommand;
 import org.infinispan.commands.remote.CacheRpcCommand;
 import org.infinispan.commands.remote.ClusteredGetCommand;
+import org.infinispan.commands.remote.CoalescedRpcCommand;
 import org.infinispan.commands.remote.MultipleRpcCommand;
 import org.infinispan.commands.remote.SingleRpcCommand;
 import org.infinispan.commands.remote.recovery.CompleteTransactionCommand;
@@ -192,6 +193,9 @@ public CacheRpcCommand fromStream(byte id, Object[] parameters, byte type, Strin
             case MultipleRpcCommand.COMMAND_ID:
                command = new MultipleRpcCommand(cacheName);
                break;
+            case CoalescedRpcCommand.COMMAND_ID:
+               command = new CoalescedRpcCommand(cacheName);
+               break;
             case SingleRpcCommand.COMMAND_ID:
                command = new SingleRpcCommand(cacheName);
                break;
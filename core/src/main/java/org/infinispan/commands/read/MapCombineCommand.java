@@ -53,6 +53,7 @@
    private String taskId;
    private boolean reducePhaseDistributed;
    private boolean emitCompositeIntermediateKeys;
+   private int mapParallelism = 1;
    private MapReduceManager mrManager;
    private UUID uuid;
 
@@ -111,6 +112,17 @@ public void setReducePhaseDistributed(boolean reducePhaseDistributed) {
       this.reducePhaseDistributed = reducePhaseDistributed;
    }
 
+   /**
+    * Number of threads used to execute the map phase on the target node
+    */
+   public int getMapParallelism() {
+      return mapParallelism;
+   }
+
+   public void setMapParallelism(int mapParallelism) {
+      this.mapParallelism = mapParallelism;
+   }
+
    public Set<KIn> getKeys() {
       return keys;
    }
@@ -140,7 +152,7 @@ public UUID getUUID() {
    @Override
    public Object[] getParameters() {
       return new Object[] { taskId, keys, mapper, combiner, reducePhaseDistributed,
-               emitCompositeIntermediateKeys, uuid };
+               emitCompositeIntermediateKeys, uuid, mapParallelism };
    }
 
    @SuppressWarnings("unchecked")
@@ -156,6 +168,7 @@ public void setParameters(int commandId, Object[] args) {
       reducePhaseDistributed = (Boolean) args[i++];
       emitCompositeIntermediateKeys = (Boolean) args[i++];
       uuid = (UUID) args[i++];
+      mapParallelism = (Integer) args[i++];
    }
 
    @Override
@@ -196,6 +209,6 @@ public boolean equals(Object obj) {
 
    @Override
    public String toString() {
-      return "MapCombineCommand [keys=" + keys + ", taskId=" + taskId + "]";
+      return "MapCombineCommand [keys=" + keys + ", taskId=" + taskId + ", mapParallelism=" + mapParallelism + "]";
    }
 }
\ No newline at end of file
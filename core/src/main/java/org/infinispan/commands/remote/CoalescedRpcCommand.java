@@ -0,0 +1,116 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.commands.remote;
+
+import org.infinispan.context.InvocationContext;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Carries the {@link CacheRpcCommand}s that the transport coalesced into a single message to one member. The
+ * receiving member's transport handles them one after the other, each as if it had been received in a message of its
+ * own, and answers with one response per command.
+ *
+ * @since 5.2
+ */
+public class CoalescedRpcCommand extends BaseRpcCommand {
+
+   public static final byte COMMAND_ID = 35;
+
+   private CacheRpcCommand[] commands;
+
+   private CoalescedRpcCommand() {
+      super(null); // For command id uniqueness test
+   }
+
+   public CoalescedRpcCommand(String cacheName, List<? extends CacheRpcCommand> commands) {
+      super(cacheName);
+      this.commands = commands.toArray(new CacheRpcCommand[commands.size()]);
+   }
+
+   public CoalescedRpcCommand(String cacheName) {
+      super(cacheName);
+   }
+
+   public CacheRpcCommand[] getCommands() {
+      return commands;
+   }
+
+   /**
+    * Coalesced commands are unpacked by the transport, which returns one response per command.
+    */
+   @Override
+   public Object perform(InvocationContext ctx) throws Throwable {
+      throw new UnsupportedOperationException("Coalesced commands are handled by the transport");
+   }
+
+   @Override
+   public byte getCommandId() {
+      return COMMAND_ID;
+   }
+
+   @Override
+   public Object[] getParameters() {
+      Object[] retval = new Object[commands.length];
+      System.arraycopy(commands, 0, retval, 0, commands.length);
+      return retval;
+   }
+
+   @Override
+   public void setParameters(int commandId, Object[] parameters) {
+      if (commandId != COMMAND_ID) throw new IllegalStateException("Unsupported command id:" + commandId);
+      commands = new CacheRpcCommand[parameters.length];
+      System.arraycopy(parameters, 0, commands, 0, parameters.length);
+   }
+
+   @Override
+   public boolean isReturnValueExpected() {
+      return true;
+   }
+
+   @Override
+   public boolean equals(Object o) {
+      if (this == o) return true;
+      if (!(o instanceof CoalescedRpcCommand)) return false;
+
+      CoalescedRpcCommand that = (CoalescedRpcCommand) o;
+      if (cacheName != null ? !cacheName.equals(that.cacheName) : that.cacheName != null) return false;
+      return Arrays.equals(commands, that.commands);
+   }
+
+   @Override
+   public int hashCode() {
+      int result = commands != null ? Arrays.hashCode(commands) : 0;
+      result = 31 * result + (cacheName != null ? cacheName.hashCode() : 0);
+      return result;
+   }
+
+   @Override
+   public String toString() {
+      return "CoalescedRpcCommand{" +
+            "commands=" + (commands == null ? null : Arrays.asList(commands)) +
+            ", cacheName='" + cacheName + '\'' +
+            '}';
+   }
+}
@@ -31,16 +31,24 @@ public class BackupConfiguration {
    private final BackupFailurePolicy backupFailurePolicy;
    private final String failurePolicyClass;
    private final boolean useTwoPhaseCommit;
+   private final int asyncBatchSize;
    private final TakeOfflineConfiguration takeOfflineConfiguration;
 
    public BackupConfiguration(String site, BackupStrategy strategy, long timeout, BackupFailurePolicy backupFailurePolicy,
                               String failurePolicyClass, boolean useTwoPhaseCommit, TakeOfflineConfiguration takeOfflineConfiguration) {
+      this(site, strategy, timeout, backupFailurePolicy, failurePolicyClass, useTwoPhaseCommit, 1, takeOfflineConfiguration);
+   }
+
+   public BackupConfiguration(String site, BackupStrategy strategy, long timeout, BackupFailurePolicy backupFailurePolicy,
+                              String failurePolicyClass, boolean useTwoPhaseCommit, int asyncBatchSize,
+                              TakeOfflineConfiguration takeOfflineConfiguration) {
       this.site = site;
       this.strategy = strategy;
       this.timeout = timeout;
       this.backupFailurePolicy = backupFailurePolicy;
       this.failurePolicyClass = failurePolicyClass;
       this.useTwoPhaseCommit = useTwoPhaseCommit;
+      this.asyncBatchSize = asyncBatchSize;
       this.takeOfflineConfiguration = takeOfflineConfiguration;
    }
 
@@ -89,6 +97,14 @@ public enum BackupStrategy {
    public boolean isTwoPhaseCommit() {
       return useTwoPhaseCommit;
    }
+
+   /**
+    * The maximum number of writes backed up to the site in a single message, when the backup is asynchronous. If
+    * greater than 1, concurrent writes are batched through an {@link org.infinispan.xsite.AsyncBackupQueue}.
+    */
+   public int asyncBatchSize() {
+      return asyncBatchSize;
+   }
    
    @Override
    public boolean equals(Object o) {
@@ -103,6 +119,7 @@ public boolean equals(Object o) {
          return false;
       if (site != null ? !site.equals(that.site) : that.site != null) return false;
       if( useTwoPhaseCommit != that.useTwoPhaseCommit ) return false;
+      if (asyncBatchSize != that.asyncBatchSize) return false;
       if (strategy != that.strategy) return false;
 
       return true;
@@ -116,6 +133,7 @@ public int hashCode() {
       result = 31 * result + (backupFailurePolicy != null ? backupFailurePolicy.hashCode() : 0);
       result = 31 * result + (failurePolicyClass != null ? failurePolicyClass.hashCode() : 0);
       result = 31 * result + (useTwoPhaseCommit ? 1 : 0);
+      result = 31 * result + asyncBatchSize;
       return result;
    }
 
@@ -126,6 +144,7 @@ public String toString() {
             ", strategy=" + strategy +
             ", timeout=" + timeout +
             ", useTwoPhaseCommit=" + useTwoPhaseCommit +
+            ", asyncBatchSize=" + asyncBatchSize +
             ", backupFailurePolicy=" + backupFailurePolicy +
             ", failurePolicyClass='" + failurePolicyClass + '\'' +
             '}';
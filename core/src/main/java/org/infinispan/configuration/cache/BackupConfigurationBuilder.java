@@ -39,6 +39,8 @@ public class BackupConfigurationBuilder extends AbstractConfigurationChildBuilde
    private String failurePolicyClass;
 
    private boolean useTwoPhaseCommit = false;
+
+   private int asyncBatchSize = 1;
    
    private TakeOfflineConfigurationBuilder takeOfflineBuilder;
 
@@ -139,6 +141,23 @@ public BackupConfigurationBuilder useTwoPhaseCommit(boolean useTwoPhaseCommit) {
       return this;
    }
 
+   /**
+    * Sets the maximum number of writes backed up to the site in a single message, when the backup is asynchronous. If
+    * greater than 1, the writes backed up concurrently are batched and the writes overwritten before being sent are
+    * dropped. The default value is 1, i.e. one message per write.
+    */
+   public BackupConfigurationBuilder asyncBatchSize(int asyncBatchSize) {
+      this.asyncBatchSize = asyncBatchSize;
+      return this;
+   }
+
+   /**
+    * @see #asyncBatchSize(int)
+    */
+   public int asyncBatchSize() {
+      return asyncBatchSize;
+   }
+
    @Override
    public void validate() {
       takeOfflineBuilder.validate();
@@ -148,12 +167,14 @@ public void validate() {
          throw new ConfigurationException("It is required to specify a 'failurePolicyClass' when using a " +
                                                 "custom backup failure policy!");
       }
+      if (asyncBatchSize < 1)
+         throw new ConfigurationException("The 'asyncBatchSize' must be strictly positive!");
    }
 
    @Override
    public BackupConfiguration create() {
       return new BackupConfiguration(site, strategy, replicationTimeout, backupFailurePolicy, failurePolicyClass,
-                                     useTwoPhaseCommit, takeOfflineBuilder.create());
+                                     useTwoPhaseCommit, asyncBatchSize, takeOfflineBuilder.create());
    }
 
    @Override
@@ -165,6 +186,7 @@ public Builder read(BackupConfiguration template) {
       this.replicationTimeout = template.replicationTimeout();
       this.failurePolicyClass = template.failurePolicyClass();
       this.useTwoPhaseCommit = template.isTwoPhaseCommit();
+      this.asyncBatchSize = template.asyncBatchSize();
       return this;
    }
 
@@ -184,6 +206,7 @@ public boolean equals(Object o) {
       if (takeOfflineBuilder != null ? !takeOfflineBuilder.equals(that.takeOfflineBuilder) : that.takeOfflineBuilder != null)
          return false;
       if( useTwoPhaseCommit != that.useTwoPhaseCommit ) return false;
+      if (asyncBatchSize != that.asyncBatchSize) return false;
 
       return true;
    }
@@ -197,6 +220,7 @@ public int hashCode() {
       result = 31 * result + (failurePolicyClass != null ? failurePolicyClass.hashCode() : 0);
       result = 31 * result + (takeOfflineBuilder != null ? takeOfflineBuilder.hashCode() : 0);
       result = 31 * result + (useTwoPhaseCommit ? 1 : 0);
+      result = 31 * result + asyncBatchSize;
       return result;
    }
 
@@ -207,6 +231,7 @@ public String toString() {
             ", strategy=" + strategy +
             ", replicationTimeout=" + replicationTimeout +
             ", useTwoPhaseCommit=" + useTwoPhaseCommit +
+            ", asyncBatchSize=" + asyncBatchSize +
             ", backupFailurePolicy=" + backupFailurePolicy +
             ", failurePolicyClass='" + failurePolicyClass + '\'' +
             ", takeOfflineBuilder=" + takeOfflineBuilder +
@@ -31,10 +31,14 @@
 public class DataContainerConfiguration extends AbstractTypedPropertiesConfiguration {
 
    private final DataContainer dataContainer;
+   private final boolean offHeap;
+   private final boolean segmented;
 
-   DataContainerConfiguration(DataContainer dataContainer, TypedProperties properties) {
+   DataContainerConfiguration(DataContainer dataContainer, boolean offHeap, boolean segmented, TypedProperties properties) {
       super(properties);
       this.dataContainer = dataContainer;
+      this.offHeap = offHeap;
+      this.segmented = segmented;
    }
    
    /**
@@ -45,10 +49,26 @@ public DataContainer dataContainer() {
       return dataContainer;
    }
 
+   /**
+    * Whether the default data container should keep entries in native memory, outside of the Java heap
+    */
+   public boolean offHeap() {
+      return offHeap;
+   }
+
+   /**
+    * Whether the default data container should keep one map per consistent hash segment
+    */
+   public boolean segmented() {
+      return segmented;
+   }
+
    @Override
    public String toString() {
       return "DataContainerConfiguration{" +
             "dataContainer=" + dataContainer +
+            ", offHeap=" + offHeap +
+            ", segmented=" + segmented +
             '}';
    }
 
@@ -61,13 +81,20 @@ public boolean equals(Object o) {
 
       if (dataContainer != null ? !dataContainer.equals(that.dataContainer) : that.dataContainer != null)
          return false;
+      if (offHeap != that.offHeap)
+         return false;
+      if (segmented != that.segmented)
+         return false;
 
       return true;
    }
 
    @Override
    public int hashCode() {
-      return dataContainer != null ? dataContainer.hashCode() : 0;
+      int result = dataContainer != null ? dataContainer.hashCode() : 0;
+      result = 31 * result + (offHeap ? 1 : 0);
+      result = 31 * result + (segmented ? 1 : 0);
+      return result;
    }
 
 }
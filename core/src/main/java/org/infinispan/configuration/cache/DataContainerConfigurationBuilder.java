@@ -34,6 +34,8 @@ public class DataContainerConfigurationBuilder extends AbstractConfigurationChil
 
    // No default here. DataContainerFactory figures out default.
    private DataContainer dataContainer;
+   private boolean offHeap = false;
+   private boolean segmented = false;
    private Properties properties = new Properties();
 
    DataContainerConfigurationBuilder(ConfigurationBuilder builder) {
@@ -50,6 +52,30 @@ public DataContainerConfigurationBuilder dataContainer(DataContainer dataContain
       return this;
    }
 
+   /**
+    * Store the entries of the default data container in native memory, outside of the Java heap. Keys and values
+    * are kept in marshalled form, so this reduces garbage collection pressure at the cost of marshalling on every
+    * access. Ignored if a custom data container is specified via {@link #dataContainer(DataContainer)}.
+    * @param offHeap
+    * @return
+    */
+   public DataContainerConfigurationBuilder offHeap(boolean offHeap) {
+      this.offHeap = offHeap;
+      return this;
+   }
+
+   /**
+    * Partition the default data container by consistent hash segment, so that state transfer can send or discard a
+    * segment in time proportional to its size. Only applies to distributed caches without eviction, using one of the
+    * built-in consistent hash factories, and is ignored otherwise or if {@link #offHeap(boolean)} is enabled.
+    * @param segmented
+    * @return
+    */
+   public DataContainerConfigurationBuilder segmented(boolean segmented) {
+      this.segmented = segmented;
+      return this;
+   }
+
    /**
     * Add key/value property pair to this data container configuration
     *
@@ -81,12 +107,14 @@ void validate() {
    @Override
    public
    DataContainerConfiguration create() {
-      return new DataContainerConfiguration(dataContainer, TypedProperties.toTypedProperties(properties));
+      return new DataContainerConfiguration(dataContainer, offHeap, segmented, TypedProperties.toTypedProperties(properties));
    }
 
    @Override
    public DataContainerConfigurationBuilder read(DataContainerConfiguration template) {
       this.dataContainer = template.dataContainer();
+      this.offHeap = template.offHeap();
+      this.segmented = template.segmented();
       this.properties = template.properties();
 
       return this;
@@ -96,6 +124,8 @@ public DataContainerConfigurationBuilder read(DataContainerConfiguration templat
    public String toString() {
       return "DataContainerConfigurationBuilder{" +
             "dataContainer=" + dataContainer +
+            ", offHeap=" + offHeap +
+            ", segmented=" + segmented +
             ", properties=" + properties +
             '}';
    }
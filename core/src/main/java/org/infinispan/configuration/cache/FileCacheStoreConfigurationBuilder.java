@@ -38,6 +38,7 @@ public class FileCacheStoreConfigurationBuilder extends AbstractLockSupportStore
    private long fsyncInterval = TimeUnit.SECONDS.toMillis(1);
    private FsyncMode fsyncMode = FsyncMode.DEFAULT;
    private int streamBufferSize = 8192;
+   private boolean memoryMappedReads = false;
 
    public FileCacheStoreConfigurationBuilder(LoadersConfigurationBuilder builder) {
       super(builder);
@@ -72,6 +73,15 @@ public FileCacheStoreConfigurationBuilder streamBufferSize(int streamBufferSize)
       return this;
    }
 
+   /**
+    * If true, buckets are unmarshalled straight from memory mapped files instead of being read into a temporary
+    * buffer first. Defaults to false
+    */
+   public FileCacheStoreConfigurationBuilder memoryMappedReads(boolean memoryMappedReads) {
+      this.memoryMappedReads = memoryMappedReads;
+      return this;
+   }
+
    @Override
    public FileCacheStoreConfigurationBuilder withProperties(Properties p) {
       this.properties = p;
@@ -91,7 +101,7 @@ public static enum FsyncMode {
    @Override
    public FileCacheStoreConfiguration create() {
       return new FileCacheStoreConfiguration(location, fsyncInterval, fsyncMode,
-            streamBufferSize, lockAcquistionTimeout, lockConcurrencyLevel,
+            streamBufferSize, memoryMappedReads, lockAcquistionTimeout, lockConcurrencyLevel,
             purgeOnStartup, purgeSynchronously, purgerThreads, fetchPersistentState,
             ignoreModifications, TypedProperties.toTypedProperties(properties),
             async.create(), singletonStore.create());
@@ -104,6 +114,7 @@ public FileCacheStoreConfigurationBuilder read(FileCacheStoreConfiguration templ
       fsyncMode = template.fsyncMode();
       location = template.location();
       streamBufferSize = template.streamBufferSize();
+      memoryMappedReads = template.memoryMappedReads();
 
       // AbstractLockSupportCacheStore-specific configuration
       lockAcquistionTimeout = template.lockAcquistionTimeout();
@@ -129,6 +140,7 @@ public String toString() {
             ", fsyncInterval=" + fsyncInterval +
             ", fsyncMode=" + fsyncMode +
             ", streamBufferSize=" + streamBufferSize +
+            ", memoryMappedReads=" + memoryMappedReads +
             ", ignoreModifications=" + ignoreModifications +
             ", purgeOnStartup=" + purgeOnStartup +
             ", purgerThreads=" + purgerThreads +
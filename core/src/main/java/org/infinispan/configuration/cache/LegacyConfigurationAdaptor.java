@@ -502,6 +502,7 @@ public static void adapt(ClassLoader cl, ConfigurationBuilder builder, CacheLoad
          fcsBuilder.fsyncInterval(csc.getFsyncInterval());
          fcsBuilder.fsyncMode(FileCacheStoreConfigurationBuilder.FsyncMode.valueOf(csc.getFsyncMode().name()));
          fcsBuilder.streamBufferSize(csc.getStreamBufferSize());
+         fcsBuilder.memoryMappedReads(csc.isMemoryMappedReads());
          loaderBuilder = fcsBuilder;
       } else if (clc instanceof CacheStoreConfig) {
          LegacyStoreConfigurationBuilder tmpStoreBuilder = builder.loaders().addStore();
@@ -0,0 +1,109 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.configuration.cache;
+
+import org.infinispan.configuration.BuiltBy;
+import org.infinispan.loaders.logfile.LogFileCacheStoreConfig;
+import org.infinispan.util.TypedProperties;
+
+/**
+ * Log file cache store configuration.
+ *
+ * @since 5.2
+ */
+@BuiltBy(LogFileCacheStoreConfigurationBuilder.class)
+public class LogFileCacheStoreConfiguration extends AbstractStoreConfiguration implements LegacyLoaderAdapter<LogFileCacheStoreConfig> {
+
+   private final String location;
+   private final int numSegments;
+   private final double compactionThreshold;
+   private final boolean syncWrites;
+   private final boolean memoryMappedReads;
+
+   LogFileCacheStoreConfiguration(String location, int numSegments, double compactionThreshold, boolean syncWrites,
+         boolean memoryMappedReads, boolean purgeOnStartup, boolean purgeSynchronously, int purgerThreads, boolean fetchPersistentState,
+         boolean ignoreModifications, TypedProperties properties, AsyncStoreConfiguration async,
+         SingletonStoreConfiguration singletonStore) {
+      super(purgeOnStartup, purgeSynchronously, purgerThreads, fetchPersistentState, ignoreModifications, properties,
+            async, singletonStore);
+      this.location = location;
+      this.numSegments = numSegments;
+      this.compactionThreshold = compactionThreshold;
+      this.syncWrites = syncWrites;
+      this.memoryMappedReads = memoryMappedReads;
+   }
+
+   public String location() {
+      return location;
+   }
+
+   public int numSegments() {
+      return numSegments;
+   }
+
+   public double compactionThreshold() {
+      return compactionThreshold;
+   }
+
+   public boolean syncWrites() {
+      return syncWrites;
+   }
+
+   public boolean memoryMappedReads() {
+      return memoryMappedReads;
+   }
+
+   @Override
+   public String toString() {
+      return "LogFileCacheStoreConfiguration{" +
+            "location='" + location + '\'' +
+            ", numSegments=" + numSegments +
+            ", compactionThreshold=" + compactionThreshold +
+            ", syncWrites=" + syncWrites +
+            ", memoryMappedReads=" + memoryMappedReads +
+            ", purgeOnStartup=" + purgeOnStartup() +
+            ", purgeSynchronously=" + purgeSynchronously() +
+            ", purgerThreads=" + purgerThreads() +
+            ", fetchPersistentState=" + fetchPersistentState() +
+            ", ignoreModifications=" + ignoreModifications() +
+            ", properties=" + properties() +
+            ", async=" + async() +
+            ", singletonStore=" + singletonStore() +
+            '}';
+   }
+
+   @Override
+   public LogFileCacheStoreConfig adapt() {
+      LogFileCacheStoreConfig config = new LogFileCacheStoreConfig();
+
+      LegacyConfigurationAdaptor.adapt(this, config);
+
+      config.location(location);
+      config.numSegments(numSegments);
+      config.compactionThreshold(compactionThreshold);
+      config.syncWrites(syncWrites);
+      config.memoryMappedReads(memoryMappedReads);
+
+      return config;
+   }
+}
@@ -0,0 +1,128 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.configuration.cache;
+
+import org.infinispan.config.ConfigurationException;
+import org.infinispan.util.TypedProperties;
+
+/**
+ * Configures a {@link org.infinispan.loaders.logfile.LogFileCacheStore}. Add it to a cache with
+ * <code>loaders().addStore(LogFileCacheStoreConfigurationBuilder.class)</code>.
+ *
+ * @since 5.2
+ */
+public class LogFileCacheStoreConfigurationBuilder extends AbstractStoreConfigurationBuilder<LogFileCacheStoreConfiguration, LogFileCacheStoreConfigurationBuilder> {
+
+   private String location = "Infinispan-LogFileCacheStore";
+   private int numSegments = 16;
+   private double compactionThreshold = 0.5;
+   private boolean syncWrites = false;
+   private boolean memoryMappedReads = false;
+
+   public LogFileCacheStoreConfigurationBuilder(LoadersConfigurationBuilder builder) {
+      super(builder);
+   }
+
+   @Override
+   public LogFileCacheStoreConfigurationBuilder self() {
+      return this;
+   }
+
+   /**
+    * A location on disk where the store writes its log files. Defaults to "Infinispan-LogFileCacheStore"
+    */
+   public LogFileCacheStoreConfigurationBuilder location(String location) {
+      this.location = location;
+      return this;
+   }
+
+   /**
+    * The number of log files the entries are spread over. Defaults to 16
+    */
+   public LogFileCacheStoreConfigurationBuilder numSegments(int numSegments) {
+      this.numSegments = numSegments;
+      return this;
+   }
+
+   /**
+    * The share of dead data in a log file above which the file is compacted. Defaults to 0.5
+    */
+   public LogFileCacheStoreConfigurationBuilder compactionThreshold(double compactionThreshold) {
+      this.compactionThreshold = compactionThreshold;
+      return this;
+   }
+
+   /**
+    * Whether every write is synchronized with the file system before returning. Defaults to false
+    */
+   public LogFileCacheStoreConfigurationBuilder syncWrites(boolean syncWrites) {
+      this.syncWrites = syncWrites;
+      return this;
+   }
+
+   /**
+    * Whether values are read from memory mapped log files instead of with explicit reads. Defaults to false
+    */
+   public LogFileCacheStoreConfigurationBuilder memoryMappedReads(boolean memoryMappedReads) {
+      this.memoryMappedReads = memoryMappedReads;
+      return this;
+   }
+
+   @Override
+   public void validate() {
+      super.validate();
+      if (numSegments < 1)
+         throw new ConfigurationException("The number of segments must be strictly positive");
+      if (compactionThreshold <= 0 || compactionThreshold > 1)
+         throw new ConfigurationException("The compaction threshold must be in the (0, 1] range");
+   }
+
+   @Override
+   public LogFileCacheStoreConfiguration create() {
+      return new LogFileCacheStoreConfiguration(location, numSegments, compactionThreshold, syncWrites,
+            memoryMappedReads, purgeOnStartup, purgeSynchronously, purgerThreads, fetchPersistentState,
+            ignoreModifications,
+            TypedProperties.toTypedProperties(properties), async.create(), singletonStore.create());
+   }
+
+   @Override
+   public LogFileCacheStoreConfigurationBuilder read(LogFileCacheStoreConfiguration template) {
+      // LogFileCacheStore-specific configuration
+      location = template.location();
+      numSegments = template.numSegments();
+      compactionThreshold = template.compactionThreshold();
+      syncWrites = template.syncWrites();
+      memoryMappedReads = template.memoryMappedReads();
+
+      // AbstractStore-specific configuration
+      fetchPersistentState = template.fetchPersistentState();
+      ignoreModifications = template.ignoreModifications();
+      properties = template.properties();
+      purgeOnStartup = template.purgeOnStartup();
+      purgeSynchronously = template.purgeSynchronously();
+      async.read(template.async());
+      singletonStore.read(template.singletonStore());
+
+      return this;
+   }
+}
@@ -79,6 +79,7 @@ public enum Attribute {
     MAX_IDLE("maxIdle"),
     MAX_NON_PROGRESSING_LOG_WRITES("maxProgressingLogWrites"),
     MBEAN_SERVER_LOOKUP("mBeanServerLookup"),
+    MEMORY_MAPPED_READS("memoryMappedReads"),
     MODE("mode"),
     NODE_NAME("nodeName"),
     MODIFICATION_QUEUE_SIZE("modificationQueueSize"),
@@ -87,6 +88,7 @@ public enum Attribute {
     NUM_SEGMENTS("numSegments"),
     NUM_RETRIES("numRetries"),
     NUM_VIRTUAL_NODES("numVirtualNodes"),
+    OFF_HEAP("offHeap"),
     ON_REHASH("onRehash"),
     PASSIVATION("passivation"),
     POSITION("position"),
@@ -146,6 +148,7 @@ public enum Attribute {
     AFTER_FAILURES("afterFailures"),
     MIN_TIME_TO_WAIT("minTimeToWait"),
     USE_TWO_PHASE_COMMIT("useTwoPhaseCommit"),
+    ASYNC_BATCH_SIZE("asyncBatchSize"),
     REAPER_WAKE_UP_INTERVAL("reaperWakeUpInterval"),
     COMPLETED_TX_TIMEOUT("completedTxTimeout");
 
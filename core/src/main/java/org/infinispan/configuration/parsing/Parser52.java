@@ -347,6 +347,9 @@ private void parseBackup(XMLExtendedStreamReader reader, ConfigurationBuilder cc
             case USE_TWO_PHASE_COMMIT:
                backup.useTwoPhaseCommit(Boolean.parseBoolean(value));
                break;
+            case ASYNC_BATCH_SIZE:
+               backup.asyncBatchSize(Integer.parseInt(value));
+               break;
             case FAILURE_POLICY_CLASS:
                backup.failurePolicyClass(value);
                break;
@@ -643,6 +646,9 @@ private void parseFileStore(XMLExtendedStreamReader reader, ConfigurationBuilder
          case STREAM_BUFFER_SIZE:
             fcscb.streamBufferSize(Integer.parseInt(value));
             break;
+         case MEMORY_MAPPED_READS:
+            fcscb.memoryMappedReads(Boolean.parseBoolean(value));
+            break;
          default:
             parseLockSupportStoreAttributes(reader, i, fcscb);
             break;
@@ -1136,6 +1142,9 @@ private void parseDataContainer(final XMLExtendedStreamReader reader, final Conf
             case CLASS:
                builder.dataContainer().dataContainer(Util.<DataContainer>getInstance(value, holder.getClassLoader()));
                break;
+            case OFF_HEAP:
+               builder.dataContainer().offHeap(Boolean.parseBoolean(value));
+               break;
             default:
                throw ParseUtils.unexpectedAttribute(reader, i);
          }
@@ -67,6 +67,7 @@ public class DefaultDataContainer implements DataContainer {
    final protected ConcurrentMap<Object, InternalCacheEntry> entries;
    protected InternalEntryFactory entryFactory;
    final protected DefaultEvictionListener evictionListener;
+   final ExpirationIndex expirationIndex = new ExpirationIndex();
    private EvictionManager evictionManager;
    private PassivationManager passivator;
    private ActivationManager activator;
@@ -78,6 +79,11 @@ public DefaultDataContainer(int concurrencyLevel) {
       evictionListener = null;
    }
 
+   protected DefaultDataContainer(ConcurrentMap<Object, InternalCacheEntry> entries) {
+      this.entries = entries;
+      evictionListener = null;
+   }
+
    protected DefaultDataContainer(int concurrencyLevel, int maxEntries, EvictionStrategy strategy, EvictionThreadPolicy policy) {
       // translate eviction policy and strategy
       switch (policy) {
@@ -136,6 +142,7 @@ public InternalCacheEntry get(Object k) {
          long currentTimeMillis = System.currentTimeMillis();
          if (e.isExpired(currentTimeMillis)) {
             entries.remove(k);
+            expirationIndex.remove(k);
             e = null;
          } else {
             e.touch(currentTimeMillis);
@@ -147,6 +154,7 @@ public InternalCacheEntry get(Object k) {
    @Override
    public void put(Object k, Object v, EntryVersion version, long lifespan, long maxIdle) {
       InternalCacheEntry e = entries.get(k);
+      boolean wasIndexed = e != null && e.canExpire();
       if (e != null) {
          e.setValue(v);
          InternalCacheEntry original = e;
@@ -161,6 +169,11 @@ public void put(Object k, Object v, EntryVersion version, long lifespan, long ma
          e = entryFactory.create(k, v, version, lifespan, maxIdle);
       }
       entries.put(k, e);
+      if (e.canExpire()) {
+         expirationIndex.add(k, e.getExpiryTime());
+      } else if (wasIndexed) {
+         expirationIndex.remove(k);
+      }
    }
 
    @Override
@@ -168,6 +181,7 @@ public boolean containsKey(Object k) {
       InternalCacheEntry ice = peek(k);
       if (ice != null && ice.canExpire() && ice.isExpired(System.currentTimeMillis())) {
          entries.remove(k);
+         expirationIndex.remove(k);
          ice = null;
       }
       return ice != null;
@@ -176,6 +190,7 @@ public boolean containsKey(Object k) {
    @Override
    public InternalCacheEntry remove(Object k) {
       InternalCacheEntry e = entries.remove(k);
+      if (e != null && e.canExpire()) expirationIndex.remove(k);
       return e == null || (e.canExpire() && e.isExpired(System.currentTimeMillis())) ? null : e;
    }
 
@@ -187,6 +202,7 @@ public int size() {
    @Override
    public void clear() {
       entries.clear();
+      expirationIndex.clear();
    }
 
    @Override
@@ -207,10 +223,17 @@ public Set<InternalCacheEntry> entrySet() {
    @Override
    public void purgeExpired() {
       long currentTimeMillis = System.currentTimeMillis();
-      for (Iterator<InternalCacheEntry> purgeCandidates = entries.values().iterator(); purgeCandidates.hasNext();) {
-         InternalCacheEntry e = purgeCandidates.next();
-         if (e.isExpired(currentTimeMillis)) {
-            purgeCandidates.remove();
+      // only visit the keys indexed with an expiry time that has passed, instead of scanning all the entries
+      for (Set<Object> due : expirationIndex.pollDue(currentTimeMillis)) {
+         for (Object key : due) {
+            InternalCacheEntry e = entries.get(key);
+            if (e == null || !e.canExpire()) continue;
+            if (e.isExpired(currentTimeMillis)) {
+               entries.remove(key, e);
+            } else {
+               // touched or updated since it was indexed
+               expirationIndex.add(key, e.getExpiryTime());
+            }
          }
       }
    }
@@ -224,6 +247,9 @@ private final class DefaultEvictionListener implements EvictionListener<Object,
 
       @Override
       public void onEntryEviction(Map<Object, InternalCacheEntry> evicted) {
+         for (InternalCacheEntry e : evicted.values()) {
+            if (e.canExpire()) expirationIndex.remove(e.getKey());
+         }
          evictionManager.onEntryEviction(evicted);
       }
 
@@ -39,6 +39,7 @@
 import org.infinispan.container.versioning.EntryVersion;
 import org.infinispan.context.Flag;
 import org.infinispan.context.InvocationContext;
+import org.infinispan.context.SingleKeyNonTxInvocationContext;
 import org.infinispan.factories.annotations.Inject;
 import org.infinispan.factories.annotations.Start;
 import org.infinispan.notifications.cachelistener.CacheNotifier;
@@ -132,7 +133,7 @@ public final  MVCCEntry wrapEntryForRemove(InvocationContext ctx, Object key) th
       } else {
          InternalCacheEntry ice = getFromContainer(key);
          if (ice != null) {
-            mvccEntry = wrapInternalCacheEntryForPut(ctx, key, ice);
+            mvccEntry = wrapInternalCacheEntryForPut(ctx, key, ice, true);
             mvccEntry.setRemoved(true);
          }
       }
@@ -151,8 +152,10 @@ public final MVCCEntry wrapEntryForPut(InvocationContext ctx, Object key, Intern
       CacheEntry cacheEntry = getFromContext(ctx, key);
       MVCCEntry mvccEntry;
       if (cacheEntry != null && cacheEntry.isNull()) cacheEntry = null;
+      // entries loaded by the caller, e.g. from a cache store or into L1, may be wrapped on behalf of a retrieval
+      boolean recyclable = icEntry == null;
       if (cacheEntry != null) {
-         mvccEntry = wrapMvccEntryForPut(ctx, key, cacheEntry);
+         mvccEntry = wrapMvccEntryForPut(ctx, key, cacheEntry, recyclable);
          mvccEntry.undelete(undeleteIfNeeded);
       } else {
          InternalCacheEntry ice = (icEntry == null ? getFromContainer(key) : icEntry);
@@ -164,8 +167,8 @@ public final MVCCEntry wrapEntryForPut(InvocationContext ctx, Object key, Intern
          }
 
          mvccEntry = ice != null ?
-             wrapInternalCacheEntryForPut(ctx, key, ice) :
-             newMvccEntryForPut(ctx, key);
+             wrapInternalCacheEntryForPut(ctx, key, ice, recyclable) :
+             newMvccEntryForPut(ctx, key, recyclable);
       }
       mvccEntry.copyForUpdate(container, localModeWriteSkewCheck);
       return mvccEntry;
@@ -218,30 +221,30 @@ private InternalCacheEntry getFromContainer(Object key) {
       return ice;
    }
 
-   private MVCCEntry newMvccEntryForPut(InvocationContext ctx, Object key) {
+   private MVCCEntry newMvccEntryForPut(InvocationContext ctx, Object key, boolean recyclable) {
       MVCCEntry mvccEntry;
       if (trace) log.trace("Creating new entry.");
       notifier.notifyCacheEntryCreated(key, true, ctx);
-      mvccEntry = createWrappedEntry(key, null, null, true, false, -1);
+      mvccEntry = createWrappedEntry(ctx, key, null, null, true, false, -1, recyclable);
       mvccEntry.setCreated(true);
       ctx.putLookedUpEntry(key, mvccEntry);
       notifier.notifyCacheEntryCreated(key, false, ctx);
       return mvccEntry;
    }
 
-   private MVCCEntry wrapMvccEntryForPut(InvocationContext ctx, Object key, CacheEntry cacheEntry) {
+   private MVCCEntry wrapMvccEntryForPut(InvocationContext ctx, Object key, CacheEntry cacheEntry, boolean recyclable) {
       if (cacheEntry instanceof MVCCEntry) return (MVCCEntry) cacheEntry;
-      return wrapInternalCacheEntryForPut(ctx, key, (InternalCacheEntry) cacheEntry);
+      return wrapInternalCacheEntryForPut(ctx, key, (InternalCacheEntry) cacheEntry, recyclable);
    }
 
-   private MVCCEntry wrapInternalCacheEntryForPut(InvocationContext ctx, Object key, InternalCacheEntry cacheEntry) {
-      MVCCEntry mvccEntry = createWrappedEntry(key, cacheEntry.getValue(), cacheEntry.getVersion(), false, false, cacheEntry.getLifespan());
+   private MVCCEntry wrapInternalCacheEntryForPut(InvocationContext ctx, Object key, InternalCacheEntry cacheEntry, boolean recyclable) {
+      MVCCEntry mvccEntry = createWrappedEntry(ctx, key, cacheEntry.getValue(), cacheEntry.getVersion(), false, false, cacheEntry.getLifespan(), recyclable);
       ctx.putLookedUpEntry(key, mvccEntry);
       return mvccEntry;
    }
 
    private MVCCEntry wrapMvccEntryForRemove(InvocationContext ctx, Object key, CacheEntry cacheEntry) {
-      MVCCEntry mvccEntry = createWrappedEntry(key, cacheEntry.getValue(), cacheEntry.getVersion(), false, true, cacheEntry.getLifespan());
+      MVCCEntry mvccEntry = createWrappedEntry(ctx, key, cacheEntry.getValue(), cacheEntry.getVersion(), false, true, cacheEntry.getLifespan(), true);
       // If the original entry has changeable state, copy state flags to the new MVCC entry.
       if (cacheEntry instanceof StateChangingEntry)
          mvccEntry.copyStateFlagsFrom((StateChangingEntry) cacheEntry);
@@ -254,11 +257,11 @@ private MVCCEntry wrapEntry(InvocationContext ctx, Object key) {
       CacheEntry cacheEntry = getFromContext(ctx, key);
       MVCCEntry mvccEntry = null;
       if (cacheEntry != null) {
-         mvccEntry = wrapMvccEntryForPut(ctx, key, cacheEntry);
+         mvccEntry = wrapMvccEntryForPut(ctx, key, cacheEntry, true);
       } else {
          InternalCacheEntry ice = getFromContainer(key);
          if (ice != null) {
-            mvccEntry = wrapInternalCacheEntryForPut(ctx, ice.getKey(), ice);
+            mvccEntry = wrapInternalCacheEntryForPut(ctx, ice.getKey(), ice, true);
          }
       }
       if (mvccEntry != null)
@@ -266,6 +269,18 @@ private MVCCEntry wrapEntry(InvocationContext ctx, Object key) {
       return mvccEntry;
    }
 
+   private MVCCEntry createWrappedEntry(InvocationContext ctx, Object key, Object value, EntryVersion version, boolean isForInsert, boolean forRemoval, long lifespan, boolean recyclable) {
+      // single key, non transactional writes re-initialize the wrapper recycled by their context
+      if (recyclable && !useRepeatableRead && (value != null || isForInsert) && ctx instanceof SingleKeyNonTxInvocationContext) {
+         ReadCommittedEntry recycled = ((SingleKeyNonTxInvocationContext) ctx).claimRecycledEntry();
+         if (recycled != null) {
+            recycled.reinitialize(key, value, lifespan);
+            return recycled;
+         }
+      }
+      return createWrappedEntry(key, value, version, isForInsert, forRemoval, lifespan);
+   }
+
    protected  MVCCEntry createWrappedEntry(Object key, Object value, EntryVersion version, boolean isForInsert, boolean forRemoval, long lifespan) {
       if (value == null && !isForInsert) return useRepeatableRead ?
             forRemoval ? new NullMarkerEntryForRemoval(key, version) : NullMarkerEntry.getInstance()
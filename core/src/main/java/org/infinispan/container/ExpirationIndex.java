@@ -0,0 +1,138 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.container;
+
+import net.jcip.annotations.ThreadSafe;
+import org.infinispan.util.concurrent.ConcurrentMapFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * An index of the keys of the entries that can expire, grouped in buckets by expiry time, so that the entries which
+ * may have expired can be found without scanning the whole data container.
+ * <p/>
+ * Keys are moved to another bucket when they are indexed again with a new expiry time, and are dropped from their
+ * bucket when {@link #remove(Object) removed}. The index is otherwise lazy: entries whose expiry time moves forward,
+ * like transient entries being accessed, stay in the bucket of the expiry time they were indexed with, and a key
+ * removed while being indexed concurrently may be left behind. Callers have to check the current entry of every key
+ * of a due bucket, and {@link #add(Object, long) add} the keys of the entries which turn out not to have expired
+ * again, with their new expiry time.
+ *
+ * @since 5.2
+ */
+@ThreadSafe
+final class ExpirationIndex {
+
+   static final long DEFAULT_BUCKET_INTERVAL = 1000;
+
+   private final long bucketInterval;
+   private final ConcurrentNavigableMap<Long, Set<Object>> buckets = new ConcurrentSkipListMap<Long, Set<Object>>();
+   // the start of the bucket each key was last indexed in
+   private final ConcurrentMap<Object, Long> bucketOf = ConcurrentMapFactory.makeConcurrentMap();
+
+   ExpirationIndex() {
+      this(DEFAULT_BUCKET_INTERVAL);
+   }
+
+   /**
+    * @param bucketInterval the span of expiry times, in milliseconds, grouped in the same bucket
+    */
+   ExpirationIndex(long bucketInterval) {
+      if (bucketInterval < 1)
+         throw new IllegalArgumentException("The bucket interval must be strictly positive");
+      this.bucketInterval = bucketInterval;
+   }
+
+   /**
+    * Indexes a key by the expiry time of its entry, dropping it from the bucket it was indexed in before, if any.
+    */
+   void add(Object key, long expiryTime) {
+      Long bucketStart = expiryTime - expiryTime % bucketInterval;
+      Long previous = bucketOf.put(key, bucketStart);
+      if (previous != null && !previous.equals(bucketStart)) removeFromBucket(key, previous);
+      while (true) {
+         Set<Object> bucket = buckets.get(bucketStart);
+         if (bucket == null) {
+            Set<Object> newBucket = Collections.newSetFromMap(ConcurrentMapFactory.<Object, Boolean>makeConcurrentMap());
+            bucket = buckets.putIfAbsent(bucketStart, newBucket);
+            if (bucket == null) bucket = newBucket;
+         }
+         bucket.add(key);
+         // a bucket being polled concurrently may not see the key, so add it to a new bucket in that case
+         if (buckets.get(bucketStart) == bucket) return;
+      }
+   }
+
+   /**
+    * Drops a key from the index, e.g. because its entry was removed or does not expire any more.
+    */
+   void remove(Object key) {
+      Long bucketStart = bucketOf.remove(key);
+      if (bucketStart != null) removeFromBucket(key, bucketStart);
+   }
+
+   private void removeFromBucket(Object key, Long bucketStart) {
+      // an emptied bucket is left for pollDue, as a key may be added to it concurrently
+      Set<Object> bucket = buckets.get(bucketStart);
+      if (bucket != null) bucket.remove(key);
+   }
+
+   /**
+    * Removes from the index and returns the buckets holding the keys of all the entries which might have expired at
+    * the given time. Some of the entries may not have expired yet, or be gone already.
+    */
+   List<Set<Object>> pollDue(long currentTimeMillis) {
+      List<Set<Object>> due = new ArrayList<Set<Object>>();
+      Map.Entry<Long, Set<Object>> first;
+      while ((first = buckets.firstEntry()) != null && first.getKey() <= currentTimeMillis) {
+         if (buckets.remove(first.getKey(), first.getValue())) {
+            due.add(first.getValue());
+            // unless indexed again in the meantime
+            for (Object key : first.getValue()) bucketOf.remove(key, first.getKey());
+         }
+      }
+      return due;
+   }
+
+   /**
+    * @return the number of keys in the index, including the keys of entries whose expiry time moved forward since
+    *         they were indexed
+    */
+   int size() {
+      int size = 0;
+      for (Set<Object> bucket : buckets.values()) size += bucket.size();
+      return size;
+   }
+
+   void clear() {
+      buckets.clear();
+      bucketOf.clear();
+   }
+}
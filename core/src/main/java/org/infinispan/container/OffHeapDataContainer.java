@@ -0,0 +1,821 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.container;
+
+import net.jcip.annotations.ThreadSafe;
+import org.infinispan.CacheException;
+import org.infinispan.container.entries.InternalCacheEntry;
+import org.infinispan.container.versioning.EntryVersion;
+import org.infinispan.eviction.ActivationManager;
+import org.infinispan.eviction.EvictionManager;
+import org.infinispan.eviction.EvictionStrategy;
+import org.infinispan.eviction.EvictionThreadPolicy;
+import org.infinispan.eviction.PassivationManager;
+import org.infinispan.factories.annotations.ComponentName;
+import org.infinispan.factories.annotations.Inject;
+import org.infinispan.factories.annotations.Stop;
+import org.infinispan.loaders.CacheLoaderException;
+import org.infinispan.loaders.CacheLoaderManager;
+import org.infinispan.loaders.CacheStore;
+import org.infinispan.marshall.StreamingMarshaller;
+import org.infinispan.util.Immutables;
+import org.infinispan.util.logging.Log;
+import org.infinispan.util.logging.LogFactory;
+import sun.misc.Unsafe;
+
+import java.io.IOException;
+import java.util.AbstractCollection;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static org.infinispan.factories.KnownComponentNames.CACHE_MARSHALLER;
+
+/**
+ * A {@link DataContainer} that keeps marshalled keys, values, versions and expiry metadata in native memory, outside
+ * of the Java heap, so that large data sets do not add to garbage collection pauses.
+ * <p/>
+ * The container is split in segments, each guarded by its own lock, with a hash index made of a {@code long[]} of
+ * native addresses. {@link InternalCacheEntry} instances handed out by this container are transient views created
+ * on demand: modifying them does not modify the container, {@link #put(Object, Object, EntryVersion, long, long)}
+ * has to be called instead.
+ * <p/>
+ * Keys are compared in their marshalled form, so key types must marshall deterministically, which is the case for
+ * strings, primitive wrappers and byte array based keys such as the ones used by the Hot Rod server.
+ * <p/>
+ * When bounded, each segment keeps a LRU list of its entries and evicts from its tail. {@link EvictionStrategy#LIRS}
+ * is approximated by LRU.
+ *
+ * @since 5.2
+ */
+@ThreadSafe
+public class OffHeapDataContainer implements DataContainer {
+
+   private static final Log log = LogFactory.getLog(OffHeapDataContainer.class);
+
+   private static final Unsafe UNSAFE = getUnsafe();
+   private static final long BYTE_ARRAY_OFFSET = UNSAFE.arrayBaseOffset(byte[].class);
+
+   // Layout of each native entry block
+   private static final int CHAIN_NEXT = 0;
+   private static final int LRU_PREVIOUS = 8;
+   private static final int LRU_NEXT = 16;
+   private static final int HASH = 24;
+   private static final int KEY_LENGTH = 28;
+   private static final int VALUE_LENGTH = 32;
+   private static final int VERSION_LENGTH = 36;
+   private static final int CREATED = 40;
+   private static final int LAST_USED = 48;
+   private static final int LIFESPAN = 56;
+   private static final int MAX_IDLE = 64;
+   private static final int HEADER_SIZE = 72;
+
+   private static final int MAX_SEGMENTS = 1 << 16;
+   private static final int INITIAL_BUCKETS = 16;
+   private static final int MAXIMUM_BUCKETS = 1 << 30;
+   private static final float LOAD_FACTOR = 0.75f;
+
+   private final Segment[] segments;
+   private final int segmentShift;
+   private final int segmentMask;
+   private final boolean bounded;
+
+   private StreamingMarshaller marshaller;
+   private InternalEntryFactory entryFactory;
+   private EvictionManager evictionManager;
+   private PassivationManager passivator;
+   private ActivationManager activator;
+   private CacheLoaderManager clm;
+
+   public OffHeapDataContainer(int concurrencyLevel) {
+      this(concurrencyLevel, -1);
+   }
+
+   protected OffHeapDataContainer(int concurrencyLevel, int maxEntries) {
+      int sshift = 0;
+      int ssize = 1;
+      while (ssize < Math.min(concurrencyLevel, MAX_SEGMENTS)) {
+         ++sshift;
+         ssize <<= 1;
+      }
+      segmentShift = 32 - sshift;
+      segmentMask = ssize - 1;
+      bounded = maxEntries > -1;
+
+      int maxSegmentEntries = bounded ? Math.max(1, (maxEntries + ssize - 1) / ssize) : -1;
+      segments = new Segment[ssize];
+      for (int i = 0; i < ssize; i++) {
+         segments[i] = new Segment(maxSegmentEntries);
+      }
+   }
+
+   @Inject
+   public void initialize(@ComponentName(CACHE_MARSHALLER) StreamingMarshaller marshaller,
+         EvictionManager evictionManager, PassivationManager passivator, InternalEntryFactory entryFactory,
+         ActivationManager activator, CacheLoaderManager clm) {
+      this.marshaller = marshaller;
+      this.evictionManager = evictionManager;
+      this.passivator = passivator;
+      this.entryFactory = entryFactory;
+      this.activator = activator;
+      this.clm = clm;
+   }
+
+   /**
+    * Frees the native memory held by the entries, which is never reclaimed by the garbage collector. Runs after all
+    * the other components, e.g. the passivation of the entries, have stopped.
+    */
+   @Stop(priority = 999)
+   public void stop() {
+      clear();
+   }
+
+   public static DataContainer boundedDataContainer(int concurrencyLevel, int maxEntries,
+            EvictionStrategy strategy, EvictionThreadPolicy policy) {
+      switch (policy) {
+         case PIGGYBACK:
+         case DEFAULT:
+            break;
+         default:
+            throw new IllegalArgumentException("No such eviction thread policy " + policy);
+      }
+      switch (strategy) {
+         case FIFO:
+         case UNORDERED:
+         case LRU:
+         case LIRS:
+            break;
+         default:
+            throw new IllegalArgumentException("No such eviction strategy " + strategy);
+      }
+      return new OffHeapDataContainer(concurrencyLevel, maxEntries);
+   }
+
+   public static DataContainer unBoundedDataContainer(int concurrencyLevel) {
+      return new OffHeapDataContainer(concurrencyLevel);
+   }
+
+   @Override
+   public InternalCacheEntry peek(Object k) {
+      byte[] key = marshall(k);
+      int hash = hash(key);
+      Segment segment = segmentFor(hash);
+      NativeEntry entry;
+      segment.lock();
+      try {
+         long address = segment.find(key, hash);
+         if (address == 0) return null;
+         entry = segment.read(address, false);
+      } finally {
+         segment.unlock();
+      }
+      return toInternalCacheEntry(k, entry);
+   }
+
+   @Override
+   public InternalCacheEntry get(Object k) {
+      byte[] key = marshall(k);
+      int hash = hash(key);
+      Segment segment = segmentFor(hash);
+      NativeEntry entry;
+      segment.lock();
+      try {
+         long address = segment.find(key, hash);
+         if (address == 0) return null;
+         long now = System.currentTimeMillis();
+         if (isExpired(address, now)) {
+            segment.unlink(address);
+            free(address);
+            return null;
+         }
+         UNSAFE.putLong(address + LAST_USED, now);
+         if (bounded) segment.moveToFront(address);
+         entry = segment.read(address, false);
+      } finally {
+         segment.unlock();
+      }
+      return toInternalCacheEntry(k, entry);
+   }
+
+   @Override
+   public void put(Object k, Object v, EntryVersion version, long lifespan, long maxIdle) {
+      byte[] key = marshall(k);
+      byte[] value = marshall(v);
+      byte[] versionBytes = version == null ? null : marshall(version);
+      int hash = hash(key);
+      long now = System.currentTimeMillis();
+      long address = allocate(hash, key, value, versionBytes, now, lifespan, maxIdle);
+
+      Segment segment = segmentFor(hash);
+      Map<Object, InternalCacheEntry> evicted = null;
+      boolean activate = false;
+      segment.lock();
+      try {
+         long existing = segment.find(key, hash);
+         if (existing != 0) {
+            segment.unlink(existing);
+            free(existing);
+         } else if (bounded) {
+            evicted = segment.evict();
+            activate = true;
+         }
+         segment.link(address);
+      } finally {
+         segment.unlock();
+      }
+
+      // same order of notifications as BoundedConcurrentHashMap
+      if (activate) activator.activate(k);
+      if (evicted != null) evictionManager.onEntryEviction(evicted);
+   }
+
+   @Override
+   public boolean containsKey(Object k) {
+      byte[] key = marshall(k);
+      int hash = hash(key);
+      Segment segment = segmentFor(hash);
+      segment.lock();
+      try {
+         long address = segment.find(key, hash);
+         if (address == 0) return false;
+         if (isExpired(address, System.currentTimeMillis())) {
+            segment.unlink(address);
+            free(address);
+            return false;
+         }
+         return true;
+      } finally {
+         segment.unlock();
+      }
+   }
+
+   @Override
+   public InternalCacheEntry remove(Object k) {
+      byte[] key = marshall(k);
+      int hash = hash(key);
+      Segment segment = segmentFor(hash);
+      NativeEntry entry = null;
+      boolean expired = false;
+      segment.lock();
+      try {
+         long address = segment.find(key, hash);
+         if (address != 0) {
+            expired = isExpired(address, System.currentTimeMillis());
+            if (!expired) entry = segment.read(address, false);
+            segment.unlink(address);
+            free(address);
+         }
+      } finally {
+         segment.unlock();
+      }
+
+      if (bounded) {
+         // like the bounded DefaultDataContainer, keep the store consistent with passivated entries
+         removeFromCacheStore(k);
+      }
+      return entry == null ? null : toInternalCacheEntry(k, entry);
+   }
+
+   @Override
+   public int size() {
+      int size = 0;
+      for (Segment segment : segments) size += segment.count;
+      return size;
+   }
+
+   @Override
+   public void clear() {
+      for (Segment segment : segments) {
+         segment.lock();
+         try {
+            segment.clear();
+         } finally {
+            segment.unlock();
+         }
+      }
+   }
+
+   @Override
+   public Set<Object> keySet() {
+      return new KeySet();
+   }
+
+   @Override
+   public Collection<Object> values() {
+      return new Values();
+   }
+
+   @Override
+   public Set<InternalCacheEntry> entrySet() {
+      return new EntrySet();
+   }
+
+   @Override
+   public void purgeExpired() {
+      long currentTimeMillis = System.currentTimeMillis();
+      int purged = 0;
+      for (Segment segment : segments) {
+         segment.lock();
+         try {
+            long address = segment.lruHead;
+            while (address != 0) {
+               long next = UNSAFE.getLong(address + LRU_NEXT);
+               if (isExpired(address, currentTimeMillis)) {
+                  segment.unlink(address);
+                  free(address);
+                  purged++;
+               }
+               address = next;
+            }
+         } finally {
+            segment.unlock();
+         }
+      }
+      if (log.isTraceEnabled()) log.tracef("Purged %d expired entries from native memory", purged);
+   }
+
+   @Override
+   public Iterator<InternalCacheEntry> iterator() {
+      return new EntryIterator();
+   }
+
+   private Segment segmentFor(int hash) {
+      return segments[(hash >>> segmentShift) & segmentMask];
+   }
+
+   private static int hash(byte[] key) {
+      // Spread bits the same way BoundedConcurrentHashMap does
+      int h = Arrays.hashCode(key);
+      h += h <<  15 ^ 0xffffcd7d;
+      h ^= h >>> 10;
+      h += h <<   3;
+      h ^= h >>>  6;
+      h += (h <<   2) + (h << 14);
+      return h ^ h >>> 16;
+   }
+
+   private static boolean isExpired(long address, long now) {
+      long lifespan = UNSAFE.getLong(address + LIFESPAN);
+      long maxIdle = UNSAFE.getLong(address + MAX_IDLE);
+      return (lifespan > -1 && now > UNSAFE.getLong(address + CREATED) + lifespan)
+            || (maxIdle > -1 && now > UNSAFE.getLong(address + LAST_USED) + maxIdle);
+   }
+
+   private static long allocate(int hash, byte[] key, byte[] value, byte[] version, long now, long lifespan, long maxIdle) {
+      int versionLength = version == null ? -1 : version.length;
+      long size = (long) HEADER_SIZE + key.length + value.length + Math.max(0, versionLength);
+      long address = UNSAFE.allocateMemory(size);
+      UNSAFE.putLong(address + CHAIN_NEXT, 0);
+      UNSAFE.putLong(address + LRU_PREVIOUS, 0);
+      UNSAFE.putLong(address + LRU_NEXT, 0);
+      UNSAFE.putInt(address + HASH, hash);
+      UNSAFE.putInt(address + KEY_LENGTH, key.length);
+      UNSAFE.putInt(address + VALUE_LENGTH, value.length);
+      UNSAFE.putInt(address + VERSION_LENGTH, versionLength);
+      UNSAFE.putLong(address + CREATED, now);
+      UNSAFE.putLong(address + LAST_USED, now);
+      UNSAFE.putLong(address + LIFESPAN, lifespan);
+      UNSAFE.putLong(address + MAX_IDLE, maxIdle);
+      long offset = address + HEADER_SIZE;
+      UNSAFE.copyMemory(key, BYTE_ARRAY_OFFSET, null, offset, key.length);
+      offset += key.length;
+      UNSAFE.copyMemory(value, BYTE_ARRAY_OFFSET, null, offset, value.length);
+      if (version != null) {
+         offset += value.length;
+         UNSAFE.copyMemory(version, BYTE_ARRAY_OFFSET, null, offset, version.length);
+      }
+      return address;
+   }
+
+   private static void free(long address) {
+      UNSAFE.freeMemory(address);
+   }
+
+   private static byte[] readBytes(long offset, int length) {
+      byte[] bytes = new byte[length];
+      UNSAFE.copyMemory(null, offset, bytes, BYTE_ARRAY_OFFSET, length);
+      return bytes;
+   }
+
+   private static boolean keyEquals(long address, byte[] key) {
+      if (UNSAFE.getInt(address + KEY_LENGTH) != key.length) return false;
+      long offset = address + HEADER_SIZE;
+      for (int i = 0; i < key.length; i++) {
+         if (UNSAFE.getByte(offset + i) != key[i]) return false;
+      }
+      return true;
+   }
+
+   private byte[] marshall(Object o) {
+      try {
+         return marshaller.objectToByteBuffer(o);
+      } catch (IOException e) {
+         throw new CacheException("Unable to marshall " + o + " into native memory", e);
+      } catch (InterruptedException e) {
+         Thread.currentThread().interrupt();
+         throw new CacheException(e);
+      }
+   }
+
+   private Object unmarshall(byte[] bytes) {
+      try {
+         return marshaller.objectFromByteBuffer(bytes);
+      } catch (IOException e) {
+         throw new CacheException("Unable to unmarshall entry read from native memory", e);
+      } catch (ClassNotFoundException e) {
+         throw new CacheException("Unable to unmarshall entry read from native memory", e);
+      }
+   }
+
+   private InternalCacheEntry toInternalCacheEntry(Object key, NativeEntry entry) {
+      Object k = key != null ? key : unmarshall(entry.key);
+      EntryVersion version = entry.version == null ? null : (EntryVersion) unmarshall(entry.version);
+      return entryFactory.create(k, unmarshall(entry.value), version, entry.created, entry.lifespan,
+                                 entry.lastUsed, entry.maxIdle);
+   }
+
+   private void removeFromCacheStore(Object key) {
+      try {
+         CacheStore cacheStore = clm.getCacheStore();
+         if (cacheStore != null)
+            cacheStore.remove(key);
+      } catch (CacheLoaderException e) {
+         throw new CacheException(e);
+      }
+   }
+
+   private static Unsafe getUnsafe() {
+      try {
+         return Unsafe.getUnsafe();
+      } catch (SecurityException se) {
+         try {
+            return java.security.AccessController.doPrivileged(
+                  new java.security.PrivilegedExceptionAction<Unsafe>() {
+                     @Override
+                     public Unsafe run() throws Exception {
+                        java.lang.reflect.Field f = Unsafe.class.getDeclaredField("theUnsafe");
+                        f.setAccessible(true);
+                        return (Unsafe) f.get(null);
+                     }
+                  });
+         } catch (java.security.PrivilegedActionException e) {
+            throw new CacheException("Could not access native memory", e.getCause());
+         }
+      }
+   }
+
+   /**
+    * On heap copy of an entry, taken while holding the segment lock so that it can be unmarshalled outside of it.
+    */
+   private static final class NativeEntry {
+      byte[] key;
+      byte[] value;
+      byte[] version;
+      long created;
+      long lastUsed;
+      long lifespan;
+      long maxIdle;
+   }
+
+   /**
+    * A segment of the container. All fields are guarded by the segment's lock, except {@link #count} which is
+    * volatile so that {@link OffHeapDataContainer#size()} does not need to lock.
+    */
+   private final class Segment extends ReentrantLock {
+
+      private static final long serialVersionUID = 6446372468290429460L;
+
+      final int maxEntries;
+      long[] buckets = new long[INITIAL_BUCKETS];
+      volatile int count;
+      // most recently used entry
+      long lruHead;
+      // least recently used entry
+      long lruTail;
+
+      Segment(int maxEntries) {
+         this.maxEntries = maxEntries;
+      }
+
+      long find(byte[] key, int hash) {
+         long address = buckets[hash & (buckets.length - 1)];
+         while (address != 0) {
+            if (UNSAFE.getInt(address + HASH) == hash && keyEquals(address, key)) return address;
+            address = UNSAFE.getLong(address + CHAIN_NEXT);
+         }
+         return 0;
+      }
+
+      NativeEntry read(long address, boolean includeKey) {
+         NativeEntry entry = new NativeEntry();
+         int keyLength = UNSAFE.getInt(address + KEY_LENGTH);
+         int valueLength = UNSAFE.getInt(address + VALUE_LENGTH);
+         int versionLength = UNSAFE.getInt(address + VERSION_LENGTH);
+         long offset = address + HEADER_SIZE;
+         if (includeKey) entry.key = readBytes(offset, keyLength);
+         offset += keyLength;
+         entry.value = readBytes(offset, valueLength);
+         if (versionLength > -1) entry.version = readBytes(offset + valueLength, versionLength);
+         entry.created = UNSAFE.getLong(address + CREATED);
+         entry.lastUsed = UNSAFE.getLong(address + LAST_USED);
+         entry.lifespan = UNSAFE.getLong(address + LIFESPAN);
+         entry.maxIdle = UNSAFE.getLong(address + MAX_IDLE);
+         return entry;
+      }
+
+      List<NativeEntry> readAll() {
+         List<NativeEntry> entries = new ArrayList<NativeEntry>(count);
+         for (long address = lruHead; address != 0; address = UNSAFE.getLong(address + LRU_NEXT)) {
+            entries.add(read(address, true));
+         }
+         return entries;
+      }
+
+      void link(long address) {
+         int index = UNSAFE.getInt(address + HASH) & (buckets.length - 1);
+         UNSAFE.putLong(address + CHAIN_NEXT, buckets[index]);
+         buckets[index] = address;
+         linkFirst(address);
+         if (++count > buckets.length * LOAD_FACTOR) rehash();
+      }
+
+      void unlink(long address) {
+         int index = UNSAFE.getInt(address + HASH) & (buckets.length - 1);
+         long previous = 0;
+         long current = buckets[index];
+         while (current != address) {
+            previous = current;
+            current = UNSAFE.getLong(current + CHAIN_NEXT);
+         }
+         long next = UNSAFE.getLong(address + CHAIN_NEXT);
+         if (previous == 0)
+            buckets[index] = next;
+         else
+            UNSAFE.putLong(previous + CHAIN_NEXT, next);
+         unlinkLru(address);
+         count--;
+      }
+
+      void moveToFront(long address) {
+         if (address != lruHead) {
+            unlinkLru(address);
+            linkFirst(address);
+         }
+      }
+
+      /**
+       * Makes room for a new entry, passivating and releasing the least recently used ones.
+       *
+       * @return the evicted entries, or null if nothing was evicted
+       */
+      Map<Object, InternalCacheEntry> evict() {
+         Map<Object, InternalCacheEntry> evicted = null;
+         while (count >= maxEntries && lruTail != 0) {
+            long address = lruTail;
+            NativeEntry entry = read(address, true);
+            InternalCacheEntry ice = toInternalCacheEntry(null, entry);
+            // Passivate while still holding the lock to guarantee passivation/activation correctness
+            passivator.passivate(ice);
+            unlink(address);
+            free(address);
+            if (evicted == null) evicted = new HashMap<Object, InternalCacheEntry>(4);
+            evicted.put(ice.getKey(), ice);
+         }
+         return evicted == null ? null : Collections.unmodifiableMap(evicted);
+      }
+
+      void clear() {
+         long address = lruHead;
+         while (address != 0) {
+            long next = UNSAFE.getLong(address + LRU_NEXT);
+            free(address);
+            address = next;
+         }
+         buckets = new long[INITIAL_BUCKETS];
+         lruHead = 0;
+         lruTail = 0;
+         count = 0;
+      }
+
+      private void linkFirst(long address) {
+         UNSAFE.putLong(address + LRU_PREVIOUS, 0);
+         UNSAFE.putLong(address + LRU_NEXT, lruHead);
+         if (lruHead != 0)
+            UNSAFE.putLong(lruHead + LRU_PREVIOUS, address);
+         else
+            lruTail = address;
+         lruHead = address;
+      }
+
+      private void unlinkLru(long address) {
+         long previous = UNSAFE.getLong(address + LRU_PREVIOUS);
+         long next = UNSAFE.getLong(address + LRU_NEXT);
+         if (previous == 0)
+            lruHead = next;
+         else
+            UNSAFE.putLong(previous + LRU_NEXT, next);
+         if (next == 0)
+            lruTail = previous;
+         else
+            UNSAFE.putLong(next + LRU_PREVIOUS, previous);
+      }
+
+      private void rehash() {
+         long[] oldBuckets = buckets;
+         if (oldBuckets.length >= MAXIMUM_BUCKETS) return;
+         long[] newBuckets = new long[oldBuckets.length << 1];
+         int mask = newBuckets.length - 1;
+         for (long first : oldBuckets) {
+            long address = first;
+            while (address != 0) {
+               long next = UNSAFE.getLong(address + CHAIN_NEXT);
+               int index = UNSAFE.getInt(address + HASH) & mask;
+               UNSAFE.putLong(address + CHAIN_NEXT, newBuckets[index]);
+               newBuckets[index] = address;
+               address = next;
+            }
+         }
+         buckets = newBuckets;
+      }
+   }
+
+   /**
+    * Iterates the container one segment at a time, copying each segment to the heap before unmarshalling its
+    * entries, so that no lock is held while the caller processes them.
+    */
+   private class EntryIterator implements Iterator<InternalCacheEntry> {
+      private int nextSegment;
+      private Iterator<NativeEntry> current = Collections.<NativeEntry>emptyList().iterator();
+
+      @Override
+      public boolean hasNext() {
+         while (!current.hasNext() && nextSegment < segments.length) {
+            Segment segment = segments[nextSegment++];
+            segment.lock();
+            try {
+               current = segment.readAll().iterator();
+            } finally {
+               segment.unlock();
+            }
+         }
+         return current.hasNext();
+      }
+
+      @Override
+      public InternalCacheEntry next() {
+         if (!hasNext()) throw new NoSuchElementException();
+         return toInternalCacheEntry(null, current.next());
+      }
+
+      @Override
+      public void remove() {
+         throw new UnsupportedOperationException();
+      }
+   }
+
+   /**
+    * Minimal implementation needed for unmodifiable Set
+    *
+    */
+   private class KeySet extends AbstractSet<Object> {
+      @Override
+      public boolean contains(Object o) {
+         return peek(o) != null;
+      }
+
+      @Override
+      public Iterator<Object> iterator() {
+         final Iterator<InternalCacheEntry> it = new EntryIterator();
+         return new Iterator<Object>() {
+            @Override
+            public boolean hasNext() {
+               return it.hasNext();
+            }
+
+            @Override
+            public Object next() {
+               return it.next().getKey();
+            }
+
+            @Override
+            public void remove() {
+               throw new UnsupportedOperationException();
+            }
+         };
+      }
+
+      @Override
+      public int size() {
+         return OffHeapDataContainer.this.size();
+      }
+   }
+
+   /**
+    * Minimal implementation needed for unmodifiable Set
+    *
+    */
+   private class EntrySet extends AbstractSet<InternalCacheEntry> {
+
+      @Override
+      public boolean contains(Object o) {
+         if (!(o instanceof Map.Entry)) {
+            return false;
+         }
+
+         @SuppressWarnings("rawtypes")
+         Map.Entry e = (Map.Entry) o;
+         InternalCacheEntry ice = peek(e.getKey());
+         if (ice == null) {
+            return false;
+         }
+         return ice.getValue().equals(e.getValue());
+      }
+
+      @Override
+      public Iterator<InternalCacheEntry> iterator() {
+         final Iterator<InternalCacheEntry> it = new EntryIterator();
+         return new Iterator<InternalCacheEntry>() {
+            @Override
+            public boolean hasNext() {
+               return it.hasNext();
+            }
+
+            @Override
+            public InternalCacheEntry next() {
+               return Immutables.immutableInternalCacheEntry(it.next());
+            }
+
+            @Override
+            public void remove() {
+               throw new UnsupportedOperationException();
+            }
+         };
+      }
+
+      @Override
+      public int size() {
+         return OffHeapDataContainer.this.size();
+      }
+   }
+
+   /**
+    * Minimal implementation needed for unmodifiable Collection
+    *
+    */
+   private class Values extends AbstractCollection<Object> {
+      @Override
+      public Iterator<Object> iterator() {
+         final Iterator<InternalCacheEntry> it = new EntryIterator();
+         return new Iterator<Object>() {
+            @Override
+            public boolean hasNext() {
+               return it.hasNext();
+            }
+
+            @Override
+            public Object next() {
+               return it.next().getValue();
+            }
+
+            @Override
+            public void remove() {
+               throw new UnsupportedOperationException();
+            }
+         };
+      }
+
+      @Override
+      public int size() {
+         return OffHeapDataContainer.this.size();
+      }
+   }
+}
@@ -0,0 +1,279 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.container;
+
+import net.jcip.annotations.ThreadSafe;
+import org.infinispan.commons.hash.Hash;
+import org.infinispan.container.entries.InternalCacheEntry;
+import org.infinispan.distribution.ch.ConsistentHash;
+import org.infinispan.distribution.group.GroupManager;
+import org.infinispan.factories.annotations.Inject;
+import org.infinispan.util.concurrent.ConcurrentMapFactory;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * A non-evicting {@link DataContainer} that keeps one map per consistent hash segment, so that the entries of a
+ * segment can be iterated, counted or dropped in time proportional to the size of that segment rather than to the
+ * size of the whole container. This is what state transfer needs when it sends or discards whole segments.
+ * <p/>
+ * Keys are mapped to segments the same way {@link org.infinispan.distribution.ch.DefaultConsistentHash} does it,
+ * using the configured hash function, number of segments and key groups, so the container can only be used with
+ * consistent hash factories producing a {@code DefaultConsistentHash}. Callers should check
+ * {@link #isCompatible(ConsistentHash)} before relying on the per-segment operations.
+ *
+ * @since 5.2
+ */
+@ThreadSafe
+public class SegmentedDataContainer extends DefaultDataContainer {
+
+   private final SegmentedMap segmentedEntries;
+
+   public SegmentedDataContainer(int concurrencyLevel, Hash hashFunction, int numSegments) {
+      super(new SegmentedMap(concurrencyLevel, hashFunction, numSegments));
+      segmentedEntries = (SegmentedMap) entries;
+   }
+
+   @Inject
+   public void injectGroupManager(GroupManager groupManager) {
+      segmentedEntries.groupManager = groupManager;
+   }
+
+   /**
+    * @return the number of segments this container is partitioned into
+    */
+   public int getNumSegments() {
+      return segmentedEntries.maps.length;
+   }
+
+   /**
+    * @return the segment the given key is stored in
+    */
+   public int getSegment(Object key) {
+      return segmentedEntries.segmentOf(key);
+   }
+
+   /**
+    * Tests whether this container maps keys to the same segments as the given consistent hash.
+    */
+   public boolean isCompatible(ConsistentHash ch) {
+      // the grouping consistent hash does not expose its hash function, groups are resolved by this container too
+      Hash chHashFunction = ch.getHashFunction();
+      return ch.getNumSegments() == getNumSegments()
+            && (chHashFunction == null || chHashFunction.getClass() == segmentedEntries.hashFunction.getClass());
+   }
+
+   /**
+    * Iterates the entries of one segment. As with {@link #iterator()}, the entries are the ones stored in the
+    * container and the iterator does not support removal.
+    *
+    * @param segmentId the segment to iterate
+    */
+   public Iterator<InternalCacheEntry> segmentIterator(int segmentId) {
+      return new EntryIterator(segmentedEntries.maps[segmentId].values().iterator());
+   }
+
+   /**
+    * @return a read-only view of the keys stored in the given segment
+    */
+   public Set<Object> segmentKeySet(int segmentId) {
+      return Collections.unmodifiableSet(segmentedEntries.maps[segmentId].keySet());
+   }
+
+   /**
+    * @return count of the number of entries in the given segment
+    */
+   public int segmentSize(int segmentId) {
+      return segmentedEntries.maps[segmentId].size();
+   }
+
+   /**
+    * Removes all the entries of the given segments from the container. Unlike {@link #remove(Object)} this does not
+    * touch any cache store and does not fire any notification, it only drops the in-memory state.
+    *
+    * @param segmentIds the segments to drop
+    */
+   public void removeSegments(Set<Integer> segmentIds) {
+      for (int segmentId : segmentIds) {
+         ConcurrentMap<Object, InternalCacheEntry> segment = segmentedEntries.maps[segmentId];
+         for (InternalCacheEntry e : segment.values()) {
+            if (e.canExpire()) expirationIndex.remove(e.getKey());
+         }
+         segment.clear();
+      }
+   }
+
+   /**
+    * A {@link ConcurrentMap} routing every operation to the map of the key's segment.
+    */
+   private static final class SegmentedMap extends AbstractMap<Object, InternalCacheEntry>
+         implements ConcurrentMap<Object, InternalCacheEntry> {
+
+      final ConcurrentMap<Object, InternalCacheEntry>[] maps;
+      final Hash hashFunction;
+      final int segmentSize;
+      volatile GroupManager groupManager;
+
+      @SuppressWarnings("unchecked")
+      SegmentedMap(int concurrencyLevel, Hash hashFunction, int numSegments) {
+         if (numSegments < 1)
+            throw new IllegalArgumentException("The number of segments must be strictly positive");
+         this.hashFunction = hashFunction;
+         // same partitioning as DefaultConsistentHash
+         this.segmentSize = (int) Math.ceil((double) Integer.MAX_VALUE / numSegments);
+         this.maps = new ConcurrentMap[numSegments];
+         for (int i = 0; i < numSegments; i++) {
+            maps[i] = ConcurrentMapFactory.makeConcurrentMap(16, concurrencyLevel);
+         }
+      }
+
+      int segmentOf(Object key) {
+         Object groupKey = key;
+         GroupManager gm = groupManager;
+         if (gm != null) {
+            String group = gm.getGroup(key);
+            if (group != null) groupKey = group;
+         }
+         return (hashFunction.hash(groupKey) & Integer.MAX_VALUE) / segmentSize;
+      }
+
+      private ConcurrentMap<Object, InternalCacheEntry> mapFor(Object key) {
+         return maps[segmentOf(key)];
+      }
+
+      @Override
+      public InternalCacheEntry get(Object key) {
+         return mapFor(key).get(key);
+      }
+
+      @Override
+      public boolean containsKey(Object key) {
+         return mapFor(key).containsKey(key);
+      }
+
+      @Override
+      public InternalCacheEntry put(Object key, InternalCacheEntry value) {
+         return mapFor(key).put(key, value);
+      }
+
+      @Override
+      public InternalCacheEntry remove(Object key) {
+         return mapFor(key).remove(key);
+      }
+
+      @Override
+      public InternalCacheEntry putIfAbsent(Object key, InternalCacheEntry value) {
+         return mapFor(key).putIfAbsent(key, value);
+      }
+
+      @Override
+      public boolean remove(Object key, Object value) {
+         return mapFor(key).remove(key, value);
+      }
+
+      @Override
+      public boolean replace(Object key, InternalCacheEntry oldValue, InternalCacheEntry newValue) {
+         return mapFor(key).replace(key, oldValue, newValue);
+      }
+
+      @Override
+      public InternalCacheEntry replace(Object key, InternalCacheEntry value) {
+         return mapFor(key).replace(key, value);
+      }
+
+      @Override
+      public int size() {
+         int size = 0;
+         for (ConcurrentMap<Object, InternalCacheEntry> map : maps) size += map.size();
+         return size;
+      }
+
+      @Override
+      public boolean isEmpty() {
+         for (ConcurrentMap<Object, InternalCacheEntry> map : maps) {
+            if (!map.isEmpty()) return false;
+         }
+         return true;
+      }
+
+      @Override
+      public void clear() {
+         for (ConcurrentMap<Object, InternalCacheEntry> map : maps) map.clear();
+      }
+
+      @Override
+      public Set<Map.Entry<Object, InternalCacheEntry>> entrySet() {
+         return new AbstractSet<Map.Entry<Object, InternalCacheEntry>>() {
+            @Override
+            public Iterator<Map.Entry<Object, InternalCacheEntry>> iterator() {
+               return new SegmentsIterator();
+            }
+
+            @Override
+            public int size() {
+               return SegmentedMap.this.size();
+            }
+         };
+      }
+
+      /**
+       * Iterates all the segments in order. Removal is delegated to the iterator of the segment the last entry
+       * was returned from.
+       */
+      private final class SegmentsIterator implements Iterator<Map.Entry<Object, InternalCacheEntry>> {
+         private int nextSegment;
+         private Iterator<Map.Entry<Object, InternalCacheEntry>> current =
+               Collections.<Map.Entry<Object, InternalCacheEntry>>emptySet().iterator();
+         private Iterator<Map.Entry<Object, InternalCacheEntry>> lastReturnedFrom;
+
+         @Override
+         public boolean hasNext() {
+            while (!current.hasNext() && nextSegment < maps.length) {
+               current = maps[nextSegment++].entrySet().iterator();
+            }
+            return current.hasNext();
+         }
+
+         @Override
+         public Map.Entry<Object, InternalCacheEntry> next() {
+            if (!hasNext()) throw new NoSuchElementException();
+            lastReturnedFrom = current;
+            return current.next();
+         }
+
+         @Override
+         public void remove() {
+            if (lastReturnedFrom == null) throw new IllegalStateException();
+            lastReturnedFrom.remove();
+            lastReturnedFrom = null;
+         }
+      }
+   }
+}
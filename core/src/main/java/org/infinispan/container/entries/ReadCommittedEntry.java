@@ -58,6 +58,19 @@ public ReadCommittedEntry(Object key, Object value, EntryVersion version, long l
       this.lifespan = lifespan;
    }
 
+   /**
+    * Points this wrapper to another entry, dropping all the state kept for the previous one, so that it can be reused
+    * instead of allocating a new wrapper. Must only be called by the owner of the wrapper, once it is no longer looked
+    * up by any invocation.
+    */
+   public void reinitialize(Object key, Object value, long lifespan) {
+      this.key = key;
+      this.value = value;
+      this.lifespan = lifespan;
+      this.maxIdle = -1;
+      reset();
+   }
+
    @Override
    public byte getStateFlags() {
       return flags;
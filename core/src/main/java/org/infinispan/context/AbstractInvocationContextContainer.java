@@ -67,4 +67,9 @@ public InvocationContext getInvocationContext(boolean quiet) {
    public void clearThreadLocal() {
       ctxHolder.remove();
    }
+
+   @Override
+   public void releaseInvocationContext(InvocationContext ctx) {
+      // contexts are not recycled by default
+   }
 }
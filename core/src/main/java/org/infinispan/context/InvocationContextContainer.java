@@ -127,4 +127,12 @@ public interface InvocationContextContainer {
     * Must be called as each thread exists the interceptor chain.
     */
    void clearThreadLocal();
+
+   /**
+    * Must be called once the invocation the given context was created for has completed. Containers recycling their
+    * contexts may then hand it out again, so the context must not be used after this call.
+    *
+    * @param ctx the context of the completed invocation
+    */
+   void releaseInvocationContext(InvocationContext ctx);
 }
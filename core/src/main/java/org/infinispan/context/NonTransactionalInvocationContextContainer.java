@@ -19,6 +19,7 @@
 
 package org.infinispan.context;
 
+import org.infinispan.container.entries.ReadCommittedEntry;
 import org.infinispan.context.impl.LocalTxInvocationContext;
 import org.infinispan.context.impl.NonTxInvocationContext;
 import org.infinispan.context.impl.RemoteTxInvocationContext;
@@ -29,20 +30,36 @@
 
 /**
  * Invocation Context container to be used for non-transactional caches.
+ * <p/>
+ * The local contexts created for a known, small number of keys are recycled: every thread keeps one single key and
+ * one multi key context, which it hands out again once the invocation that used it has been released through
+ * {@link #releaseInvocationContext(InvocationContext)}. If the recycled context is still in use, e.g. by a nested
+ * invocation from a listener or by an asynchronous operation, a new one is created and recycled instead.
  *
  * @author Mircea Markus
  * @since 5.1
  */
 public class NonTransactionalInvocationContextContainer extends AbstractInvocationContextContainer {
 
+   /**
+    * Multi key contexts are only recycled for up to this many keys, so that clearing them stays cheap.
+    */
+   static final int MAX_RECYCLED_KEYS = 16;
+
+   private final ThreadLocal<RecycledContexts> recycledContexts = new ThreadLocal<RecycledContexts>() {
+      @Override
+      protected RecycledContexts initialValue() {
+         return new RecycledContexts();
+      }
+   };
+
    @Override
    public InvocationContext createInvocationContext(boolean isWrite, int keyCount) {
       if (keyCount == 1) {
-         SingleKeyNonTxInvocationContext result = new SingleKeyNonTxInvocationContext(true);
-         ctxHolder.set(result);
-         return result;
+         return createSingleKeyNonTxInvocationContext(isWrite);
       } else if (keyCount > 0) {
-         NonTxInvocationContext ctx = new NonTxInvocationContext(keyCount, true);
+         NonTxInvocationContext ctx = keyCount <= MAX_RECYCLED_KEYS ?
+               recycledContexts.get().acquireMultiKey() : new NonTxInvocationContext(keyCount, true);
          ctxHolder.set(ctx);
          return ctx;
       }
@@ -64,11 +81,29 @@ public NonTxInvocationContext createNonTxInvocationContext() {
 
    @Override
    public InvocationContext createSingleKeyNonTxInvocationContext() {
-      SingleKeyNonTxInvocationContext result = new SingleKeyNonTxInvocationContext(true);
+      return createSingleKeyNonTxInvocationContext(false);
+   }
+
+   /**
+    * The entry wrapper of the context is only recycled for writes: their wrapper never outlives the invocation,
+    * whereas the one created when a retrieval loads an entry (e.g. from a cache store or into L1) can be returned to
+    * the caller by {@link org.infinispan.AdvancedCache#getCacheEntry(Object, java.util.EnumSet, ClassLoader)}.
+    */
+   private InvocationContext createSingleKeyNonTxInvocationContext(boolean recycleEntry) {
+      SingleKeyNonTxInvocationContext result = recycledContexts.get().acquireSingleKey(recycleEntry);
       ctxHolder.set(result);
       return result;
    }
 
+   @Override
+   public void releaseInvocationContext(InvocationContext ctx) {
+      if (ctx instanceof RecyclableSingleKeyContext) {
+         ((RecyclableSingleKeyContext) ctx).release();
+      } else if (ctx instanceof RecyclableMultiKeyContext) {
+         ((RecyclableMultiKeyContext) ctx).release();
+      }
+   }
+
    @Override
    public NonTxInvocationContext createRemoteInvocationContext(Address origin) {
       NonTxInvocationContext ctx = new NonTxInvocationContext();
@@ -91,4 +126,70 @@ public RemoteTxInvocationContext createRemoteTxInvocationContext(
    private IllegalStateException exception() {
       return new IllegalStateException("This is a non-transactional cache - why need to build a transactional context for it!");
    }
+
+   /**
+    * The contexts recycled by a thread. Only the owner thread acquires them, but they may be released by another
+    * thread when they were used by an asynchronous operation.
+    */
+   private static final class RecycledContexts {
+      private RecyclableSingleKeyContext singleKey;
+      private RecyclableMultiKeyContext multiKey;
+
+      SingleKeyNonTxInvocationContext acquireSingleKey(boolean recycleEntry) {
+         RecyclableSingleKeyContext ctx = singleKey;
+         // still in use, or never released because the invocation failed before entering the interceptor chain
+         if (ctx == null || ctx.inUse) singleKey = ctx = new RecyclableSingleKeyContext();
+         ctx.recycleEntry = recycleEntry;
+         ctx.inUse = true;
+         return ctx;
+      }
+
+      NonTxInvocationContext acquireMultiKey() {
+         RecyclableMultiKeyContext ctx = multiKey;
+         if (ctx == null || ctx.inUse) multiKey = ctx = new RecyclableMultiKeyContext();
+         ctx.inUse = true;
+         return ctx;
+      }
+   }
+
+   private static final class RecyclableSingleKeyContext extends SingleKeyNonTxInvocationContext {
+      private final ReadCommittedEntry recycledEntry = new ReadCommittedEntry(null, null, null, -1);
+      private boolean entryClaimed;
+      boolean recycleEntry;
+      volatile boolean inUse;
+
+      RecyclableSingleKeyContext() {
+         super(true);
+      }
+
+      @Override
+      public ReadCommittedEntry claimRecycledEntry() {
+         if (!recycleEntry || entryClaimed) return null;
+         entryClaimed = true;
+         return recycledEntry;
+      }
+
+      void release() {
+         reset();
+         if (entryClaimed) {
+            recycledEntry.reinitialize(null, null, -1);
+            entryClaimed = false;
+         }
+         // publishes the reset state to the owner thread
+         inUse = false;
+      }
+   }
+
+   private static final class RecyclableMultiKeyContext extends NonTxInvocationContext {
+      volatile boolean inUse;
+
+      RecyclableMultiKeyContext() {
+         super(MAX_RECYCLED_KEYS, true);
+      }
+
+      void release() {
+         reset();
+         inUse = false;
+      }
+   }
 }
@@ -24,6 +24,7 @@
 package org.infinispan.context;
 
 import org.infinispan.container.entries.CacheEntry;
+import org.infinispan.container.entries.ReadCommittedEntry;
 import org.infinispan.context.impl.AbstractInvocationContext;
 import org.infinispan.util.InfinispanCollections;
 
@@ -129,4 +130,25 @@ public void clearLookedUpEntries() {
    public CacheEntry getCacheEntry() {
       return cacheEntry;
    }
+
+   /**
+    * Returns a read committed wrapper owned by this context, which the entry factory can re-initialize instead of
+    * allocating a new one. A wrapper is handed out at most once per invocation.
+    *
+    * @return the wrapper, or null if this context does not recycle its wrapper or if it has already been claimed
+    */
+   public ReadCommittedEntry claimRecycledEntry() {
+      return null;
+   }
+
+   /**
+    * Drops all the state of the previous invocation, so that the context can be handed out again.
+    */
+   protected void reset() {
+      key = null;
+      cacheEntry = null;
+      isLocked = false;
+      setUseFutureReturnType(false);
+      setClassLoader(null);
+   }
 }
@@ -23,10 +23,10 @@
 package org.infinispan.context.impl;
 
 import org.infinispan.container.entries.CacheEntry;
+import org.infinispan.util.FastCopyHashMap;
 import org.infinispan.util.InfinispanCollections;
 
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
@@ -45,12 +45,12 @@ public class NonTxInvocationContext extends AbstractInvocationContext {
    protected Set<Object> lockedKeys;
 
    public NonTxInvocationContext(int numEntries, boolean local) {
-      lookedUpEntries = new HashMap<Object, CacheEntry>(numEntries);
+      lookedUpEntries = new FastCopyHashMap<Object, CacheEntry>(numEntries);
       setOriginLocal(local);
    }
 
    public NonTxInvocationContext() {
-      lookedUpEntries = new HashMap<Object, CacheEntry>(INITIAL_CAPACITY);
+      lookedUpEntries = new FastCopyHashMap<Object, CacheEntry>(INITIAL_CAPACITY);
    }
 
    @Override
@@ -127,4 +127,14 @@ public Set<Object> getLockedKeys() {
    public void clearLockedKeys() {
       lockedKeys = null;
    }
+
+   /**
+    * Drops all the state of the previous invocation, so that the context can be handed out again.
+    */
+   protected void reset() {
+      lookedUpEntries.clear();
+      lockedKeys = null;
+      setUseFutureReturnType(false);
+      setClassLoader(null);
+   }
 }
@@ -20,8 +20,10 @@
 
 import static org.infinispan.distexec.mapreduce.MapReduceTask.DEFAULT_TMP_CACHE_CONFIGURATION_NAME;
 import static org.infinispan.factories.KnownComponentNames.ASYNC_TRANSPORT_EXECUTOR;
+import static org.infinispan.factories.KnownComponentNames.CACHE_MARSHALLER;
 
 import java.io.Serializable;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
@@ -31,9 +33,17 @@
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import javax.transaction.TransactionManager;
 
@@ -53,8 +63,10 @@
 import org.infinispan.loaders.CacheLoaderManager;
 import org.infinispan.manager.EmbeddedCacheManager;
 import org.infinispan.marshall.MarshalledValue;
+import org.infinispan.marshall.StreamingMarshaller;
 import org.infinispan.remoting.transport.Address;
 import org.infinispan.util.InfinispanCollections;
+import org.infinispan.util.Util;
 import org.infinispan.util.concurrent.ConcurrentMapFactory;
 import org.infinispan.util.logging.Log;
 import org.infinispan.util.logging.LogFactory;
@@ -72,6 +84,8 @@ public class MapReduceManagerImpl implements MapReduceManager {
 
    private static final Log log = LogFactory.getLog(MapReduceManagerImpl.class);
    private static final int CANCELLATION_CHECK_FREQUENCY = 20;
+   private static final int MIN_KEYS_PER_MAP_CHUNK = 32;
+   private static final int CHUNKS_PER_MAP_THREAD = 4;
    private Address localAddress;
    private EmbeddedCacheManager cacheManager;
    private CacheLoaderManager cacheLoaderManager;
@@ -175,43 +189,107 @@ protected <KIn, VIn, KOut, VOut> CollectableCollector<KOut, VOut> map(
       MapReduceTaskLifecycleService taskLifecycleService = MapReduceTaskLifecycleService.getInstance();     
       DefaultCollector<KOut, VOut> collector = new DefaultCollector<KOut, VOut>();
       log.tracef("For m/r task %s invoking %s with input keys %s",  mcc.getTaskId(), mcc, inputKeys);
-      int interruptCount = 0;
       try {
          taskLifecycleService.onPreExecute(mapper, cache);
-         for (KIn key : inputKeys) {            
-            if (checkInterrupt(interruptCount++) && Thread.currentThread().isInterrupted())
-               throw new InterruptedException();
-            
-            VIn value = cache.get(key);
-            mapper.map(key, value, collector);
-            if (inputKeysSpecified) {
-               inputKeysCopy.remove(key);
-            }
-         }
+         mapKeys(mcc, cache, inputKeys, false, collector);
          Set<KIn> keysFromCacheLoader = null;
          if (inputKeysSpecified) {
             // load only specified remaining input keys - iff in CL and pinned to this primary owner
+            inputKeysCopy.removeAll(inputKeys);
             keysFromCacheLoader = filterLocalPrimaryOwner(inputKeysCopy, dm);
          } else {
             // load everything from CL pinned to this primary owner
             keysFromCacheLoader = filterLocalPrimaryOwner(loadAllKeysFromCacheLoaderUsingFilter(inputKeys), dm);
          }   
          log.tracef("For m/r task %s cache loader input keys %s", mcc.getTaskId(), keysFromCacheLoader);
-         interruptCount = 0;
-         for (KIn key : keysFromCacheLoader) {                      
-            if (checkInterrupt(interruptCount++) && Thread.currentThread().isInterrupted())
-               throw new InterruptedException();
-            
-            VIn value = loadValueFromCacheLoader(key);            
-            if(value != null){
-               mapper.map(key, value, collector);
-            }
-         }
+         mapKeys(mcc, cache, keysFromCacheLoader, true, collector);
       } finally {
          taskLifecycleService.onPostExecute(mapper);
       }
       return collector;            
    }
+
+   private <KIn, VIn, KOut, VOut> void mapKeys(MapCombineCommand<KIn, VIn, KOut, VOut> mcc,
+            Cache<KIn, VIn> cache, Set<KIn> keys, boolean fromCacheLoader,
+            DefaultCollector<KOut, VOut> collector) throws InterruptedException {
+      int parallelism = Math.min(mcc.getMapParallelism(), (keys.size() + MIN_KEYS_PER_MAP_CHUNK - 1) / MIN_KEYS_PER_MAP_CHUNK);
+      if (parallelism > 1) {
+         mapKeysInParallel(mcc, cache, keys, fromCacheLoader, parallelism, collector);
+      } else {
+         new MapWorker<KIn, VIn, KOut, VOut>(cache, mcc.getMapper(), fromCacheLoader,
+                  new ArrayDeque<Collection<KIn>>(Collections.singleton(keys)), collector, null).mapAll();
+      }
+   }
+
+   /**
+    * Splits the input keys in chunks consumed by the calling thread and by up to
+    * <code>parallelism - 1</code> helper tasks submitted to the executor. Each helper maps with its
+    * own copy of the mapper into its own collector, merged into the given collector at the end.
+    * Helpers that did not get a chance to start before the calling thread ran out of chunks are
+    * claimed by the calling thread and skipped, so a saturated executor never blocks the map phase;
+    * the collectors of all the helpers that started are always waited for and merged.
+    */
+   private <KIn, VIn, KOut, VOut> void mapKeysInParallel(MapCombineCommand<KIn, VIn, KOut, VOut> mcc,
+            Cache<KIn, VIn> cache, Set<KIn> keys, boolean fromCacheLoader, int parallelism,
+            DefaultCollector<KOut, VOut> collector) throws InterruptedException {
+      List<KIn> input = new ArrayList<KIn>(keys);
+      int chunkSize = Math.max(MIN_KEYS_PER_MAP_CHUNK, input.size() / (parallelism * CHUNKS_PER_MAP_THREAD));
+      Queue<Collection<KIn>> chunks = new ConcurrentLinkedQueue<Collection<KIn>>();
+      for (int i = 0; i < input.size(); i += chunkSize) {
+         chunks.add(input.subList(i, Math.min(input.size(), i + chunkSize)));
+      }
+      log.tracef("For m/r task %s mapping %d keys in %d chunks using %d threads", mcc.getTaskId(),
+               input.size(), chunks.size(), parallelism);
+
+      StreamingMarshaller marshaller = cache.getAdvancedCache().getComponentRegistry()
+               .getComponent(StreamingMarshaller.class, CACHE_MARSHALLER);
+      AtomicBoolean aborted = new AtomicBoolean(false);
+      List<FutureTask<DefaultCollector<KOut, VOut>>> helpers = new ArrayList<FutureTask<DefaultCollector<KOut, VOut>>>(parallelism - 1);
+      List<MapWorker<KIn, VIn, KOut, VOut>> helperWorkers = new ArrayList<MapWorker<KIn, VIn, KOut, VOut>>(parallelism - 1);
+      for (int i = 1; i < parallelism; i++) {
+         Mapper<KIn, VIn, KOut, VOut> mapperCopy = Util.cloneWithMarshaller(marshaller, mcc.getMapper());
+         MapWorker<KIn, VIn, KOut, VOut> worker = new MapWorker<KIn, VIn, KOut, VOut>(cache, mapperCopy,
+                  fromCacheLoader, chunks, new DefaultCollector<KOut, VOut>(), aborted);
+         FutureTask<DefaultCollector<KOut, VOut>> helper = new FutureTask<DefaultCollector<KOut, VOut>>(worker);
+         try {
+            executorService.execute(helper);
+         } catch (RejectedExecutionException e) {
+            log.tracef("For m/r task %s executor rejected map helper, continuing with %d threads", mcc.getTaskId(), i);
+            break;
+         }
+         helpers.add(helper);
+         helperWorkers.add(worker);
+      }
+
+      boolean completed = false;
+      try {
+         new MapWorker<KIn, VIn, KOut, VOut>(cache, mcc.getMapper(), fromCacheLoader, chunks, collector, aborted).mapAll();
+         for (int i = 0; i < helpers.size(); i++) {
+            FutureTask<DefaultCollector<KOut, VOut>> helper = helpers.get(i);
+            if (helperWorkers.get(i).claim()) {
+               // never started, all chunks were consumed by other threads
+               helper.cancel(false);
+               continue;
+            }
+            try {
+               collector.merge(helper.get());
+            } catch (ExecutionException e) {
+               throw new CacheException("Parallel map phase of m/r task " + mcc.getTaskId() + " failed", e.getCause());
+            } catch (CancellationException e) {
+               throw new CacheException("Parallel map phase of m/r task " + mcc.getTaskId() + " was cancelled", e);
+            }
+         }
+         completed = true;
+      } finally {
+         if (!completed) {
+            // stop helpers still mapping if this thread was interrupted or a helper failed
+            aborted.set(true);
+            for (FutureTask<DefaultCollector<KOut, VOut>> helper : helpers) {
+               helper.cancel(true);
+            }
+         }
+      }
+   }
    
    protected <KIn, VIn, KOut, VOut> Set<KOut> combine(MapCombineCommand<KIn, VIn, KOut, VOut> mcc,
             CollectableCollector<KOut, VOut> collector) throws Exception{
@@ -451,6 +529,91 @@ public void emit(KOut key, VOut value) {
       public Map<KOut, List<VOut>> collectedValues() {
          return store;
       }
+
+      void merge(DefaultCollector<KOut, VOut> other) {
+         for (Entry<KOut, List<VOut>> e : other.store.entrySet()) {
+            List<VOut> list = store.get(e.getKey());
+            if (list == null) {
+               store.put(e.getKey(), e.getValue());
+            } else {
+               list.addAll(e.getValue());
+            }
+         }
+      }
+   }
+
+   /**
+    * Maps chunks of input keys polled from a queue, possibly shared with other workers, into a
+    * collector owned by this worker.
+    */
+   private final class MapWorker<KIn, VIn, KOut, VOut> implements Callable<DefaultCollector<KOut, VOut>> {
+
+      private final Cache<KIn, VIn> cache;
+      private final Mapper<KIn, VIn, KOut, VOut> mapper;
+      private final boolean fromCacheLoader;
+      private final Queue<Collection<KIn>> chunks;
+      private final DefaultCollector<KOut, VOut> collector;
+      private final AtomicBoolean aborted;
+      /**
+       * Set by whichever comes first of the helper thread starting to map and the calling thread
+       * giving up on a helper that hasn't started yet.
+       */
+      private final AtomicBoolean claimed = new AtomicBoolean(false);
+
+      MapWorker(Cache<KIn, VIn> cache, Mapper<KIn, VIn, KOut, VOut> mapper, boolean fromCacheLoader,
+               Queue<Collection<KIn>> chunks, DefaultCollector<KOut, VOut> collector, AtomicBoolean aborted) {
+         this.cache = cache;
+         this.mapper = mapper;
+         this.fromCacheLoader = fromCacheLoader;
+         this.chunks = chunks;
+         this.collector = collector;
+         this.aborted = aborted;
+      }
+
+      /**
+       * Claims this worker, returning true if it hadn't started mapping yet, in which case it never will.
+       */
+      boolean claim() {
+         return claimed.compareAndSet(false, true);
+      }
+
+      @Override
+      public DefaultCollector<KOut, VOut> call() throws Exception {
+         if (!claim()) {
+            // the calling thread gave up on this helper, its collector won't be merged
+            return collector;
+         }
+         MapReduceTaskLifecycleService taskLifecycleService = MapReduceTaskLifecycleService.getInstance();
+         try {
+            taskLifecycleService.onPreExecute(mapper, cache);
+            return mapAll();
+         } finally {
+            taskLifecycleService.onPostExecute(mapper);
+         }
+      }
+
+      DefaultCollector<KOut, VOut> mapAll() throws InterruptedException {
+         int interruptCount = 0;
+         Collection<KIn> chunk;
+         while ((chunk = chunks.poll()) != null) {
+            for (KIn key : chunk) {
+               if (checkInterrupt(interruptCount++)
+                        && (Thread.currentThread().isInterrupted() || (aborted != null && aborted.get())))
+                  throw new InterruptedException();
+
+               VIn value;
+               if (fromCacheLoader) {
+                  value = MapReduceManagerImpl.this.<KIn, VIn>loadValueFromCacheLoader(key);
+                  if (value == null)
+                     continue;
+               } else {
+                  value = cache.get(key);
+               }
+               mapper.map(key, value, collector);
+            }
+         }
+         return collector;
+      }
    }
    
    private interface CollectableCollector<K,V> extends Collector<K, V>{      
@@ -165,6 +165,7 @@
    protected Reducer<KOut, VOut> combiner;
    protected final boolean distributeReducePhase;
    protected final boolean useIntermediateSharedCache;
+   protected int mapParallelism = 1;
 
    protected final Collection<KIn> keys;
    protected final AdvancedCache<KIn, VIn> cache;
@@ -305,6 +306,28 @@ public MapReduceTask<KIn, VIn, KOut, VOut> combinedWith(Reducer<KOut, VOut> comb
       return this;
    }
 
+   /**
+    * Specifies the number of threads used to execute the map phase on each Infinispan node. The
+    * local input keys, including the ones loaded from the cache loader, are split across the
+    * calling thread and the MapReduceManager executor, each thread mapping into its own
+    * {@link Collector}; collectors are merged once all input keys are mapped. The combine phase,
+    * if any, is not parallelized: it runs on the calling thread over the merged collector.
+    * 
+    * <p>
+    * Each additional thread uses its own copy of the {@link Mapper}, so mappers used in parallel
+    * map phases have to be marshallable. By default map phase is executed by a single thread.
+    * 
+    * @param mapParallelism number of threads used to map input keys on each node
+    * @return this MapReduceTask itself
+    * @since 5.2
+    */
+   public MapReduceTask<KIn, VIn, KOut, VOut> mappedInParallel(int mapParallelism) {
+      if (mapParallelism < 1)
+         throw new IllegalArgumentException("Map parallelism should be a positive number, was " + mapParallelism);
+      this.mapParallelism = mapParallelism;
+      return this;
+   }
+
    /**
     * Executes this task across Infinispan cluster nodes.
     * 
@@ -569,6 +592,7 @@ private MapCombineCommand<KIn, VIn, KOut, VOut> buildMapCombineCommand(
       MapCombineCommand<KIn, VIn, KOut, VOut> c = factory.buildMapCombineCommand(taskId, m, r, keys);
       c.setReducePhaseDistributed(reducePhaseDistributed);
       c.setEmitCompositeIntermediateKeys(emitCompositeIntermediateKeys);
+      c.setMapParallelism(mapParallelism);
       return c;
    }
 
@@ -33,24 +33,28 @@
 import org.infinispan.factories.annotations.Inject;
 import org.infinispan.factories.annotations.Start;
 import org.infinispan.factories.annotations.Stop;
+import org.infinispan.jmx.annotations.MBean;
+import org.infinispan.jmx.annotations.ManagedAttribute;
+import org.infinispan.notifications.Listener;
+import org.infinispan.notifications.cachelistener.CacheNotifier;
+import org.infinispan.notifications.cachelistener.annotation.TopologyChanged;
+import org.infinispan.notifications.cachelistener.event.TopologyChangedEvent;
 import org.infinispan.remoting.rpc.ResponseMode;
 import org.infinispan.remoting.rpc.RpcManager;
 import org.infinispan.remoting.transport.Address;
 import org.infinispan.util.InfinispanCollections;
 import org.infinispan.util.concurrent.AggregatingNotifyingFutureImpl;
-import org.infinispan.util.concurrent.ConcurrentMapFactory;
 import org.infinispan.util.concurrent.NoOpFuture;
 import org.infinispan.util.concurrent.NotifyingFutureImpl;
 import org.infinispan.util.concurrent.NotifyingNotifiableFuture;
 import org.infinispan.util.logging.Log;
 import org.infinispan.util.logging.LogFactory;
+import org.rhq.helpers.pluginAnnotations.agent.Metric;
 
 import java.util.Collection;
 import java.util.HashSet;
-import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.Callable;
-import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
 import java.util.concurrent.ScheduledExecutorService;
@@ -59,6 +63,8 @@
 
 import static org.infinispan.factories.KnownComponentNames.ASYNC_TRANSPORT_EXECUTOR;
 
+@Listener
+@MBean(objectName = "L1Manager", description = "Component that keeps track of the nodes caching entries in L1")
 public class L1ManagerImpl implements L1Manager {
 
    private static final Log log = LogFactory.getLog(L1ManagerImpl.class);
@@ -71,26 +77,24 @@ public class L1ManagerImpl implements L1Manager {
    private long rpcTimeout;
    private long l1Lifespan;
    private ExecutorService asyncTransportExecutor;
+   private CacheNotifier cacheNotifier;
 
-   // TODO replace this with a custom, expirable collection
-   private final ConcurrentMap<Object, ConcurrentMap<Address, Long>> requestors;
+   private final L1Requestors requestors = new L1Requestors();
    private ScheduledExecutorService scheduledExecutor;
    private ScheduledFuture<?> scheduledRequestorsCleanupTask;
 
 
-   public L1ManagerImpl() {
-	   requestors = ConcurrentMapFactory.makeConcurrentMap();
-   }
-
    @Inject
    public void init(Configuration configuration, RpcManager rpcManager, CommandsFactory commandsFactory,
                     @ComponentName(ASYNC_TRANSPORT_EXECUTOR) ExecutorService asyncTransportExecutor,
-                    @ComponentName(KnownComponentNames.EVICTION_SCHEDULED_EXECUTOR) ScheduledExecutorService scheduledExecutor) {
+                    @ComponentName(KnownComponentNames.EVICTION_SCHEDULED_EXECUTOR) ScheduledExecutorService scheduledExecutor,
+                    CacheNotifier cacheNotifier) {
       this.rpcManager = rpcManager;
       this.commandsFactory = commandsFactory;
       this.configuration = configuration;
       this.asyncTransportExecutor = asyncTransportExecutor;
       this.scheduledExecutor = scheduledExecutor;
+      this.cacheNotifier = cacheNotifier;
    }
    
    @Start (priority = 3)
@@ -109,47 +113,53 @@ public void run() {
       } else {
          log.warn("Not using an L1 invalidation reaper thread. This could lead to memory leaks as the requestors map may grow indefinitely!");
       }
+      cacheNotifier.addListener(this);
    }
 
    @Stop (priority = 3)
    public void stop() {
       if (scheduledRequestorsCleanupTask != null) scheduledRequestorsCleanupTask.cancel(true);
+      cacheNotifier.removeListener(this);
+   }
+
+   @TopologyChanged
+   @SuppressWarnings("unused")
+   public void onTopologyChange(TopologyChangedEvent<?, ?> tce) {
+      if (tce.isPre()) return;
+      // the members of the previous topology may still hold L1 entries until this one is installed everywhere
+      Set<Address> members = new HashSet<Address>(tce.getConsistentHashAtEnd().getMembers());
+      if (tce.getConsistentHashAtStart() != null) members.addAll(tce.getConsistentHashAtStart().getMembers());
+      requestors.retainAll(members);
    }
 
    private void cleanUpRequestors() {
       long expiryTime = System.currentTimeMillis() - l1Lifespan;
-      for (Map.Entry<Object, ConcurrentMap<Address, Long>> entry: requestors.entrySet()) {
-         Object key = entry.getKey();
-         ConcurrentMap<Address, Long> reqs = entry.getValue();
-         prune(reqs, expiryTime);
-         if (reqs.isEmpty()) requestors.remove(key);
-      }
+      int removed = requestors.removeExpired(expiryTime);
+      if (trace) log.tracef("Removed the requestors of %s keys not requested since %s", removed, expiryTime);
    }
-   
-   private void prune(ConcurrentMap<Address, Long> reqs, long expiryTime) {
-      for (Map.Entry<Address, Long> req: reqs.entrySet()) {
-         if (req.getValue() < expiryTime) reqs.remove(req.getKey());
-      }
-   }
-   
+
    @Override
    public void addRequestor(Object key, Address origin) {
-      //we do a plain get first as that's likely to be enough
-      ConcurrentMap<Address, Long> as = requestors.get(key);
       log.tracef("Registering requestor %s for key '%s'", origin, key);
-      long now = System.currentTimeMillis();
-      if (as == null) {
-         // only if needed we create a new HashSet, but make sure we don't replace another one being created
-         as = ConcurrentMapFactory.makeConcurrentMap();
-         as.put(origin, now);
-         ConcurrentMap<Address, Long> previousAs = requestors.putIfAbsent(key, as);
-         if (previousAs != null) {
-            //another thread added it already, so use his copy and discard our proposed instance
-            previousAs.put(origin, now);
-         }
-      } else {
-         as.put(origin, now);
-      }
+      requestors.add(key, origin, System.currentTimeMillis());
+   }
+
+   @ManagedAttribute(description = "Number of keys for which the nodes that requested them are being tracked")
+   @Metric(displayName = "Number of keys with L1 requestors")
+   public int getNumberOfKeysWithRequestors() {
+      return requestors.size();
+   }
+
+   @ManagedAttribute(description = "Number of distinct nodes recorded as L1 requestors")
+   @Metric(displayName = "Number of L1 requestor nodes")
+   public int getNumberOfRequestorNodes() {
+      return requestors.getNumberOfMembers();
+   }
+
+   @ManagedAttribute(description = "Estimated memory used to track L1 requestors, in bytes, not counting the keys themselves")
+   @Metric(displayName = "L1 requestors memory footprint")
+   public long getRequestorsMemoryFootprint() {
+      return requestors.estimateMemoryFootprint();
    }
 
    @Override
@@ -256,9 +266,8 @@ private Collection<Address> buildInvalidationAddressList(Collection<Object> keys
       Collection<Address> addresses = new HashSet<Address>(2);
       boolean originIsInRequestorsList = false;
       for (Object key : keys) {
-         ConcurrentMap<Address, Long> as = requestors.remove(key);
-         if (as != null) {
-            Set<Address> requestorAddresses = as.keySet();
+         Set<Address> requestorAddresses = requestors.remove(key);
+         if (requestorAddresses != null) {
             addresses.addAll(requestorAddresses);
             if (assumeOriginKeptEntryInL1 && origin != null && requestorAddresses.contains(origin)) {
                originIsInRequestorsList = true;
@@ -0,0 +1,236 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.distribution;
+
+import net.jcip.annotations.ThreadSafe;
+import org.infinispan.remoting.transport.Address;
+import org.infinispan.util.concurrent.ConcurrentMapFactory;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Keeps track of the members that requested each key, so that they can be told to invalidate the key from their L1
+ * caches when it's modified.
+ * <p/>
+ * Rather than keeping a map of requestors per key, each requestor is given an index the first time it's seen and
+ * the requestors of a key are kept as a bitset of those indexes, along with the time the key was last requested.
+ * The requestors of a key are forgotten all at once, when none of them requested it for the L1 lifespan: keeping a
+ * requestor longer than its L1 entry lives can only cause an unneeded invalidation, never a missing one.
+ * <p/>
+ * The indexes of the members that left the cluster are {@link #retainAll(Collection) recycled}. The bits they left
+ * behind then stand for the member given the index next, which can likewise only cause unneeded invalidations.
+ *
+ * @since 5.2
+ */
+@ThreadSafe
+final class L1Requestors {
+
+   // rough sizes, in bytes, for a 64 bit JVM with compressed references
+   private static final int MAP_ENTRY_SIZE = 32;
+   private static final int REQUESTORS_SIZE = 40;
+   private static final int ARRAY_HEADER_SIZE = 16;
+
+   private final ConcurrentMap<Object, Requestors> requestors = ConcurrentMapFactory.makeConcurrentMap();
+   private final ConcurrentMap<Address, Integer> memberIndexes = ConcurrentMapFactory.makeConcurrentMap();
+   // the member of each index, null for the indexes of members that left
+   private volatile Address[] members = new Address[0];
+   // guarded by this
+   private final BitSet freeIndexes = new BitSet();
+
+   /**
+    * Records that the given member requested the key at the given time.
+    */
+   void add(Object key, Address requestor, long now) {
+      int index = indexOf(requestor);
+      while (true) {
+         Requestors reqs = requestors.get(key);
+         if (reqs == null) {
+            reqs = new Requestors();
+            reqs.add(index, now);
+            Requestors previous = requestors.putIfAbsent(key, reqs);
+            if (previous == null) return;
+            reqs = previous;
+         }
+         if (reqs.add(index, now)) return;
+         // it's being removed, make sure it's gone before adding a new one
+         requestors.remove(key, reqs);
+      }
+   }
+
+   /**
+    * Forgets the requestors of the key.
+    *
+    * @return the members that requested the key, or null if there were none
+    */
+   Set<Address> remove(Object key) {
+      Requestors reqs = requestors.remove(key);
+      if (reqs == null) return null;
+      Set<Address> addresses = new HashSet<Address>(4);
+      reqs.removeTo(addresses, members);
+      return addresses;
+   }
+
+   /**
+    * Forgets the requestors of the keys that were not requested since the given time.
+    *
+    * @return the number of keys whose requestors were forgotten
+    */
+   int removeExpired(long expiryTime) {
+      int removed = 0;
+      for (Iterator<Map.Entry<Object, Requestors>> it = requestors.entrySet().iterator(); it.hasNext();) {
+         Map.Entry<Object, Requestors> entry = it.next();
+         Requestors reqs = entry.getValue();
+         if (reqs.expire(expiryTime) && requestors.remove(entry.getKey(), reqs)) removed++;
+      }
+      return removed;
+   }
+
+   /**
+    * @return the number of keys with requestors
+    */
+   int size() {
+      return requestors.size();
+   }
+
+   /**
+    * Forgets the members that are not part of the cluster any more, so that their indexes can be given to new members.
+    */
+   synchronized void retainAll(Collection<Address> currentMembers) {
+      Address[] current = members;
+      Address[] updated = null;
+      for (int i = 0; i < current.length; i++) {
+         if (current[i] != null && !currentMembers.contains(current[i])) {
+            if (updated == null) updated = current.clone();
+            updated[i] = null;
+            memberIndexes.remove(current[i]);
+            freeIndexes.set(i);
+         }
+      }
+      if (updated != null) members = updated;
+   }
+
+   /**
+    * @return the number of distinct members recorded as requestors and still part of the cluster
+    */
+   int getNumberOfMembers() {
+      return memberIndexes.size();
+   }
+
+   /**
+    * @return an estimate, in bytes, of the memory used to track the requestors, not counting the keys themselves
+    */
+   long estimateMemoryFootprint() {
+      long size = 0;
+      for (Requestors reqs : requestors.values()) {
+         size += MAP_ENTRY_SIZE + REQUESTORS_SIZE + reqs.extraSize();
+      }
+      Address[] m = members;
+      return size + (long) m.length * MAP_ENTRY_SIZE + ARRAY_HEADER_SIZE + 4 * m.length;
+   }
+
+   private int indexOf(Address member) {
+      Integer index = memberIndexes.get(member);
+      if (index != null) return index;
+      synchronized (this) {
+         index = memberIndexes.get(member);
+         if (index == null) {
+            Address[] current = members;
+            Address[] updated;
+            int free = freeIndexes.nextSetBit(0);
+            if (free >= 0) {
+               freeIndexes.clear(free);
+               updated = current.clone();
+               index = free;
+            } else {
+               updated = Arrays.copyOf(current, current.length + 1);
+               index = current.length;
+            }
+            updated[index] = member;
+            // publish the member before its index, so that any index found in a bitset can be resolved
+            members = updated;
+            memberIndexes.put(member, index);
+         }
+         return index;
+      }
+   }
+
+   /**
+    * The requestors of a key. Once removed, it can't be added to anymore, so that a requestor added concurrently
+    * with a removal goes to a new instance rather than being lost.
+    */
+   private static final class Requestors {
+      private long bits;
+      // bits of the members with index 64 and above, only allocated in clusters that big
+      private long[] moreBits;
+      private long lastRequested;
+      private boolean removed;
+
+      synchronized boolean add(int index, long now) {
+         if (removed) return false;
+         if (index < 64) {
+            bits |= 1L << index;
+         } else {
+            int word = (index >>> 6) - 1;
+            if (moreBits == null)
+               moreBits = new long[word + 1];
+            else if (moreBits.length <= word)
+               moreBits = Arrays.copyOf(moreBits, word + 1);
+            moreBits[word] |= 1L << index;
+         }
+         if (now > lastRequested) lastRequested = now;
+         return true;
+      }
+
+      synchronized boolean expire(long expiryTime) {
+         if (lastRequested < expiryTime) removed = true;
+         return removed;
+      }
+
+      synchronized void removeTo(Collection<Address> addresses, Address[] members) {
+         removed = true;
+         addBits(bits, 0, addresses, members);
+         if (moreBits != null) {
+            for (int i = 0; i < moreBits.length; i++) addBits(moreBits[i], (i + 1) << 6, addresses, members);
+         }
+      }
+
+      synchronized int extraSize() {
+         return moreBits == null ? 0 : ARRAY_HEADER_SIZE + 8 * moreBits.length;
+      }
+
+      private static void addBits(long word, int offset, Collection<Address> addresses, Address[] members) {
+         for (long b = word; b != 0; b &= b - 1) {
+            Address member = members[offset + Long.numberOfTrailingZeros(b)];
+            // gone, and its index not given to anyone else yet
+            if (member != null) addresses.add(member);
+         }
+      }
+   }
+}
@@ -25,6 +25,11 @@
 import org.infinispan.config.ConfigurationException;
 import org.infinispan.container.DataContainer;
 import org.infinispan.container.DefaultDataContainer;
+import org.infinispan.container.OffHeapDataContainer;
+import org.infinispan.container.SegmentedDataContainer;
+import org.infinispan.distribution.ch.ConsistentHashFactory;
+import org.infinispan.distribution.ch.DefaultConsistentHashFactory;
+import org.infinispan.distribution.ch.SyncConsistentHashFactory;
 import org.infinispan.eviction.EvictionStrategy;
 import org.infinispan.eviction.EvictionThreadPolicy;
 import org.infinispan.factories.annotations.DefaultFactoryFor;
@@ -48,10 +53,11 @@ public <T> T construct(Class<T> componentType) {
       } else {
          EvictionStrategy st = configuration.eviction().strategy();
          int level = configuration.locking().concurrencyLevel();
+         boolean offHeap = configuration.dataContainer().offHeap();
         
          switch (st) {
             case NONE:         
-               return (T) DefaultDataContainer.unBoundedDataContainer(level);
+               return (T) unBoundedDataContainer(level);
             case UNORDERED:   
             case LRU:
             case FIFO:
@@ -59,14 +65,36 @@ public <T> T construct(Class<T> componentType) {
                int maxEntries = configuration.eviction().maxEntries();
                //handle case when < 0 value signifies unbounded container 
                if(maxEntries < 0) {
-                   return (T) DefaultDataContainer.unBoundedDataContainer(level);
+                   return (T) unBoundedDataContainer(level);
                }
                EvictionThreadPolicy policy = configuration.eviction().threadPolicy();
-               return (T) DefaultDataContainer.boundedDataContainer(level, maxEntries, st, policy);
+               return offHeap ? (T) OffHeapDataContainer.boundedDataContainer(level, maxEntries, st, policy)
+                     : (T) DefaultDataContainer.boundedDataContainer(level, maxEntries, st, policy);
             default:
                throw new ConfigurationException("Unknown eviction strategy "
                         + configuration.eviction().strategy());
          }
       }
    }
+
+   private DataContainer unBoundedDataContainer(int level) {
+      if (configuration.dataContainer().offHeap()) {
+         return OffHeapDataContainer.unBoundedDataContainer(level);
+      } else if (configuration.dataContainer().segmented() && isSegmentationSupported()) {
+         return new SegmentedDataContainer(level, configuration.clustering().hash().hash(),
+                                           configuration.clustering().hash().numSegments());
+      }
+      return DefaultDataContainer.unBoundedDataContainer(level);
+   }
+
+   /**
+    * The segmented container partitions keys like DefaultConsistentHash, so it can only be used when the
+    * consistent hashes installed by state transfer are DefaultConsistentHash instances.
+    */
+   private boolean isSegmentationSupported() {
+      if (!configuration.clustering().cacheMode().isDistributed())
+         return false;
+      ConsistentHashFactory chf = configuration.clustering().hash().consistentHashFactory();
+      return chf == null || chf instanceof DefaultConsistentHashFactory || chf instanceof SyncConsistentHashFactory;
+   }
 }
@@ -44,6 +44,8 @@
 import org.infinispan.loaders.CacheLoader;
 import org.infinispan.loaders.CacheLoaderManager;
 import org.infinispan.loaders.CacheStore;
+import org.infinispan.loaders.NonBlockingCacheLoader;
+import org.infinispan.loaders.decorators.BloomFilterStore;
 import org.infinispan.loaders.decorators.ChainingCacheStore;
 import org.infinispan.notifications.cachelistener.CacheNotifier;
 import org.infinispan.util.InfinispanCollections;
@@ -53,12 +55,16 @@
 import org.rhq.helpers.pluginAnnotations.agent.MeasurementType;
 import org.rhq.helpers.pluginAnnotations.agent.Metric;
 import org.rhq.helpers.pluginAnnotations.agent.Operation;
+import org.rhq.helpers.pluginAnnotations.agent.Units;
 
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 import java.util.concurrent.atomic.AtomicLong;
 
 @MBean(objectName = "CacheLoader", description = "Component that handles loading entries from a CacheStore into memory.")
@@ -119,8 +125,12 @@ public Object visitInvalidateCommand(InvocationContext ctx, InvalidateCommand co
       if (enabled) {
          Object[] keys;
          if ((keys = command.getKeys()) != null && keys.length > 0) {
-            for (Object key : command.getKeys()) {
-               loadIfNeeded(ctx, key, false, command);
+            if (keys.length > 1 && loader instanceof NonBlockingCacheLoader) {
+               loadAllIfNeeded(ctx, keys, command);
+            } else {
+               for (Object key : command.getKeys()) {
+                  loadIfNeeded(ctx, key, false, command);
+               }
             }
          }
       }
@@ -154,31 +164,65 @@ protected boolean forceLoad(Object key, Set<Flag> flags) {
    }
 
    private boolean loadIfNeeded(InvocationContext ctx, Object key, boolean isRetrieval, FlagAffectedCommand cmd) throws Throwable {
-      if (cmd.hasFlag(Flag.SKIP_CACHE_STORE) || cmd.hasFlag(Flag.SKIP_CACHE_LOAD)
-            || cmd.hasFlag(Flag.IGNORE_RETURN_VALUES)) {
+      if (skipLoad(ctx, key, isRetrieval, cmd)) {
          return false; //skip operation
       }
 
-      // If this is a remote call, skip loading UNLESS we are the coordinator/primary data owner of this key, and
-      // are using eviction or write skew checking.
-      if (!isRetrieval && !ctx.isOriginLocal() && !forceLoad(key, cmd.getFlags())) return false;
-
       // first check if the container contains the key we need.  Try and load this into the context.
       CacheEntry e = ctx.lookupEntry(key);
       if (e == null || e.isNull() || e.getValue() == null) {
-         InternalCacheEntry loaded = loader.load(key);
-         if (loaded != null) {
-            MVCCEntry mvccEntry = entryFactory.wrapEntryForPut(ctx, key, loaded, false, cmd);
-            recordLoadedEntry(ctx, key, mvccEntry, loaded);
-            return true;
-         } else {
-            return false;
-         }
+         return wrapLoadedEntry(ctx, key, loader.load(key), cmd);
       } else {
          return true;
       }
    }
 
+   /**
+    * Issues the loads of all the keys missing from the context before waiting for any of them, so that a
+    * {@link NonBlockingCacheLoader} fetches them concurrently instead of one round trip at a time.
+    */
+   private void loadAllIfNeeded(InvocationContext ctx, Object[] keys, FlagAffectedCommand cmd) throws Throwable {
+      NonBlockingCacheLoader nonBlockingLoader = (NonBlockingCacheLoader) loader;
+      Map<Object, Future<InternalCacheEntry>> pendingLoads = new LinkedHashMap<Object, Future<InternalCacheEntry>>(keys.length);
+      for (Object key : keys) {
+         if (skipLoad(ctx, key, false, cmd)) continue;
+         CacheEntry e = ctx.lookupEntry(key);
+         if (e == null || e.isNull() || e.getValue() == null) {
+            pendingLoads.put(key, nonBlockingLoader.loadAsync(key));
+         }
+      }
+      for (Map.Entry<Object, Future<InternalCacheEntry>> pendingLoad : pendingLoads.entrySet()) {
+         InternalCacheEntry loaded;
+         try {
+            loaded = pendingLoad.getValue().get();
+         } catch (ExecutionException e) {
+            throw e.getCause();
+         }
+         wrapLoadedEntry(ctx, pendingLoad.getKey(), loaded, cmd);
+      }
+   }
+
+   private boolean skipLoad(InvocationContext ctx, Object key, boolean isRetrieval, FlagAffectedCommand cmd) {
+      if (cmd.hasFlag(Flag.SKIP_CACHE_STORE) || cmd.hasFlag(Flag.SKIP_CACHE_LOAD)
+            || cmd.hasFlag(Flag.IGNORE_RETURN_VALUES)) {
+         return true;
+      }
+
+      // If this is a remote call, skip loading UNLESS we are the coordinator/primary data owner of this key, and
+      // are using eviction or write skew checking.
+      return !isRetrieval && !ctx.isOriginLocal() && !forceLoad(key, cmd.getFlags());
+   }
+
+   private boolean wrapLoadedEntry(InvocationContext ctx, Object key, InternalCacheEntry loaded, FlagAffectedCommand cmd) throws Throwable {
+      if (loaded != null) {
+         MVCCEntry mvccEntry = entryFactory.wrapEntryForPut(ctx, key, loaded, false, cmd);
+         recordLoadedEntry(ctx, key, mvccEntry, loaded);
+         return true;
+      } else {
+         return false;
+      }
+   }
+
    /**
     * This method records a loaded entry, performing the following steps: <ol> <li>Increments counters for reporting via
     * JMX</li> <li>updates the 'entry' reference (an entry in the current thread's InvocationContext) with the contents
@@ -244,12 +288,34 @@ public long getCacheLoaderMisses() {
       return cacheMisses.get();
    }
 
+   @ManagedAttribute(description = "Number of loads answered by the Bloom filters of the cache stores without reaching the stores")
+   @Metric(displayName = "Number of loads skipped by Bloom filters", measurementType = MeasurementType.TRENDSUP)
+   public long getBloomFilterSkippedLoads() {
+      long skippedLoads = 0;
+      for (BloomFilterStore store : clm.getCacheLoaders(BloomFilterStore.class)) skippedLoads += store.getSkippedLoads();
+      return skippedLoads;
+   }
+
+   @ManagedAttribute(description = "Ratio of the loads of missing keys which were not stopped by the Bloom filters of the cache stores")
+   @Metric(displayName = "Bloom filter false positive rate", units = Units.PERCENTAGE, displayType = DisplayType.SUMMARY)
+   public double getBloomFilterFalsePositiveRate() {
+      long skippedLoads = 0;
+      long falsePositives = 0;
+      for (BloomFilterStore store : clm.getCacheLoaders(BloomFilterStore.class)) {
+         skippedLoads += store.getSkippedLoads();
+         falsePositives += store.getFalsePositives();
+      }
+      long total = skippedLoads + falsePositives;
+      return total == 0 ? 0 : (double) falsePositives / total;
+   }
+
    @Override
    @ManagedOperation(description = "Resets statistics gathered by this component")
    @Operation(displayName = "Reset Statistics")
    public void resetStatistics() {
       cacheLoads.set(0);
       cacheMisses.set(0);
+      for (BloomFilterStore store : clm.getCacheLoaders(BloomFilterStore.class)) store.resetStatistics();
    }
 
    @ManagedAttribute(description = "Returns a collection of cache loader types which configured and enabled")
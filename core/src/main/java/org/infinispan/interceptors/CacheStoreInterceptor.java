@@ -48,6 +48,7 @@
 import org.infinispan.loaders.CacheLoaderException;
 import org.infinispan.loaders.CacheLoaderManager;
 import org.infinispan.loaders.CacheStore;
+import org.infinispan.loaders.NonBlockingCacheStore;
 import org.infinispan.loaders.modifications.Clear;
 import org.infinispan.loaders.modifications.Modification;
 import org.infinispan.loaders.modifications.Remove;
@@ -68,6 +69,8 @@
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 import java.util.concurrent.atomic.AtomicLong;
 
 import static org.infinispan.context.Flag.SKIP_CACHE_STORE;
@@ -271,15 +274,38 @@ public Object visitPutMapCommand(InvocationContext ctx, PutMapCommand command) t
       if (skip(ctx, command) || ctx.isInTxScope()) return returnValue;
 
       Map<Object, Object> map = command.getMap();
-      for (Object key : map.keySet()) {
-         InternalCacheEntry se = getStoredEntry(key, ctx);
-         store.store(se);
-         if (getLog().isTraceEnabled()) getLog().tracef("Stored entry %s under key %s", se, key);
+      if (map.size() > 1 && store instanceof NonBlockingCacheStore) {
+         storeAll(ctx, map.keySet());
+      } else {
+         for (Object key : map.keySet()) {
+            InternalCacheEntry se = getStoredEntry(key, ctx);
+            store.store(se);
+            if (getLog().isTraceEnabled()) getLog().tracef("Stored entry %s under key %s", se, key);
+         }
       }
       if (getStatisticsEnabled()) cacheStores.getAndAdd(map.size());
       return returnValue;
    }
 
+   /**
+    * Issues all the writes before waiting for any of them, so that a {@link NonBlockingCacheStore} writes the
+    * entries concurrently instead of one round trip at a time.
+    */
+   private void storeAll(InvocationContext ctx, Set<Object> keys) throws Throwable {
+      NonBlockingCacheStore nonBlockingStore = (NonBlockingCacheStore) store;
+      List<Future<?>> pendingStores = new ArrayList<Future<?>>(keys.size());
+      for (Object key : keys) {
+         InternalCacheEntry se = getStoredEntry(key, ctx);
+         pendingStores.add(nonBlockingStore.storeAsync(se));
+         if (getLog().isTraceEnabled()) getLog().tracef("Storing entry %s under key %s", se, key);
+      }
+      try {
+         for (Future<?> pendingStore : pendingStores) pendingStore.get();
+      } catch (ExecutionException e) {
+         throw e.getCause();
+      }
+   }
+
    protected final void prepareCacheLoader(TxInvocationContext ctx, GlobalTransaction gtx, TxInvocationContext transactionContext, boolean onePhase) throws Throwable {
       if (transactionContext == null) {
          throw new Exception("transactionContext for transaction " + gtx + " not found in transaction table");
@@ -26,12 +26,14 @@
 import org.infinispan.commands.VisitableCommand;
 import org.infinispan.config.ConfigurationException;
 import org.infinispan.context.InvocationContext;
+import org.infinispan.context.InvocationContextContainer;
 import org.infinispan.factories.annotations.Inject;
 import org.infinispan.factories.annotations.Start;
 import org.infinispan.factories.annotations.Stop;
 import org.infinispan.factories.components.ComponentMetadataRepo;
 import org.infinispan.factories.scopes.Scope;
 import org.infinispan.factories.scopes.Scopes;
+import org.infinispan.interceptors.base.CommandHandlerTable;
 import org.infinispan.interceptors.base.CommandInterceptor;
 import org.infinispan.util.InfinispanCollections;
 import org.infinispan.util.ReflectionUtil;
@@ -61,8 +63,14 @@ public class InterceptorChain {
     */
    private volatile CommandInterceptor firstInChain;
 
+   /**
+    * skips the interceptors which would only pass a command on, rebuilt whenever the chain changes
+    */
+   private volatile CommandHandlerTable firstHandlers;
+
    final ReentrantLock lock = new ReentrantLock();
    final ComponentMetadataRepo componentMetadataRepo;
+   private InvocationContextContainer icc;
 
    /**
     * Constructs an interceptor chain having the supplied interceptor as first.
@@ -71,6 +79,11 @@ public InterceptorChain(ComponentMetadataRepo componentMetadataRepo) {
       this.componentMetadataRepo = componentMetadataRepo;
    }
 
+   @Inject
+   public void injectInvocationContextContainer(InvocationContextContainer icc) {
+      this.icc = icc;
+   }
+
    @Start
    private void printChainInfo() {
       if (log.isDebugEnabled()) {
@@ -129,6 +142,7 @@ public void addInterceptor(CommandInterceptor interceptor, int position) {
          }
          throw new IllegalArgumentException("Invalid index: " + index + " !");
       } finally {
+         compile();
          lock.unlock();
       }
    }
@@ -160,6 +174,7 @@ public void removeInterceptor(int position) {
          }
          throw new IllegalArgumentException("Invalid position: " + position + " !");
       } finally {
+         compile();
          lock.unlock();
       }
    }
@@ -216,6 +231,7 @@ public void removeInterceptor(Class<? extends CommandInterceptor> clazz) {
             it = it.getNext();
          }
       } finally {
+         compile();
          lock.unlock();
       }
    }
@@ -247,6 +263,7 @@ public boolean addInterceptorAfter(CommandInterceptor toAdd, Class<? extends Com
          }
          return false;
       } finally {
+         compile();
          lock.unlock();
       }
    }
@@ -280,6 +297,7 @@ public boolean addInterceptorBefore(CommandInterceptor toAdd, Class<? extends Co
          }
          return false;
       } finally {
+         compile();
          lock.unlock();
       }
    }
@@ -318,6 +336,7 @@ public boolean replaceInterceptor(CommandInterceptor replacingInterceptor, Class
          }
          return false;
       } finally {
+         compile();
          lock.unlock();
       }
    }
@@ -333,14 +352,17 @@ public void appendInterceptor(CommandInterceptor ci, boolean isCustom) {
       it.setNext(ci);
       // make sure we nullify the "next" pointer in the last interceptors.
       ci.setNext(null);
+      compile();
    }
 
    /**
-    * Walks the command through the interceptor chain. The received ctx is being passed in.
+    * Walks the command through the interceptor chain. The received ctx is being passed in, and released once the
+    * command went through the whole chain, so it must not be used by the caller afterwards.
     */
    public Object invoke(InvocationContext ctx, VisitableCommand command) {
       try {
-         return command.acceptVisitor(ctx, firstInChain);
+         CommandHandlerTable firstHandlers = this.firstHandlers;
+         return command.acceptVisitor(ctx, firstHandlers == null ? firstInChain : firstHandlers.handlerFor(command));
       } catch (CacheException e) {
          if (e.getCause() instanceof InterruptedException)
             Thread.currentThread().interrupt();
@@ -349,6 +371,8 @@ public Object invoke(InvocationContext ctx, VisitableCommand command) {
          throw e;
       } catch (Throwable t) {
          throw new CacheException(t);
+      } finally {
+         if (icc != null) icc.releaseInvocationContext(ctx);
       }
    }
 
@@ -367,6 +391,18 @@ public CommandInterceptor getFirstInChain() {
     */
    public void setFirstInChain(CommandInterceptor interceptor) {
       this.firstInChain = interceptor;
+      compile();
+   }
+
+   /**
+    * Rebuilds the tables used to skip the interceptors which would only pass a command on.
+    */
+   private void compile() {
+      CommandInterceptor first = firstInChain;
+      firstHandlers = first == null ? null : new CommandHandlerTable(first);
+      for (CommandInterceptor it = first; it != null; it = it.getNext()) {
+         it.setNextHandlers(it.hasNext() ? new CommandHandlerTable(it.getNext()) : null);
+      }
    }
 
    /**
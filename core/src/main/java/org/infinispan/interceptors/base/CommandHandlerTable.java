@@ -0,0 +1,125 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.interceptors.base;
+
+import org.infinispan.commands.AbstractVisitor;
+import org.infinispan.commands.VisitableCommand;
+import org.infinispan.commands.Visitor;
+import org.infinispan.context.InvocationContext;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Remembers, per command type, which interceptor is the next one to actually handle the command, starting from a given
+ * position of the chain. Interceptors which neither override the visit methods a command can be dispatched to nor
+ * {@link CommandInterceptor#handleDefault(InvocationContext, VisitableCommand)} would only pass the command on, so
+ * they are skipped.
+ * <p/>
+ * The table is resolved lazily and only valid for the chain it was created on: the
+ * {@link org.infinispan.interceptors.InterceptorChain} creates new tables whenever the chain is modified.
+ *
+ * @since 5.2
+ */
+public final class CommandHandlerTable {
+
+   private static final int SLOTS = 256;
+   private static final Method[] VISIT_METHODS = Visitor.class.getMethods();
+
+   private final CommandInterceptor first;
+   // indexed by command id, racy but entries are immutable
+   private final Entry[] byCommandId = new Entry[SLOTS];
+   // commands sharing an id with another type, e.g. the local only ones
+   private final ConcurrentMap<Class<?>, CommandInterceptor> byCommandClass = new ConcurrentHashMap<Class<?>, CommandInterceptor>(4);
+
+   public CommandHandlerTable(CommandInterceptor first) {
+      this.first = first;
+   }
+
+   /**
+    * @return the first interceptor from the start of this table which handles the given command
+    */
+   public CommandInterceptor handlerFor(VisitableCommand command) {
+      Class<?> commandClass = command.getClass();
+      int slot = command.getCommandId() & (SLOTS - 1);
+      Entry entry = byCommandId[slot];
+      if (entry != null && entry.commandClass == commandClass) return entry.handler;
+
+      CommandInterceptor handler;
+      if (entry == null) {
+         handler = resolve(commandClass);
+         byCommandId[slot] = new Entry(commandClass, handler);
+      } else {
+         handler = byCommandClass.get(commandClass);
+         if (handler == null) {
+            handler = resolve(commandClass);
+            byCommandClass.put(commandClass, handler);
+         }
+      }
+      return handler;
+   }
+
+   private CommandInterceptor resolve(Class<?> commandClass) {
+      for (CommandInterceptor it = first; it != null; it = it.getNext()) {
+         if (!isPassThrough(it.getClass(), commandClass)) return it;
+      }
+      // nothing handles it, let the chain behave as it always did
+      return first;
+   }
+
+   static boolean isPassThrough(Class<?> interceptorClass, Class<?> commandClass) {
+      if (declaringClass(interceptorClass, "handleDefault", InvocationContext.class, VisitableCommand.class) != CommandInterceptor.class)
+         return false;
+      for (Method visitMethod : VISIT_METHODS) {
+         Class<?>[] params = visitMethod.getParameterTypes();
+         if (params.length == 2 && params[1].isAssignableFrom(commandClass)) {
+            if (declaringClass(interceptorClass, visitMethod.getName(), params) != AbstractVisitor.class)
+               return false;
+         }
+      }
+      return true;
+   }
+
+   private static Class<?> declaringClass(Class<?> clazz, String name, Class<?>... params) {
+      for (Class<?> c = clazz; c != null; c = c.getSuperclass()) {
+         try {
+            c.getDeclaredMethod(name, params);
+            return c;
+         } catch (NoSuchMethodException e) {
+            // look further up
+         }
+      }
+      return null;
+   }
+
+   private static final class Entry {
+      final Class<?> commandClass;
+      final CommandInterceptor handler;
+
+      Entry(Class<?> commandClass, CommandInterceptor handler) {
+         this.commandClass = commandClass;
+         this.handler = handler;
+      }
+   }
+}
@@ -69,6 +69,8 @@ public abstract class CommandInterceptor extends AbstractVisitor {
 
    private CommandInterceptor next;
 
+   private volatile CommandHandlerTable nextHandlers;
+
    protected Configuration cacheConfiguration;
 
    protected Log getLog() {
@@ -103,6 +105,17 @@ public final boolean hasNext() {
     */
    public final void setNext(CommandInterceptor next) {
       this.next = next;
+      this.nextHandlers = null;
+   }
+
+   /**
+    * Sets the table used to skip the interceptors after this one which would only pass a command on. The table must
+    * start at the next interceptor, and is dropped when the next interceptor changes.
+    *
+    * @param nextHandlers the table, or null to always go through the next interceptor
+    */
+   public final void setNextHandlers(CommandHandlerTable nextHandlers) {
+      this.nextHandlers = nextHandlers;
    }
 
    /**
@@ -115,7 +128,8 @@ public final void setNext(CommandInterceptor next) {
     * @throws Throwable in the event of problems
     */
    public final Object invokeNextInterceptor(InvocationContext ctx, VisitableCommand command) throws Throwable {
-      return command.acceptVisitor(ctx, next);
+      CommandHandlerTable nextHandlers = this.nextHandlers;
+      return command.acceptVisitor(ctx, nextHandlers == null ? next : nextHandlers.handlerFor(command));
    }
 
    /**
@@ -118,7 +118,11 @@ public void run() {
 
    protected abstract void purgeInternal() throws CacheLoaderException;
 
-   protected void applyModifications(List<? extends Modification> mods) throws CacheLoaderException {
+   /**
+    * Applies the modifications one by one. Stores able to write several entries at once should override this.
+    */
+   @Override
+   public void applyModifications(List<? extends Modification> mods) throws CacheLoaderException {
       for (Modification m : mods) {
          switch (m.getType()) {
             case STORE:
@@ -55,12 +55,15 @@
 import org.infinispan.interceptors.CacheLoaderInterceptor;
 import org.infinispan.interceptors.CacheStoreInterceptor;
 import org.infinispan.loaders.decorators.AsyncStore;
+import org.infinispan.loaders.decorators.BloomFilterStore;
+import org.infinispan.loaders.decorators.GroupCommitStore;
 import org.infinispan.loaders.decorators.ChainingCacheStore;
 import org.infinispan.loaders.decorators.ReadOnlyStore;
 import org.infinispan.loaders.decorators.SingletonStore;
 import org.infinispan.loaders.decorators.SingletonStoreConfig;
 import org.infinispan.marshall.StreamingMarshaller;
 import org.infinispan.util.InfinispanCollections;
+import org.infinispan.util.TypedProperties;
 import org.infinispan.util.Util;
 import org.infinispan.util.logging.Log;
 import org.infinispan.util.logging.LogFactory;
@@ -346,8 +349,17 @@ CacheLoader createCacheLoader(CacheLoaderConfig cfg, AdvancedCache<Object, Objec
       if (tmpLoader != null) {
          if (cfg instanceof CacheStoreConfig) {
             CacheStore tmpStore = (CacheStore) tmpLoader;
-            // async?
             CacheStoreConfig cfg2 = (CacheStoreConfig) cfg;
+            // group commit? innermost, so that it groups the transactions actually reaching the store
+            if (cfg2 instanceof AbstractCacheStoreConfig) {
+               TypedProperties props = ((AbstractCacheStoreConfig) cfg2).getTypedProperties();
+               if (props.getBooleanProperty(GroupCommitStore.GROUP_COMMIT, false)) {
+                  tmpStore = new GroupCommitStore(tmpStore, props.getIntProperty(GroupCommitStore.GROUP_COMMIT_MAX_TRANSACTIONS, 64));
+                  tmpLoader = tmpStore;
+               }
+            }
+
+            // async?
             if (cfg2.getAsyncStoreConfig().isEnabled()) {
                tmpStore = createAsyncStore(tmpStore, cfg2);
                tmpLoader = tmpStore;
@@ -365,6 +377,19 @@ CacheLoader createCacheLoader(CacheLoaderConfig cfg, AdvancedCache<Object, Objec
                tmpStore = new SingletonStore(tmpStore, cache, ssc);
                tmpLoader = tmpStore;
             }
+
+            // bloom filter? outermost, so that it sees all the writes
+            if (cfg2 instanceof AbstractCacheStoreConfig) {
+               TypedProperties props = ((AbstractCacheStoreConfig) cfg2).getTypedProperties();
+               int expectedKeys = props.getIntProperty(BloomFilterStore.EXPECTED_KEYS, 0);
+               if (expectedKeys > 0) {
+                  if (clmConfig.shared())
+                     throw new ConfigurationException("Invalid cache loader configuration!!  A Bloom filter cannot be used in front of a cache store shared in a cluster!");
+                  double fpp = Double.parseDouble(props.getProperty(BloomFilterStore.FALSE_POSITIVE_PROBABILITY, "0.01"));
+                  tmpStore = new BloomFilterStore(tmpStore, expectedKeys, fpp);
+                  tmpLoader = tmpStore;
+               }
+            }
          }
 
          // load props
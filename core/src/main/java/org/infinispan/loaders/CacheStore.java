@@ -117,6 +117,17 @@ public interface CacheStore extends CacheLoader {
     */
    void removeAll(Set<Object> keys) throws CacheLoaderException;
 
+   /**
+    * Applies a batch of modifications to the store. Implementations are encouraged to use whatever batching mechanism
+    * the underlying storage offers, so that a batch costs less than the equivalent sequence of {@link
+    * #store(org.infinispan.container.entries.InternalCacheEntry)}, {@link #remove(Object)} and {@link #clear()} calls.
+    * Modifications must take effect in list order, but the batch is not required to be atomic.
+    *
+    * @param modifications modifications to be applied
+    * @throws CacheLoaderException in the event of problems writing to the store
+    */
+   void applyModifications(List<? extends Modification> modifications) throws CacheLoaderException;
+
    /**
     * Purges expired entries from the store.
     *
@@ -24,6 +24,7 @@
 
 import java.io.ObjectInput;
 import java.io.ObjectOutput;
+import java.util.Collection;
 import java.util.Set;
 
 import org.infinispan.Cache;
@@ -44,6 +45,11 @@
  * of StripedLock for details on what this is) by using the {@link LockSupportCacheStoreConfig#setLockConcurrencyLevel(int)}
  * setter.
  * <p/>
+ * Stores whose {@link #loadLockSafe(Object, Object)} only reads from a medium which offers its own consistency
+ * guarantees, such as a database, can opt in to lock free loads by overriding {@link #supportsOptimisticReads()}. Loads
+ * then read without taking the read lock and only fall back to it when a concurrent write to the same lock stripe is
+ * detected, so hot stripes don't serialize readers behind each other's I/O.
+ * <p/>
  *
  * @author Mircea.Markus@jboss.com
  * @author <a href="http://gleamynode.net/">Trustin Lee</a>
@@ -74,7 +80,7 @@ public void start() throws CacheLoaderException {
       }
       log.tracef("Starting cache with config: %s", config);
 
-      locks = new StripedLock(config.getLockConcurrencyLevel());
+      locks = new StripedLock(config.getLockConcurrencyLevel(), supportsOptimisticReads());
       globalLockTimeoutMillis = config.getLockAcquistionTimeout();
    }
 
@@ -113,6 +119,21 @@ protected final void downgradeLock(L key) {
       locks.downgradeLock(key);
    }
 
+   /**
+    * Acquires write locks on all the given keys, in an order which can't deadlock with other threads doing the same.
+    * Release them with {@link #unlockAll(java.util.Collection)}.
+    */
+   protected final void lockAllForWriting(Collection<L> keys) {
+      locks.acquireLocksInOrder(keys, true);
+   }
+
+   /**
+    * Releases the locks acquired with {@link #lockAllForWriting(java.util.Collection)}.
+    */
+   protected final void unlockAll(Collection<L> keys) {
+      locks.releaseLocksInOrder(keys, true);
+   }
+
    /**
     * Same as {@link #lockForWriting(Object)}, but with 0 timeout.
     */
@@ -134,9 +155,38 @@ protected final void releaseGlobalLock(boolean exclusive) {
       locks.releaseGlobalLock(exclusive);
    }
 
+   /**
+    * Whether {@link #load(Object)} may call {@link #loadLockSafe(Object, Object)} without holding the read lock, and
+    * only retry under the lock if a write to the same lock stripe overlapped the read. This requires the load to not
+    * modify any state and to tolerate concurrent writes, which may make it fail or return a stale result that is then
+    * discarded. Defaults to false.
+    */
+   protected boolean supportsOptimisticReads() {
+      return false;
+   }
+
    @Override
    public final InternalCacheEntry load(Object key) throws CacheLoaderException {
       L lockingKey = getLockFromKey(key);
+      if (supportsOptimisticReads()) {
+         long stamp = locks.tryOptimisticRead(lockingKey);
+         if (locks.validate(lockingKey, stamp)) {
+            InternalCacheEntry entry;
+            try {
+               entry = loadLockSafe(key, lockingKey);
+            } catch (CacheLoaderException e) {
+               if (locks.validate(lockingKey, stamp)) throw e;
+               entry = null;
+            } catch (RuntimeException e) {
+               if (locks.validate(lockingKey, stamp)) throw e;
+               entry = null;
+            }
+            if (locks.validate(lockingKey, stamp)) {
+               return entry;
+            }
+            if (trace) log.tracef("Optimistic read of '%s' overlapped a write, retrying under the read lock", key);
+         }
+      }
       lockForReading(lockingKey);
       try {
          return loadLockSafe(key, lockingKey);
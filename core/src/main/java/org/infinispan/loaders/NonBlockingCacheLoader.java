@@ -0,0 +1,48 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.loaders;
+
+import org.infinispan.container.entries.InternalCacheEntry;
+import org.infinispan.util.concurrent.NotifyingFuture;
+
+/**
+ * An optional extension of the {@link CacheLoader} SPI for loaders whose backend can be read without blocking the
+ * calling thread, e.g. remote stores with an asynchronous client.
+ * <p/>
+ * Load requests issued through {@link #loadAsync(Object)} are expected to proceed concurrently, so that callers
+ * needing several entries pay for a single round trip rather than one per key. Failures are reported by the returned
+ * future, wrapped in an {@link java.util.concurrent.ExecutionException}.
+ *
+ * @since 5.2
+ */
+public interface NonBlockingCacheLoader extends CacheLoader {
+
+   /**
+    * Starts loading an entry from the loader.
+    *
+    * @param key key
+    * @return a future returning the entry, or null if it does not exist
+    * @throws CacheLoaderException if the load could not be issued
+    */
+   NotifyingFuture<InternalCacheEntry> loadAsync(Object key) throws CacheLoaderException;
+}
@@ -0,0 +1,53 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.loaders;
+
+import org.infinispan.container.entries.InternalCacheEntry;
+import org.infinispan.util.concurrent.NotifyingFuture;
+
+/**
+ * A {@link CacheStore} that can also be written to without blocking the calling thread. See
+ * {@link NonBlockingCacheLoader} for how failures are reported.
+ *
+ * @since 5.2
+ */
+public interface NonBlockingCacheStore extends CacheStore, NonBlockingCacheLoader {
+
+   /**
+    * Starts storing an entry.
+    *
+    * @param entry entry to store
+    * @return a future completing once the entry has been written
+    * @throws CacheLoaderException if the write could not be issued
+    */
+   NotifyingFuture<?> storeAsync(InternalCacheEntry entry) throws CacheLoaderException;
+
+   /**
+    * Starts removing an entry.
+    *
+    * @param key key to remove
+    * @return a future completing once the entry has been removed
+    * @throws CacheLoaderException if the removal could not be issued
+    */
+   NotifyingFuture<?> removeAsync(Object key) throws CacheLoaderException;
+}
@@ -105,6 +105,11 @@ public void rollback(GlobalTransaction tx) {
       delegate.rollback(tx);
    }
 
+   @Override
+   public void applyModifications(List<? extends Modification> modifications) throws CacheLoaderException {
+      delegate.applyModifications(modifications);
+   }
+
    @Override
    public void prepare(List<? extends Modification> list, GlobalTransaction tx, boolean isOnePhase) throws CacheLoaderException {
       delegate.prepare(list, tx, isOnePhase);
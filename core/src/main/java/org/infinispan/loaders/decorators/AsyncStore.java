@@ -37,7 +37,6 @@
 import org.infinispan.loaders.modifications.Store;
 import org.infinispan.marshall.StreamingMarshaller;
 import org.infinispan.transaction.xa.GlobalTransaction;
-import org.infinispan.transaction.xa.TransactionFactory;
 import org.infinispan.util.concurrent.ConcurrentMapFactory;
 import org.infinispan.util.logging.Log;
 import org.infinispan.util.logging.LogFactory;
@@ -75,6 +74,10 @@
  * <p/>
  * Write operations affecting same key are now coalesced so that only the final state is actually stored.
  * <p/>
+ * The coalesced modifications are handed over to the underlying store in batches, one per worker thread, through
+ * {@link CacheStore#applyModifications(java.util.List)}, so stores supporting batched writes apply them in a
+ * single round trip.
+ * <p/>
  *
  * @author Manik Surtani
  * @author Galder Zamarreño
@@ -88,7 +91,6 @@ public class AsyncStore extends AbstractDelegatingStore {
    private static final AtomicInteger threadId = new AtomicInteger(0);
 
    private final AsyncStoreConfig asyncStoreConfig;
-   private final TransactionFactory txFactory;
    private Map<GlobalTransaction, List<? extends Modification>> transactions;
 
    private ExecutorService executor;
@@ -104,8 +106,6 @@ public class AsyncStore extends AbstractDelegatingStore {
    public AsyncStore(CacheStore delegate, AsyncStoreConfig asyncStoreConfig) {
       super(delegate);
       this.asyncStoreConfig = asyncStoreConfig;
-      txFactory = new TransactionFactory();
-      txFactory.init(false, false, false, false);
    }
 
    @Override
@@ -254,6 +254,11 @@ public void removeAll(Set<Object> keys) throws CacheLoaderException {
       }
    }
 
+   @Override
+   public void applyModifications(List<? extends Modification> mods) {
+      enqueueModificationsList(mods);
+   }
+
    @Override
    public void prepare(List<? extends Modification> mods, GlobalTransaction tx, boolean isOnePhase)
          throws CacheLoaderException {
@@ -330,7 +335,7 @@ public void stop() throws CacheLoaderException {
    }
 
    protected void applyModificationsSync(List<Modification> mods) throws CacheLoaderException {
-      getDelegate().prepare(mods, txFactory.newGlobalTransaction(null, false), true);
+      getDelegate().applyModifications(mods);
    }
 
    private static class State {
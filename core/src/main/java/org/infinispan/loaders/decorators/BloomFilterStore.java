@@ -0,0 +1,312 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.loaders.decorators;
+
+import org.infinispan.commons.hash.MurmurHash3;
+import org.infinispan.container.entries.InternalCacheEntry;
+import org.infinispan.loaders.CacheLoaderException;
+import org.infinispan.loaders.CacheStore;
+import org.infinispan.loaders.modifications.Modification;
+import org.infinispan.loaders.modifications.Store;
+import org.infinispan.transaction.xa.GlobalTransaction;
+import org.infinispan.util.logging.Log;
+import org.infinispan.util.logging.LogFactory;
+
+import java.io.ObjectInput;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * A decorator keeping a counting Bloom filter of the keys held by the underlying store, so that loads of keys which
+ * are known not to be in the store are answered without reaching it.
+ * <p/>
+ * The filter is built from {@link CacheStore#loadAllKeys(java.util.Set)} when the store starts, and maintained by the
+ * writes going through this decorator. It can only be used with stores that are not shared, as writes made by other
+ * nodes would not be seen. Writes whose outcome is not known, e.g. the removals of a transaction or the removals
+ * going through an {@link AsyncStore}, which always reports them as done, leave the filter untouched: this can only
+ * cause false positives, never skip a key which is in the store.
+ * <p/>
+ * It is enabled with the {@link #EXPECTED_KEYS} store property, {@link #FALSE_POSITIVE_PROBABILITY} sets the target
+ * false positive probability once that number of keys is stored.
+ *
+ * @since 5.2
+ */
+public class BloomFilterStore extends AbstractDelegatingStore {
+   private static final Log log = LogFactory.getLog(BloomFilterStore.class);
+
+   /**
+    * The store property holding the number of keys the filter is sized for. The filter is disabled if not positive.
+    */
+   public static final String EXPECTED_KEYS = "bloomFilterExpectedKeys";
+
+   /**
+    * The store property holding the false positive probability the filter is sized for, 0.01 by default.
+    */
+   public static final String FALSE_POSITIVE_PROBABILITY = "bloomFilterFalsePositiveProbability";
+
+   private final CountingBloomFilter filter;
+   // writes share the lock, a clear or a rebuild must not interleave with them
+   private final ReadWriteLock filterLock = new ReentrantReadWriteLock();
+   private final AtomicLong skippedLoads = new AtomicLong();
+   private final AtomicLong falsePositives = new AtomicLong();
+   private final boolean countsRemovals;
+   private volatile boolean enabled;
+
+   public BloomFilterStore(CacheStore delegate, int expectedKeys, double falsePositiveProbability) {
+      super(delegate);
+      filter = new CountingBloomFilter(expectedKeys, falsePositiveProbability);
+      countsRemovals = reportsRemovals(delegate);
+   }
+
+   @Override
+   public void start() throws CacheLoaderException {
+      super.start();
+      rebuild();
+   }
+
+   @Override
+   public InternalCacheEntry load(Object key) throws CacheLoaderException {
+      if (enabled && !filter.mightContain(key)) {
+         skippedLoads.incrementAndGet();
+         return null;
+      }
+      InternalCacheEntry entry = super.load(key);
+      if (entry == null && enabled) falsePositives.incrementAndGet();
+      return entry;
+   }
+
+   @Override
+   public boolean containsKey(Object key) throws CacheLoaderException {
+      if (enabled && !filter.mightContain(key)) {
+         skippedLoads.incrementAndGet();
+         return false;
+      }
+      return super.containsKey(key);
+   }
+
+   @Override
+   public void store(InternalCacheEntry ed) throws CacheLoaderException {
+      filterLock.readLock().lock();
+      try {
+         // added before the write, so that a concurrent load cannot miss the entry
+         filter.add(ed.getKey());
+         super.store(ed);
+      } finally {
+         filterLock.readLock().unlock();
+      }
+   }
+
+   @Override
+   public boolean remove(Object key) throws CacheLoaderException {
+      filterLock.readLock().lock();
+      try {
+         boolean removed = super.remove(key);
+         // only keys which were there have been counted
+         if (removed && countsRemovals) filter.remove(key);
+         return removed;
+      } finally {
+         filterLock.readLock().unlock();
+      }
+   }
+
+   @Override
+   public void clear() throws CacheLoaderException {
+      filterLock.writeLock().lock();
+      try {
+         super.clear();
+         filter.clear();
+      } finally {
+         filterLock.writeLock().unlock();
+      }
+   }
+
+   @Override
+   public void fromStream(ObjectInput inputStream) throws CacheLoaderException {
+      super.fromStream(inputStream);
+      rebuild();
+   }
+
+   @Override
+   public void applyModifications(List<? extends Modification> modifications) throws CacheLoaderException {
+      filterLock.readLock().lock();
+      try {
+         addStoredKeys(modifications);
+         super.applyModifications(modifications);
+      } finally {
+         filterLock.readLock().unlock();
+      }
+   }
+
+   @Override
+   public void prepare(List<? extends Modification> list, GlobalTransaction tx, boolean isOnePhase) throws CacheLoaderException {
+      filterLock.readLock().lock();
+      try {
+         // counted when prepared, a rollback only leaves false positives behind
+         addStoredKeys(list);
+         super.prepare(list, tx, isOnePhase);
+      } finally {
+         filterLock.readLock().unlock();
+      }
+   }
+
+   /**
+    * @return the number of loads answered by the filter without reaching the store
+    */
+   public long getSkippedLoads() {
+      return skippedLoads.get();
+   }
+
+   /**
+    * @return the number of loads which passed the filter but did not find anything in the store
+    */
+   public long getFalsePositives() {
+      return falsePositives.get();
+   }
+
+   /**
+    * @return the ratio of loads of missing keys which the filter did not stop, or 0 if there was no such load
+    */
+   public double getFalsePositiveRate() {
+      long fp = falsePositives.get();
+      long total = fp + skippedLoads.get();
+      return total == 0 ? 0 : (double) fp / total;
+   }
+
+   public void resetStatistics() {
+      skippedLoads.set(0);
+      falsePositives.set(0);
+   }
+
+   private void addStoredKeys(List<? extends Modification> modifications) {
+      for (Modification m : modifications) {
+         if (m.getType() == Modification.Type.STORE) filter.add(((Store) m).getStoredEntry().getKey());
+      }
+   }
+
+   private void rebuild() {
+      filterLock.writeLock().lock();
+      try {
+         // loads do not take the lock, they must not trust the filter while it is being rebuilt
+         enabled = false;
+         filter.clear();
+         Set<Object> keys = getDelegate().loadAllKeys(Collections.<Object>emptySet());
+         for (Object key : keys) filter.add(key);
+         enabled = true;
+         log.debugf("Built Bloom filter of %d keys in front of %s", keys.size(), getDelegate());
+      } catch (Exception e) {
+         enabled = false;
+         log.unableToBuildBloomFilter(getDelegate().getClass().getName(), e);
+      } finally {
+         filterLock.writeLock().unlock();
+      }
+   }
+
+   /**
+    * Tests whether a removal reported as done by the store has really removed a key from it.
+    */
+   private static boolean reportsRemovals(CacheStore store) {
+      for (CacheStore s = store; s instanceof AbstractDelegatingStore; s = ((AbstractDelegatingStore) s).getDelegate()) {
+         // answers before the removal is applied
+         if (s instanceof AsyncStore) return false;
+      }
+      return true;
+   }
+
+   /**
+    * A Bloom filter with 4 bit saturating counters instead of bits, so that keys can be removed. A counter which
+    * overflowed is never decremented again.
+    */
+   static final class CountingBloomFilter {
+      private static final MurmurHash3 HASH = new MurmurHash3();
+      private static final int COUNTERS_PER_WORD = 16;
+      private static final long MAX_COUNT = 0xF;
+
+      private final AtomicLongArray words;
+      private final int numCounters;
+      private final int numHashes;
+
+      CountingBloomFilter(int expectedKeys, double falsePositiveProbability) {
+         if (expectedKeys <= 0)
+            throw new IllegalArgumentException("The expected number of keys must be strictly positive");
+         if (falsePositiveProbability <= 0 || falsePositiveProbability >= 1)
+            throw new IllegalArgumentException("The false positive probability must be between 0 and 1");
+         double ln2 = Math.log(2);
+         long counters = (long) Math.ceil(-expectedKeys * Math.log(falsePositiveProbability) / (ln2 * ln2));
+         numCounters = (int) Math.min(Math.max(counters, COUNTERS_PER_WORD), Integer.MAX_VALUE - COUNTERS_PER_WORD);
+         numHashes = Math.max(1, (int) Math.round((double) numCounters / expectedKeys * ln2));
+         words = new AtomicLongArray((numCounters + COUNTERS_PER_WORD - 1) / COUNTERS_PER_WORD);
+      }
+
+      boolean mightContain(Object key) {
+         int h1 = HASH.hash(key);
+         int h2 = HASH.hash(h1);
+         for (int i = 0; i < numHashes; i++) {
+            if (count(index(h1, h2, i)) == 0) return false;
+         }
+         return true;
+      }
+
+      void add(Object key) {
+         int h1 = HASH.hash(key);
+         int h2 = HASH.hash(h1);
+         for (int i = 0; i < numHashes; i++) update(index(h1, h2, i), 1);
+      }
+
+      void remove(Object key) {
+         int h1 = HASH.hash(key);
+         int h2 = HASH.hash(h1);
+         for (int i = 0; i < numHashes; i++) update(index(h1, h2, i), -1);
+      }
+
+      void clear() {
+         for (int i = 0; i < words.length(); i++) words.set(i, 0);
+      }
+
+      private int index(int h1, int h2, int i) {
+         return ((h1 + i * h2) & Integer.MAX_VALUE) % numCounters;
+      }
+
+      private long count(int index) {
+         int shift = (index % COUNTERS_PER_WORD) * 4;
+         return (words.get(index / COUNTERS_PER_WORD) >>> shift) & MAX_COUNT;
+      }
+
+      private void update(int index, int delta) {
+         int word = index / COUNTERS_PER_WORD;
+         int shift = (index % COUNTERS_PER_WORD) * 4;
+         for (;;) {
+            long current = words.get(word);
+            long count = (current >>> shift) & MAX_COUNT;
+            // a saturated counter no longer knows how many keys it counts
+            if (count == MAX_COUNT || (count == 0 && delta < 0)) return;
+            long updated = (current & ~(MAX_COUNT << shift)) | ((count + delta) << shift);
+            if (words.compareAndSet(word, current, updated)) return;
+         }
+      }
+   }
+}
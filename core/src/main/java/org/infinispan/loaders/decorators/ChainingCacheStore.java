@@ -178,6 +178,16 @@ public void rollback(GlobalTransaction tx) {
       }
    }
 
+   @Override
+   public void applyModifications(List<? extends Modification> modifications) throws CacheLoaderException {
+      loadersAndStoresMutex.readLock().lock();
+      try {
+         for (CacheStore s : stores.keySet()) s.applyModifications(modifications);
+      } finally {
+         loadersAndStoresMutex.readLock().unlock();
+      }
+   }
+
    @Override
    public void prepare(List<? extends Modification> list, GlobalTransaction tx, boolean isOnePhase) throws CacheLoaderException {
       loadersAndStoresMutex.readLock().lock();
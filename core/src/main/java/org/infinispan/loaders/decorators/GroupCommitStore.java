@@ -0,0 +1,229 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.loaders.decorators;
+
+import org.infinispan.loaders.CacheLoaderException;
+import org.infinispan.loaders.CacheStore;
+import org.infinispan.loaders.modifications.Modification;
+import org.infinispan.transaction.xa.GlobalTransaction;
+import org.infinispan.util.concurrent.BatchingFlusher;
+import org.infinispan.util.logging.Log;
+import org.infinispan.util.logging.LogFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A decorator group committing the one phase transactions written to the underlying store: the modifications of
+ * transactions committing concurrently are handed to the store in a single
+ * {@link CacheStore#prepare(java.util.List, GlobalTransaction, boolean)} call, so that a transactional store commits
+ * them all in one transaction of its own.
+ * <p/>
+ * There is no timer: the first transaction finding nobody committing commits whatever is queued, including the
+ * transactions queued while it was busy. Transactions are therefore only grouped under contention, and an idle store
+ * commits them one by one as it would without this decorator. A transaction commits at most
+ * {@value #MAX_GROUPS_PER_TRANSACTION} groups in a row, and then wakes up the transaction at the head of the queue to
+ * take over. If the store fails to commit a group, its transactions
+ * are retried one by one, so that each of them gets its own outcome. Two phase transactions are not affected.
+ * <p/>
+ * It is enabled with the {@link #GROUP_COMMIT} store property, and {@link #GROUP_COMMIT_MAX_TRANSACTIONS} bounds the
+ * number of transactions committed together.
+ *
+ * @since 5.2
+ */
+public class GroupCommitStore extends AbstractDelegatingStore {
+   private static final Log log = LogFactory.getLog(GroupCommitStore.class);
+   private static final boolean trace = log.isTraceEnabled();
+
+   /**
+    * The store property enabling group commit, false by default.
+    */
+   public static final String GROUP_COMMIT = "groupCommit";
+
+   /**
+    * The store property holding the maximum number of transactions committed together, 64 by default.
+    */
+   public static final String GROUP_COMMIT_MAX_TRANSACTIONS = "groupCommitMaxTransactions";
+
+   private static final int MAX_GROUPS_PER_TRANSACTION = 4;
+
+   private final int maxTransactions;
+   private final Queue<PendingCommit> queue = new ConcurrentLinkedQueue<PendingCommit>();
+   private final Flusher flusher = new Flusher();
+   private final AtomicLong groups = new AtomicLong();
+   private final AtomicLong transactions = new AtomicLong();
+
+   public GroupCommitStore(CacheStore delegate, int maxTransactions) {
+      super(delegate);
+      if (maxTransactions < 1)
+         throw new IllegalArgumentException("The maximum number of transactions committed together must be strictly positive");
+      this.maxTransactions = maxTransactions;
+   }
+
+   @Override
+   public void prepare(List<? extends Modification> list, GlobalTransaction tx, boolean isOnePhase) throws CacheLoaderException {
+      if (!isOnePhase) {
+         super.prepare(list, tx, false);
+         return;
+      }
+      PendingCommit commit = new PendingCommit(list, tx);
+      queue.add(commit);
+      flusher.flush();
+      commit.await();
+   }
+
+   /**
+    * @return the average number of transactions committed together
+    */
+   public double getAverageGroupSize() {
+      long numGroups = groups.get();
+      return numGroups == 0 ? 0 : (double) transactions.get() / numGroups;
+   }
+
+   private void commit(List<PendingCommit> group) {
+      groups.incrementAndGet();
+      transactions.addAndGet(group.size());
+      if (group.size() > 1) {
+         int numMods = 0;
+         for (PendingCommit commit : group) numMods += commit.modifications.size();
+         List<Modification> modifications = new ArrayList<Modification>(numMods);
+         for (PendingCommit commit : group) modifications.addAll(commit.modifications);
+         try {
+            // committed as a one phase transaction of the first member of the group
+            super.prepare(modifications, group.get(0).tx, true);
+            for (PendingCommit commit : group) commit.committed();
+            return;
+         } catch (Throwable t) {
+            if (trace) log.tracef(t, "Failed to commit a group of %d transactions, committing them one by one", group.size());
+         }
+      }
+      for (PendingCommit commit : group) {
+         try {
+            super.prepare(commit.modifications, commit.tx, true);
+            commit.committed();
+         } catch (Throwable t) {
+            commit.failed(t);
+         }
+      }
+   }
+
+   private final class Flusher extends BatchingFlusher {
+      Flusher() {
+         super(MAX_GROUPS_PER_TRANSACTION, null);
+      }
+
+      @Override
+      protected boolean hasQueuedWork() {
+         return !queue.isEmpty();
+      }
+
+      @Override
+      protected void flushBatch() {
+         List<PendingCommit> group = new ArrayList<PendingCommit>(Math.min(queue.size(), maxTransactions));
+         PendingCommit commit;
+         while (group.size() < maxTransactions && (commit = queue.poll()) != null) {
+            group.add(commit);
+         }
+         if (!group.isEmpty()) commit(group);
+      }
+
+      @Override
+      protected boolean handOff() {
+         // every queued transaction has a thread waiting for it; if the head was taken in the meantime, whoever took
+         // it checks the queue again once done
+         PendingCommit head = queue.peek();
+         if (head != null) head.promote();
+         return true;
+      }
+   }
+
+   /**
+    * A transaction waiting for its modifications to be committed by whichever thread commits its group, or to be
+    * asked to commit the queued transactions itself.
+    */
+   private final class PendingCommit {
+      final List<? extends Modification> modifications;
+      final GlobalTransaction tx;
+
+      // guarded by this
+      private boolean done;
+      private boolean promoted;
+      private Throwable failure;
+
+      PendingCommit(List<? extends Modification> modifications, GlobalTransaction tx) {
+         this.modifications = modifications;
+         this.tx = tx;
+      }
+
+      synchronized void committed() {
+         done = true;
+         notifyAll();
+      }
+
+      synchronized void failed(Throwable t) {
+         failure = t;
+         done = true;
+         notifyAll();
+      }
+
+      synchronized void promote() {
+         promoted = true;
+         notifyAll();
+      }
+
+      void await() throws CacheLoaderException {
+         // the outcome is only known once the group is committed, even if the waiting thread is interrupted
+         boolean interrupted = false;
+         try {
+            while (true) {
+               synchronized (this) {
+                  while (!done && !promoted) {
+                     try {
+                        wait();
+                     } catch (InterruptedException e) {
+                        interrupted = true;
+                     }
+                  }
+                  if (!promoted) break;
+                  promoted = false;
+               }
+               flusher.flush();
+            }
+         } finally {
+            if (interrupted) Thread.currentThread().interrupt();
+         }
+         Throwable cause;
+         synchronized (this) {
+            cause = failure;
+         }
+         if (cause == null) return;
+         if (cause instanceof CacheLoaderException) throw (CacheLoaderException) cause;
+         if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+         if (cause instanceof Error) throw (Error) cause;
+         throw new CacheLoaderException(cause);
+      }
+   }
+}
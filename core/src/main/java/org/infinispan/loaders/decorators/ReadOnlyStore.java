@@ -82,6 +82,11 @@ public void rollback(GlobalTransaction tx) {
       log.trace("Ignoring transactional rollback call");
    }
 
+   @Override
+   public void applyModifications(List<? extends Modification> modifications) {
+      log.trace("Ignoring batch of modifications");
+   }
+
    @Override
    public void prepare(List<? extends Modification> list, GlobalTransaction tx, boolean isOnePhase) {
       log.trace("Ignoring transactional prepare call");
@@ -164,6 +164,11 @@ public void rollback(GlobalTransaction tx) {
       if (active) super.rollback(tx);
    }
 
+   @Override
+   public void applyModifications(List<? extends Modification> modifications) throws CacheLoaderException {
+      if (active) super.applyModifications(modifications);
+   }
+
    @Override
    public void prepare(List<? extends Modification> list, GlobalTransaction tx, boolean isOnePhase) throws CacheLoaderException {
       if (active) super.prepare(list, tx, isOnePhase);
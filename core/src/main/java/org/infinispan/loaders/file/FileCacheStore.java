@@ -24,6 +24,7 @@
 
 import org.infinispan.Cache;
 import org.infinispan.config.ConfigurationException;
+import org.infinispan.io.ByteBufferInputStream;
 import org.infinispan.io.ExposedByteArrayOutputStream;
 import org.infinispan.loaders.CacheLoaderConfig;
 import org.infinispan.loaders.CacheLoaderException;
@@ -32,6 +33,8 @@
 import org.infinispan.loaders.bucket.BucketBasedCacheStore;
 import org.infinispan.marshall.StreamingMarshaller;
 import org.infinispan.util.Util;
+import org.infinispan.util.concurrent.BoundedConcurrentHashMap;
+import org.infinispan.util.concurrent.BoundedConcurrentHashMap.Eviction;
 import org.infinispan.util.concurrent.ConcurrentMapFactory;
 import org.infinispan.util.logging.Log;
 import org.infinispan.util.logging.LogFactory;
@@ -50,6 +53,7 @@
 import java.io.ObjectOutput;
 import java.io.RandomAccessFile;
 import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
 import java.nio.channels.FileChannel;
 import java.util.Map;
 import java.util.concurrent.ConcurrentMap;
@@ -60,6 +64,13 @@
 /**
  * A filesystem-based implementation of a {@link org.infinispan.loaders.bucket.BucketBasedCacheStore}.  This file store
  * stores stuff in the following format: <tt>/{location}/cache name/bucket_number.bucket</tt>
+ * <p/>
+ * If {@link FileCacheStoreConfig#isMemoryMappedReads()} is enabled, bucket files are mapped in memory the first time
+ * they are read and buckets are unmarshalled straight from the mapping, so that loading a bucket from the page cache
+ * doesn't need any system call or copy. A bucket file is mapped again when its length changes or when the bucket is
+ * updated. Only the {@link #MAX_MAPPED_BUCKETS} most recently read buckets are kept mapped, and buckets read without
+ * holding their lock (e.g. while iterating over all the buckets) are never mapped, because a bucket is only truncated
+ * under its write lock and reading a truncated mapping crashes the reading thread.
  *
  * @author Manik Surtani
  * @author Mircea.Markus@jboss.com
@@ -72,8 +83,16 @@
 public class FileCacheStore extends BucketBasedCacheStore {
 
    static final Log log = LogFactory.getLog(FileCacheStore.class);
+   /**
+    * Maximum number of bucket files kept memory mapped when {@link FileCacheStoreConfig#isMemoryMappedReads()} is
+    * enabled; the least recently read ones are unmapped first.
+    */
+   static final int MAX_MAPPED_BUCKETS = 1024;
    private static final boolean trace = log.isTraceEnabled();
    private int streamBufferSize;
+   private boolean memoryMappedReads;
+   final ConcurrentMap<String, MappedByteBuffer> mappedBuckets =
+         new BoundedConcurrentHashMap<String, MappedByteBuffer>(MAX_MAPPED_BUCKETS, 16, Eviction.LRU);
 
    FileCacheStoreConfig config;
    File root;
@@ -248,7 +267,7 @@ private boolean doPurge(File bucketFile) {
       boolean interrupted = false;
       try {
          lockForReading(bucketKey);
-         Bucket bucket = loadBucket(bucketFile);
+         Bucket bucket = loadBucket(bucketFile, true);
 
          if (bucket != null) {
             if (bucket.removeExpiredEntries()) {
@@ -259,7 +278,7 @@ private boolean doPurge(File bucketFile) {
             // Bucket may be an empty 0-length file
             if (bucketFile.exists() && bucketFile.length() == 0) {
                upgradeLock(bucketKey);
-               fileSync.deleteFile(bucketFile);
+               deleteFile(bucketFile);
                if (bucketFile.exists())
                   log.info("Unable to remove empty file " + bucketFile + " - will try again later.");
             }
@@ -277,7 +296,7 @@ private boolean doPurge(File bucketFile) {
    @Override
    protected Bucket loadBucket(Integer hash) throws CacheLoaderException {
       try {
-         return loadBucket(new File(root, String.valueOf(hash)));
+         return loadBucket(new File(root, String.valueOf(hash)), true);
       } catch (InterruptedException ie) {
          if (log.isDebugEnabled()) {
             log.debug("Interrupted, so stop loading bucket and return null.");
@@ -288,6 +307,14 @@ protected Bucket loadBucket(Integer hash) throws CacheLoaderException {
    }
 
    protected Bucket loadBucket(File bucketFile) throws CacheLoaderException, InterruptedException {
+      return loadBucket(bucketFile, false);
+   }
+
+   /**
+    * @param locked true if the caller holds the bucket's lock, so that the bucket file can't be truncated while it's
+    *               read and it's safe to read it through a memory mapping
+    */
+   private Bucket loadBucket(File bucketFile, boolean locked) throws CacheLoaderException, InterruptedException {
       Bucket bucket = null;
       if (bucketFile.exists()) {
          if (trace) {
@@ -298,12 +325,17 @@ protected Bucket loadBucket(File bucketFile) throws CacheLoaderException, Interr
             // It could happen that the output buffer might not have been
             // flushed, so just in case, flush it to be able to read it.
             fileSync.flush(bucketFile);
-            if (bucketFile.length() == 0) {
+            long length = bucketFile.length();
+            if (length == 0) {
                // short circuit
                return null;
             }
-            is = new FileInputStream(bucketFile);
-            bucket = (Bucket) objectFromInputStreamInReentrantMode(is);
+            if (memoryMappedReads && locked && length <= Integer.MAX_VALUE) {
+               bucket = (Bucket) objectFromMappedFile(bucketFile, length);
+            } else {
+               is = new FileInputStream(bucketFile);
+               bucket = (Bucket) objectFromInputStreamInReentrantMode(is);
+            }
          } catch (InterruptedException ie) {
             throw ie;
          } catch (Exception e) {
@@ -322,6 +354,8 @@ protected Bucket loadBucket(File bucketFile) throws CacheLoaderException, Interr
    @Override
    public void updateBucket(Bucket b) throws CacheLoaderException {
       File f = new File(root, b.getBucketIdAsString());
+      // the file may be recreated with the same length, so the mapping can't be trusted anymore
+      if (memoryMappedReads) mappedBuckets.remove(f.getPath());
       if (f.exists()) {
          if (!purgeFile(f)) {
             log.problemsRemovingFile(f);
@@ -369,6 +403,7 @@ public void start() throws CacheLoaderException {
          throw new ConfigurationException("Directory " + root.getAbsolutePath() + " does not exist and cannot be created!");
       }
       streamBufferSize = config.getStreamBufferSize();
+      memoryMappedReads = config.isMemoryMappedReads();
 
       FileCacheStoreConfig.FsyncMode fsyncMode = config.getFsyncMode();
       switch (fsyncMode) {
@@ -390,6 +425,7 @@ public void start() throws CacheLoaderException {
    public void stop() throws CacheLoaderException {
       super.stop();
       fileSync.stop();
+      mappedBuckets.clear();
    }
 
    public Bucket loadBucketContainingKey(String key) throws CacheLoaderException {
@@ -400,6 +436,7 @@ private void deleteFile(File f) {
       if (trace) {
          log.tracef("Really delete file %s", f);
       }
+      mappedBuckets.remove(f.getPath());
       fileSync.deleteFile(f);
    }
 
@@ -438,6 +475,28 @@ private Object objectFromInputStreamInReentrantMode(InputStream is) throws IOExc
       return o;
    }
 
+   private Object objectFromMappedFile(File bucketFile, long length) throws IOException, ClassNotFoundException, InterruptedException {
+      String path = bucketFile.getPath();
+      MappedByteBuffer mapped = mappedBuckets.get(path);
+      if (mapped == null || mapped.capacity() != length) {
+         // first read, or the bucket has grown or shrunk since it was mapped
+         RandomAccessFile raf = new RandomAccessFile(bucketFile, "r");
+         try {
+            // the mapping stays valid once the file is closed
+            mapped = raf.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, length);
+         } finally {
+            Util.close(raf);
+         }
+         mappedBuckets.put(path, mapped);
+      }
+      ObjectInput unmarshaller = marshaller.startObjectInput(new ByteBufferInputStream(mapped.duplicate()), false);
+      try {
+         return marshaller.objectFromObjectStream(unmarshaller);
+      } finally {
+         marshaller.finishObjectInput(unmarshaller);
+      }
+   }
+
    /**
     * Returns an array of abstract pathnames denoting the files and
     * directories in the directory denoted by the given file abstract pathname
@@ -39,6 +39,8 @@
  *    <li><tt>streamBufferSize</tt> - when writing state to disk, a buffered stream is used.  This
  * parameter allows you to tune the buffer size.  Larger buffers are usually faster but take up more (temporary) memory,
  * resulting in more gc. By default, this is set to <tt>8192</tt>.</li>
+ *    <li><tt>memoryMappedReads</tt> - if true, buckets are unmarshalled straight from memory mapped files instead of
+ * being read into a temporary buffer first.  By default, this is set to <tt>false</tt>.</li>
  *    <li><tt>lockConcurrencyLevel</tt> - locking granularity is per file bucket.  This setting defines the number of
  * shared locks to use.  The more locks you have, the better your concurrency will be, but more locks take up more
  * memory. By default, this is set to <tt>2048</tt>.</li>
@@ -73,6 +75,7 @@ public class FileCacheStoreConfig extends LockSupportCacheStoreConfig {
    
    private String location = "Infinispan-FileCacheStore";
    private int streamBufferSize = 8192;
+   private boolean memoryMappedReads = false;
    private FsyncMode fsyncMode = FsyncMode.DEFAULT;
    private long fsyncInterval = 1000;
 
@@ -116,6 +119,20 @@ public FileCacheStoreConfig streamBufferSize(int streamBufferSize) {
       return this;
    }
 
+   public boolean isMemoryMappedReads() {
+      return memoryMappedReads;
+   }
+
+   public void setMemoryMappedReads(boolean memoryMappedReads) {
+      testImmutability("memoryMappedReads");
+      this.memoryMappedReads = memoryMappedReads;
+   }
+
+   public FileCacheStoreConfig memoryMappedReads(boolean memoryMappedReads) {
+      setMemoryMappedReads(memoryMappedReads);
+      return this;
+   }
+
    // Method overrides below are used to make configuration more fluent.
 
    @Override
@@ -0,0 +1,284 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.loaders.logfile;
+
+import org.infinispan.Cache;
+import org.infinispan.config.ConfigurationException;
+import org.infinispan.container.entries.InternalCacheEntry;
+import org.infinispan.container.entries.InternalCacheValue;
+import org.infinispan.loaders.AbstractCacheStore;
+import org.infinispan.loaders.CacheLoaderConfig;
+import org.infinispan.loaders.CacheLoaderException;
+import org.infinispan.loaders.CacheLoaderMetadata;
+import org.infinispan.marshall.StreamingMarshaller;
+import org.infinispan.util.logging.Log;
+import org.infinispan.util.logging.LogFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A file based {@link org.infinispan.loaders.CacheStore} that appends every modification to a log instead of
+ * rewriting the affected entries in place. Entries are spread over a fixed number of segments, each of them a single
+ * log file: <tt>/{location}/{cache name}/{segment}.log</tt>. See {@link LogSegment} for the record format.
+ * <p/>
+ * Writes are sequential appends and reads are a single positional read, located through an in-memory index of all
+ * the keys in the store. As entries get overwritten, removed or expire, the log files are compacted in the
+ * background once the share of dead data exceeds {@link LogFileCacheStoreConfig#getCompactionThreshold()}. On startup
+ * the index is rebuilt by replaying the logs, discarding any record left incomplete by a crash.
+ * <p/>
+ * Since the index holds every key, this store is meant for data sets whose keys fit in memory.
+ * <p/>
+ * If {@link LogFileCacheStoreConfig#isMemoryMappedReads()} is enabled, values are unmarshalled straight from memory
+ * mapped log files, so that reads of data in the page cache don't cost any system call or copy.
+ *
+ * @since 5.2
+ */
+@CacheLoaderMetadata(configurationClass = LogFileCacheStoreConfig.class)
+public class LogFileCacheStore extends AbstractCacheStore {
+
+   private static final Log log = LogFactory.getLog(LogFileCacheStore.class);
+
+   private LogFileCacheStoreConfig config;
+   private File root;
+   private LogSegment[] segments;
+   private AtomicBoolean[] compactionScheduled;
+   private ExecutorService compactionService;
+
+   @Override
+   public void init(CacheLoaderConfig config, Cache<?, ?> cache, StreamingMarshaller m) throws CacheLoaderException {
+      super.init(config, cache, m);
+      this.config = (LogFileCacheStoreConfig) config;
+   }
+
+   @Override
+   public void start() throws CacheLoaderException {
+      super.start();
+      String location = config.getLocation();
+      if (location == null || location.trim().length() == 0) {
+         location = "Infinispan-LogFileCacheStore"; // use relative path!
+      }
+      location += File.separator + cache.getName();
+      root = new File(location);
+      if (!root.exists() && !root.mkdirs()) {
+         log.problemsCreatingDirectory(root);
+      }
+      if (!root.exists()) {
+         throw new ConfigurationException("Directory " + root.getAbsolutePath() + " does not exist and cannot be created!");
+      }
+      int numSegments = config.getNumSegments();
+      if (numSegments < 1) {
+         throw new ConfigurationException("The number of segments must be strictly positive");
+      }
+
+      segments = new LogSegment[numSegments];
+      compactionScheduled = new AtomicBoolean[numSegments];
+      for (int i = 0; i < numSegments; i++) {
+         segments[i] = new LogSegment(new File(root, i + ".log"), config.isSyncWrites(),
+                                       config.isMemoryMappedReads(), getConcurrencyLevel());
+         segments[i].open(marshaller);
+         compactionScheduled[i] = new AtomicBoolean();
+      }
+
+      final String threadName = (cache == null ? "" : cache.getName() + '-') + getClass().getSimpleName() + "-compactor";
+      compactionService = Executors.newSingleThreadExecutor(new ThreadFactory() {
+         @Override
+         public Thread newThread(Runnable r) {
+            Thread t = new Thread(r, threadName);
+            t.setDaemon(true);
+            return t;
+         }
+      });
+      for (int i = 0; i < numSegments; i++) {
+         scheduleCompactionIfNeeded(i);
+      }
+   }
+
+   @Override
+   public void stop() throws CacheLoaderException {
+      super.stop();
+      compactionService.shutdownNow();
+      for (LogSegment segment : segments) {
+         segment.close();
+      }
+   }
+
+   @Override
+   public Class<? extends CacheLoaderConfig> getConfigurationClass() {
+      return LogFileCacheStoreConfig.class;
+   }
+
+   private int segmentIndex(Object key) {
+      return (key.hashCode() & Integer.MAX_VALUE) % segments.length;
+   }
+
+   @Override
+   public void store(InternalCacheEntry entry) throws CacheLoaderException {
+      Object key = entry.getKey();
+      int segment = segmentIndex(key);
+      segments[segment].store(key, toBytes(key), toBytes(entry.toInternalCacheValue()), entry.getExpiryTime());
+      scheduleCompactionIfNeeded(segment);
+   }
+
+   @Override
+   public boolean remove(Object key) throws CacheLoaderException {
+      int segment = segmentIndex(key);
+      if (!segments[segment].containsKey(key)) return false;
+      boolean removed = segments[segment].remove(key, toBytes(key));
+      if (removed) scheduleCompactionIfNeeded(segment);
+      return removed;
+   }
+
+   @Override
+   public InternalCacheEntry load(Object key) throws CacheLoaderException {
+      InternalCacheValue value = (InternalCacheValue) segments[segmentIndex(key)].load(key, marshaller);
+      if (value == null) return null;
+      if (value.isExpired(System.currentTimeMillis())) return null;
+      return value.toInternalCacheEntry(key);
+   }
+
+   @Override
+   public boolean containsKey(Object key) throws CacheLoaderException {
+      return segments[segmentIndex(key)].containsKey(key);
+   }
+
+   @Override
+   public Set<InternalCacheEntry> loadAll() throws CacheLoaderException {
+      return load(Integer.MAX_VALUE);
+   }
+
+   @Override
+   public Set<InternalCacheEntry> load(int numEntries) throws CacheLoaderException {
+      if (numEntries < 0) return loadAll();
+      Set<InternalCacheEntry> result = new HashSet<InternalCacheEntry>();
+      for (LogSegment segment : segments) {
+         for (Object key : segment.keySet()) {
+            if (result.size() >= numEntries) return result;
+            InternalCacheEntry entry = load(key);
+            if (entry != null) result.add(entry);
+         }
+      }
+      return result;
+   }
+
+   @Override
+   public Set<Object> loadAllKeys(Set<Object> keysToExclude) throws CacheLoaderException {
+      Set<Object> result = new HashSet<Object>();
+      for (LogSegment segment : segments) {
+         for (Object key : segment.keySet()) {
+            if ((keysToExclude == null || !keysToExclude.contains(key)) && segment.containsKey(key)) {
+               result.add(key);
+            }
+         }
+      }
+      return result;
+   }
+
+   @Override
+   public void clear() throws CacheLoaderException {
+      for (LogSegment segment : segments) {
+         segment.clear();
+      }
+   }
+
+   @Override
+   protected void purgeInternal() throws CacheLoaderException {
+      for (int i = 0; i < segments.length; i++) {
+         segments[i].purgeExpired();
+         scheduleCompactionIfNeeded(i);
+      }
+   }
+
+   @Override
+   public void toStream(ObjectOutput outputStream) throws CacheLoaderException {
+      try {
+         for (InternalCacheEntry entry : loadAll()) {
+            marshaller.objectToObjectStream(entry, outputStream);
+         }
+         marshaller.objectToObjectStream(null, outputStream);
+      } catch (IOException e) {
+         throw new CacheLoaderException("I/O exception while generating stream", e);
+      }
+   }
+
+   @Override
+   public void fromStream(ObjectInput inputStream) throws CacheLoaderException {
+      try {
+         while (true) {
+            InternalCacheEntry entry = (InternalCacheEntry) marshaller.objectFromObjectStream(inputStream);
+            if (entry == null) break;
+            store(entry);
+         }
+      } catch (IOException e) {
+         throw new CacheLoaderException("I/O error", e);
+      } catch (ClassNotFoundException e) {
+         throw new CacheLoaderException("Unexpected exception", e);
+      } catch (InterruptedException ie) {
+         if (log.isTraceEnabled()) log.trace("Interrupted while reading from stream");
+         Thread.currentThread().interrupt();
+      }
+   }
+
+   private void scheduleCompactionIfNeeded(final int segment) {
+      if (!segments[segment].needsCompaction(config.getCompactionThreshold())
+            || !compactionScheduled[segment].compareAndSet(false, true)) return;
+      compactionService.execute(new Runnable() {
+         @Override
+         public void run() {
+            try {
+               segments[segment].compact();
+            } catch (Throwable t) {
+               log.problemsCompactingLogFile(segments[segment].getFile(), t);
+            } finally {
+               compactionScheduled[segment].set(false);
+            }
+         }
+      });
+   }
+
+   private byte[] toBytes(Object o) throws CacheLoaderException {
+      try {
+         return marshaller.objectToByteBuffer(o);
+      } catch (IOException e) {
+         throw new CacheLoaderException("Unable to marshall " + o, e);
+      } catch (InterruptedException e) {
+         Thread.currentThread().interrupt();
+         throw new CacheLoaderException("Interrupted while marshalling " + o, e);
+      }
+   }
+
+   /**
+    * @return root directory where the log files of this store are written
+    */
+   public File getRoot() {
+      return root;
+   }
+}
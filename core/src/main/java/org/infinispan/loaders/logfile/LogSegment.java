@@ -0,0 +1,472 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.loaders.logfile;
+
+import org.infinispan.io.ByteBufferInputStream;
+import org.infinispan.loaders.CacheLoaderException;
+import org.infinispan.marshall.StreamingMarshaller;
+import org.infinispan.util.Util;
+import org.infinispan.util.concurrent.ConcurrentMapFactory;
+import org.infinispan.util.logging.Log;
+import org.infinispan.util.logging.LogFactory;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.zip.CRC32;
+
+/**
+ * One append-only log file of a {@link LogFileCacheStore}, together with the in-memory index of the live records it
+ * contains.
+ * <p/>
+ * Every modification appends a record to the end of the file:
+ * <pre>
+ *    int keyLength | int valueLength | byte type | long expiryTime | int checksum | key | value
+ * </pre>
+ * where the key is the marshalled cache key, the value the marshalled {@link
+ * org.infinispan.container.entries.InternalCacheValue} (empty for removals) and the checksum a CRC32 of the key and
+ * value. The index maps each key to the location of its latest record, so reads cost a single positional read.
+ * Records superseded by later ones are accounted for as dead bytes and dropped when the segment is compacted.
+ * <p/>
+ * The index is rebuilt on startup by replaying the file. A record that was only partially written, or whose
+ * checksum does not match, marks the end of the usable log: it is discarded together with whatever follows it.
+ * <p/>
+ * With memory mapped reads, values are unmarshalled straight from a read-only mapping of the file instead of being
+ * read into a buffer first. The mapping covers the file as it was when it was created, and it is recreated with the
+ * current size of the file whenever a read falls beyond it. Values are unmarshalled while holding the read lock, so
+ * that a clear or a compaction can't change the file under a mapping which is being read.
+ *
+ * @since 5.2
+ */
+class LogSegment {
+
+   private static final Log log = LogFactory.getLog(LogSegment.class);
+   private static final boolean trace = log.isTraceEnabled();
+
+   static final byte STORE = 1;
+   static final byte REMOVE = 2;
+   static final int HEADER_SIZE = 4 + 4 + 1 + 8 + 4;
+
+   private final File file;
+   private final boolean syncWrites;
+   private final boolean memoryMappedReads;
+   private final ConcurrentMap<Object, Location> index;
+   private final ReadWriteLock lock = new ReentrantReadWriteLock();
+   private RandomAccessFile raf;
+   private volatile FileChannel channel;
+   private long size;
+   private long deadBytes;
+   private volatile MappedByteBuffer mapped;
+
+   LogSegment(File file, boolean syncWrites, boolean memoryMappedReads, int concurrencyLevel) {
+      this.file = file;
+      this.syncWrites = syncWrites;
+      this.memoryMappedReads = memoryMappedReads;
+      this.index = ConcurrentMapFactory.makeConcurrentMap(64, concurrencyLevel);
+   }
+
+   /**
+    * Opens the log file, creating it if needed, and rebuilds the index by replaying it.
+    */
+   void open(StreamingMarshaller marshaller) throws CacheLoaderException {
+      lock.writeLock().lock();
+      try {
+         // a compaction interrupted by a crash leaves its incomplete output behind, the original log is still intact
+         File compacted = compactionFile();
+         if (compacted.exists() && !compacted.delete()) {
+            throw new CacheLoaderException("Unable to delete incomplete compaction file " + compacted);
+         }
+         if (file.exists()) replay(marshaller);
+         raf = new RandomAccessFile(file, "rw");
+         channel = raf.getChannel();
+         if (raf.length() > size) {
+            log.truncatingCorruptLogFile(file, size, raf.length() - size);
+            channel.truncate(size);
+         }
+      } catch (IOException e) {
+         throw new CacheLoaderException("Unable to open log file " + file, e);
+      } finally {
+         lock.writeLock().unlock();
+      }
+   }
+
+   private void replay(StreamingMarshaller marshaller) throws IOException, CacheLoaderException {
+      DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+      long fileLength = file.length();
+      CRC32 crc = new CRC32();
+      try {
+         while (size + HEADER_SIZE <= fileLength) {
+            int keyLength = in.readInt();
+            int valueLength = in.readInt();
+            byte type = in.readByte();
+            long expiryTime = in.readLong();
+            int checksum = in.readInt();
+            if (keyLength <= 0 || valueLength < 0 || (type != STORE && type != REMOVE)
+                  || size + HEADER_SIZE + keyLength + valueLength > fileLength) break;
+            byte[] keyBytes = new byte[keyLength];
+            in.readFully(keyBytes);
+            byte[] valueBytes = new byte[valueLength];
+            in.readFully(valueBytes);
+            crc.reset();
+            crc.update(keyBytes);
+            crc.update(valueBytes);
+            if ((int) crc.getValue() != checksum) break;
+
+            Object key = unmarshall(marshaller, ByteBuffer.wrap(keyBytes));
+            Location location = new Location(size, keyLength, valueLength, expiryTime);
+            long recordLength = location.recordLength();
+            Location previous;
+            if (type == STORE && !location.isExpired(System.currentTimeMillis())) {
+               previous = index.put(key, location);
+            } else {
+               previous = index.remove(key);
+               deadBytes += recordLength;
+            }
+            if (previous != null) deadBytes += previous.recordLength();
+            size += recordLength;
+         }
+      } catch (EOFException e) {
+         // the file ended in the middle of a record
+      } finally {
+         Util.close(in);
+      }
+      if (trace) log.tracef("Replayed %s: %d live keys, %d bytes of which %d are dead", file, index.size(), size, deadBytes);
+   }
+
+   private Object unmarshall(StreamingMarshaller marshaller, ByteBuffer buffer) throws CacheLoaderException {
+      try {
+         ObjectInput in = marshaller.startObjectInput(new ByteBufferInputStream(buffer), false);
+         try {
+            return marshaller.objectFromObjectStream(in);
+         } finally {
+            marshaller.finishObjectInput(in);
+         }
+      } catch (IOException e) {
+         throw new CacheLoaderException("Unable to unmarshall from " + file, e);
+      } catch (ClassNotFoundException e) {
+         throw new CacheLoaderException("Unable to unmarshall from " + file, e);
+      } catch (InterruptedException e) {
+         Thread.currentThread().interrupt();
+         throw new CacheLoaderException("Interrupted while unmarshalling from " + file, e);
+      }
+   }
+
+   /**
+    * Appends a record storing the given value.
+    */
+   void store(Object key, byte[] keyBytes, byte[] valueBytes, long expiryTime) throws CacheLoaderException {
+      lock.writeLock().lock();
+      try {
+         Location location = append(STORE, keyBytes, valueBytes, expiryTime);
+         Location previous = index.put(key, location);
+         if (previous != null) deadBytes += previous.recordLength();
+      } finally {
+         lock.writeLock().unlock();
+      }
+   }
+
+   /**
+    * Appends a removal record if the key is present in this segment.
+    *
+    * @return true if the key was present
+    */
+   boolean remove(Object key, byte[] keyBytes) throws CacheLoaderException {
+      lock.writeLock().lock();
+      try {
+         Location previous = index.remove(key);
+         if (previous == null) return false;
+         Location tombstone = append(REMOVE, keyBytes, new byte[0], -1);
+         deadBytes += previous.recordLength() + tombstone.recordLength();
+         return true;
+      } finally {
+         lock.writeLock().unlock();
+      }
+   }
+
+   private Location append(byte type, byte[] keyBytes, byte[] valueBytes, long expiryTime) throws CacheLoaderException {
+      CRC32 crc = new CRC32();
+      crc.update(keyBytes);
+      crc.update(valueBytes);
+      ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + keyBytes.length + valueBytes.length);
+      buffer.putInt(keyBytes.length).putInt(valueBytes.length).put(type).putLong(expiryTime).putInt((int) crc.getValue());
+      buffer.put(keyBytes).put(valueBytes);
+      buffer.flip();
+      Location location = new Location(size, keyBytes.length, valueBytes.length, expiryTime);
+      try {
+         long position = size;
+         while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+         }
+         if (syncWrites) channel.force(false);
+      } catch (IOException e) {
+         throw new CacheLoaderException("Unable to append to log file " + file, e);
+      }
+      size += buffer.limit();
+      return location;
+   }
+
+   /**
+    * Reads and unmarshalls the value stored under the key.
+    *
+    * @return the value, or <code>null</code> if the key is not present or has expired
+    */
+   Object load(Object key, StreamingMarshaller marshaller) throws CacheLoaderException {
+      lock.readLock().lock();
+      try {
+         Location location = index.get(key);
+         if (location == null || location.isExpired(System.currentTimeMillis())) return null;
+         ByteBuffer mappedValue = memoryMappedReads ? mappedValue(location) : null;
+         if (mappedValue != null) return unmarshall(marshaller, mappedValue);
+         return unmarshall(marshaller, ByteBuffer.wrap(readValue(location)));
+      } finally {
+         lock.readLock().unlock();
+      }
+   }
+
+   /**
+    * @return a view of the mapped file restricted to the value, or <code>null</code> if the file is too big to be
+    *         mapped in one piece
+    */
+   private ByteBuffer mappedValue(Location location) throws CacheLoaderException {
+      long start = location.valueOffset();
+      long end = start + location.valueLength;
+      MappedByteBuffer region = mapped;
+      if (region == null || end > region.capacity()) {
+         region = remap(end);
+         if (region == null) return null;
+      }
+      ByteBuffer value = region.duplicate();
+      value.limit((int) end);
+      value.position((int) start);
+      return value;
+   }
+
+   private synchronized MappedByteBuffer remap(long end) throws CacheLoaderException {
+      MappedByteBuffer region = mapped;
+      if (region != null && end <= region.capacity()) return region;
+      // the size can't change while the read lock is held
+      if (size > Integer.MAX_VALUE) return null;
+      try {
+         region = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+      } catch (IOException e) {
+         throw new CacheLoaderException("Unable to map log file " + file, e);
+      }
+      if (trace) log.tracef("Mapped %d bytes of %s", size, file);
+      mapped = region;
+      return region;
+   }
+
+   private byte[] readValue(Location location) throws CacheLoaderException {
+      ByteBuffer buffer = ByteBuffer.allocate(location.valueLength);
+      long position = location.valueOffset();
+      try {
+         while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position + buffer.position());
+            if (read < 0) throw new EOFException("Unexpected end of log file " + file);
+         }
+      } catch (IOException e) {
+         throw new CacheLoaderException("Unable to read from log file " + file, e);
+      }
+      return buffer.array();
+   }
+
+   boolean containsKey(Object key) {
+      Location location = index.get(key);
+      return location != null && !location.isExpired(System.currentTimeMillis());
+   }
+
+   /**
+    * @return a live view of the keys in this segment, including the expired ones which have not been purged yet
+    */
+   Set<Object> keySet() {
+      return index.keySet();
+   }
+
+   /**
+    * Drops the expired keys from the index. No record needs to be appended: replaying the log ignores the expired
+    * records as well.
+    */
+   void purgeExpired() {
+      lock.writeLock().lock();
+      try {
+         long now = System.currentTimeMillis();
+         for (Iterator<Map.Entry<Object, Location>> it = index.entrySet().iterator(); it.hasNext(); ) {
+            Location location = it.next().getValue();
+            if (location.isExpired(now)) {
+               it.remove();
+               deadBytes += location.recordLength();
+            }
+         }
+      } finally {
+         lock.writeLock().unlock();
+      }
+   }
+
+   void clear() throws CacheLoaderException {
+      lock.writeLock().lock();
+      try {
+         mapped = null;
+         channel.truncate(0);
+         if (syncWrites) channel.force(true);
+         index.clear();
+         size = 0;
+         deadBytes = 0;
+      } catch (IOException e) {
+         throw new CacheLoaderException("Unable to clear log file " + file, e);
+      } finally {
+         lock.writeLock().unlock();
+      }
+   }
+
+   /**
+    * @return true if the share of dead bytes in the file exceeds the threshold
+    */
+   boolean needsCompaction(double threshold) {
+      lock.readLock().lock();
+      try {
+         return size > 0 && deadBytes > size * threshold;
+      } finally {
+         lock.readLock().unlock();
+      }
+   }
+
+   /**
+    * Rewrites the live records to a new file, which then atomically replaces the current one. Records are copied as
+    * they are, so they don't need to be unmarshalled. Writes to this segment are blocked during the compaction.
+    */
+   void compact() throws CacheLoaderException {
+      lock.writeLock().lock();
+      try {
+         long startSize = size;
+         File compacted = compactionFile();
+         RandomAccessFile compactedRaf = new RandomAccessFile(compacted, "rw");
+         FileChannel compactedChannel = compactedRaf.getChannel();
+         long newSize = 0;
+         long now = System.currentTimeMillis();
+         try {
+            compactedChannel.truncate(0);
+            for (Iterator<Map.Entry<Object, Location>> it = index.entrySet().iterator(); it.hasNext(); ) {
+               Map.Entry<Object, Location> entry = it.next();
+               Location location = entry.getValue();
+               if (location.isExpired(now)) {
+                  it.remove();
+                  continue;
+               }
+               long length = location.recordLength();
+               long copied = 0;
+               while (copied < length) {
+                  copied += channel.transferTo(location.offset + copied, length - copied, compactedChannel);
+               }
+               index.put(entry.getKey(), location.movedTo(newSize));
+               newSize += length;
+            }
+            compactedChannel.force(true);
+         } finally {
+            Util.close(compactedRaf);
+         }
+         Util.close(raf);
+         // the previous mapping stays valid until it is garbage collected, but it's not used anymore
+         mapped = null;
+         if (!compacted.renameTo(file)) {
+            // some platforms can't rename over an existing file
+            if (!file.delete() || !compacted.renameTo(file)) {
+               throw new CacheLoaderException("Unable to replace " + file + " with its compacted version");
+            }
+         }
+         raf = new RandomAccessFile(file, "rw");
+         channel = raf.getChannel();
+         size = newSize;
+         deadBytes = 0;
+         if (trace) log.tracef("Compacted %s from %d to %d bytes", file, startSize, newSize);
+      } catch (IOException e) {
+         throw new CacheLoaderException("Unable to compact log file " + file, e);
+      } finally {
+         lock.writeLock().unlock();
+      }
+   }
+
+   void close() {
+      lock.writeLock().lock();
+      try {
+         mapped = null;
+         if (raf != null) Util.close(raf);
+      } finally {
+         lock.writeLock().unlock();
+      }
+   }
+
+   File getFile() {
+      return file;
+   }
+
+   private File compactionFile() {
+      return new File(file.getPath() + ".compact");
+   }
+
+   /**
+    * Location of the latest record of a key.
+    */
+   static final class Location {
+      final long offset;
+      final int keyLength;
+      final int valueLength;
+      final long expiryTime;
+
+      Location(long offset, int keyLength, int valueLength, long expiryTime) {
+         this.offset = offset;
+         this.keyLength = keyLength;
+         this.valueLength = valueLength;
+         this.expiryTime = expiryTime;
+      }
+
+      long recordLength() {
+         return HEADER_SIZE + keyLength + valueLength;
+      }
+
+      long valueOffset() {
+         return offset + HEADER_SIZE + keyLength;
+      }
+
+      boolean isExpired(long now) {
+         return expiryTime > 0 && expiryTime < now;
+      }
+
+      Location movedTo(long newOffset) {
+         return new Location(newOffset, keyLength, valueLength, expiryTime);
+      }
+   }
+}
@@ -26,10 +26,8 @@
 import org.infinispan.factories.KnownComponentNames;
 import org.infinispan.factories.annotations.ComponentName;
 import org.infinispan.factories.annotations.Inject;
-import org.infinispan.factories.annotations.Start;
 import org.infinispan.factories.annotations.Stop;
 import org.infinispan.util.ReflectionUtil;
-import org.infinispan.util.concurrent.WithinThreadExecutor;
 import org.infinispan.util.logging.Log;
 
 import java.lang.annotation.Annotation;
@@ -46,7 +44,10 @@
 
 /**
  * Functionality common to both {@link org.infinispan.notifications.cachemanagerlistener.CacheManagerNotifierImpl} and
- * {@link org.infinispan.notifications.cachelistener.CacheNotifierImpl}
+ * {@link org.infinispan.notifications.cachelistener.CacheNotifierImpl}.
+ * <p/>
+ * Synchronous listeners are invoked directly in the thread raising the event, and their exceptions are propagated to
+ * it. Asynchronous listeners are invoked by the async notification executor.
  *
  * @author Manik Surtani
  */
@@ -55,8 +56,7 @@ public abstract class AbstractListenerImpl {
    protected final Map<Class<? extends Annotation>, List<ListenerInvocation>> listenersMap = new HashMap<Class<? extends Annotation>, List<ListenerInvocation>>(16, 0.99f);
 
 
-   // two separate executor services, one for sync and one for async listeners
-   protected ExecutorService syncProcessor;
+   // sync listeners are invoked in the caller's thread, async ones by this executor
    protected ExecutorService asyncProcessor;
 
 
@@ -65,11 +65,6 @@ void injectExecutor(@ComponentName(KnownComponentNames.ASYNC_NOTIFICATION_EXECUT
       this.asyncProcessor = executor;
    }
 
-   @Start (priority = 9)
-   public void start() {
-      syncProcessor = new WithinThreadExecutor();
-   }
-
    /**
     * Removes all listeners from the notifier
     */
@@ -78,8 +73,6 @@ void stop() {
       for (List<ListenerInvocation> list : listenersMap.values()) {
          if (list != null) list.clear();
       }
-
-      if (syncProcessor != null) syncProcessor.shutdownNow();
    }
 
    protected abstract Log getLog();
@@ -108,7 +101,16 @@ private void removeListenerInvocation(Class<? extends Annotation> annotation, Ob
    }
 
    public void addListener(Object listener) {
-      validateAndAddListenerInvocation(listener);
+      validateAndAddListenerInvocation(listener, null);
+   }
+
+   /**
+    * Adds a listener that is only notified of events about the keys accepted by the filter.
+    *
+    * @param filter filter for the keys of the events, null to accept all keys
+    */
+   public void addListener(Object listener, KeyFilter filter) {
+      validateAndAddListenerInvocation(listener, filter);
    }
 
    public Set<Object> getListeners() {
@@ -124,9 +126,10 @@ public Set<Object> getListeners() {
     * ListenerInvocation} for invocation by reflection.
     *
     * @param listener object to be considered as a listener.
+    * @param filter filter for the keys of the events, or null
     */
    @SuppressWarnings("unchecked")
-   private void validateAndAddListenerInvocation(Object listener) {
+   private void validateAndAddListenerInvocation(Object listener, KeyFilter filter) {
       boolean sync = testListenerClassValidity(listener.getClass());
       boolean foundMethods = false;
       Map<Class<? extends Annotation>, Class<?>> allowedListeners = getAllowedMethodAnnotations();
@@ -138,7 +141,7 @@ private void validateAndAddListenerInvocation(Object listener) {
             Class<?> value = annotationEntry.getValue();
             if (m.isAnnotationPresent(key)) {
                testListenerMethodValidity(m, value, key.getName());
-               addListenerInvocation(key, new ListenerInvocation(listener, m, sync));
+               addListenerInvocation(key, new ListenerInvocation(listener, m, sync, filter));
                foundMethods = true;
             }
          }
@@ -158,7 +161,8 @@ private void addListenerInvocation(Class<? extends Annotation> annotation, Liste
     * invoked synchronously or asynchronously.
     *
     * @param listenerClass class to inspect
-    * @return true if callbacks on this class should use the syncProcessor; false if it should use the asyncProcessor.
+    * @return true if callbacks on this class should be invoked in the caller's thread; false if they should be handed
+    *         to the asyncProcessor.
     */
    protected static boolean testListenerClassValidity(Class<?> listenerClass) {
       Listener l = ReflectionUtil.getAnnotation(listenerClass, Listener.class);
@@ -184,43 +188,65 @@ protected class ListenerInvocation {
       public final Object target;
       public final Method method;
       public final boolean sync;
+      public final KeyFilter filter;
 
       public ListenerInvocation(Object target, Method method, boolean sync) {
+         this(target, method, sync, null);
+      }
+
+      public ListenerInvocation(Object target, Method method, boolean sync, KeyFilter filter) {
          this.target = target;
          this.method = method;
          this.sync = sync;
+         this.filter = filter;
+         try {
+            // Skip the access checks on every invocation, the method is known to be public
+            method.setAccessible(true);
+         } catch (SecurityException e) {
+            getLog().tracef("Unable to suppress access checks for listener method %s", method);
+         }
       }
 
-      public void invoke(final Object event) {
-         Runnable r = new Runnable() {
+      /**
+       * @return true if the listener wants to be notified of an event about the given key
+       */
+      public boolean accept(Object key) {
+         return filter == null || filter.accept(key);
+      }
 
-            @Override
-            public void run() {
-               try {
-                  method.invoke(target, event);
-               }
-               catch (InvocationTargetException exception) {
-                  Throwable cause = getRealException(exception);
-                  if (sync) {
-                     throw new CacheException(String.format(
-                        "Caught exception [%s] while invoking method [%s] on listener instance: %s"
-                        , cause.getClass().getName(), method, target
-                     ), cause);
-                  } else {
-                     getLog().unableToInvokeListenerMethod(method, target, cause);
-                  }
-               }
-               catch (IllegalAccessException exception) {
-                  getLog().unableToInvokeListenerMethod(method, target, exception);
-                  removeListener(target);
+      public void invoke(final Object event) {
+         if (sync) {
+            // Sync listeners run in the caller's thread, no need to wrap the call in a task
+            invokeMethod(event);
+         } else {
+            asyncProcessor.execute(new Runnable() {
+               @Override
+               public void run() {
+                  invokeMethod(event);
                }
-            }
-         };
+            });
+         }
+      }
 
-         if (sync)
-            syncProcessor.execute(r);
-         else
-            asyncProcessor.execute(r);
+      private void invokeMethod(Object event) {
+         try {
+            method.invoke(target, event);
+         }
+         catch (InvocationTargetException exception) {
+            Throwable cause = getRealException(exception);
+            if (sync) {
+               throw new CacheException(String.format(
+                  "Caught exception [%s] while invoking method [%s] on listener instance: %s"
+                  , cause.getClass().getName(), method, target
+               ), cause);
+            } else {
+               getLog().unableToInvokeListenerMethod(method, target, cause);
+            }
+         }
+         catch (IllegalAccessException exception) {
+            getLog().unableToInvokeListenerMethod(method, target, exception);
+            removeListener(target);
+         }
       }
    }
 
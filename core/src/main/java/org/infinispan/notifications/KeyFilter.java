@@ -0,0 +1,43 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.notifications;
+
+/**
+ * Restricts the events a cache listener receives to those about the keys it accepts. The filter is evaluated before
+ * the event is built, so events that no listener is interested in are never created.
+ * <p/>
+ * Filters only apply to events about a single key, such as entry creation, modification, removal, visit,
+ * activation, passivation, loading, invalidation or the eviction of a single entry. Other events are delivered
+ * regardless of the filter.
+ *
+ * @see org.infinispan.AdvancedCache#addListener(Object, KeyFilter)
+ * @since 5.2
+ */
+public interface KeyFilter {
+
+   /**
+    * @param key the key the event is about
+    * @return true if the listener should be notified of events about this key
+    */
+   boolean accept(Object key);
+}
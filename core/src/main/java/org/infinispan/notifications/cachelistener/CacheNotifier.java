@@ -27,6 +27,7 @@
 import org.infinispan.distribution.ch.ConsistentHash;
 import org.infinispan.factories.scopes.Scope;
 import org.infinispan.factories.scopes.Scopes;
+import org.infinispan.notifications.KeyFilter;
 import org.infinispan.notifications.Listenable;
 import org.infinispan.remoting.transport.Address;
 import org.infinispan.transaction.xa.GlobalTransaction;
@@ -41,6 +42,14 @@
  */
 @Scope(Scopes.NAMED_CACHE)
 public interface CacheNotifier extends Listenable {
+
+   /**
+    * Adds a listener only notified of the events about the keys accepted by the filter.
+    *
+    * @see org.infinispan.AdvancedCache#addListener(Object, KeyFilter)
+    */
+   void addListener(Object listener, KeyFilter filter);
+
    /**
     * Notifies all registered listeners of a CacheEntryCreated event.
     */
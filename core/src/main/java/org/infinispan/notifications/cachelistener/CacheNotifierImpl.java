@@ -137,53 +137,78 @@ protected Map<Class<? extends Annotation>, Class<?>> getAllowedMethodAnnotations
    @Override
    public void notifyCacheEntryCreated(Object key, boolean pre, InvocationContext ctx) {
       if (!cacheEntryCreatedListeners.isEmpty()) {
-         boolean originLocal = ctx.isOriginLocal();
-         EventImpl<Object, Object> e = EventImpl.createEvent(cache, CACHE_ENTRY_CREATED);
-         e.setOriginLocal(originLocal);
-         e.setPre(pre);
-         e.setKey(key);
-         setTx(ctx, e);
-         for (ListenerInvocation listener : cacheEntryCreatedListeners) listener.invoke(e);
+         EventImpl<Object, Object> e = null;
+         for (ListenerInvocation listener : cacheEntryCreatedListeners) {
+            // Only build the event once a listener turns out to be interested in the key
+            if (!listener.accept(key)) continue;
+            if (e == null) {
+               boolean originLocal = ctx.isOriginLocal();
+               e = EventImpl.createEvent(cache, CACHE_ENTRY_CREATED);
+               e.setOriginLocal(originLocal);
+               e.setPre(pre);
+               e.setKey(key);
+               setTx(ctx, e);
+            }
+            listener.invoke(e);
+         }
       }
    }
 
    @Override
    public void notifyCacheEntryModified(Object key, Object value, boolean pre, InvocationContext ctx) {
       if (!cacheEntryModifiedListeners.isEmpty()) {
-         boolean originLocal = ctx.isOriginLocal();
-         EventImpl<Object, Object> e = EventImpl.createEvent(cache, CACHE_ENTRY_MODIFIED);
-         e.setOriginLocal(originLocal);
-         e.setValue(value);
-         e.setPre(pre);
-         e.setKey(key);
-         setTx(ctx, e);
-         for (ListenerInvocation listener : cacheEntryModifiedListeners) listener.invoke(e);
+         EventImpl<Object, Object> e = null;
+         for (ListenerInvocation listener : cacheEntryModifiedListeners) {
+            if (!listener.accept(key)) continue;
+            if (e == null) {
+               boolean originLocal = ctx.isOriginLocal();
+               e = EventImpl.createEvent(cache, CACHE_ENTRY_MODIFIED);
+               e.setOriginLocal(originLocal);
+               e.setValue(value);
+               e.setPre(pre);
+               e.setKey(key);
+               setTx(ctx, e);
+            }
+            listener.invoke(e);
+         }
       }
    }
 
    @Override
    public void notifyCacheEntryRemoved(Object key, Object value, boolean pre, InvocationContext ctx) {
       if (!cacheEntryRemovedListeners.isEmpty()) {
-         boolean originLocal = ctx.isOriginLocal();
-         EventImpl<Object, Object> e = EventImpl.createEvent(cache, CACHE_ENTRY_REMOVED);
-         e.setOriginLocal(originLocal);
-         e.setValue(value);
-         e.setPre(pre);
-         e.setKey(key);
-         setTx(ctx, e);
-         for (ListenerInvocation listener : cacheEntryRemovedListeners) listener.invoke(e);
+         EventImpl<Object, Object> e = null;
+         for (ListenerInvocation listener : cacheEntryRemovedListeners) {
+            if (!listener.accept(key)) continue;
+            if (e == null) {
+               boolean originLocal = ctx.isOriginLocal();
+               e = EventImpl.createEvent(cache, CACHE_ENTRY_REMOVED);
+               e.setOriginLocal(originLocal);
+               e.setValue(value);
+               e.setPre(pre);
+               e.setKey(key);
+               setTx(ctx, e);
+            }
+            listener.invoke(e);
+         }
       }
    }
 
    @Override
    public void notifyCacheEntryVisited(Object key, Object value, boolean pre, InvocationContext ctx) {
       if (!cacheEntryVisitedListeners.isEmpty()) {
-         EventImpl<Object, Object> e = EventImpl.createEvent(cache, CACHE_ENTRY_VISITED);
-         e.setPre(pre);
-         e.setKey(key);
-         e.setValue(value);
-         setTx(ctx, e);
-         for (ListenerInvocation listener : cacheEntryVisitedListeners) listener.invoke(e);
+         EventImpl<Object, Object> e = null;
+         for (ListenerInvocation listener : cacheEntryVisitedListeners) {
+            if (!listener.accept(key)) continue;
+            if (e == null) {
+               e = EventImpl.createEvent(cache, CACHE_ENTRY_VISITED);
+               e.setPre(pre);
+               e.setKey(key);
+               e.setValue(value);
+               setTx(ctx, e);
+            }
+            listener.invoke(e);
+         }
       }
    }
 
@@ -224,10 +249,7 @@ public Object setValue(Object value) {
          // For backward compat
          if (!cacheEntryEvictedListeners.isEmpty()) {
             for (InternalCacheEntry ice : entries) {
-               EventImpl<Object, Object> e = EventImpl.createEvent(cache, CACHE_ENTRY_EVICTED);
-               e.setKey(ice.getKey());
-               e.setValue(ice.getValue());
-               for (ListenerInvocation listener : cacheEntryEvictedListeners) listener.invoke(e);
+               notifyCacheEntryEvicted(ice.getKey(), ice.getValue());
             }
          }
       }
@@ -243,52 +265,80 @@ public void notifyCacheEntryEvicted(Object key, Object value, InvocationContext
 
       // For backward compat
       if (!cacheEntryEvictedListeners.isEmpty()) {
-         EventImpl<Object, Object> e = EventImpl.createEvent(cache, CACHE_ENTRY_EVICTED);
-         e.setKey(key);
-         e.setValue(value);
-         for (ListenerInvocation listener : cacheEntryEvictedListeners) listener.invoke(e);
+         notifyCacheEntryEvicted(key, value);
+      }
+   }
+
+   private void notifyCacheEntryEvicted(Object key, Object value) {
+      EventImpl<Object, Object> e = null;
+      for (ListenerInvocation listener : cacheEntryEvictedListeners) {
+         if (!listener.accept(key)) continue;
+         if (e == null) {
+            e = EventImpl.createEvent(cache, CACHE_ENTRY_EVICTED);
+            e.setKey(key);
+            e.setValue(value);
+         }
+         listener.invoke(e);
       }
    }
 
    @Override
    public void notifyCacheEntryInvalidated(final Object key, Object value, final boolean pre, InvocationContext ctx) {
       if (!cacheEntryInvalidatedListeners.isEmpty()) {
-         final boolean originLocal = ctx.isOriginLocal();
-         EventImpl<Object, Object> e = EventImpl.createEvent(cache, CACHE_ENTRY_INVALIDATED);
-         e.setOriginLocal(originLocal);
-         e.setPre(pre);
-         e.setKey(key);
-         e.setValue(value);
-         setTx(ctx, e);
-         for (ListenerInvocation listener : cacheEntryInvalidatedListeners) listener.invoke(e);
+         EventImpl<Object, Object> e = null;
+         for (ListenerInvocation listener : cacheEntryInvalidatedListeners) {
+            if (!listener.accept(key)) continue;
+            if (e == null) {
+               final boolean originLocal = ctx.isOriginLocal();
+               e = EventImpl.createEvent(cache, CACHE_ENTRY_INVALIDATED);
+               e.setOriginLocal(originLocal);
+               e.setPre(pre);
+               e.setKey(key);
+               e.setValue(value);
+               setTx(ctx, e);
+            }
+            listener.invoke(e);
+         }
       }
    }
 
    @Override
    public void notifyCacheEntryLoaded(Object key, Object value, boolean pre, InvocationContext ctx) {
       if (!cacheEntryLoadedListeners.isEmpty()) {
-         boolean originLocal = ctx.isOriginLocal();
-         EventImpl<Object, Object> e = EventImpl.createEvent(cache, CACHE_ENTRY_LOADED);
-         e.setOriginLocal(originLocal);
-         e.setPre(pre);
-         e.setKey(key);
-         e.setValue(value);
-         setTx(ctx, e);
-         for (ListenerInvocation listener : cacheEntryLoadedListeners) listener.invoke(e);
+         EventImpl<Object, Object> e = null;
+         for (ListenerInvocation listener : cacheEntryLoadedListeners) {
+            if (!listener.accept(key)) continue;
+            if (e == null) {
+               boolean originLocal = ctx.isOriginLocal();
+               e = EventImpl.createEvent(cache, CACHE_ENTRY_LOADED);
+               e.setOriginLocal(originLocal);
+               e.setPre(pre);
+               e.setKey(key);
+               e.setValue(value);
+               setTx(ctx, e);
+            }
+            listener.invoke(e);
+         }
       }
    }
 
    @Override
    public void notifyCacheEntryActivated(Object key, Object value, boolean pre, InvocationContext ctx) {
       if (!cacheEntryActivatedListeners.isEmpty()) {
-         boolean originLocal = ctx.isOriginLocal();
-         EventImpl<Object, Object> e = EventImpl.createEvent(cache, CACHE_ENTRY_ACTIVATED);
-         e.setOriginLocal(originLocal);
-         e.setPre(pre);
-         e.setKey(key);
-         e.setValue(value);
-         setTx(ctx, e);
-         for (ListenerInvocation listener : cacheEntryActivatedListeners) listener.invoke(e);
+         EventImpl<Object, Object> e = null;
+         for (ListenerInvocation listener : cacheEntryActivatedListeners) {
+            if (!listener.accept(key)) continue;
+            if (e == null) {
+               boolean originLocal = ctx.isOriginLocal();
+               e = EventImpl.createEvent(cache, CACHE_ENTRY_ACTIVATED);
+               e.setOriginLocal(originLocal);
+               e.setPre(pre);
+               e.setKey(key);
+               e.setValue(value);
+               setTx(ctx, e);
+            }
+            listener.invoke(e);
+         }
       }
    }
 
@@ -302,11 +352,17 @@ private void setTx(InvocationContext ctx, EventImpl<Object, Object> e) {
    @Override
    public void notifyCacheEntryPassivated(Object key, Object value, boolean pre, InvocationContext ctx) {
       if (!cacheEntryPassivatedListeners.isEmpty()) {
-         EventImpl<Object, Object> e = EventImpl.createEvent(cache, CACHE_ENTRY_PASSIVATED);
-         e.setPre(pre);
-         e.setKey(key);
-         e.setValue(value);
-         for (ListenerInvocation listener : cacheEntryPassivatedListeners) listener.invoke(e);
+         EventImpl<Object, Object> e = null;
+         for (ListenerInvocation listener : cacheEntryPassivatedListeners) {
+            if (!listener.accept(key)) continue;
+            if (e == null) {
+               e = EventImpl.createEvent(cache, CACHE_ENTRY_PASSIVATED);
+               e.setPre(pre);
+               e.setKey(key);
+               e.setValue(value);
+            }
+            listener.invoke(e);
+         }
       }
    }
 
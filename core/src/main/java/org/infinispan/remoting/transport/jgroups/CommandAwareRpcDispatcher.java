@@ -26,6 +26,8 @@
 import org.infinispan.CacheException;
 import org.infinispan.commands.ReplicableCommand;
 import org.infinispan.commands.remote.CacheRpcCommand;
+import org.infinispan.commands.remote.CoalescedRpcCommand;
+import org.infinispan.commands.remote.MultipleRpcCommand;
 import org.infinispan.commands.remote.SingleRpcCommand;
 import org.infinispan.factories.GlobalComponentRegistry;
 import org.infinispan.statetransfer.StateRequestCommand;
@@ -89,6 +91,7 @@ public class CommandAwareRpcDispatcher extends RpcDispatcher {
    private final JGroupsTransport transport;
    private final GlobalComponentRegistry gcr;
    private final BackupReceiverRepository backupReceiverRepository;
+   private volatile RpcCoalescer coalescer;
 
    public CommandAwareRpcDispatcher(Channel channel,
                                     JGroupsTransport transport,
@@ -115,6 +118,26 @@ public CommandAwareRpcDispatcher(Channel channel,
       channel.addChannelListener(this);
    }
 
+   /**
+    * Coalesces concurrent {@link SingleRpcCommand}s sent to the same member into {@link CoalescedRpcCommand}s, whether
+    * they are sent to a single recipient or to several ones, synchronously or not.
+    *
+    * @param maxCommands the maximum number of commands sent in one message
+    * @param groupCommit whether the commits, and pessimistic prepares, of concurrent transactions are coalesced too
+    */
+   void enableCoalescing(int maxCommands, boolean groupCommit) {
+      coalescer = new RpcCoalescer(this, gcr, asyncExecutor, maxCommands, groupCommit);
+   }
+
+   RpcCoalescer getCoalescer() {
+      return coalescer;
+   }
+
+   void retainCoalescingDestinations(List<Address> members) {
+      RpcCoalescer c = coalescer;
+      if (c != null) c.retainAll(members);
+   }
+
    private boolean isValid(Message req) {
       if (req == null || req.getLength() == 0) {
          log.msgOrMsgBufferEmpty();
@@ -234,6 +257,11 @@ public Object handle(Message req) {
    }
 
    private Object executeCommandFromRemoteSite(ReplicableCommand cmd, SiteAddress src) throws Throwable {
+      if (cmd instanceof MultipleRpcCommand) {
+         // a batch of async backups
+         backupReceiverRepository.handleRemoteCommands((MultipleRpcCommand) cmd, src);
+         return null;
+      }
       if (! (cmd instanceof SingleRpcCommand)) {
          throw new IllegalStateException("Only CacheRpcCommand commands expected as a result of xsite calls but got " + cmd.getClass().getName());
       }
@@ -241,7 +269,9 @@ private Object executeCommandFromRemoteSite(ReplicableCommand cmd, SiteAddress s
    }
 
    private Object executeCommandFromLocalCluster(ReplicableCommand cmd, Message req) throws Throwable {
-      if (cmd instanceof CacheRpcCommand) {
+      if (cmd instanceof CoalescedRpcCommand) {
+         return executeCoalescedCommands((CoalescedRpcCommand) cmd, req);
+      } else if (cmd instanceof CacheRpcCommand) {
          if (trace) log.tracef("Attempting to execute command: %s [sender=%s]", cmd, req.getSrc());
          return inboundInvocationHandler.handle((CacheRpcCommand) cmd, fromJGroupsAddress(req.getSrc()));
       } else {
@@ -253,6 +283,18 @@ private Object executeCommandFromLocalCluster(ReplicableCommand cmd, Message req
       }
    }
 
+   private Response[] executeCoalescedCommands(CoalescedRpcCommand cmd, Message req) throws Throwable {
+      CacheRpcCommand[] commands = cmd.getCommands();
+      if (trace) log.tracef("Attempting to execute %d coalesced commands [sender=%s]", commands.length, req.getSrc());
+      org.infinispan.remoting.transport.Address origin = fromJGroupsAddress(req.getSrc());
+      // handled in order, each as if it had been sent in a message of its own
+      Response[] responses = new Response[commands.length];
+      for (int i = 0; i < commands.length; i++) {
+         responses[i] = inboundInvocationHandler.handle(commands[i], origin);
+      }
+      return responses;
+   }
+
    @Override
    public String toString() {
       return getClass().getSimpleName() + "[Outgoing marshaller: " + req_marshaller + "; incoming marshaller: " + rsp_marshaller + "]";
@@ -282,6 +324,22 @@ static Buffer marshallCall(Marshaller marshaller, ReplicableCommand command) {
       return buf;
    }
 
+   /**
+    * Sends a message on behalf of the {@link RpcCoalescer}.
+    *
+    * @return the future response, or {@code null} with {@link ResponseMode#GET_NONE}
+    */
+   NotifyingFuture<Object> sendCoalesced(Address destination, ReplicableCommand command, ResponseMode mode,
+                                         long timeout, boolean oob) throws Exception {
+      Message msg = constructMessage(marshallCall(req_marshaller, command), destination, oob, mode, false);
+      RequestOptions opts = new RequestOptions(mode, timeout);
+      if (mode == ResponseMode.GET_NONE) {
+         sendMessage(msg, opts);
+         return null;
+      }
+      return sendMessageWithFuture(msg, opts);
+   }
+
    private static Response processSingleCall(ReplicableCommand command, long timeout,
                                              Address destination, ResponseMode mode,
                                              Marshaller marshaller, CommandAwareRpcDispatcher card, boolean oob,
@@ -294,10 +352,25 @@ private static Response processSingleCall(ReplicableCommand command, long timeou
             || command instanceof CacheTopologyControlCommand;
 
       Response retval;
-      Buffer buf;
-      buf = marshallCall(marshaller, command);
-      retval = card.sendMessage(constructMessage(buf, destination, oob, mode, rsvp),
-                                new RequestOptions(mode, timeout));
+      RpcCoalescer coalescer = card.coalescer;
+      if (coalescer != null && !rsvp && coalescer.canCoalesce(command, oob)) {
+         Future<Object> future = coalescer.invoke(destination, (CacheRpcCommand) command, mode, timeout, oob);
+         if (mode == ResponseMode.GET_NONE) return null;
+         try {
+            retval = (Response) future.get(timeout, MILLISECONDS);
+         } catch (java.util.concurrent.TimeoutException te) {
+            throw new TimeoutException(formatString("Timed out after %s waiting for a response from %s",
+                                                    prettyPrintTime(timeout), destination));
+         } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            throw cause instanceof Exception ? (Exception) cause : new CacheException(cause);
+         }
+      } else {
+         Buffer buf;
+         buf = marshallCall(marshaller, command);
+         retval = card.sendMessage(constructMessage(buf, destination, oob, mode, rsvp),
+                                   new RequestOptions(mode, timeout));
+      }
 
       // we only bother parsing responses if we are not in ASYNC mode.
       if (trace) log.tracef("Response: %s", retval);
@@ -333,7 +406,10 @@ private static RspList<Object> processCalls(ReplicableCommand command, boolean b
          RequestOptions opts = new RequestOptions(mode, timeout);
 
          if (dests.isEmpty()) return new RspList<Object>();
-         buf = marshallCall(marshaller, command);
+         RpcCoalescer coalescer = card.coalescer;
+         // remote gets (filter != null) keep going to all the owners in parallel, in messages of their own
+         boolean coalesce = coalescer != null && filter == null && coalescer.canCoalesce(command, oob);
+         buf = coalesce ? null : marshallCall(marshaller, command);
 
          // if at all possible, try not to use JGroups' ANYCAST for now.  Multiple (parallel) UNICASTs are much faster.
          if (filter != null) {
@@ -350,8 +426,12 @@ private static RspList<Object> processCalls(ReplicableCommand command, boolean b
             // A SYNC call that needs to go everywhere
             Map<Address, Future<Object>> futures = new HashMap<Address, Future<Object>>(dests.size());
 
-            for (Address dest : dests)
-               futures.put(dest, card.sendMessageWithFuture(constructMessage(buf, dest, oob, mode, rsvp), opts));
+            for (Address dest : dests) {
+               if (coalesce)
+                  futures.put(dest, coalescer.invoke(dest, (CacheRpcCommand) command, mode, timeout, oob));
+               else
+                  futures.put(dest, card.sendMessageWithFuture(constructMessage(buf, dest, oob, mode, rsvp), opts));
+            }
 
             retval = new RspList<Object>();
 
@@ -373,7 +453,12 @@ private static RspList<Object> processCalls(ReplicableCommand command, boolean b
             }
          } else if (mode == ResponseMode.GET_NONE) {
             // An ASYNC call.  We don't care about responses.
-            for (Address dest : dests) card.sendMessage(constructMessage(buf, dest, oob, mode, rsvp), opts);
+            for (Address dest : dests) {
+               if (coalesce)
+                  coalescer.invoke(dest, (CacheRpcCommand) command, mode, timeout, oob);
+               else
+                  card.sendMessage(constructMessage(buf, dest, oob, mode, rsvp), opts);
+            }
          }
       }
 
@@ -95,6 +95,17 @@
  * <li><tt>channelLookup</tt> - Fully qualified class name of a
  * {@link org.infinispan.remoting.transport.jgroups.JGroupsChannelLookup} instance</li>
  * </ul>
+ * Concurrent single-command RPCs bound for the same member, synchronous or asynchronous, can also be coalesced into one
+ * message each way with:
+ * <ul>
+ * <li><tt>rpcCoalescing</tt> - <tt>true</tt> to enable coalescing, defaults to <tt>false</tt>. All the members of the
+ * cluster must be able to unpack coalesced commands.</li>
+ * <li><tt>rpcCoalescingMaxCommands</tt> - maximum number of commands sent in one message, defaults to 64</li>
+ * <li><tt>rpcGroupCommit</tt> - <tt>true</tt> to also coalesce the synchronous commits of concurrent transactions, and
+ * the prepares of pessimistic ones, so that transactions touching the same owners are committed with one message per
+ * owner. Optimistic prepares acquire locks and are always sent on their own. Defaults to
+ * <tt>false</tt>, and requires <tt>rpcCoalescing</tt>.</li>
+ * </ul>
  * These are normally passed in as Properties in
  * {@link org.infinispan.config.GlobalConfiguration#setTransportProperties(java.util.Properties)} or
  * in the Infinispan XML configuration file.
@@ -108,6 +119,9 @@ public class JGroupsTransport extends AbstractTransport implements MembershipLis
    public static final String CONFIGURATION_XML = "configurationXml";
    public static final String CONFIGURATION_FILE = "configurationFile";
    public static final String CHANNEL_LOOKUP = "channelLookup";
+   public static final String RPC_COALESCING = "rpcCoalescing";
+   public static final String RPC_COALESCING_MAX_COMMANDS = "rpcCoalescingMaxCommands";
+   public static final String RPC_GROUP_COMMIT = "rpcGroupCommit";
    protected static final String DEFAULT_JGROUPS_CONFIGURATION_FILE = "jgroups-udp.xml";
 
    static final Log log = LogFactory.getLog(JGroupsTransport.class);
@@ -324,6 +338,10 @@ private void initChannelAndRPCDispatcher() throws CacheException {
       MarshallerAdapter adapter = new MarshallerAdapter(marshaller);
       dispatcher.setRequestMarshaller(adapter);
       dispatcher.setResponseMarshaller(adapter);
+      if (props.getBooleanProperty(RPC_COALESCING, false)) {
+         dispatcher.enableCoalescing(props.getIntProperty(RPC_COALESCING_MAX_COMMANDS, 64),
+                                     props.getBooleanProperty(RPC_GROUP_COMMIT, false));
+      }
       dispatcher.start();
    }
 
@@ -631,6 +649,7 @@ public void viewAccepted(View newView) {
       List<Address> oldMembers = members;
       // we need a defensive copy anyway
       members = fromJGroupsAddressList(newMembers);
+      if (dispatcher != null) dispatcher.retainCoalescingDestinations(newMembers);
 
       // Now that we have a view, figure out if we are the isCoordinator
       coordinator = fromJGroupsAddress(newView.getCreator());
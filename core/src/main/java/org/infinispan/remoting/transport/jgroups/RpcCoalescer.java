@@ -0,0 +1,310 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.remoting.transport.jgroups;
+
+import org.infinispan.CacheException;
+import org.infinispan.commands.ReplicableCommand;
+import org.infinispan.commands.remote.CacheRpcCommand;
+import org.infinispan.commands.remote.CoalescedRpcCommand;
+import org.infinispan.commands.remote.SingleRpcCommand;
+import org.infinispan.commands.tx.CommitCommand;
+import org.infinispan.commands.tx.PrepareCommand;
+import org.infinispan.configuration.cache.Configuration;
+import org.infinispan.factories.ComponentRegistry;
+import org.infinispan.factories.GlobalComponentRegistry;
+import org.infinispan.remoting.responses.Response;
+import org.infinispan.transaction.LockingMode;
+import org.infinispan.util.concurrent.BatchingFlusher;
+import org.infinispan.util.concurrent.ConcurrentMapFactory;
+import org.infinispan.util.logging.Log;
+import org.infinispan.util.logging.LogFactory;
+import org.jgroups.Address;
+import org.jgroups.blocks.ResponseMode;
+import org.jgroups.util.FutureListener;
+import org.jgroups.util.NotifyingFuture;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Coalesces concurrent RPCs bound for the same member into a single {@link CoalescedRpcCommand}.
+ * <p/>
+ * There is no timer: the first caller finding nobody sending to a member sends whatever is queued for it, including
+ * the commands queued by other callers while it was busy marshalling and sending. Commands are therefore only
+ * coalesced under contention, and an idle member gets its commands sent as they come, unwrapped. A caller sends at
+ * most {@value #MAX_BATCHES_PER_CALLER} messages in a row, and leaves the rest to the asynchronous transport executor.
+ * Each message waits for its response for as long as the most patient of its callers would. On the receiving
+ * side the commands of a bundle are handled one after the other, in order, and answered with one response each,
+ * which are handed back to the callers waiting for them.
+ * <p/>
+ * Single-command RPCs are coalesced whether they are synchronous or not. {@link JGroupsTransport} sends the synchronous
+ * ones out of band, and they are bundled separately from the asynchronous ones.
+ * <p/>
+ * Besides single-command RPCs, the coalescer can group commit transactions: the synchronous, out of band
+ * commits of concurrent transactions touching the same owners then travel in one message per owner, and every
+ * transaction still gets its own outcome. So do the prepares of pessimistic transactions, whose locks are acquired
+ * before the prepare: an optimistic prepare acquires locks, and could wait in a bundle for a lock held by another
+ * prepare of the same bundle, which is only released by a commit that cannot be sent until the bundle is answered.
+ * Out of band commands are never bundled with regular ones.
+ *
+ * @since 5.2
+ */
+final class RpcCoalescer {
+
+   private static final Log log = LogFactory.getLog(RpcCoalescer.class);
+   private static final boolean trace = log.isTraceEnabled();
+
+   private static final int MAX_BATCHES_PER_CALLER = 4;
+
+   private static final Runnable NO_OP = new Runnable() {
+      @Override
+      public void run() {
+      }
+   };
+
+   private final CommandAwareRpcDispatcher card;
+   private final GlobalComponentRegistry gcr;
+   private final int maxCommands;
+   private final boolean groupCommit;
+   private final Executor executor;
+   private final ConcurrentMap<DestinationKey, Destination> destinations = ConcurrentMapFactory.makeConcurrentMap();
+   /**
+    * Number of {@link CoalescedRpcCommand}s sent so far, i.e. of messages carrying more than one command.
+    */
+   final AtomicLong bundlesSent = new AtomicLong();
+
+   RpcCoalescer(CommandAwareRpcDispatcher card, GlobalComponentRegistry gcr, Executor executor, int maxCommands,
+                boolean groupCommit) {
+      if (maxCommands < 1)
+         throw new IllegalArgumentException("The maximum number of coalesced commands must be strictly positive");
+      this.card = card;
+      this.gcr = gcr;
+      this.maxCommands = maxCommands;
+      this.groupCommit = groupCommit;
+      this.executor = executor;
+   }
+
+   /**
+    * Tests whether a command sent in a message of its own, and not as a remote get, can go through
+    * {@link #invoke(Address, CacheRpcCommand, ResponseMode, long, boolean)} instead.
+    */
+   boolean canCoalesce(ReplicableCommand command, boolean oob) {
+      // synchronous calls are always sent out of band, so oob only decides which bundles the command can join
+      if (command instanceof SingleRpcCommand) return true;
+      if (!groupCommit) return false;
+      // lock acquisitions and rollbacks are left alone, a bundle is handled by a single thread on the receiving side
+      if (command instanceof CommitCommand) return true;
+      return command instanceof PrepareCommand && isPessimistic(((PrepareCommand) command).getCacheName());
+   }
+
+   private boolean isPessimistic(String cacheName) {
+      ComponentRegistry cr = gcr == null ? null : gcr.getNamedComponentRegistry(cacheName);
+      Configuration configuration = cr == null ? null : cr.getComponent(Configuration.class);
+      return configuration != null && configuration.transaction().lockingMode() == LockingMode.PESSIMISTIC;
+   }
+
+   /**
+    * Sends a command to a single member, possibly along with other commands for the same member and cache.
+    *
+    * @return a future returning the response of the member, which fails with the same exceptions as a JGroups request
+    *         would. With {@link ResponseMode#GET_NONE} the future is done as soon as the command has been sent.
+    */
+   Future<Object> invoke(Address dest, CacheRpcCommand command, ResponseMode mode, long timeout, boolean oob) {
+      Destination destination = destinationFor(new DestinationKey(dest, command.getCacheName(), mode, oob));
+      PendingCall call = new PendingCall(command, timeout);
+      destination.queue.add(call);
+      destination.flush();
+      return call;
+   }
+
+   /**
+    * Forgets about the members that are not part of the cluster any more.
+    */
+   void retainAll(List<Address> members) {
+      for (DestinationKey key : destinations.keySet()) {
+         if (!members.contains(key.address)) destinations.remove(key);
+      }
+   }
+
+   private Destination destinationFor(DestinationKey key) {
+      Destination destination = destinations.get(key);
+      if (destination == null) {
+         destination = new Destination(key);
+         Destination existing = destinations.putIfAbsent(key, destination);
+         if (existing != null) destination = existing;
+      }
+      return destination;
+   }
+
+   private final class Destination extends BatchingFlusher {
+      final DestinationKey key;
+      final Queue<PendingCall> queue = new ConcurrentLinkedQueue<PendingCall>();
+
+      Destination(DestinationKey key) {
+         super(MAX_BATCHES_PER_CALLER, executor);
+         this.key = key;
+      }
+
+      @Override
+      protected boolean hasQueuedWork() {
+         return !queue.isEmpty();
+      }
+
+      @Override
+      protected void flushBatch() {
+         List<PendingCall> batch = new ArrayList<PendingCall>(Math.min(queue.size(), maxCommands));
+         PendingCall call;
+         while (batch.size() < maxCommands && (call = queue.poll()) != null) {
+            batch.add(call);
+         }
+         if (!batch.isEmpty()) send(batch);
+      }
+
+      private void send(final List<PendingCall> batch) {
+         ReplicableCommand command;
+         long timeout = 0;
+         if (batch.size() == 1) {
+            command = batch.get(0).command;
+            timeout = batch.get(0).timeout;
+         } else {
+            List<CacheRpcCommand> commands = new ArrayList<CacheRpcCommand>(batch.size());
+            for (PendingCall call : batch) {
+               commands.add(call.command);
+               timeout = Math.max(timeout, call.timeout);
+            }
+            command = new CoalescedRpcCommand(key.cacheName, commands);
+            bundlesSent.incrementAndGet();
+         }
+         if (trace) log.tracef("Sending %d coalesced command(s) to %s", batch.size(), key.address);
+
+         NotifyingFuture<Object> future;
+         try {
+            future = card.sendCoalesced(key.address, command, key.mode, timeout, key.oob);
+         } catch (Exception e) {
+            if (key.mode == ResponseMode.GET_NONE) log.warnf(e, "Problems sending coalesced commands to %s", key.address);
+            for (PendingCall call : batch) call.fail(e);
+            return;
+         }
+
+         if (future == null) {
+            for (PendingCall call : batch) call.complete(null);
+         } else {
+            future.setListener(new FutureListener<Object>() {
+               @Override
+               public void futureDone(Future<Object> future) {
+                  demultiplex(batch, future);
+               }
+            });
+         }
+      }
+   }
+
+   private static void demultiplex(List<PendingCall> batch, Future<Object> future) {
+      Object response;
+      try {
+         response = future.get();
+      } catch (ExecutionException e) {
+         for (PendingCall call : batch) call.fail(e.getCause());
+         return;
+      } catch (Throwable t) {
+         for (PendingCall call : batch) call.fail(t);
+         return;
+      }
+
+      if (batch.size() == 1) {
+         batch.get(0).complete(response);
+      } else if (response instanceof Response[] && ((Response[]) response).length == batch.size()) {
+         Response[] responses = (Response[]) response;
+         for (int i = 0; i < responses.length; i++) batch.get(i).complete(responses[i]);
+      } else if (response == null || response instanceof Response) {
+         // the bundle failed or was ignored as a whole, e.g. it could not be unmarshalled
+         for (PendingCall call : batch) call.complete(response);
+      } else {
+         CacheException e = new CacheException("Unexpected response to coalesced commands: " + response);
+         for (PendingCall call : batch) call.fail(e);
+      }
+   }
+
+   /**
+    * A future completed by whichever thread receives the response of the message carrying the command.
+    * Completing it more than once has no effect.
+    */
+   private static final class PendingCall extends FutureTask<Object> {
+      final CacheRpcCommand command;
+      final long timeout;
+
+      PendingCall(CacheRpcCommand command, long timeout) {
+         super(NO_OP, null);
+         this.command = command;
+         this.timeout = timeout;
+      }
+
+      void complete(Object response) {
+         set(response);
+      }
+
+      void fail(Throwable t) {
+         setException(t);
+      }
+   }
+
+   private static final class DestinationKey {
+      final Address address;
+      final String cacheName;
+      final ResponseMode mode;
+      final boolean oob;
+
+      DestinationKey(Address address, String cacheName, ResponseMode mode, boolean oob) {
+         this.address = address;
+         this.cacheName = cacheName;
+         this.mode = mode;
+         this.oob = oob;
+      }
+
+      @Override
+      public boolean equals(Object o) {
+         if (this == o) return true;
+         if (!(o instanceof DestinationKey)) return false;
+         DestinationKey that = (DestinationKey) o;
+         return address.equals(that.address) && mode == that.mode && oob == that.oob
+               && (cacheName != null ? cacheName.equals(that.cacheName) : that.cacheName == null);
+      }
+
+      @Override
+      public int hashCode() {
+         int result = address.hashCode();
+         result = 31 * result + (cacheName != null ? cacheName.hashCode() : 0);
+         result = 31 * result + mode.hashCode();
+         result = 31 * result + (oob ? 1 : 0);
+         return result;
+      }
+   }
+}
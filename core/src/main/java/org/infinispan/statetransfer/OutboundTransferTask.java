@@ -25,6 +25,7 @@
 
 import org.infinispan.commands.CommandsFactory;
 import org.infinispan.container.DataContainer;
+import org.infinispan.container.SegmentedDataContainer;
 import org.infinispan.container.entries.InternalCacheEntry;
 import org.infinispan.distribution.ch.ConsistentHash;
 import org.infinispan.loaders.CacheLoaderException;
@@ -147,11 +148,21 @@ public Set<Integer> getSegments() {
    public void run() {
       try {
          // send data container entries
-         for (InternalCacheEntry ice : dataContainer) {
-            Object key = ice.getKey();  //todo [anistor] should we check for expired entries?
-            int segmentId = readCh.getSegment(key);
-            if (segments.contains(segmentId)) {
-               sendEntry(ice, segmentId);
+         if (dataContainer instanceof SegmentedDataContainer && ((SegmentedDataContainer) dataContainer).isCompatible(readCh)) {
+            // visit only the requested segments instead of the whole container
+            SegmentedDataContainer segmentedDataContainer = (SegmentedDataContainer) dataContainer;
+            for (int segmentId : segments) {
+               for (Iterator<InternalCacheEntry> it = segmentedDataContainer.segmentIterator(segmentId); it.hasNext() && segments.contains(segmentId); ) {
+                  sendEntry(it.next(), segmentId);
+               }
+            }
+         } else {
+            for (InternalCacheEntry ice : dataContainer) {
+               Object key = ice.getKey();  //todo [anistor] should we check for expired entries?
+               int segmentId = readCh.getSegment(key);
+               if (segments.contains(segmentId)) {
+                  sendEntry(ice, segmentId);
+               }
             }
          }
 
@@ -30,6 +30,7 @@
 import org.infinispan.commands.write.PutKeyValueCommand;
 import org.infinispan.configuration.cache.Configuration;
 import org.infinispan.container.DataContainer;
+import org.infinispan.container.SegmentedDataContainer;
 import org.infinispan.container.entries.InternalCacheEntry;
 import org.infinispan.context.Flag;
 import org.infinispan.context.InvocationContext;
@@ -526,14 +527,34 @@ private void invalidateSegments(Set<Integer> newSegments, Set<Integer> segmentsT
       Set<Object> keysToL1 = new HashSet<Object>();
       Set<Object> keysToRemove = new HashSet<Object>();
 
-      // gather all keys from cache store that belong to the segments that are being removed/moved to L1
-      for (InternalCacheEntry ice : dataContainer) {
-         Object key = ice.getKey();
-         int keySegment = getSegment(key);
-         if (segmentsToL1.contains(keySegment)) {
-            keysToL1.add(key);
-         } else if (!newSegments.contains(keySegment)) {
-            keysToRemove.add(key);
+      // gather all keys from data container that belong to the segments that are being removed/moved to L1
+      ConsistentHash readCh = cacheTopology.getReadConsistentHash();
+      if (dataContainer instanceof SegmentedDataContainer && ((SegmentedDataContainer) dataContainer).isCompatible(readCh)) {
+         // only visit the segments that are no longer owned, and drop the removed ones wholesale instead of
+         // invalidating their keys one by one
+         SegmentedDataContainer segmentedDataContainer = (SegmentedDataContainer) dataContainer;
+         Set<Integer> segmentsToRemove = new HashSet<Integer>();
+         for (int segmentId = 0; segmentId < readCh.getNumSegments(); segmentId++) {
+            if (segmentsToL1.contains(segmentId)) {
+               keysToL1.addAll(segmentedDataContainer.segmentKeySet(segmentId));
+            } else if (!newSegments.contains(segmentId)) {
+               segmentsToRemove.add(segmentId);
+            }
+         }
+         if (!segmentsToRemove.isEmpty()) {
+            log.debugf("Removing segments %s from the data container of cache %s", segmentsToRemove, cacheName);
+            // must happen before loading the stored keys, so that their copies in the cache store are removed below
+            segmentedDataContainer.removeSegments(segmentsToRemove);
+         }
+      } else {
+         for (InternalCacheEntry ice : dataContainer) {
+            Object key = ice.getKey();
+            int keySegment = getSegment(key);
+            if (segmentsToL1.contains(keySegment)) {
+               keysToL1.add(key);
+            } else if (!newSegments.contains(keySegment)) {
+               keysToRemove.add(key);
+            }
          }
       }
 
@@ -0,0 +1,111 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.util.concurrent;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Flushes the work queued by concurrent threads in batches, without a timer: the first thread finding nobody flushing
+ * flushes whatever is queued, including the work queued by other threads while it was busy. Work is therefore only
+ * batched under contention, and is flushed as it comes otherwise.
+ * <p/>
+ * A thread flushes at most {@code maxBatches} batches in a row. If there is still work queued afterwards, it is handed
+ * off with {@link #handOff()}, so that a thread is not kept flushing the work of others for as long as they keep
+ * queueing some. By default the work is handed off to the executor, if any: without one, or if the executor rejects
+ * it, the thread keeps flushing.
+ *
+ * @since 5.2
+ */
+public abstract class BatchingFlusher {
+
+   private final AtomicBoolean flushing = new AtomicBoolean();
+   private final int maxBatches;
+   private final Executor executor;
+   private final Runnable flushTask = new Runnable() {
+      @Override
+      public void run() {
+         flush();
+      }
+   };
+
+   /**
+    * @param maxBatches the maximum number of batches a thread flushes in a row
+    * @param executor   the executor flushing the work left over by a thread, or null to have the thread flush it
+    */
+   protected BatchingFlusher(int maxBatches, Executor executor) {
+      if (maxBatches < 1)
+         throw new IllegalArgumentException("The maximum number of batches flushed in a row must be strictly positive");
+      this.maxBatches = maxBatches;
+      this.executor = executor;
+   }
+
+   /**
+    * Flushes the queued work, unless another thread is flushing it already.
+    */
+   public final void flush() {
+      int batches = 0;
+      // the flag is released before the queue is checked again, so work queued by a thread that lost the race is
+      // always flushed, either by this thread, by that one, or by whoever the work is handed off to
+      while (hasQueuedWork()) {
+         if (batches == maxBatches) {
+            if (handOff()) return;
+            batches = 0;
+         }
+         if (!flushing.compareAndSet(false, true)) return;
+         try {
+            flushBatch();
+         } finally {
+            flushing.set(false);
+         }
+         batches++;
+      }
+   }
+
+   /**
+    * @return true if work is queued, which the calling thread may not be able to flush yet
+    */
+   protected abstract boolean hasQueuedWork();
+
+   /**
+    * Flushes one batch of the queued work. It is only ever called by one thread at a time.
+    */
+   protected abstract void flushBatch();
+
+   /**
+    * Hands off the work still queued once a thread has flushed {@code maxBatches} batches in a row. Whoever it is
+    * handed off to must call {@link #flush()}, which is harmless if another thread is flushing already.
+    *
+    * @return true if the work was handed off, false if the calling thread has to keep flushing
+    */
+   protected boolean handOff() {
+      if (executor == null) return false;
+      try {
+         executor.execute(flushTask);
+         return true;
+      } catch (RejectedExecutionException e) {
+         return false;
+      }
+   }
+}
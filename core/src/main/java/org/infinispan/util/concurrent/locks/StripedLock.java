@@ -26,8 +26,12 @@
 import org.infinispan.util.logging.Log;
 import org.infinispan.util.logging.LogFactory;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.SortedSet;
+import java.util.TreeSet;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 
@@ -41,6 +45,11 @@
  * Since buckets are used, it doesn't matter that the key in question is not removed from the lock map when no longer in
  * use, since the key is not referenced in this class.  Rather, the hash code is used.
  * <p/>
+ * When created with optimistic reads enabled, every shared lock is paired with a stamp which changes each time the
+ * lock is write locked and unlocked. Readers can then {@link #tryOptimisticRead(Object) take a stamp}, read without
+ * locking and {@link #validate(Object, long) validate} the stamp afterwards, falling back to a read lock if a writer
+ * got in the way. This is the same protocol as a sequence lock.
+ * <p/>
  *
  * @author <a href="mailto:manik@jboss.org">Manik Surtani</a>
  * @author Mircea.Markus@jboss.com
@@ -58,6 +67,12 @@ public class StripedLock {
 
    final ReentrantReadWriteLock[] sharedLocks;
 
+   /**
+    * One stamp per shared lock, or null if optimistic reads are disabled. A stamp is odd while the lock is write
+    * locked.
+    */
+   private final AtomicLongArray stamps;
+
    /**
     * This constructor just calls {@link #StripedLock(int)} with a default concurrency value of 20.
     */
@@ -71,6 +86,17 @@ public StripedLock() {
     * @param concurrency number of threads expected to use this class concurrently.
     */
    public StripedLock(int concurrency) {
+      this(concurrency, false);
+   }
+
+   /**
+    * Creates a new StripedLock which uses a certain number of shared locks across all elements that need to be locked.
+    *
+    * @param concurrency     number of threads expected to use this class concurrently.
+    * @param optimisticReads whether {@link #tryOptimisticRead(Object)} and {@link #validate(Object, long)} are
+    *                        supported. Enabling them adds some bookkeeping to each write lock and unlock.
+    */
+   public StripedLock(int concurrency, boolean optimisticReads) {
       int tempLockSegShift = 0;
       int numLocks = 1;
       while (numLocks < concurrency) {
@@ -85,6 +111,7 @@ public StripedLock(int concurrency) {
       for (int i = 0; i < numLocks; i++) {
         sharedLocks[i] = new ReentrantReadWriteLock();
     }
+      stamps = optimisticReads ? new AtomicLongArray(numLocks) : null;
    }
 
    /**
@@ -93,9 +120,11 @@ public StripedLock(int concurrency) {
     * @param exclusive if true, a write (exclusive) lock is attempted, otherwise a read (shared) lock is used.
     */
    public void acquireLock(Object key, boolean exclusive) {
-      ReentrantReadWriteLock lock = getLock(key);
+      int index = hashToIndex(key);
+      ReentrantReadWriteLock lock = sharedLocks[index];
       if (exclusive) {
          lock.writeLock().lock();
+         writeLocked(index);
          if (trace) log.tracef("WL acquired for '%s'", key);
       } else {
          lock.readLock().lock();
@@ -104,10 +133,12 @@ public void acquireLock(Object key, boolean exclusive) {
    }
 
    public boolean acquireLock(Object key, boolean exclusive, long millis) {
-      ReentrantReadWriteLock lock = getLock(key);
+      int index = hashToIndex(key);
+      ReentrantReadWriteLock lock = sharedLocks[index];
       try {
          if (exclusive) {
             boolean success = lock.writeLock().tryLock(millis, TimeUnit.MILLISECONDS);
+            if (success) writeLocked(index);
             if (success && trace) log.tracef("WL acquired for '%s'", key);
             return success;
          } else {
@@ -123,11 +154,16 @@ public boolean acquireLock(Object key, boolean exclusive, long millis) {
 
    /**
     * Releases a lock the caller may be holding. This method is idempotent.
+    * <p/>
+    * A thread holding the write lock of a stripe may also read lock it, e.g. for another key mapping to the same
+    * stripe, but it can't write lock a stripe it read locks. So a read hold, if any, was acquired last and is released
+    * first; releasing the write hold instead would let other writers in while the caller still reads.
     */
    public void releaseLock(Object key) {
-      ReentrantReadWriteLock lock = getLock(key);
-      if (lock.isWriteLockedByCurrentThread()) {
-         lock.writeLock().unlock();
+      int index = hashToIndex(key);
+      ReentrantReadWriteLock lock = sharedLocks[index];
+      if (lock.getReadHoldCount() == 0) {
+         writeUnlock(index);
          if (trace) log.tracef("WL released for '%s'", key);
       } else {
          lock.readLock().unlock();
@@ -136,20 +172,61 @@ public void releaseLock(Object key) {
    }
 
    public void upgradeLock(Object key) {
-      ReentrantReadWriteLock lock = getLock(key);
+      int index = hashToIndex(key);
+      ReentrantReadWriteLock lock = sharedLocks[index];
       lock.readLock().unlock();
       // another thread could come here and take the RL or WL, forcing us to wait
       lock.writeLock().lock();
+      writeLocked(index);
       if (trace) log.tracef("RL upgraded to WL for '%s'", key);
    }
 
    public void downgradeLock(Object key) {
-      ReentrantReadWriteLock lock = getLock(key);
+      int index = hashToIndex(key);
+      ReentrantReadWriteLock lock = sharedLocks[index];
       lock.readLock().lock();
-      lock.writeLock().unlock();
+      writeUnlock(index);
       if (trace) log.tracef("WL downgraded to RL for '%s'", key);
    }
 
+   /**
+    * Returns a stamp to be checked with {@link #validate(Object, long)} once the data guarded by the key's lock has
+    * been read without holding the lock. The returned stamp never validates if the lock is currently write locked.
+    * <p/>
+    * The read must not modify any state and must tolerate observing a concurrent write half way through, e.g. by
+    * failing with an exception, in which case the caller should validate the stamp before reporting the failure.
+    *
+    * @throws IllegalStateException if this lock was not created with optimistic reads enabled
+    */
+   public long tryOptimisticRead(Object key) {
+      if (stamps == null) throw new IllegalStateException("Optimistic reads are not enabled");
+      return stamps.get(hashToIndex(key));
+   }
+
+   /**
+    * Tests whether the key's lock was not write locked since the given stamp was obtained from {@link
+    * #tryOptimisticRead(Object)}, in which case anything read in the meantime is consistent.
+    */
+   public boolean validate(Object key, long stamp) {
+      if (stamps == null) throw new IllegalStateException("Optimistic reads are not enabled");
+      return (stamp & 1) == 0 && stamps.get(hashToIndex(key)) == stamp;
+   }
+
+   /**
+    * Marks the stamp of a lock which has just been write locked, unless the current thread already held it.
+    */
+   private void writeLocked(int index) {
+      if (stamps != null && sharedLocks[index].getWriteHoldCount() == 1) stamps.incrementAndGet(index);
+   }
+
+   /**
+    * Write unlocks a lock, marking its stamp if this releases the last hold of the current thread.
+    */
+   private void writeUnlock(int index) {
+      if (stamps != null && sharedLocks[index].getWriteHoldCount() == 1) stamps.incrementAndGet(index);
+      sharedLocks[index].writeLock().unlock();
+   }
+
    final ReentrantReadWriteLock getLock(Object o) {
       return sharedLocks[hashToIndex(o)];
    }
@@ -195,6 +272,54 @@ public void acquireAllLocks(List<Object> keys, boolean exclusive) {
     }
    }
 
+   /**
+    * Acquires the locks guarding all the keys passed in. Unlike {@link #acquireAllLocks(java.util.List, boolean)}, every
+    * underlying lock is acquired only once and always in the same order, so that threads locking overlapping sets of
+    * keys can't deadlock. The locks must be released with
+    * {@link #releaseLocksInOrder(java.util.Collection, boolean)}.
+    *
+    * @param keys      keys to lock
+    * @param exclusive whether locks are exclusive.
+    */
+   public void acquireLocksInOrder(Collection<?> keys, boolean exclusive) {
+      for (int index : lockIndexes(keys)) {
+         ReentrantReadWriteLock lock = sharedLocks[index];
+         if (exclusive) {
+            lock.writeLock().lock();
+            writeLocked(index);
+         } else {
+            lock.readLock().lock();
+         }
+      }
+      if (trace) log.tracef("%s acquired for %s", exclusive ? "WLs" : "RLs", keys);
+   }
+
+   /**
+    * Releases the locks acquired with {@link #acquireLocksInOrder(java.util.Collection, boolean)} for the same keys.
+    *
+    * @param keys      keys to unlock
+    * @param exclusive whether the locks were acquired exclusively; it must match the acquisition because the caller
+    *                  may hold both the write and read lock of a stripe
+    */
+   public void releaseLocksInOrder(Collection<?> keys, boolean exclusive) {
+      for (int index : lockIndexes(keys)) {
+         if (exclusive) {
+            writeUnlock(index);
+         } else {
+            sharedLocks[index].readLock().unlock();
+         }
+      }
+      if (trace) log.tracef("Locks released for %s", keys);
+   }
+
+   private SortedSet<Integer> lockIndexes(Collection<?> keys) {
+      SortedSet<Integer> indexes = new TreeSet<Integer>();
+      for (Object key : keys) {
+         indexes.add(hashToIndex(key));
+      }
+      return indexes;
+   }
+
    /**
     * Returns the total number of locks held by this class.
     */
@@ -221,6 +346,7 @@ public boolean acquireGlobalLock(boolean exclusive, long timeout) {
                if (trace) log.tracef("Could not acquire lock on %s. Exclusive? %b", toAcquire, exclusive);
                break;
             }
+            if (exclusive) writeLocked(i);
          } catch (InterruptedException e) {
             if (trace) log.trace("Caught InterruptedException while trying to acquire global lock", e);
             success = false;
@@ -228,8 +354,11 @@ public boolean acquireGlobalLock(boolean exclusive, long timeout) {
          } finally {
             if (!success) {
                for (int j = 0; j < i; j++) {
-                  Lock toRelease = exclusive ? sharedLocks[j].writeLock() : sharedLocks[j].readLock();
-                  toRelease.unlock();
+                  if (exclusive) {
+                     writeUnlock(j);
+                  } else {
+                     sharedLocks[j].readLock().unlock();
+                  }
                }
             }
          }
@@ -238,9 +367,12 @@ public boolean acquireGlobalLock(boolean exclusive, long timeout) {
    }
 
    public void releaseGlobalLock(boolean exclusive) {
-      for (ReentrantReadWriteLock lock : sharedLocks) {
-         Lock toRelease = exclusive ? lock.writeLock() : lock.readLock();
-         toRelease.unlock();
+      for (int i = 0; i < sharedLocks.length; i++) {
+         if (exclusive) {
+            writeUnlock(i);
+         } else {
+            sharedLocks[i].readLock().unlock();
+         }
       }
    }
 
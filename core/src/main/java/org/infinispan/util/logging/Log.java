@@ -840,5 +840,20 @@ void asyncStoreShutdownTimeoutTooHigh(long configuredAsyncStopTimeout,
    @LogMessage(level = INFO)
    @Message(value = "%d entries migrated to cache %s in %s", id = 216)
    void entriesMigrated(long count, String name, String prettyTime);
-}
 
+   @LogMessage(level = WARN)
+   @Message(value = "Log file %s is truncated or corrupt after offset %d, discarding the remaining %d bytes", id = 217)
+   void truncatingCorruptLogFile(File file, long offset, long discarded);
+
+   @LogMessage(level = WARN)
+   @Message(value = "Problems compacting log file %s", id = 218)
+   void problemsCompactingLogFile(File file, @Cause Throwable cause);
+
+   @LogMessage(level = WARN)
+   @Message(value = "Unable to build the Bloom filter of cache store %s from its keys, all loads will reach the store", id = 219)
+   void unableToBuildBloomFilter(String storeType, @Cause Throwable cause);
+
+   @LogMessage(level = WARN)
+   @Message(value = "Unable to apply command %s backed up from site %s, carrying on with the rest of the batch", id = 220)
+   void unableToApplyBackupCommand(Object command, String site, @Cause Throwable cause);
+}
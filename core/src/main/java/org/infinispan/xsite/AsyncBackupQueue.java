@@ -0,0 +1,251 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.xsite;
+
+import org.infinispan.atomic.Delta;
+import org.infinispan.commands.ReplicableCommand;
+import org.infinispan.commands.remote.MultipleRpcCommand;
+import org.infinispan.commands.remote.SingleRpcCommand;
+import org.infinispan.commands.write.ApplyDeltaCommand;
+import org.infinispan.commands.write.ClearCommand;
+import org.infinispan.commands.write.DataWriteCommand;
+import org.infinispan.commands.write.PutKeyValueCommand;
+import org.infinispan.commands.write.RemoveCommand;
+import org.infinispan.remoting.transport.Transport;
+import org.infinispan.util.concurrent.BatchingFlusher;
+import org.infinispan.util.logging.Log;
+import org.infinispan.util.logging.LogFactory;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Batches the asynchronous backups of a cache to one remote site, so that the commands backed up concurrently are
+ * shipped to the site in a single message instead of one message each.
+ * <p/>
+ * There is no timer, as with the RPC coalescing of the transport: the first thread finding nobody sending ships
+ * whatever is queued, including the commands queued while it was busy, in messages of at most {@code maxBatchSize}
+ * commands. A thread ships at most {@value #MAX_BATCHES_PER_THREAD} messages in a row, and leaves the rest to the
+ * executor, if any. While queued, a command overwriting a key unconditionally drops the previous command queued for that key,
+ * and a clear drops all the queued commands, as the remote site ends up in the same state either way. The commands
+ * are marshalled when shipped, as with asynchronous marshalling.
+ *
+ * @since 5.2
+ */
+public class AsyncBackupQueue {
+
+   private static final Log log = LogFactory.getLog(AsyncBackupQueue.class);
+   private static final boolean trace = log.isTraceEnabled();
+
+   private final XSiteBackup backup;
+   private final String cacheName;
+   private final Transport transport;
+   private static final int MAX_BATCHES_PER_THREAD = 4;
+
+   private final int maxBatchSize;
+   private final Flusher flusher;
+
+   private final AtomicLong batches = new AtomicLong();
+   private final AtomicLong sentCommands = new AtomicLong();
+   private final AtomicLong droppedCommands = new AtomicLong();
+
+   // guarded by this; dropped commands leave a null behind so that the positions in lastWrites stay valid
+   private List<ReplicableCommand> queued = new ArrayList<ReplicableCommand>();
+   private final Map<Object, Integer> lastWrites = new HashMap<Object, Integer>();
+   private long oldestQueuedMillis;
+   private volatile int depth;
+   // guarded by this: the batches taken from the queue and not shipped yet, in order
+   private final Queue<Batch> batchesToShip = new ArrayDeque<Batch>();
+   private int commandsToShip;
+
+   public AsyncBackupQueue(XSiteBackup backup, String cacheName, Transport transport, int maxBatchSize) {
+      this(backup, cacheName, transport, maxBatchSize, null);
+   }
+
+   /**
+    * @param executor the executor shipping the commands left over by a thread that shipped enough of them already, or
+    *                 null to have that thread ship them too
+    */
+   public AsyncBackupQueue(XSiteBackup backup, String cacheName, Transport transport, int maxBatchSize,
+                           Executor executor) {
+      if (backup.isSync())
+         throw new IllegalArgumentException("Only asynchronous backups can be batched");
+      if (maxBatchSize < 1)
+         throw new IllegalArgumentException("The maximum batch size must be strictly positive");
+      this.backup = backup;
+      this.cacheName = cacheName;
+      this.transport = transport;
+      this.maxBatchSize = maxBatchSize;
+      this.flusher = new Flusher(executor);
+   }
+
+   /**
+    * Queues a command to be backed up to the site. The calling thread ships the queued commands itself if no other
+    * thread is shipping them already.
+    */
+   public void backup(ReplicableCommand command) {
+      synchronized (this) {
+         add(command);
+      }
+      flusher.flush();
+   }
+
+   public String getSiteName() {
+      return backup.getSiteName();
+   }
+
+   /**
+    * @return the number of commands waiting to be shipped to the site
+    */
+   public synchronized int getQueueDepth() {
+      return depth + commandsToShip;
+   }
+
+   /**
+    * @return for how many milliseconds the oldest command waiting to be shipped has been queued, 0 if none is
+    */
+   public synchronized long getLagMillis() {
+      Batch oldest = batchesToShip.peek();
+      if (oldest != null) return System.currentTimeMillis() - oldest.queuedMillis;
+      return depth == 0 ? 0 : System.currentTimeMillis() - oldestQueuedMillis;
+   }
+
+   /**
+    * @return the average number of commands shipped in a message
+    */
+   public double getAverageBatchSize() {
+      long numBatches = batches.get();
+      return numBatches == 0 ? 0 : (double) sentCommands.get() / numBatches;
+   }
+
+   /**
+    * @return the number of commands dropped because a later command made them irrelevant before they were shipped
+    */
+   public long getDroppedCommands() {
+      return droppedCommands.get();
+   }
+
+   private void add(ReplicableCommand command) {
+      if (command instanceof ClearCommand) {
+         droppedCommands.addAndGet(depth);
+         queued.clear();
+         lastWrites.clear();
+         depth = 0;
+      } else if (command instanceof DataWriteCommand) {
+         DataWriteCommand write = (DataWriteCommand) command;
+         Integer previous = lastWrites.put(write.getKey(), queued.size());
+         if (previous != null && overwrites(write) && !carriesDelta((DataWriteCommand) queued.get(previous))) {
+            queued.set(previous, null);
+            droppedCommands.incrementAndGet();
+            depth--;
+         }
+      }
+      if (depth == 0) oldestQueuedMillis = System.currentTimeMillis();
+      queued.add(command);
+      depth++;
+   }
+
+   private static boolean overwrites(DataWriteCommand write) {
+      return (write instanceof PutKeyValueCommand || write instanceof RemoveCommand) && !write.isConditional()
+            && !carriesDelta(write);
+   }
+
+   /**
+    * A delta, e.g. the changes made to an atomic map, is merged into the value it finds: it neither replaces the
+    * previous writes, nor can be replaced by the next ones.
+    */
+   private static boolean carriesDelta(DataWriteCommand write) {
+      return write instanceof ApplyDeltaCommand
+            || write instanceof PutKeyValueCommand && ((PutKeyValueCommand) write).getValue() instanceof Delta;
+   }
+
+   /**
+    * Takes the next batch to ship, after splitting the queued commands into batches if there is none left.
+    */
+   private synchronized Batch nextBatch() {
+      if (batchesToShip.isEmpty() && depth > 0) {
+         List<ReplicableCommand> commands = new ArrayList<ReplicableCommand>(depth);
+         for (ReplicableCommand command : queued) {
+            if (command != null) commands.add(command);
+         }
+         queued = new ArrayList<ReplicableCommand>();
+         lastWrites.clear();
+         depth = 0;
+         for (int from = 0; from < commands.size(); from += maxBatchSize) {
+            List<ReplicableCommand> batch = commands.subList(from, Math.min(from + maxBatchSize, commands.size()));
+            batchesToShip.add(new Batch(batch, oldestQueuedMillis));
+         }
+         commandsToShip = commands.size();
+      }
+      Batch batch = batchesToShip.poll();
+      if (batch != null) commandsToShip -= batch.commands.size();
+      return batch;
+   }
+
+   private void send(List<ReplicableCommand> batch) {
+      if (trace) log.tracef("Backing up %d commands of cache %s to site %s", batch.size(), cacheName, backup.getSiteName());
+      ReplicableCommand command = batch.size() == 1 ? new SingleRpcCommand(cacheName, batch.get(0))
+            : new MultipleRpcCommand(new ArrayList<ReplicableCommand>(batch), cacheName);
+      try {
+         transport.backupRemotely(Collections.singletonList(backup), command);
+      } catch (Exception e) {
+         log.warnXsiteBackupFailed(cacheName, backup.getSiteName(), e);
+      }
+      batches.incrementAndGet();
+      sentCommands.addAndGet(batch.size());
+   }
+
+   private final class Flusher extends BatchingFlusher {
+      Flusher(Executor executor) {
+         super(MAX_BATCHES_PER_THREAD, executor);
+      }
+
+      @Override
+      protected boolean hasQueuedWork() {
+         return getQueueDepth() > 0;
+      }
+
+      @Override
+      protected void flushBatch() {
+         Batch batch = nextBatch();
+         if (batch != null) send(batch.commands);
+      }
+   }
+
+   private static final class Batch {
+      final List<ReplicableCommand> commands;
+      final long queuedMillis;
+
+      Batch(List<ReplicableCommand> commands, long queuedMillis) {
+         this.commands = commands;
+         this.queuedMillis = queuedMillis;
+      }
+   }
+}
@@ -19,6 +19,7 @@
 
 package org.infinispan.xsite;
 
+import org.infinispan.commands.remote.MultipleRpcCommand;
 import org.infinispan.commands.remote.SingleRpcCommand;
 import org.infinispan.factories.scopes.Scope;
 import org.infinispan.factories.scopes.Scopes;
@@ -37,4 +38,9 @@ public interface BackupReceiverRepository {
     * Process an CacheRpcCommand received from a remote site.
     */
    public Object handleRemoteCommand(SingleRpcCommand cmd, SiteAddress src) throws Throwable;
+
+   /**
+    * Process a batch of commands received from a remote site, in the order they were sent in.
+    */
+   public void handleRemoteCommands(MultipleRpcCommand cmd, SiteAddress src) throws Throwable;
 }
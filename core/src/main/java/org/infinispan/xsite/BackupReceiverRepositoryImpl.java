@@ -20,7 +20,9 @@
 package org.infinispan.xsite;
 
 import org.infinispan.Cache;
+import org.infinispan.commands.ReplicableCommand;
 import org.infinispan.commands.VisitableCommand;
+import org.infinispan.commands.remote.MultipleRpcCommand;
 import org.infinispan.commands.remote.SingleRpcCommand;
 import org.infinispan.configuration.cache.Configuration;
 import org.infinispan.factories.annotations.Inject;
@@ -60,6 +62,22 @@ public Object handleRemoteCommand(SingleRpcCommand cmd, SiteAddress src) throws
       return localBackupCache.handleRemoteCommand((VisitableCommand)cmd.getCommand());
    }
 
+   @Override
+   public void handleRemoteCommands(MultipleRpcCommand cmd, SiteAddress src) throws Throwable {
+      ReplicableCommand[] commands = cmd.getCommands();
+      log.tracef("Handling %d commands from remote site %s", commands.length, src);
+      String siteName = SiteUUID.getSiteName(src.getSite());
+      BackupReceiver localBackupCache = getBackupCacheManager(siteName, cmd.getCacheName());
+      for (ReplicableCommand command : commands) {
+         try {
+            localBackupCache.handleRemoteCommand((VisitableCommand) command);
+         } catch (Throwable t) {
+            // the batch is async, so there is nobody to report the failure to but the log
+            log.unableToApplyBackupCommand(command, siteName, t);
+         }
+      }
+   }
+
    /**
     * Returns the local cache associated defined as backup for the provided remote (site, cache) combo, or throws an
     * exception of no such site is defined.
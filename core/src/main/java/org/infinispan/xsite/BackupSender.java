@@ -60,6 +60,11 @@ public interface BackupSender {
 
    OfflineStatus getOfflineStatus(String siteName);
 
+   /**
+    * Returns the queue batching the backups to the given site, or null if the backups to that site are not batched.
+    */
+   AsyncBackupQueue getBackupQueue(String siteName);
+
    /**
     * Returns a Map having as entries the site names and as value Boolean.TRUE if the site is online and Boolean.FALSE
     * if it is offline.
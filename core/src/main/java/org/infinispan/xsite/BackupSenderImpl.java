@@ -40,6 +40,7 @@
 import org.infinispan.configuration.global.GlobalConfiguration;
 import org.infinispan.context.InvocationContext;
 import org.infinispan.context.impl.TxInvocationContext;
+import org.infinispan.factories.annotations.ComponentName;
 import org.infinispan.factories.annotations.Inject;
 import org.infinispan.factories.annotations.Start;
 import org.infinispan.remoting.transport.AggregateBackupResponse;
@@ -55,10 +56,14 @@
 import javax.transaction.Transaction;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+
+import static org.infinispan.factories.KnownComponentNames.ASYNC_TRANSPORT_EXECUTOR;
 
 /**
  * @author Mircea Markus
@@ -74,11 +79,13 @@ public class BackupSenderImpl implements BackupSender {
    private TransactionTable txTable;
    private final Map<String, CustomFailurePolicy> siteFailurePolicy = new HashMap<String, CustomFailurePolicy>();
    private final ConcurrentMap<String, OfflineStatus> offlineStatus = ConcurrentMapFactory.makeConcurrentMap();
+   private final Map<String, AsyncBackupQueue> backupQueues = new HashMap<String, AsyncBackupQueue>();
 
 
    private final String localSiteName;
    private String cacheName;
    private GlobalConfiguration globalConfig;
+   private ExecutorService asyncTransportExecutor;
 
    private enum BackupFilter {KEEP_1PC_ONLY, KEEP_2PC_ONLY, KEEP_ALL}
    
@@ -87,11 +94,13 @@ public BackupSenderImpl(String localSiteName) {
    }
 
    @Inject
-   public void init(Cache cache, Transport transport, TransactionTable txTable, GlobalConfiguration gc) {
+   public void init(Cache cache, Transport transport, TransactionTable txTable, GlobalConfiguration gc,
+                    @ComponentName(ASYNC_TRANSPORT_EXECUTOR) ExecutorService asyncTransportExecutor) {
       this.cache = cache;
       this.transport = transport;
       this.txTable = txTable;
       this.globalConfig = gc;
+      this.asyncTransportExecutor = asyncTransportExecutor;
    }
 
    @Start
@@ -109,6 +118,11 @@ public void start() {
          }
          OfflineStatus offline = new OfflineStatus(bc.takeOffline());
          offlineStatus.put(bc.site(), offline);
+         if (bc.isAsyncBackup() && bc.asyncBatchSize() > 1) {
+            XSiteBackup backup = new XSiteBackup(bc.site(), false, bc.replicationTimeout());
+            backupQueues.put(bc.site(), new AsyncBackupQueue(backup, cacheName, transport, bc.asyncBatchSize(),
+                                                             asyncTransportExecutor));
+         }
       }
    }
    
@@ -195,6 +209,17 @@ public TakeSiteOfflineResponse takeSiteOffline(String siteName) {
    }
 
    private BackupResponse backupCommand(ReplicableCommand command, List<XSiteBackup> xSiteBackups) throws Exception {
+      if (!backupQueues.isEmpty()) {
+         // the batched sites get the command through their queue, nothing to wait for as they are async
+         for (Iterator<XSiteBackup> it = xSiteBackups.iterator(); it.hasNext(); ) {
+            AsyncBackupQueue queue = backupQueues.get(it.next().getSiteName());
+            if (queue != null) {
+               queue.backup(command);
+               it.remove();
+            }
+         }
+         if (xSiteBackups.isEmpty()) return new AggregateBackupResponse(null, null);
+      }
       return transport.backupRemotely(xSiteBackups, new SingleRpcCommand(cacheName, command));
    }
 
@@ -333,6 +358,11 @@ public OfflineStatus getOfflineStatus(String site) {
       return offlineStatus.get(site);
    }
 
+   @Override
+   public AsyncBackupQueue getBackupQueue(String site) {
+      return backupQueues.get(site);
+   }
+
    @Override
    public Map<String, Boolean> status() {
       Map<String, Boolean> result = new HashMap<String, Boolean>(offlineStatus.size());
@@ -235,6 +235,30 @@ public String bringSiteOnline(String site) {
       return returnFailureOrSuccess(failed, "Could not take the site online on nodes:");
    }
 
+   @Operation(displayName = "Returns the number of commands waiting on this node to be backed up to the given site.")
+   @ManagedOperation(description = "Returns the number of commands waiting on this node to be backed up to the given site in a batch.")
+   public String getBackupQueueDepth(String site) {
+      AsyncBackupQueue queue = backupSender.getBackupQueue(site);
+      if (queue == null) return notBatched(site);
+      return String.valueOf(queue.getQueueDepth());
+   }
+
+   @Operation(displayName = "Returns the average number of commands this node backs up to the given site in a message.")
+   @ManagedOperation(description = "Returns the average number of commands this node backs up to the given site in a message.")
+   public String getAverageBackupBatchSize(String site) {
+      AsyncBackupQueue queue = backupSender.getBackupQueue(site);
+      if (queue == null) return notBatched(site);
+      return String.valueOf(queue.getAverageBatchSize());
+   }
+
+   @Operation(displayName = "Returns for how many milliseconds the oldest command waiting on this node to be backed up to the given site has been queued.")
+   @ManagedOperation(description = "Returns for how many milliseconds the oldest command waiting on this node to be backed up to the given site has been queued.")
+   public String getBackupLag(String site) {
+      AsyncBackupQueue queue = backupSender.getBackupQueue(site);
+      if (queue == null) return notBatched(site);
+      return String.valueOf(queue.getLagMillis());
+   }
+
    private List<Address> checkForErrors(Map<Address, Response> responses) {
       List<Address> failed = new ArrayList<Address>(responses.size());
       for (Map.Entry<Address, Response> e : responses.entrySet()) {
@@ -277,6 +301,11 @@ private String incorrectSiteName(String site) {
       return "Incorrect site name: " + site;
    }
 
+   private String notBatched(String site) {
+      if (backupSender.getOfflineStatus(site) == null) return incorrectSiteName(site);
+      return "The backups to site " + site + " are not batched";
+   }
+
    private Map<Address, Response> invokeRemotely(XSiteAdminCommand command) {
       return rpcManager.invokeRemotely(null, command, true, true);
    }
@@ -254,6 +254,25 @@ public void call() {
 
    }
 
+   public void testOffHeapDataContainer() throws Exception {
+      String config = INFINISPAN_START_TAG +
+            "<default>\n" +
+            "<dataContainer offHeap=\"true\"/>\n" +
+            "</default>\n" +
+            "<namedCache name=\"onHeap\"> \n" +
+            "<dataContainer offHeap=\"false\"/>\n" +
+            "</namedCache> \n" +
+            INFINISPAN_END_TAG;
+      InputStream is = new ByteArrayInputStream(config.getBytes());
+      withCacheManager(new CacheManagerCallable(TestCacheManagerFactory.fromStream(is)) {
+         @Override
+         public void call() {
+            assert cm.getDefaultCacheConfiguration().dataContainer().offHeap();
+            assert !cm.getCacheConfiguration("onHeap").dataContainer().offHeap();
+         }
+      });
+   }
+
    private void assertNamedCacheFile(EmbeddedCacheManager cm, boolean deprecated) {
       final GlobalConfiguration gc = cm.getCacheManagerConfiguration();
 
@@ -0,0 +1,137 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.container;
+
+import org.infinispan.test.AbstractInfinispanTest;
+import org.testng.annotations.Test;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+@Test(groups = "unit", testName = "container.ExpirationIndexTest")
+public class ExpirationIndexTest extends AbstractInfinispanTest {
+
+   public void testPollDue() {
+      ExpirationIndex index = new ExpirationIndex(100);
+      index.add("a", 1010);
+      index.add("b", 1099);
+      index.add("c", 1100);
+      index.add("d", 5000);
+      assert index.size() == 4;
+
+      assert index.pollDue(999).isEmpty();
+      // the bucket holding the time polled for is due as well, the entries in it may have expired already
+      Set<Object> due = keys(index.pollDue(1050));
+      assert due.equals(set("a", "b")) : due;
+      assert index.size() == 2;
+
+      due = keys(index.pollDue(4999));
+      assert due.equals(set("c")) : due;
+      due = keys(index.pollDue(Long.MAX_VALUE));
+      assert due.equals(set("d")) : due;
+      assert index.size() == 0;
+   }
+
+   public void testReAddAfterPoll() {
+      ExpirationIndex index = new ExpirationIndex(100);
+      index.add("k", 1010);
+      assert keys(index.pollDue(1020)).equals(set("k"));
+      // the entry was touched, so it is indexed again with its new expiry time
+      index.add("k", 1020);
+      assert index.size() == 1;
+      assert keys(index.pollDue(1030)).equals(set("k"));
+      assert index.pollDue(1030).isEmpty();
+   }
+
+   public void testRemoveAndReindex() {
+      ExpirationIndex index = new ExpirationIndex(100);
+      index.add("a", 1010);
+      index.add("b", 1010);
+      // indexed again with a later expiry time, so it moves to another bucket
+      index.add("b", 3010);
+      index.remove("a");
+      index.remove("unknown");
+      assert index.size() == 1;
+      // the emptied bucket is still polled
+      assert keys(index.pollDue(2000)).isEmpty();
+      assert keys(index.pollDue(4000)).equals(set("b"));
+      assert index.size() == 0;
+   }
+
+   public void testRemovedEntriesAreUnindexed() {
+      DefaultDataContainer dc = new DefaultDataContainer(16);
+      dc.initialize(null, null, new InternalEntryFactoryImpl(), null, null);
+      for (int i = 0; i < 100; i++) dc.put(i, "v", null, 60000, -1);
+      for (int i = 0; i < 50; i++) dc.remove(i);
+      for (int i = 50; i < 75; i++) dc.put(i, "v", null, -1, -1);
+      for (int i = 75; i < 100; i++) dc.put(i, "v", null, 120000, -1);
+      assert dc.expirationIndex.size() == 25 : dc.expirationIndex.size();
+      dc.clear();
+      assert dc.expirationIndex.size() == 0;
+   }
+
+   public void testClear() {
+      ExpirationIndex index = new ExpirationIndex();
+      for (int i = 0; i < 100; i++) index.add(i, i * 100);
+      assert index.size() == 100;
+      index.clear();
+      assert index.size() == 0;
+      assert index.pollDue(Long.MAX_VALUE).isEmpty();
+   }
+
+   public void testPurgeRechecksEntries() throws InterruptedException {
+      DefaultDataContainer dc = new DefaultDataContainer(16);
+      dc.initialize(null, null, new InternalEntryFactoryImpl(), null, null);
+      dc.put("transient", "v", null, -1, 200);
+      dc.put("mortal", "v", null, 200, -1);
+      dc.put("immortal", "v", null, -1, -1);
+      dc.put("replaced", "v", null, 200, -1);
+      dc.put("replaced", "v", null, -1, -1);
+      Thread.sleep(150);
+      assert dc.get("transient") != null;
+      Thread.sleep(150);
+      dc.purgeExpired();
+      // the transient entry was touched after it was indexed, so it has not expired yet
+      assert dc.containsKey("transient");
+      assert !dc.containsKey("mortal");
+      assert dc.containsKey("immortal");
+      assert dc.containsKey("replaced");
+      assert dc.size() == 3;
+      Thread.sleep(250);
+      dc.purgeExpired();
+      assert dc.size() == 2 : "Expected only the immortal entries to be left, was " + dc.keySet();
+   }
+
+   private static Set<Object> keys(List<Set<Object>> buckets) {
+      Set<Object> keys = new HashSet<Object>();
+      for (Set<Object> bucket : buckets) keys.addAll(bucket);
+      return keys;
+   }
+
+   private static Set<Object> set(Object... keys) {
+      Set<Object> set = new HashSet<Object>();
+      for (Object key : keys) set.add(key);
+      return set;
+   }
+}
@@ -0,0 +1,108 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.container;
+
+import org.infinispan.container.entries.InternalCacheEntry;
+import org.infinispan.eviction.ActivationManager;
+import org.infinispan.eviction.EvictionManager;
+import org.infinispan.eviction.EvictionStrategy;
+import org.infinispan.eviction.EvictionThreadPolicy;
+import org.infinispan.eviction.PassivationManager;
+import org.infinispan.loaders.CacheLoaderManager;
+import org.infinispan.marshall.TestObjectStreamMarshaller;
+import org.testng.annotations.Test;
+
+import static org.mockito.Mockito.mock;
+
+@Test(groups = "unit", testName = "container.OffHeapDataContainerTest")
+public class OffHeapDataContainerTest extends SimpleDataContainerTest {
+
+   @Override
+   protected DataContainer createContainer() {
+      OffHeapDataContainer dc = new OffHeapDataContainer(16);
+      dc.initialize(new TestObjectStreamMarshaller(), null, null, new InternalEntryFactoryImpl(), null, null);
+      return dc;
+   }
+
+   @Override
+   public void testUpdatingLastUsed() throws Exception {
+      // entries handed out are views, so the last used stamp has to be checked on a fresh read
+      long idle = 600000;
+      dc.put("k", "v", null, -1, -1);
+      InternalCacheEntry ice = dc.get("k");
+      assert ice.getClass().equals(immortaltype());
+      assert ice.getExpiryTime() == -1;
+      dc.put("k", "v", null, -1, idle);
+      long oldTime = System.currentTimeMillis();
+      Thread.sleep(100); // for time calc granularity
+      ice = dc.get("k");
+      assert ice.getClass().equals(transienttype());
+      assert ice.getLastUsed() > oldTime;
+      assert ice.getMaxIdle() == idle;
+
+      oldTime = System.currentTimeMillis();
+      Thread.sleep(100); // for time calc granularity
+      assert dc.get("k").getLastUsed() > oldTime;
+      assert dc.peek("k").getLastUsed() > oldTime;
+   }
+
+   public void testRemoveAndClear() {
+      for (int i = 0; i < 100; i++) dc.put(i, "v" + i, null, -1, -1);
+      assert dc.size() == 100;
+      assert "v50".equals(dc.remove(50).getValue());
+      assert dc.remove(50) == null;
+      assert !dc.containsKey(50);
+      assert dc.size() == 99;
+      dc.clear();
+      assert dc.size() == 0;
+      assert dc.get(1) == null;
+   }
+
+   public void testStopFreesAllEntries() {
+      for (int i = 0; i < 100; i++) dc.put(i, "v" + i, null, -1, -1);
+      ((OffHeapDataContainer) dc).stop();
+      assert dc.size() == 0;
+      assert dc.get(1) == null;
+      // still usable if the cache is restarted
+      dc.put(1, "v1", null, -1, -1);
+      assert "v1".equals(dc.get(1).getValue());
+   }
+
+   public void testBoundedEviction() {
+      DataContainer bounded = OffHeapDataContainer.boundedDataContainer(1, 10, EvictionStrategy.LRU,
+                                                                        EvictionThreadPolicy.DEFAULT);
+      ((OffHeapDataContainer) bounded).initialize(new TestObjectStreamMarshaller(), mock(EvictionManager.class),
+            mock(PassivationManager.class), new InternalEntryFactoryImpl(), mock(ActivationManager.class),
+            mock(CacheLoaderManager.class));
+      for (int i = 0; i < 20; i++) {
+         bounded.put(i, "v" + i, null, -1, -1);
+         // keep the first key hot so it is never the least recently used one
+         assert bounded.get(0) != null;
+      }
+      assert bounded.size() == 10 : "Expected 10 entries, was " + bounded.size();
+      assert bounded.containsKey(0);
+      assert bounded.containsKey(19);
+      assert !bounded.containsKey(1);
+      bounded.clear();
+   }
+}
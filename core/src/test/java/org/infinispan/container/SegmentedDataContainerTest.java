@@ -0,0 +1,76 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.container;
+
+import org.infinispan.commons.hash.MurmurHash3;
+import org.infinispan.container.entries.InternalCacheEntry;
+import org.testng.annotations.Test;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Set;
+
+@Test(groups = "unit", testName = "container.SegmentedDataContainerTest")
+public class SegmentedDataContainerTest extends SimpleDataContainerTest {
+
+   private static final int NUM_SEGMENTS = 8;
+
+   @Override
+   protected DataContainer createContainer() {
+      SegmentedDataContainer dc = new SegmentedDataContainer(16, new MurmurHash3(), NUM_SEGMENTS);
+      dc.initialize(null, null, new InternalEntryFactoryImpl(), null, null);
+      return dc;
+   }
+
+   public void testSegmentOperations() {
+      SegmentedDataContainer sdc = (SegmentedDataContainer) dc;
+      for (int i = 0; i < 100; i++) sdc.put(i, "v" + i, null, -1, -1);
+
+      int total = 0;
+      for (int segmentId = 0; segmentId < NUM_SEGMENTS; segmentId++) {
+         int count = 0;
+         for (Iterator<InternalCacheEntry> it = sdc.segmentIterator(segmentId); it.hasNext(); ) {
+            assert sdc.getSegment(it.next().getKey()) == segmentId;
+            count++;
+         }
+         assert count == sdc.segmentSize(segmentId);
+         assert count == sdc.segmentKeySet(segmentId).size();
+         total += count;
+      }
+      assert total == 100;
+
+      Set<Object> removedKeys = new HashSet<Object>(sdc.segmentKeySet(0));
+      sdc.removeSegments(Collections.singleton(0));
+      assert sdc.segmentSize(0) == 0;
+      assert sdc.size() == 100 - removedKeys.size();
+      for (Object key : removedKeys) assert !sdc.containsKey(key);
+   }
+
+   public void testPurgeExpiredAcrossSegments() {
+      for (int i = 0; i < 50; i++) dc.put(i, "v" + i, null, 0, -1);
+      for (int i = 50; i < 100; i++) dc.put(i, "v" + i, null, -1, -1);
+      dc.purgeExpired();
+      assert dc.size() == 50 : "Expected 50 entries, was " + dc.size();
+   }
+}
@@ -0,0 +1,205 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.context;
+
+import org.infinispan.AdvancedCache;
+import org.infinispan.configuration.cache.ConfigurationBuilder;
+import org.infinispan.container.entries.CacheEntry;
+import org.infinispan.container.entries.ImmortalCacheEntry;
+import org.infinispan.container.entries.ReadCommittedEntry;
+import org.infinispan.loaders.dummy.DummyInMemoryCacheStoreConfigurationBuilder;
+import org.infinispan.manager.EmbeddedCacheManager;
+import org.infinispan.notifications.Listener;
+import org.infinispan.notifications.cachelistener.annotation.CacheEntryModified;
+import org.infinispan.notifications.cachelistener.event.CacheEntryModifiedEvent;
+import org.infinispan.test.SingleCacheManagerTest;
+import org.infinispan.test.fwk.TestCacheManagerFactory;
+import org.testng.annotations.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Tests the recycling of the contexts created by the {@link NonTransactionalInvocationContextContainer}.
+ *
+ * @since 5.2
+ */
+@Test(groups = "functional", testName = "context.NonTransactionalInvocationContextContainerTest")
+public class NonTransactionalInvocationContextContainerTest extends SingleCacheManagerTest {
+
+   @Override
+   protected EmbeddedCacheManager createCacheManager() throws Exception {
+      return TestCacheManagerFactory.createLocalCacheManager(false);
+   }
+
+   public void testReleasedContextIsReused() {
+      NonTransactionalInvocationContextContainer icc = new NonTransactionalInvocationContextContainer();
+      InvocationContext ctx = icc.createSingleKeyNonTxInvocationContext();
+      ctx.putLookedUpEntry("k", new ImmortalCacheEntry("k", "v"));
+      ctx.addLockedKey("k");
+      ctx.setClassLoader(getClass().getClassLoader());
+      ctx.setUseFutureReturnType(true);
+      icc.releaseInvocationContext(ctx);
+
+      InvocationContext reused = icc.createSingleKeyNonTxInvocationContext();
+      assert reused == ctx;
+      assert reused.lookupEntry("k") == null;
+      assert reused.getLookedUpEntries().isEmpty();
+      assert reused.getLockedKeys().isEmpty();
+      assert reused.getClassLoader() == null;
+      assert !reused.isUseFutureReturnType();
+      assert reused.isOriginLocal();
+
+      InvocationContext multiKey = icc.createInvocationContext(true, 2);
+      multiKey.putLookedUpEntry("k1", new ImmortalCacheEntry("k1", "v1"));
+      multiKey.putLookedUpEntry("k2", new ImmortalCacheEntry("k2", "v2"));
+      icc.releaseInvocationContext(multiKey);
+      InvocationContext reusedMultiKey = icc.createInvocationContext(true, 3);
+      assert reusedMultiKey == multiKey;
+      assert reusedMultiKey.getLookedUpEntries().isEmpty();
+
+      InvocationContext large = icc.createInvocationContext(true, NonTransactionalInvocationContextContainer.MAX_RECYCLED_KEYS + 1);
+      icc.releaseInvocationContext(large);
+      assert icc.createInvocationContext(true, NonTransactionalInvocationContextContainer.MAX_RECYCLED_KEYS + 1) != large;
+   }
+
+   public void testContextInUseIsNotReused() {
+      NonTransactionalInvocationContextContainer icc = new NonTransactionalInvocationContextContainer();
+      InvocationContext outer = icc.createSingleKeyNonTxInvocationContext();
+      InvocationContext nested = icc.createSingleKeyNonTxInvocationContext();
+      assert nested != outer;
+      icc.releaseInvocationContext(nested);
+      assert icc.createSingleKeyNonTxInvocationContext() == nested;
+
+      // contexts of asynchronous operations are released by another thread
+      InvocationContext async = icc.createInvocationContext(true, 2);
+      assert icc.createInvocationContext(true, 2) != async;
+   }
+
+   public void testContextReleasedByAnotherThreadIsReused() throws Exception {
+      final NonTransactionalInvocationContextContainer icc = new NonTransactionalInvocationContextContainer();
+      final InvocationContext ctx = icc.createSingleKeyNonTxInvocationContext();
+      ctx.putLookedUpEntry("k", new ImmortalCacheEntry("k", "v"));
+      Thread releaser = new Thread("Releaser") {
+         @Override
+         public void run() {
+            icc.releaseInvocationContext(ctx);
+         }
+      };
+      releaser.start();
+      releaser.join();
+      InvocationContext reused = icc.createSingleKeyNonTxInvocationContext();
+      assert reused == ctx;
+      assert reused.lookupEntry("k") == null;
+   }
+
+   public void testRecycledEntryIsClaimedOncePerInvocation() {
+      NonTransactionalInvocationContextContainer icc = new NonTransactionalInvocationContextContainer();
+      SingleKeyNonTxInvocationContext ctx = (SingleKeyNonTxInvocationContext) icc.createInvocationContext(true, 1);
+      ReadCommittedEntry entry = ctx.claimRecycledEntry();
+      assert entry != null;
+      assert ctx.claimRecycledEntry() == null;
+      entry.reinitialize("k", "v", -1);
+      icc.releaseInvocationContext(ctx);
+
+      assert icc.createInvocationContext(true, 1) == ctx;
+      ReadCommittedEntry reclaimed = ctx.claimRecycledEntry();
+      assert reclaimed == entry;
+      assert reclaimed.getKey() == null && reclaimed.getValue() == null;
+      icc.releaseInvocationContext(ctx);
+      assert new SingleKeyNonTxInvocationContext(true).claimRecycledEntry() == null;
+   }
+
+   public void testRecycledEntryIsNotClaimedByReads() {
+      NonTransactionalInvocationContextContainer icc = new NonTransactionalInvocationContextContainer();
+      SingleKeyNonTxInvocationContext read = (SingleKeyNonTxInvocationContext) icc.createInvocationContext(false, 1);
+      assert read.claimRecycledEntry() == null;
+      icc.releaseInvocationContext(read);
+      SingleKeyNonTxInvocationContext other = (SingleKeyNonTxInvocationContext) icc.createSingleKeyNonTxInvocationContext();
+      assert other == read;
+      assert other.claimRecycledEntry() == null;
+   }
+
+   public void testCacheEntryLoadedByReadIsNotRecycled() {
+      ConfigurationBuilder builder = new ConfigurationBuilder();
+      builder.loaders().addLoader(DummyInMemoryCacheStoreConfigurationBuilder.class)
+            .storeName(getClass().getSimpleName());
+      cacheManager.defineConfiguration("withStore", builder.build());
+      AdvancedCache<Object, Object> withStore = cacheManager.getCache("withStore").getAdvancedCache();
+
+      withStore.put("k", "v");
+      withStore.evict("k");
+      // loaded from the store and wrapped for the data container on behalf of the retrieval
+      CacheEntry loaded = withStore.getCacheEntry("k", null, null);
+      assert loaded != null;
+
+      // writes on the same thread re-use its context
+      withStore.put("k2", "v2");
+      withStore.remove("k");
+      assert "k".equals(loaded.getKey());
+      assert "v".equals(loaded.getValue());
+   }
+
+   public void testCacheOperationsWithRecycledContexts() {
+      for (int i = 0; i < 10; i++) {
+         cache.put("k", "v" + i);
+         assert ("v" + i).equals(cache.get("k"));
+      }
+      assert "v9".equals(cache.remove("k"));
+      assert !cache.containsKey("k");
+
+      Map<String, String> map = new HashMap<String, String>();
+      map.put("k1", "v1");
+      map.put("k2", "v2");
+      cache.putAll(map);
+      cache.putAll(map);
+      assert "v1".equals(cache.get("k1"));
+      assert "v2".equals(cache.get("k2"));
+
+      try {
+         cache.put("k", null);
+         assert false : "Null values should be rejected";
+      } catch (NullPointerException e) {
+         // the context created for it was never released
+      }
+      cache.put("k", "v");
+      assert "v".equals(cache.get("k"));
+   }
+
+   public void testNestedInvocationFromListener() {
+      cache.addListener(new NestedPutListener());
+      cache.put("k", "v");
+      assert "v".equals(cache.get("k"));
+      assert "nested-v".equals(cache.get("nested-k"));
+   }
+
+   @Listener
+   public static class NestedPutListener {
+      @CacheEntryModified
+      public void entryModified(CacheEntryModifiedEvent<Object, Object> event) {
+         if (!event.isPre() && "k".equals(event.getKey())) {
+            event.getCache().put("nested-k", "nested-" + event.getValue());
+         }
+      }
+   }
+}
@@ -0,0 +1,113 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.distexec.mapreduce;
+
+import java.util.Map;
+
+import org.infinispan.Cache;
+import org.infinispan.configuration.cache.ConfigurationBuilder;
+import org.testng.annotations.Test;
+
+import static org.testng.AssertJUnit.assertEquals;
+
+/**
+ * ParallelMapTwoNodesMapReduceTest tests Map/Reduce functionality using two Infinispan nodes, local
+ * reduce and a multi-threaded map phase
+ * 
+ * @since 5.2
+ */
+@Test(groups = "functional", testName = "distexec.ParallelMapTwoNodesMapReduceTest")
+public class ParallelMapTwoNodesMapReduceTest extends BaseWordCountMapReduceTest {
+
+   private static final int MAP_PARALLELISM = 4;
+
+   @Override
+   protected void createCacheManagers() throws Throwable {
+      ConfigurationBuilder builder = getDefaultClusteredCacheConfig(getCacheMode(), true);
+      createClusteredCaches(2, cacheName(), builder);
+   }
+
+   @SuppressWarnings({ "rawtypes", "unchecked" })
+   @Override
+   protected MapReduceTask<String, String, String, Integer> createMapReduceTask(Cache c) {
+      return new MapReduceTask<String, String, String, Integer>(c).mappedInParallel(MAP_PARALLELISM);
+   }
+
+   @SuppressWarnings("unchecked")
+   public void testParallelMapOnManyKeys() throws Exception {
+      Cache<String, String> c1 = cache(0, cacheName());
+      int numEntries = 2000;
+      for (int i = 0; i < numEntries; i++) {
+         c1.put("parallel" + i, "Infinispan maps in parallel");
+      }
+
+      for (boolean useCombiner : new boolean[] {false, true}) {
+         MapReduceTask<String, String, String, Integer> task = createMapReduceTask(c1);
+         task.mappedWith(new WordCountMapper()).reducedWith(new WordCountReducer());
+         if (useCombiner)
+            task.combinedWith(new WordCountReducer());
+         Map<String, Integer> result = task.execute();
+         assertEquals(numEntries, result.get("parallel").intValue());
+         assertEquals(numEntries, result.get("maps").intValue());
+      }
+   }
+
+   @SuppressWarnings("unchecked")
+   public void testSlowHelpersAreMerged() throws Exception {
+      Cache<String, String> c1 = cache(0, cacheName());
+      int numEntries = 500;
+      for (int i = 0; i < numEntries; i++) {
+         c1.put("slow" + i, "helpers still mapping");
+      }
+
+      // helpers are usually still mapping their last chunk when the calling thread runs out of chunks
+      for (int i = 0; i < 3; i++) {
+         MapReduceTask<String, String, String, Integer> task = createMapReduceTask(c1);
+         task.mappedWith(new SlowWordCountMapper()).reducedWith(new WordCountReducer());
+         Map<String, Integer> result = task.execute();
+         assertEquals(numEntries, result.get("mapping").intValue());
+      }
+   }
+
+   @Test(expectedExceptions = IllegalArgumentException.class)
+   public void testInvalidMapParallelism() {
+      new MapReduceTask<String, String, String, Integer>(cache(0, cacheName())).mappedInParallel(0);
+   }
+
+   static class SlowWordCountMapper extends WordCountMapper {
+      /** The serialVersionUID */
+      private static final long serialVersionUID = 2384733563284416011L;
+
+      @Override
+      public void map(String key, String value, Collector<String, Integer> collector) {
+         if (key.hashCode() % 2 == 0) {
+            try {
+               Thread.sleep(2);
+            } catch (InterruptedException e) {
+               Thread.currentThread().interrupt();
+            }
+         }
+         super.map(key, value, collector);
+      }
+   }
+}
@@ -0,0 +1,122 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.distribution;
+
+import org.infinispan.remoting.transport.Address;
+import org.infinispan.test.AbstractInfinispanTest;
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+@Test(groups = "unit", testName = "distribution.L1RequestorsTest")
+public class L1RequestorsTest extends AbstractInfinispanTest {
+
+   private static final TestAddress A = new TestAddress(0, "A");
+   private static final TestAddress B = new TestAddress(1, "B");
+   private static final TestAddress C = new TestAddress(2, "C");
+
+   public void testAddAndRemove() {
+      L1Requestors requestors = new L1Requestors();
+      requestors.add("k1", A, 1);
+      requestors.add("k1", B, 2);
+      requestors.add("k1", A, 3);
+      requestors.add("k2", C, 4);
+      assert requestors.size() == 2;
+      assert requestors.getNumberOfMembers() == 3;
+
+      assert requestors.remove("k1").equals(set(A, B));
+      assert requestors.remove("k1") == null;
+      assert requestors.remove("k2").equals(set(C));
+      assert requestors.size() == 0;
+
+      requestors.add("k1", C, 5);
+      assert requestors.remove("k1").equals(set(C));
+   }
+
+   public void testRemoveExpired() {
+      L1Requestors requestors = new L1Requestors();
+      requestors.add("k1", A, 100);
+      requestors.add("k2", A, 100);
+      // the requestors of a key are kept as long as any of them requests it
+      requestors.add("k2", B, 300);
+      requestors.add("k3", C, 500);
+
+      assert requestors.removeExpired(200) == 1;
+      assert requestors.remove("k1") == null;
+      assert requestors.remove("k2").equals(set(A, B));
+
+      assert requestors.removeExpired(1000) == 1;
+      assert requestors.size() == 0;
+      // adding again after an expiry starts over
+      requestors.add("k3", A, 1100);
+      assert requestors.remove("k3").equals(set(A));
+   }
+
+   public void testManyMembers() {
+      L1Requestors requestors = new L1Requestors();
+      Set<Address> expected = new HashSet<Address>();
+      for (int i = 0; i < 200; i++) {
+         TestAddress member = new TestAddress(i, "M" + i);
+         if (i % 3 == 0) {
+            requestors.add("k", member, i);
+            expected.add(member);
+         } else {
+            requestors.add("other", member, i);
+         }
+      }
+      assert requestors.getNumberOfMembers() == 200;
+      long footprint = requestors.estimateMemoryFootprint();
+      assert footprint > 0;
+      assert requestors.remove("k").equals(expected);
+      assert requestors.estimateMemoryFootprint() < footprint;
+      assert requestors.remove("other").size() == 200 - expected.size();
+   }
+
+   public void testIndexesRecycledWhenMembersLeave() {
+      L1Requestors requestors = new L1Requestors();
+      requestors.add("k1", A, 1);
+      requestors.add("k1", B, 2);
+      requestors.add("k2", C, 3);
+      requestors.retainAll(Arrays.<Address>asList(B, C));
+      assert requestors.getNumberOfMembers() == 2;
+      // A is gone, and nobody took its index yet
+      assert requestors.remove("k1").equals(set(B));
+
+      requestors.add("k1", A, 4);
+      requestors.retainAll(Arrays.<Address>asList(B, C));
+      TestAddress d = new TestAddress(3, "D");
+      requestors.add("k2", d, 5);
+      assert requestors.getNumberOfMembers() == 3;
+      // D was given the index A left behind, so it is told to invalidate the key A requested, which does no harm
+      assert requestors.remove("k1").equals(set(d));
+      assert requestors.remove("k2").equals(set(C, d));
+   }
+
+   private static Set<Address> set(Address... addresses) {
+      Set<Address> set = new HashSet<Address>();
+      for (Address a : addresses) set.add(a);
+      return set;
+   }
+}
@@ -27,7 +27,12 @@
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 
+import org.infinispan.commands.VisitableCommand;
+import org.infinispan.commands.read.GetKeyValueCommand;
+import org.infinispan.commands.write.ClearCommand;
+import org.infinispan.context.InvocationContext;
 import org.infinispan.factories.components.ComponentMetadataRepo;
+import org.infinispan.interceptors.base.CommandHandlerTable;
 import org.infinispan.interceptors.base.CommandInterceptor;
 import org.infinispan.util.logging.Log;
 import org.infinispan.util.logging.LogFactory;
@@ -75,6 +80,63 @@ public void testConcurrentAddRemove() throws Exception {
       assert ic.asList().size() == 5 : "Resulting interceptor chain was actually " + ic.asList();
    }
 
+   public void testPassThroughInterceptorsAreSkipped() {
+      InterceptorChain ic = new InterceptorChain(new ComponentMetadataRepo());
+      ClearInterceptor clearInterceptor = new ClearInterceptor();
+      TerminalInterceptor terminal = new TerminalInterceptor();
+      ic.setFirstInChain(clearInterceptor);
+      ic.appendInterceptor(terminal, false);
+
+      GetKeyValueCommand get = new GetKeyValueCommand();
+      ClearCommand clear = new ClearCommand();
+      assert new CommandHandlerTable(clearInterceptor).handlerFor(get) == terminal;
+      assert new CommandHandlerTable(clearInterceptor).handlerFor(clear) == clearInterceptor;
+
+      assert ic.invoke(null, get) == terminal;
+      assert ic.invoke(null, clear) == terminal;
+      assert clearInterceptor.visits == 1;
+
+      // the plan is rebuilt when the chain changes
+      GetInterceptor getInterceptor = new GetInterceptor();
+      ic.addInterceptor(getInterceptor, 1);
+      assert ic.invoke(null, get) == terminal;
+      assert getInterceptor.visits == 1;
+      assert ic.invoke(null, clear) == terminal;
+      assert clearInterceptor.visits == 2;
+      assert getInterceptor.visits == 1;
+
+      ic.removeInterceptor(GetInterceptor.class);
+      assert ic.invoke(null, get) == terminal;
+      assert getInterceptor.visits == 1;
+   }
+
+   static class ClearInterceptor extends CommandInterceptor {
+      int visits;
+
+      @Override
+      public Object visitClearCommand(InvocationContext ctx, ClearCommand command) throws Throwable {
+         visits++;
+         return invokeNextInterceptor(ctx, command);
+      }
+   }
+
+   static class GetInterceptor extends CommandInterceptor {
+      int visits;
+
+      @Override
+      public Object visitGetKeyValueCommand(InvocationContext ctx, GetKeyValueCommand command) throws Throwable {
+         visits++;
+         return invokeNextInterceptor(ctx, command);
+      }
+   }
+
+   static class TerminalInterceptor extends CommandInterceptor {
+      @Override
+      protected Object handleDefault(InvocationContext ctx, VisitableCommand command) {
+         return this;
+      }
+   }
+
    private static class InterceptorChainUpdater implements Callable<Void> {
       private final InterceptorChain ic;
       private final CyclicBarrier barrier;
@@ -301,6 +301,37 @@ public void testOnePhaseCommit() throws CacheLoaderException {
       assert cs.containsKey("k3");
    }
 
+   public void testApplyModifications() throws CacheLoaderException {
+      cs.store(TestInternalCacheEntryFactory.create("k0", "v0"));
+      cs.store(TestInternalCacheEntryFactory.create("k1", "v1"));
+
+      List<Modification> mods = new ArrayList<Modification>();
+      mods.add(new Store(TestInternalCacheEntryFactory.create("k1", "updated")));
+      mods.add(new Store(TestInternalCacheEntryFactory.create("k2", "v2")));
+      mods.add(new Store(TestInternalCacheEntryFactory.create("k3", "v3")));
+      mods.add(new Remove("k0"));
+      mods.add(new Store(TestInternalCacheEntryFactory.create("k3", "overwritten")));
+      mods.add(new Remove("k2"));
+      mods.add(new Remove("nonexistent"));
+      cs.applyModifications(mods);
+
+      assert !cs.containsKey("k0");
+      assert cs.load("k1").getValue().equals("updated");
+      assert !cs.containsKey("k2");
+      assert cs.load("k3").getValue().equals("overwritten");
+
+      mods = new ArrayList<Modification>();
+      mods.add(new Store(TestInternalCacheEntryFactory.create("k4", "v4")));
+      mods.add(new Clear());
+      mods.add(new Store(TestInternalCacheEntryFactory.create("k5", "v5")));
+      cs.applyModifications(mods);
+
+      assert !cs.containsKey("k1");
+      assert !cs.containsKey("k3");
+      assert !cs.containsKey("k4");
+      assert cs.load("k5").getValue().equals("v5");
+   }
+
    public void testTwoPhaseCommit() throws CacheLoaderException {
       List<Modification> mods = new ArrayList<Modification>();
       mods.add(new Store(TestInternalCacheEntryFactory.create("k1", "v1")));
@@ -0,0 +1,106 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.loaders;
+
+import org.infinispan.configuration.cache.ConfigurationBuilder;
+import org.infinispan.container.entries.InternalCacheEntry;
+import org.infinispan.loaders.dummy.DummyInMemoryCacheStore;
+import org.infinispan.manager.EmbeddedCacheManager;
+import org.infinispan.test.SingleCacheManagerTest;
+import org.infinispan.test.TestingUtil;
+import org.infinispan.test.fwk.TestCacheManagerFactory;
+import org.infinispan.util.concurrent.NoOpFuture;
+import org.infinispan.util.concurrent.NotifyingFuture;
+import org.testng.annotations.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Tests that the cache store interceptor issues the writes of a putAll through the {@link NonBlockingCacheStore} SPI.
+ *
+ * @since 5.2
+ */
+@Test(groups = "functional", testName = "loaders.NonBlockingCacheStoreTest")
+public class NonBlockingCacheStoreTest extends SingleCacheManagerTest {
+
+   @Override
+   protected EmbeddedCacheManager createCacheManager() throws Exception {
+      ConfigurationBuilder builder = TestCacheManagerFactory.getDefaultCacheConfiguration(false);
+      builder.loaders().addStore().cacheStore(new NonBlockingDummyStore());
+      return TestCacheManagerFactory.createCacheManager(builder);
+   }
+
+   public void testPutAllStoresAsynchronously() throws CacheLoaderException {
+      NonBlockingDummyStore store = (NonBlockingDummyStore) TestingUtil.extractComponent(cache, CacheLoaderManager.class).getCacheStore();
+      Map<String, String> data = new HashMap<String, String>();
+      for (int i = 0; i < 10; i++) data.put("k" + i, "v" + i);
+      cache.putAll(data);
+
+      assert store.asyncStores.get() == 10 : "Expected 10 asynchronous stores, was " + store.asyncStores.get();
+      for (Map.Entry<String, String> e : data.entrySet()) {
+         assert e.getValue().equals(store.load(e.getKey()).getValue());
+      }
+
+      // a single entry is still written synchronously
+      cache.put("k", "v");
+      assert store.asyncStores.get() == 10;
+      assert "v".equals(store.load("k").getValue());
+   }
+
+   public static class NonBlockingDummyStoreConfig extends DummyInMemoryCacheStore.Cfg {
+      private static final long serialVersionUID = 1L;
+
+      public NonBlockingDummyStoreConfig() {
+         setCacheLoaderClassName(NonBlockingDummyStore.class.getName());
+      }
+   }
+
+   @CacheLoaderMetadata(configurationClass = NonBlockingDummyStoreConfig.class)
+   public static class NonBlockingDummyStore extends DummyInMemoryCacheStore implements NonBlockingCacheStore {
+      final AtomicInteger asyncStores = new AtomicInteger();
+
+      @Override
+      public Class<? extends CacheLoaderConfig> getConfigurationClass() {
+         return NonBlockingDummyStoreConfig.class;
+      }
+
+      @Override
+      public NotifyingFuture<InternalCacheEntry> loadAsync(Object key) {
+         return new NoOpFuture<InternalCacheEntry>(load(key));
+      }
+
+      @Override
+      public NotifyingFuture<?> storeAsync(InternalCacheEntry entry) {
+         asyncStores.incrementAndGet();
+         store(entry);
+         return new NoOpFuture<Void>(null);
+      }
+
+      @Override
+      public NotifyingFuture<?> removeAsync(Object key) {
+         return new NoOpFuture<Boolean>(remove(key));
+      }
+   }
+}
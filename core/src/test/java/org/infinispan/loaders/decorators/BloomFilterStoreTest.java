@@ -0,0 +1,95 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.loaders.decorators;
+
+import org.infinispan.loaders.BaseCacheStoreTest;
+import org.infinispan.loaders.CacheLoaderException;
+import org.infinispan.loaders.CacheStore;
+import org.infinispan.loaders.dummy.DummyInMemoryCacheStore;
+import org.infinispan.marshall.TestObjectStreamMarshaller;
+import org.infinispan.test.fwk.TestInternalCacheEntryFactory;
+import org.testng.annotations.Test;
+
+@Test(groups = "unit", testName = "loaders.decorators.BloomFilterStoreTest")
+public class BloomFilterStoreTest extends BaseCacheStoreTest {
+
+   DummyInMemoryCacheStore underlying;
+   BloomFilterStore store;
+
+   @Override
+   protected CacheStore createCacheStore() throws CacheLoaderException {
+      underlying = new DummyInMemoryCacheStore();
+      store = new BloomFilterStore(underlying, 1000, 0.01);
+      store.init(new DummyInMemoryCacheStore.Cfg().storeName(getClass().getName()), getCache(), new TestObjectStreamMarshaller());
+      store.start();
+      return store;
+   }
+
+   public void testMissingKeysDoNotReachStore() throws CacheLoaderException {
+      for (int i = 0; i < 100; i++) store.store(TestInternalCacheEntryFactory.create("k" + i, "v" + i));
+      int loadsBefore = underlying.stats().get("load");
+      for (int i = 0; i < 100; i++) assert ("v" + i).equals(store.load("k" + i).getValue());
+      assert underlying.stats().get("load") == loadsBefore + 100;
+
+      for (int i = 0; i < 1000; i++) assert store.load("missing" + i) == null;
+      assert store.getSkippedLoads() + store.getFalsePositives() == 1000;
+      assert store.getFalsePositiveRate() < 0.05 : "False positive rate is " + store.getFalsePositiveRate();
+      assert underlying.stats().get("load") == loadsBefore + 100 + store.getFalsePositives();
+   }
+
+   public void testRemovedAndClearedKeysAreFiltered() throws CacheLoaderException {
+      store.store(TestInternalCacheEntryFactory.create("k1", "v1"));
+      store.store(TestInternalCacheEntryFactory.create("k2", "v2"));
+      assert store.remove("k1");
+      // removing a missing key must not make the filter forget about others
+      assert !store.remove("k3");
+      assert store.load("k1") == null;
+      assert store.load("k2") != null;
+
+      store.clear();
+      store.resetStatistics();
+      assert store.load("k2") == null;
+      assert store.getSkippedLoads() == 1;
+   }
+
+   public void testFilterRebuiltOnStart() throws CacheLoaderException {
+      store.store(TestInternalCacheEntryFactory.create("k1", "v1"));
+      store.stop();
+      store.start();
+      assert "v1".equals(store.load("k1").getValue());
+   }
+
+   public void testRemovalsThroughAsyncStoreAreNotCounted() throws CacheLoaderException {
+      BloomFilterStore filtered = new BloomFilterStore(new AsyncStore(new DummyInMemoryCacheStore(), new AsyncStoreConfig()), 16, 0.01);
+      filtered.init(new DummyInMemoryCacheStore.Cfg().storeName(getClass().getName() + "-async"), getCache(), new TestObjectStreamMarshaller());
+      filtered.start();
+      try {
+         filtered.store(TestInternalCacheEntryFactory.create("k", "v"));
+         // the asynchronous store reports all of them as removed, although none was ever stored
+         for (int i = 0; i < 100; i++) assert filtered.remove("missing" + i);
+         assert "v".equals(filtered.load("k").getValue());
+      } finally {
+         filtered.stop();
+      }
+   }
+}
@@ -0,0 +1,167 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.loaders.decorators;
+
+import org.infinispan.loaders.BaseCacheStoreTest;
+import org.infinispan.loaders.CacheLoaderException;
+import org.infinispan.loaders.CacheStore;
+import org.infinispan.loaders.dummy.DummyInMemoryCacheStore;
+import org.infinispan.loaders.modifications.Modification;
+import org.infinispan.loaders.modifications.Store;
+import org.infinispan.marshall.TestObjectStreamMarshaller;
+import org.infinispan.test.fwk.TestInternalCacheEntryFactory;
+import org.infinispan.transaction.xa.GlobalTransaction;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+@Test(groups = "unit", testName = "loaders.decorators.GroupCommitStoreTest")
+public class GroupCommitStoreTest extends BaseCacheStoreTest {
+
+   BlockingStore underlying;
+   GroupCommitStore store;
+
+   @Override
+   protected CacheStore createCacheStore() throws CacheLoaderException {
+      underlying = new BlockingStore();
+      store = new GroupCommitStore(underlying, 64);
+      store.init(new DummyInMemoryCacheStore.Cfg().storeName(getClass().getName()), getCache(), new TestObjectStreamMarshaller());
+      store.start();
+      return store;
+   }
+
+   public void testConcurrentOnePhaseCommitsAreGrouped() throws Exception {
+      underlying.block = true;
+      Committer first = new Committer("k0");
+      first.start();
+      underlying.entered.await();
+
+      List<Committer> committers = new ArrayList<Committer>();
+      for (int i = 1; i < 10; i++) {
+         Committer committer = new Committer("k" + i);
+         committers.add(committer);
+         committer.start();
+      }
+      // all of them queued behind the first one
+      for (Committer committer : committers) {
+         while (committer.getState() != Thread.State.WAITING) Thread.sleep(10);
+      }
+      underlying.release.countDown();
+
+      first.join();
+      assert first.failure == null;
+      for (Committer committer : committers) {
+         committer.join();
+         assert committer.failure == null;
+      }
+      assert underlying.prepareSizes.equals(Arrays.asList(1, 9)) : underlying.prepareSizes;
+      assert store.getAverageGroupSize() == 5;
+      for (int i = 0; i < 10; i++) assert ("v" + i).equals(store.load("k" + i).getValue());
+   }
+
+   public void testFailedGroupIsCommittedOneByOne() throws Exception {
+      underlying.block = true;
+      Committer first = new Committer("k0");
+      first.start();
+      underlying.entered.await();
+
+      Committer good = new Committer("k1");
+      Committer bad = new Committer(BlockingStore.FAILING_KEY);
+      good.start();
+      bad.start();
+      while (good.getState() != Thread.State.WAITING || bad.getState() != Thread.State.WAITING) Thread.sleep(10);
+      underlying.release.countDown();
+
+      first.join();
+      good.join();
+      bad.join();
+      assert first.failure == null;
+      assert good.failure == null;
+      assert bad.failure instanceof CacheLoaderException : bad.failure;
+      assert "v1".equals(store.load("k1").getValue());
+      assert !store.containsKey(BlockingStore.FAILING_KEY);
+   }
+
+   public void testTwoPhaseCommitsAreNotGrouped() throws CacheLoaderException {
+      GlobalTransaction tx = gtf.newGlobalTransaction(null, false);
+      store.prepare(Collections.singletonList(new Store(TestInternalCacheEntryFactory.create("k1", "v1"))), tx, false);
+      assert !store.containsKey("k1");
+      store.commit(tx);
+      assert "v1".equals(store.load("k1").getValue());
+      assert store.getAverageGroupSize() == 0;
+   }
+
+   class Committer extends Thread {
+      final String key;
+      volatile Throwable failure;
+
+      Committer(String key) {
+         super("Committer-" + key);
+         this.key = key;
+      }
+
+      @Override
+      public void run() {
+         List<Modification> mods = Collections.<Modification>singletonList(
+               new Store(TestInternalCacheEntryFactory.create(key, "v" + key.substring(1))));
+         try {
+            store.prepare(mods, gtf.newGlobalTransaction(null, false), true);
+         } catch (Throwable t) {
+            failure = t;
+         }
+      }
+   }
+
+   static class BlockingStore extends DummyInMemoryCacheStore {
+      static final String FAILING_KEY = "failing";
+
+      final CountDownLatch entered = new CountDownLatch(1);
+      final CountDownLatch release = new CountDownLatch(1);
+      final List<Integer> prepareSizes = Collections.synchronizedList(new ArrayList<Integer>());
+      volatile boolean block;
+
+      @Override
+      public void prepare(List<? extends Modification> mods, GlobalTransaction tx, boolean isOnePhase) throws CacheLoaderException {
+         prepareSizes.add(mods.size());
+         if (block) {
+            block = false;
+            entered.countDown();
+            try {
+               release.await();
+            } catch (InterruptedException e) {
+               Thread.currentThread().interrupt();
+               throw new CacheLoaderException(e);
+            }
+         }
+         for (Modification mod : mods) {
+            if (mod instanceof Store && FAILING_KEY.equals(((Store) mod).getStoredEntry().getKey()))
+               throw new CacheLoaderException("Induced failure on key " + FAILING_KEY);
+         }
+         super.prepare(mods, tx, isOnePhase);
+      }
+   }
+}
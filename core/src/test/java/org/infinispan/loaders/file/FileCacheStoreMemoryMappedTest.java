@@ -0,0 +1,65 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.loaders.file;
+
+import org.infinispan.container.entries.InternalCacheEntry;
+import org.infinispan.test.fwk.TestInternalCacheEntryFactory;
+import org.testng.annotations.Test;
+
+@Test(groups = "unit", testName = "loaders.file.FileCacheStoreMemoryMappedTest")
+public class FileCacheStoreMemoryMappedTest extends FileCacheStoreTest {
+
+   @Override
+   protected boolean isMemoryMappedReads() {
+      return true;
+   }
+
+   public void testBucketRemappedOnGrowth() throws Exception {
+      cs.store(TestInternalCacheEntryFactory.create("k", "v"));
+      assert "v".equals(cs.load("k").getValue());
+
+      StringBuilder bigger = new StringBuilder();
+      for (int i = 0; i < 1000; i++) bigger.append(i);
+      cs.store(TestInternalCacheEntryFactory.create("k", bigger.toString()));
+      InternalCacheEntry loaded = cs.load("k");
+      assert bigger.toString().equals(loaded.getValue());
+
+      cs.store(TestInternalCacheEntryFactory.create("k", "w"));
+      assert "w".equals(cs.load("k").getValue());
+   }
+
+   public void testBucketsReadWithoutLockAreNotMapped() throws Exception {
+      for (int i = 0; i < 10; i++) cs.store(TestInternalCacheEntryFactory.create("k" + i, "v" + i));
+      FileCacheStore fcs = (FileCacheStore) cs;
+      fcs.mappedBuckets.clear();
+      assert cs.loadAll().size() == 10;
+      assert fcs.mappedBuckets.isEmpty();
+   }
+
+   public void testMappedBucketsAreBounded() throws Exception {
+      int numKeys = FileCacheStore.MAX_MAPPED_BUCKETS * 2;
+      for (int i = 0; i < numKeys; i++) cs.store(TestInternalCacheEntryFactory.create("k" + i, "v" + i));
+      for (int i = 0; i < numKeys; i++) assert ("v" + i).equals(cs.load("k" + i).getValue());
+      assert ((FileCacheStore) cs).mappedBuckets.size() <= FileCacheStore.MAX_MAPPED_BUCKETS;
+   }
+}
@@ -71,6 +71,7 @@ protected CacheStore createCacheStore() throws CacheLoaderException {
       FileCacheStoreConfig cfg = new FileCacheStoreConfig()
          .fetchPersistentState(true)
          .fsyncMode(getFsyncMode())
+         .memoryMappedReads(isMemoryMappedReads())
          .location(tmpDirectory)
          .purgeSynchronously(true); // for more accurate unit testing
       fcs.init(cfg, getCache(), getMarshaller());
@@ -82,6 +83,10 @@ protected FileCacheStoreConfig.FsyncMode getFsyncMode() {
       return FileCacheStoreConfig.FsyncMode.DEFAULT;
    }
 
+   protected boolean isMemoryMappedReads() {
+      return false;
+   }
+
    @Override
    public void testPreload() throws Exception {
       createUnrelatedFile();
@@ -0,0 +1,51 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.loaders.logfile;
+
+import org.infinispan.test.fwk.TestInternalCacheEntryFactory;
+import org.testng.annotations.Test;
+
+@Test(groups = "unit", testName = "loaders.logfile.LogFileCacheStoreMemoryMappedTest")
+public class LogFileCacheStoreMemoryMappedTest extends LogFileCacheStoreTest {
+
+   @Override
+   protected boolean isMemoryMappedReads() {
+      return true;
+   }
+
+   public void testReadsAfterGrowthAndClear() throws Exception {
+      cs.store(TestInternalCacheEntryFactory.create("k0", "v0"));
+      assert "v0".equals(cs.load("k0").getValue());
+      // appended after the file was first mapped
+      for (int i = 1; i < 100; i++) {
+         cs.store(TestInternalCacheEntryFactory.create("k" + i, "v" + i));
+      }
+      for (int i = 0; i < 100; i++) {
+         assert ("v" + i).equals(cs.load("k" + i).getValue());
+      }
+      cs.clear();
+      assert cs.load("k0") == null;
+      cs.store(TestInternalCacheEntryFactory.create("k0", "after clear"));
+      assert "after clear".equals(cs.load("k0").getValue());
+   }
+}
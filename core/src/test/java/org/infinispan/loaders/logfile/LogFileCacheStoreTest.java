@@ -0,0 +1,153 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.loaders.logfile;
+
+import org.infinispan.loaders.BaseCacheStoreTest;
+import org.infinispan.loaders.CacheLoaderException;
+import org.infinispan.loaders.CacheStore;
+import org.infinispan.test.TestingUtil;
+import org.infinispan.test.fwk.TestInternalCacheEntryFactory;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+
+@Test(groups = "unit", testName = "loaders.logfile.LogFileCacheStoreTest")
+public class LogFileCacheStoreTest extends BaseCacheStoreTest {
+
+   LogFileCacheStore lfcs;
+   String tmpDirectory;
+
+   @BeforeClass
+   protected void setUpTempDir() {
+      tmpDirectory = TestingUtil.tmpDirectory(this);
+   }
+
+   @AfterClass(alwaysRun = true)
+   protected void clearTempDir() {
+      TestingUtil.recursiveFileRemove(tmpDirectory);
+      new File(tmpDirectory).mkdirs();
+   }
+
+   @Override
+   protected CacheStore createCacheStore() throws CacheLoaderException {
+      clearTempDir();
+      lfcs = newStore();
+      return lfcs;
+   }
+
+   private LogFileCacheStore newStore() throws CacheLoaderException {
+      LogFileCacheStore store = new LogFileCacheStore();
+      LogFileCacheStoreConfig cfg = new LogFileCacheStoreConfig()
+            .location(tmpDirectory)
+            .numSegments(4)
+            .memoryMappedReads(isMemoryMappedReads())
+            .fetchPersistentState(true)
+            .purgeSynchronously(true); // for more accurate unit testing
+      store.init(cfg, getCache(), getMarshaller());
+      store.start();
+      return store;
+   }
+
+   protected boolean isMemoryMappedReads() {
+      return false;
+   }
+
+   public void testIndexRebuiltOnRestart() throws Exception {
+      for (int i = 0; i < 50; i++) {
+         cs.store(TestInternalCacheEntryFactory.create("k" + i, "v" + i));
+      }
+      cs.store(TestInternalCacheEntryFactory.create("k1", "updated"));
+      cs.remove("k2");
+      cs.stop();
+
+      cs = newStore();
+      assert cs.loadAll().size() == 49;
+      assert "updated".equals(cs.load("k1").getValue());
+      assert cs.load("k2") == null;
+      assert "v3".equals(cs.load("k3").getValue());
+   }
+
+   public void testTornWriteDiscardedOnRestart() throws Exception {
+      cs.store(TestInternalCacheEntryFactory.create("k1", "v1"));
+      cs.stop();
+
+      // simulate a crash in the middle of an append to every segment
+      File[] logs = lfcs.getRoot().listFiles();
+      for (File log : logs) {
+         RandomAccessFile raf = new RandomAccessFile(log, "rw");
+         try {
+            raf.seek(raf.length());
+            raf.writeInt(100);
+            raf.writeInt(100);
+            raf.writeByte(LogSegment.STORE);
+         } finally {
+            raf.close();
+         }
+      }
+
+      cs = newStore();
+      assert "v1".equals(cs.load("k1").getValue());
+      cs.store(TestInternalCacheEntryFactory.create("k2", "v2"));
+      cs.stop();
+
+      cs = newStore();
+      assert "v1".equals(cs.load("k1").getValue());
+      assert "v2".equals(cs.load("k2").getValue());
+   }
+
+   public void testCompaction() throws Exception {
+      for (int i = 0; i < 20; i++) {
+         cs.store(TestInternalCacheEntryFactory.create("k" + i, "v0"));
+      }
+      long liveSize = logsSize();
+      for (int round = 1; round < 20; round++) {
+         for (int i = 0; i < 20; i++) {
+            cs.store(TestInternalCacheEntryFactory.create("k" + i, "v" + round));
+         }
+      }
+      // without compaction the logs would be 20 times the live size, compaction runs in the background
+      long size = logsSize();
+      for (int i = 0; i < 100 && size > 3 * liveSize; i++) {
+         Thread.sleep(50);
+         size = logsSize();
+      }
+      assert size <= 3 * liveSize : "Logs were not compacted: " + size + " bytes for " + liveSize + " live bytes";
+      for (int i = 0; i < 20; i++) {
+         assert "v19".equals(cs.load("k" + i).getValue());
+      }
+      cs.stop();
+
+      cs = newStore();
+      assert cs.loadAll().size() == 20;
+      assert "v19".equals(cs.load("k7").getValue());
+   }
+
+   private long logsSize() {
+      long size = 0;
+      for (File log : lfcs.getRoot().listFiles()) size += log.length();
+      return size;
+   }
+}
@@ -27,6 +27,7 @@
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
+import java.util.Collections;
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
 
@@ -115,6 +116,54 @@ private boolean aquireWL() throws Exception {
       return otherThread.responseQueue.take();
    }
 
+   public void testOptimisticReads() throws Exception {
+      StripedLock optimistic = new StripedLock(5, true);
+      long stamp = optimistic.tryOptimisticRead(KEY);
+      assert optimistic.validate(KEY, stamp);
+      optimistic.acquireLock(KEY, false);
+      optimistic.releaseLock(KEY);
+      assert optimistic.validate(KEY, stamp) : "Read locks must not invalidate stamps";
+
+      optimistic.acquireLock(KEY, true);
+      assert !optimistic.validate(KEY, stamp);
+      assert !optimistic.validate(KEY, optimistic.tryOptimisticRead(KEY)) : "Stamps taken while write locked must not validate";
+      optimistic.acquireLock(KEY, true);
+      optimistic.releaseLock(KEY);
+      assert !optimistic.validate(KEY, optimistic.tryOptimisticRead(KEY)) : "Still write locked by the outer acquisition";
+      optimistic.releaseLock(KEY);
+      assert !optimistic.validate(KEY, stamp);
+      stamp = optimistic.tryOptimisticRead(KEY);
+      assert optimistic.validate(KEY, stamp);
+
+      assert optimistic.acquireGlobalLock(true, 0);
+      assert !optimistic.validate(KEY, stamp);
+      optimistic.releaseGlobalLock(true);
+      stamp = optimistic.tryOptimisticRead(KEY);
+      assert optimistic.validate(KEY, stamp);
+
+      optimistic.acquireLock(KEY, false);
+      optimistic.upgradeLock(KEY);
+      assert !optimistic.validate(KEY, optimistic.tryOptimisticRead(KEY));
+      optimistic.downgradeLock(KEY);
+      assert !optimistic.validate(KEY, stamp);
+      assert optimistic.validate(KEY, optimistic.tryOptimisticRead(KEY));
+      optimistic.releaseLock(KEY);
+   }
+
+   public void testReadLockNestedInWriteLock() throws Exception {
+      stripedLock.acquireLocksInOrder(Collections.singleton(KEY), true);
+      stripedLock.acquireLock(KEY, false);
+      stripedLock.releaseLock(KEY);
+      assert !canAquireRL() : "Releasing the nested read lock must not release the write lock";
+      stripedLock.acquireLock(KEY, false);
+      stripedLock.releaseLocksInOrder(Collections.singleton(KEY), true);
+      assert !canAquireWL() : "Still read locked";
+      assert canAquireRL();
+      stripedLock.releaseLock(KEY);
+      assert canAquireWL();
+      assert stripedLock.getTotalLockCount() == 0;
+   }
+
    private boolean aquireRL() throws Exception {
       OtherThread otherThread = new OtherThread();
       otherThread.start();
@@ -27,6 +27,7 @@
 import org.infinispan.test.fwk.TestInternalCacheEntryFactory;
 import org.infinispan.context.InvocationContext;
 import org.infinispan.context.impl.NonTxInvocationContext;
+import org.infinispan.notifications.KeyFilter;
 import org.infinispan.notifications.cachelistener.event.*;
 import org.infinispan.test.AbstractInfinispanTest;
 import org.infinispan.transaction.xa.GlobalTransaction;
@@ -52,7 +53,6 @@ public void setUp() {
       mockCache = mock(Cache.class);
       n.injectDependencies(mockCache);
       cl = new CacheListener();
-      n.start();
       n.addListener(cl);
       ctx = new NonTxInvocationContext();
    }
@@ -250,4 +250,20 @@ public void testNotifyTransactionRegistered() {
       assert cl.getEvents().get(1).getType() == Event.Type.TRANSACTION_REGISTERED;
       assert ((TransactionRegisteredEvent) cl.getEvents().get(1)).getGlobalTransaction() == tx;
    }
+
+   public void testKeyFilter() {
+      CacheListener filtered = new CacheListener();
+      n.addListener(filtered, new KeyFilter() {
+         @Override
+         public boolean accept(Object key) {
+            return "accepted".equals(key);
+         }
+      });
+      n.notifyCacheEntryModified("rejected", "v", false, ctx);
+      n.notifyCacheEntryModified("accepted", "v", false, ctx);
+
+      assert cl.getInvocationCount() == 2;
+      assert filtered.getInvocationCount() == 1;
+      assert ((CacheEntryEvent) filtered.getEvents().get(0)).getKey().equals("accepted");
+   }
 }
@@ -0,0 +1,152 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.remoting.jgroups;
+
+import org.infinispan.Cache;
+import org.infinispan.configuration.cache.CacheMode;
+import org.infinispan.configuration.cache.ConfigurationBuilder;
+import org.infinispan.configuration.global.GlobalConfigurationBuilder;
+import org.infinispan.manager.CacheContainer;
+import org.infinispan.remoting.transport.jgroups.JGroupsTransport;
+import org.infinispan.test.MultipleCacheManagersTest;
+import org.infinispan.transaction.LockingMode;
+import org.testng.annotations.Test;
+
+import javax.transaction.TransactionManager;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Checks that concurrent transactions commit on all the owners, each with its own outcome, when the transport group
+ * commits their prepares and commits, and that conflicting transactions do not wait for each other in a bundle.
+ *
+ * @since 5.2
+ */
+@Test(groups = "functional", testName = "remoting.jgroups.RpcGroupCommitTest")
+public class RpcGroupCommitTest extends MultipleCacheManagersTest {
+
+   private static final int NUM_THREADS = 10;
+   private static final int NUM_TXS = 50;
+   private static final long LOCK_TIMEOUT = 60000;
+
+   @Override
+   protected void createCacheManagers() throws Throwable {
+      GlobalConfigurationBuilder gcb = GlobalConfigurationBuilder.defaultClusteredBuilder();
+      gcb.transport().addProperty(JGroupsTransport.RPC_COALESCING, "true")
+            .addProperty(JGroupsTransport.RPC_COALESCING_MAX_COMMANDS, "8")
+            .addProperty(JGroupsTransport.RPC_GROUP_COMMIT, "true");
+      ConfigurationBuilder builder = getDefaultClusteredCacheConfig(CacheMode.DIST_SYNC, true);
+      builder.clustering().hash().numOwners(2);
+      builder.locking().lockAcquisitionTimeout(LOCK_TIMEOUT);
+      createCluster(gcb, builder, 3);
+
+      ConfigurationBuilder pessimistic = getDefaultClusteredCacheConfig(CacheMode.DIST_SYNC, true);
+      pessimistic.clustering().hash().numOwners(2);
+      pessimistic.locking().lockAcquisitionTimeout(LOCK_TIMEOUT);
+      pessimistic.transaction().lockingMode(LockingMode.PESSIMISTIC);
+      defineConfigurationOnAllManagers("pessimistic", pessimistic);
+      waitForClusterToForm(CacheContainer.DEFAULT_CACHE_NAME, "pessimistic");
+   }
+
+   public void testConcurrentTransactions() throws Exception {
+      List<Future<Void>> futures = new ArrayList<Future<Void>>(NUM_THREADS);
+      for (int t = 0; t < NUM_THREADS; t++) {
+         final int thread = t;
+         futures.add(fork(new Callable<Void>() {
+            @Override
+            public Void call() throws Exception {
+               Cache<String, String> cache = cache(thread % 3);
+               TransactionManager tm = cache.getAdvancedCache().getTransactionManager();
+               for (int i = 0; i < NUM_TXS; i++) {
+                  tm.begin();
+                  cache.put("k-" + thread + "-" + i, "v");
+                  cache.put("k-" + thread + "-" + i + "-bis", "v");
+                  tm.commit();
+
+                  // a rolled back transaction does not affect the ones committed along with it
+                  tm.begin();
+                  cache.put("k-" + thread + "-" + i, "rolled back");
+                  tm.rollback();
+               }
+               return null;
+            }
+         }));
+      }
+      for (Future<Void> future : futures) future.get();
+
+      for (int t = 0; t < NUM_THREADS; t++) {
+         for (int i = 0; i < NUM_TXS; i++) {
+            for (Cache<String, String> cache : this.<String, String>caches()) {
+               assert "v".equals(cache.get("k-" + t + "-" + i)) : "Wrong value for k-" + t + "-" + i + " on " + address(cache);
+               assert "v".equals(cache.get("k-" + t + "-" + i + "-bis"));
+            }
+         }
+      }
+   }
+
+   public void testConflictingOptimisticTransactions() throws Exception {
+      conflictingTransactions(CacheContainer.DEFAULT_CACHE_NAME);
+   }
+
+   public void testConflictingPessimisticTransactions() throws Exception {
+      conflictingTransactions("pessimistic");
+   }
+
+   /**
+    * All the transactions write the same keys: a prepare waiting for a lock held by another one of the same bundle
+    * would only be released by the lock acquisition timeout.
+    */
+   private void conflictingTransactions(final String cacheName) throws Exception {
+      long start = System.nanoTime();
+      List<Future<Void>> futures = new ArrayList<Future<Void>>(NUM_THREADS);
+      for (int t = 0; t < NUM_THREADS; t++) {
+         final int thread = t;
+         futures.add(fork(new Callable<Void>() {
+            @Override
+            public Void call() throws Exception {
+               Cache<String, String> cache = cache(thread % 3, cacheName);
+               TransactionManager tm = cache.getAdvancedCache().getTransactionManager();
+               for (int i = 0; i < NUM_TXS; i++) {
+                  tm.begin();
+                  cache.put("conflict-a", "v-" + thread);
+                  cache.put("conflict-b", "v-" + thread);
+                  tm.commit();
+               }
+               return null;
+            }
+         }));
+      }
+      for (Future<Void> future : futures) future.get();
+      long duration = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+      assert duration < LOCK_TIMEOUT / 2 : "Transactions waited for each other for " + duration + " ms";
+
+      String value = this.<String, String>cache(0, cacheName).get("conflict-a");
+      for (Cache<String, String> cache : this.<String, String>caches(cacheName)) {
+         assert value.equals(cache.get("conflict-a")) : "Wrong value on " + address(cache);
+         assert value.equals(cache.get("conflict-b")) : "Wrong value on " + address(cache);
+      }
+   }
+}
@@ -0,0 +1,95 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.remoting.transport.jgroups;
+
+import org.infinispan.Cache;
+import org.infinispan.configuration.cache.CacheMode;
+import org.infinispan.configuration.cache.ConfigurationBuilder;
+import org.infinispan.configuration.global.GlobalConfigurationBuilder;
+import org.infinispan.test.MultipleCacheManagersTest;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+
+/**
+ * Checks that concurrent synchronous writes, which are sent out of band, are coalesced into bundles and still reach
+ * all the owners, with the right return values.
+ *
+ * @since 5.2
+ */
+@Test(groups = "functional", testName = "remoting.transport.jgroups.RpcCoalescingTest")
+public class RpcCoalescingTest extends MultipleCacheManagersTest {
+
+   private static final int NUM_THREADS = 10;
+   private static final int NUM_KEYS = 100;
+
+   @Override
+   protected void createCacheManagers() throws Throwable {
+      GlobalConfigurationBuilder gcb = GlobalConfigurationBuilder.defaultClusteredBuilder();
+      gcb.transport().addProperty(JGroupsTransport.RPC_COALESCING, "true")
+            .addProperty(JGroupsTransport.RPC_COALESCING_MAX_COMMANDS, "8");
+      ConfigurationBuilder builder = getDefaultClusteredCacheConfig(CacheMode.DIST_SYNC, false);
+      builder.clustering().hash().numOwners(2);
+      createCluster(gcb, builder, 3);
+      waitForClusterToForm();
+   }
+
+   public void testConcurrentWrites() throws Exception {
+      List<Future<Void>> futures = new ArrayList<Future<Void>>(NUM_THREADS);
+      for (int t = 0; t < NUM_THREADS; t++) {
+         final int thread = t;
+         futures.add(fork(new Callable<Void>() {
+            @Override
+            public Void call() throws Exception {
+               Cache<String, String> cache = cache(thread % 3);
+               for (int i = 0; i < NUM_KEYS; i++) {
+                  String key = "k-" + thread + "-" + i;
+                  assert cache.put(key, "v1") == null;
+                  assert "v1".equals(cache.put(key, "v2"));
+               }
+               return null;
+            }
+         }));
+      }
+      for (Future<Void> future : futures) future.get();
+
+      long bundlesSent = 0;
+      for (Cache<String, String> cache : this.<String, String>caches()) {
+         JGroupsTransport transport = (JGroupsTransport) cache.getAdvancedCache().getRpcManager().getTransport();
+         bundlesSent += transport.getCommandAwareRpcDispatcher().getCoalescer().bundlesSent.get();
+      }
+      assert bundlesSent > 0 : "No commands were coalesced";
+
+      for (int t = 0; t < NUM_THREADS; t++) {
+         for (int i = 0; i < NUM_KEYS; i++) {
+            String key = "k-" + t + "-" + i;
+            for (Cache<String, String> cache : this.<String, String>caches()) {
+               assert "v2".equals(cache.get(key)) : "Wrong value for " + key + " on " + address(cache);
+            }
+         }
+      }
+   }
+}
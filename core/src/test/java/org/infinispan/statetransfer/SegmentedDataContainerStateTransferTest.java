@@ -0,0 +1,73 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.statetransfer;
+
+import org.infinispan.Cache;
+import org.infinispan.configuration.cache.CacheMode;
+import org.infinispan.configuration.cache.ConfigurationBuilder;
+import org.infinispan.container.DataContainer;
+import org.infinispan.container.SegmentedDataContainer;
+import org.infinispan.distribution.ch.ConsistentHash;
+import org.infinispan.test.MultipleCacheManagersTest;
+import org.infinispan.test.TestingUtil;
+import org.testng.annotations.Test;
+
+/**
+ * Checks that the segments a node no longer owns after a rebalance are dropped from its segmented data container.
+ *
+ * @since 5.2
+ */
+@Test(groups = "functional", testName = "statetransfer.SegmentedDataContainerStateTransferTest")
+public class SegmentedDataContainerStateTransferTest extends MultipleCacheManagersTest {
+
+   private ConfigurationBuilder builder;
+
+   @Override
+   protected void createCacheManagers() throws Throwable {
+      builder = getDefaultClusteredCacheConfig(CacheMode.DIST_SYNC, false);
+      builder.clustering().hash().numOwners(1).l1().disable();
+      builder.dataContainer().segmented(true);
+      createCluster(builder, 2);
+      waitForClusterToForm();
+   }
+
+   public void testSegmentsNoLongerOwnedAreRemoved() {
+      for (int i = 0; i < 100; i++) cache(0).put("k" + i, "v" + i);
+
+      addClusterEnabledCacheManager(builder);
+      TestingUtil.waitForRehashToComplete(cache(0), cache(1), cache(2));
+
+      int localEntries = 0;
+      for (Cache<Object, Object> c : caches()) {
+         DataContainer dataContainer = TestingUtil.extractComponent(c, DataContainer.class);
+         assert dataContainer instanceof SegmentedDataContainer;
+         ConsistentHash ch = c.getAdvancedCache().getDistributionManager().getReadConsistentHash();
+         for (Object key : dataContainer.keySet()) {
+            assert ch.isKeyLocalToNode(address(c), key) : key + " is not owned by " + address(c);
+         }
+         localEntries += dataContainer.size();
+      }
+      assert localEntries == 100 : "Expected 100 entries, found " + localEntries;
+      for (int i = 0; i < 100; i++) assert ("v" + i).equals(cache(2).get("k" + i));
+   }
+}
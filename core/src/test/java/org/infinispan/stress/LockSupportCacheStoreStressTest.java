@@ -0,0 +1,276 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.stress;
+
+import org.infinispan.container.InternalEntryFactory;
+import org.infinispan.container.InternalEntryFactoryImpl;
+import org.infinispan.container.entries.InternalCacheEntry;
+import org.infinispan.container.versioning.EntryVersion;
+import org.infinispan.loaders.CacheLoaderConfig;
+import org.infinispan.loaders.CacheLoaderException;
+import org.infinispan.loaders.LockSupportCacheStore;
+import org.infinispan.loaders.LockSupportCacheStoreConfig;
+import org.infinispan.marshall.TestObjectStreamMarshaller;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Compares the load throughput of a {@link LockSupportCacheStore} with and without optimistic reads, with many readers
+ * hammering a few lock stripes while some writers update the same keys.
+ *
+ * @since 5.2
+ */
+@Test(testName = "stress.LockSupportCacheStoreStressTest", groups = "stress",
+      enabled = true, description = "Disabled by default, designed to be run manually.")
+public class LockSupportCacheStoreStressTest {
+
+   static final int NUM_KEYS = Integer.getInteger("size", 1000);
+   static final long RUNNING_TIME = Integer.getInteger("time", 1) * 60 * 1000;
+   // a low concurrency level makes many keys share a stripe, as with the buckets of a bucket based store
+   static final int LOCK_CONCURRENCY_LEVEL = Integer.getInteger("stripes", 4);
+   static final long READ_LATENCY_NANOS = Long.getLong("latency", 50000);
+
+   private final InternalEntryFactory entryFactory = new InternalEntryFactoryImpl();
+
+   @DataProvider(name = "readersWriters")
+   public Object[][] readersWritersParams() {
+      return new Object[][]{
+            new Object[]{32, 0},
+            new Object[]{32, 1},
+            new Object[]{32, 4},
+      };
+   }
+
+   @Test(dataProvider = "readersWriters", enabled = true)
+   public void testLoadThroughput(int readerThreads, int writerThreads) throws Exception {
+      System.out.printf("Testing load throughput with keys %d, stripes %d, readers %d, writers %d\n",
+            NUM_KEYS, LOCK_CONCURRENCY_LEVEL, readerThreads, writerThreads);
+
+      double locked = runTest("LOCKED", createStore(false), readerThreads, writerThreads);
+      double optimistic = runTest("OPTIMISTIC", createStore(true), readerThreads, writerThreads);
+      System.out.printf("Optimistic reads speedup %10.2fx\n", optimistic / locked);
+   }
+
+   private MapBackedStore createStore(boolean optimisticReads) throws CacheLoaderException {
+      LockSupportCacheStoreConfig cfg = new LockSupportCacheStoreConfig();
+      cfg.setLockConcurrencyLevel(LOCK_CONCURRENCY_LEVEL);
+      cfg.setPurgeOnStartup(false);
+      MapBackedStore store = new MapBackedStore(optimisticReads);
+      store.init(cfg, null, new TestObjectStreamMarshaller());
+      store.start();
+      for (int i = 0; i < NUM_KEYS; i++) {
+         store.store(entryFactory.create(i, 0, (EntryVersion) null));
+      }
+      return store;
+   }
+
+   private double runTest(String name, MapBackedStore store, int readerThreads, int writerThreads) throws Exception {
+      try {
+         // warm up for 1 second
+         runWorkers(store, readerThreads, writerThreads, 1000);
+         Stats stats = runWorkers(store, readerThreads, writerThreads, RUNNING_TIME);
+         double loadsPerSec = stats.loads.get() * 1000. / RUNNING_TIME;
+         System.out.printf("Store %-12s  ", name);
+         System.out.printf("Loads/s %12.2f  ", loadsPerSec);
+         System.out.printf("Stores/s %12.2f  ", stats.stores.get() * 1000. / RUNNING_TIME);
+         System.out.printf("Misses %10d\n", stats.misses.get());
+         return loadsPerSec;
+      } finally {
+         store.stop();
+      }
+   }
+
+   private Stats runWorkers(final MapBackedStore store, int readerThreads, int writerThreads,
+                            final long runningTime) throws Exception {
+      final CountDownLatch latch = new CountDownLatch(1);
+      final Stats stats = new Stats();
+      List<Thread> threads = new ArrayList<Thread>();
+      for (int i = 0; i < readerThreads; i++) {
+         final int offset = i;
+         threads.add(new Worker("worker-get-" + i, latch, stats, runningTime) {
+            @Override
+            void run(long run) throws CacheLoaderException {
+               InternalCacheEntry ice = store.load((int) ((run + offset) % NUM_KEYS));
+               if (ice == null) stats.misses.incrementAndGet();
+               stats.loads.incrementAndGet();
+            }
+         });
+      }
+      for (int i = 0; i < writerThreads; i++) {
+         final int offset = i * 7;
+         threads.add(new Worker("worker-put-" + i, latch, stats, runningTime) {
+            @Override
+            void run(long run) throws CacheLoaderException {
+               int key = (int) ((run + offset) % NUM_KEYS);
+               store.store(entryFactory.create(key, (int) run, (EntryVersion) null));
+               stats.stores.incrementAndGet();
+               // writes are much rarer than reads
+               LockSupport.parkNanos(READ_LATENCY_NANOS * 10);
+            }
+         });
+      }
+      for (Thread t : threads) t.start();
+      latch.countDown();
+      for (Thread t : threads) t.join();
+      assert stats.errors.get() == 0 : stats.errors.get() + " operations failed";
+      return stats;
+   }
+
+   private static class Stats {
+      final AtomicLong loads = new AtomicLong();
+      final AtomicLong stores = new AtomicLong();
+      final AtomicLong misses = new AtomicLong();
+      final AtomicLong errors = new AtomicLong();
+   }
+
+   private abstract class Worker extends Thread {
+      private final CountDownLatch latch;
+      private final Stats stats;
+      private final long runningTime;
+
+      Worker(String name, CountDownLatch latch, Stats stats, long runningTime) {
+         super(name);
+         this.latch = latch;
+         this.stats = stats;
+         this.runningTime = runningTime;
+      }
+
+      abstract void run(long run) throws CacheLoaderException;
+
+      @Override
+      public void run() {
+         try {
+            latch.await();
+         } catch (InterruptedException e) {
+            throw new RuntimeException(e);
+         }
+         long endMillis = System.currentTimeMillis() + runningTime;
+         long runs = 0;
+         while ((runs & 0xFF) != 0 || System.currentTimeMillis() < endMillis) {
+            try {
+               run(runs);
+            } catch (CacheLoaderException e) {
+               e.printStackTrace();
+               stats.errors.incrementAndGet();
+            }
+            runs++;
+         }
+      }
+   }
+
+   /**
+    * A store keeping its entries in a map, which simulates the latency of reading from a slower medium.
+    */
+   private static class MapBackedStore extends LockSupportCacheStore<Integer> {
+      private final ConcurrentMap<Object, InternalCacheEntry> entries = new ConcurrentHashMap<Object, InternalCacheEntry>();
+      private final boolean optimisticReads;
+
+      MapBackedStore(boolean optimisticReads) {
+         this.optimisticReads = optimisticReads;
+      }
+
+      @Override
+      protected boolean supportsOptimisticReads() {
+         return optimisticReads;
+      }
+
+      @Override
+      protected InternalCacheEntry loadLockSafe(Object key, Integer lockingKey) {
+         LockSupport.parkNanos(READ_LATENCY_NANOS);
+         return entries.get(key);
+      }
+
+      @Override
+      protected void storeLockSafe(InternalCacheEntry ed, Integer lockingKey) {
+         entries.put(ed.getKey(), ed);
+      }
+
+      @Override
+      protected boolean removeLockSafe(Object key, Integer lockingKey) {
+         return entries.remove(key) != null;
+      }
+
+      @Override
+      protected Integer getLockFromKey(Object key) {
+         return key.hashCode();
+      }
+
+      @Override
+      protected void clearLockSafe() {
+         entries.clear();
+      }
+
+      @Override
+      protected Set<InternalCacheEntry> loadAllLockSafe() {
+         return new HashSet<InternalCacheEntry>(entries.values());
+      }
+
+      @Override
+      protected Set<InternalCacheEntry> loadLockSafe(int maxEntries) {
+         Set<InternalCacheEntry> result = new HashSet<InternalCacheEntry>();
+         for (InternalCacheEntry ice : entries.values()) {
+            if (result.size() >= maxEntries) break;
+            result.add(ice);
+         }
+         return result;
+      }
+
+      @Override
+      protected Set<Object> loadAllKeysLockSafe(Set<Object> keysToExclude) {
+         Set<Object> keys = new HashSet<Object>(entries.keySet());
+         if (keysToExclude != null) keys.removeAll(keysToExclude);
+         return keys;
+      }
+
+      @Override
+      protected void toStreamLockSafe(ObjectOutput oos) {
+         throw new UnsupportedOperationException();
+      }
+
+      @Override
+      protected void fromStreamLockSafe(ObjectInput ois) {
+         throw new UnsupportedOperationException();
+      }
+
+      @Override
+      protected void purgeInternal() {
+      }
+
+      @Override
+      public Class<? extends CacheLoaderConfig> getConfigurationClass() {
+         return LockSupportCacheStoreConfig.class;
+      }
+   }
+}
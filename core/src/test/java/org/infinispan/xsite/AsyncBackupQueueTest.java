@@ -0,0 +1,221 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.xsite;
+
+import org.infinispan.atomic.Delta;
+import org.infinispan.atomic.DeltaAware;
+import org.infinispan.commands.ReplicableCommand;
+import org.infinispan.commands.remote.MultipleRpcCommand;
+import org.infinispan.commands.remote.SingleRpcCommand;
+import org.infinispan.commands.write.ClearCommand;
+import org.infinispan.commands.write.PutKeyValueCommand;
+import org.infinispan.commands.write.RemoveCommand;
+import org.infinispan.remoting.transport.BackupResponse;
+import org.infinispan.remoting.transport.Transport;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyCollectionOf;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@Test(groups = "unit", testName = "xsite.AsyncBackupQueueTest")
+public class AsyncBackupQueueTest {
+
+   private final List<ReplicableCommand> sent = Collections.synchronizedList(new ArrayList<ReplicableCommand>());
+   private final List<Thread> senders = Collections.synchronizedList(new ArrayList<Thread>());
+   private CountDownLatch sending;
+   private CountDownLatch release;
+   private Transport transport;
+
+   @BeforeMethod
+   public void setUp() throws Exception {
+      sent.clear();
+      senders.clear();
+      sending = new CountDownLatch(1);
+      release = new CountDownLatch(1);
+      transport = mock(Transport.class);
+      when(transport.backupRemotely(anyCollectionOf(XSiteBackup.class), any(ReplicableCommand.class))).thenAnswer(new Answer<BackupResponse>() {
+         @Override
+         public BackupResponse answer(InvocationOnMock invocation) throws Throwable {
+            sent.add((ReplicableCommand) invocation.getArguments()[1]);
+            senders.add(Thread.currentThread());
+            // the first message is held until the test has queued the commands to batch
+            sending.countDown();
+            release.await();
+            return null;
+         }
+      });
+   }
+
+   public void testOverwrittenWritesAreDropped() throws Exception {
+      AsyncBackupQueue queue = newQueue(64);
+      Thread first = backupInBackground(queue, put("k0", "v0"));
+
+      PutKeyValueCommand put1 = put("k1", "v2");
+      PutKeyValueCommand put2 = put("k2", "b");
+      RemoveCommand remove3 = new RemoveCommand("k3", "x", null, null);
+      PutKeyValueCommand putIfAbsent3 = putIfAbsent("k3", "y");
+      queue.backup(put("k1", "v1"));
+      queue.backup(put1);
+      queue.backup(putIfAbsent("k2", "a"));
+      queue.backup(put2);
+      queue.backup(remove3);
+      // conditional, so the remove has to be applied first
+      queue.backup(putIfAbsent3);
+      assert queue.getQueueDepth() == 4 : queue.getQueueDepth();
+      assert queue.getDroppedCommands() == 2;
+
+      release.countDown();
+      first.join();
+      assert sent.size() == 2;
+      assert Arrays.<ReplicableCommand>asList(put1, put2, remove3, putIfAbsent3).equals(commandsOf(sent.get(1)));
+      assert queue.getQueueDepth() == 0;
+      assert queue.getLagMillis() == 0;
+      assert queue.getAverageBatchSize() == 2.5;
+   }
+
+   public void testDeltasAreNeverDropped() throws Exception {
+      AsyncBackupQueue queue = newQueue(64);
+      Thread first = backupInBackground(queue, put("k0", "v0"));
+
+      PutKeyValueCommand put = put("k1", "v1");
+      PutKeyValueCommand delta1 = put("k1", new NoOpDelta());
+      PutKeyValueCommand delta2 = put("k1", new NoOpDelta());
+      PutKeyValueCommand overwrite = put("k1", "v2");
+      queue.backup(put);
+      // merged into the value written before, and into the one written after
+      queue.backup(delta1);
+      queue.backup(delta2);
+      queue.backup(overwrite);
+      assert queue.getQueueDepth() == 4 : queue.getQueueDepth();
+      assert queue.getDroppedCommands() == 0;
+
+      release.countDown();
+      first.join();
+      assert Arrays.<ReplicableCommand>asList(put, delta1, delta2, overwrite).equals(commandsOf(sent.get(1)));
+   }
+
+   public void testClearDropsQueuedCommands() throws Exception {
+      AsyncBackupQueue queue = newQueue(64);
+      Thread first = backupInBackground(queue, put("k0", "v0"));
+
+      queue.backup(put("k1", "v1"));
+      queue.backup(new RemoveCommand("k2", null, null, null));
+      ClearCommand clear = new ClearCommand(null, null);
+      PutKeyValueCommand put = put("k1", "v2");
+      queue.backup(clear);
+      queue.backup(put);
+      assert queue.getQueueDepth() == 2;
+      assert queue.getDroppedCommands() == 2;
+
+      release.countDown();
+      first.join();
+      assert Arrays.<ReplicableCommand>asList(clear, put).equals(commandsOf(sent.get(1)));
+   }
+
+   public void testBatchesAreBounded() throws Exception {
+      AsyncBackupQueue queue = newQueue(2);
+      Thread first = backupInBackground(queue, put("k0", "v0"));
+      for (int i = 1; i <= 5; i++) queue.backup(put("k" + i, "v" + i));
+
+      release.countDown();
+      first.join();
+      assert sent.size() == 4;
+      assert commandsOf(sent.get(1)).size() == 2;
+      assert commandsOf(sent.get(2)).size() == 2;
+      // a single command is not wrapped in a batch
+      assert sent.get(3) instanceof SingleRpcCommand;
+   }
+
+   public void testLeftoverBatchesAreHandedOff() throws Exception {
+      ExecutorService executor = Executors.newSingleThreadExecutor();
+      try {
+         AsyncBackupQueue queue = new AsyncBackupQueue(new XSiteBackup("NYC", false, 10000), "cache", transport, 1, executor);
+         Thread first = backupInBackground(queue, put("k0", "v0"));
+         for (int i = 1; i <= 9; i++) queue.backup(put("k" + i, "v" + i));
+
+         release.countDown();
+         first.join();
+         for (int i = 0; i < 100 && queue.getQueueDepth() > 0; i++) Thread.sleep(50);
+         executor.shutdown();
+         assert executor.awaitTermination(10, TimeUnit.SECONDS);
+         assert sent.size() == 10 : sent.size();
+         // the first thread stops after a few batches, the executor ships the rest
+         assert senders.get(0) == first;
+         assert senders.get(9) != first;
+         for (int i = 0; i < 10; i++) assert commandsOf(sent.get(i)).equals(Collections.singletonList(put("k" + i, "v" + i)));
+      } finally {
+         executor.shutdownNow();
+      }
+   }
+
+   private AsyncBackupQueue newQueue(int maxBatchSize) {
+      return new AsyncBackupQueue(new XSiteBackup("NYC", false, 10000), "cache", transport, maxBatchSize);
+   }
+
+   private Thread backupInBackground(final AsyncBackupQueue queue, final ReplicableCommand command) throws InterruptedException {
+      Thread thread = new Thread(new Runnable() {
+         @Override
+         public void run() {
+            queue.backup(command);
+         }
+      }, "AsyncBackupQueueTest-sender");
+      thread.start();
+      sending.await();
+      return thread;
+   }
+
+   private static List<ReplicableCommand> commandsOf(ReplicableCommand command) {
+      if (command instanceof SingleRpcCommand)
+         return Collections.singletonList(((SingleRpcCommand) command).getCommand());
+      return Arrays.asList(((MultipleRpcCommand) command).getCommands());
+   }
+
+   private static PutKeyValueCommand put(Object key, Object value) {
+      return new PutKeyValueCommand(key, value, false, null, -1, -1, null);
+   }
+
+   private static PutKeyValueCommand putIfAbsent(Object key, Object value) {
+      return new PutKeyValueCommand(key, value, true, null, -1, -1, null);
+   }
+
+   private static final class NoOpDelta implements Delta {
+      @Override
+      public DeltaAware merge(DeltaAware d) {
+         return d;
+      }
+   }
+}
@@ -0,0 +1,126 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.xsite;
+
+import org.infinispan.configuration.cache.BackupConfiguration;
+import org.infinispan.configuration.cache.CacheMode;
+import org.infinispan.configuration.cache.ConfigurationBuilder;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.testng.AssertJUnit.assertEquals;
+
+@Test(groups = "xsite", testName = "xsite.NonTxAsyncBatchedBackupTest")
+public class NonTxAsyncBatchedBackupTest extends AbstractTwoSitesTest {
+
+   private static final int NUM_THREADS = 8;
+   private static final int NUM_KEYS = 20;
+   private static final int NUM_WRITES = 200;
+
+   public NonTxAsyncBatchedBackupTest() {
+      lonBackupStrategy = BackupConfiguration.BackupStrategy.ASYNC;
+      lonAsyncBatchSize = 16;
+   }
+
+   @Override
+   protected ConfigurationBuilder getNycActiveConfig() {
+      return getDefaultClusteredCacheConfig(CacheMode.DIST_SYNC, false);
+   }
+
+   @Override
+   protected ConfigurationBuilder getLonActiveConfig() {
+      return getDefaultClusteredCacheConfig(CacheMode.DIST_SYNC, false);
+   }
+
+   public void testConcurrentWrites() throws Exception {
+      ExecutorService executor = Executors.newFixedThreadPool(NUM_THREADS);
+      try {
+         List<Future<Void>> futures = new ArrayList<Future<Void>>(NUM_THREADS);
+         for (int t = 0; t < NUM_THREADS; t++) {
+            final int thread = t;
+            futures.add(executor.submit(new Callable<Void>() {
+               @Override
+               public Void call() throws Exception {
+                  for (int i = 0; i < NUM_WRITES; i++) {
+                     cache("LON", thread % 2).put(key(thread, i % NUM_KEYS), i);
+                  }
+                  cache("LON", thread % 2).remove(key(thread, 0));
+                  return null;
+               }
+            }));
+         }
+         for (Future<Void> future : futures) future.get();
+      } finally {
+         executor.shutdownNow();
+      }
+
+      eventually(new Condition() {
+         @Override
+         public boolean isSatisfied() throws Exception {
+            for (int t = 0; t < NUM_THREADS; t++) {
+               if (backup("LON").get(key(t, 0)) != null) return false;
+               for (int k = 1; k < NUM_KEYS; k++) {
+                  if (!Integer.valueOf(NUM_WRITES - NUM_KEYS + k).equals(backup("LON").get(key(t, k)))) return false;
+               }
+            }
+            return true;
+         }
+      });
+      assertEquals("0", admin("LON", 0).getBackupQueueDepth("NYC"));
+      assertEquals("0", admin("LON", 0).getBackupLag("NYC"));
+      assert Double.parseDouble(admin("LON", 0).getAverageBackupBatchSize("NYC")) >= 1;
+   }
+
+   public void testClear() {
+      for (int i = 0; i < 10; i++) cache("LON", 0).put("k" + i, "v" + i);
+      cache("LON", 1).clear();
+      cache("LON", 0).put("k0", "v");
+      eventually(new Condition() {
+         @Override
+         public boolean isSatisfied() throws Exception {
+            for (int i = 1; i < 10; i++) {
+               if (backup("LON").get("k" + i) != null) return false;
+            }
+            return "v".equals(backup("LON").get("k0"));
+         }
+      });
+   }
+
+   public void testAdminOperationsOfUnknownSite() {
+      assertEquals("Incorrect site name: SFO", admin("LON", 0).getBackupQueueDepth("SFO"));
+   }
+
+   private static String key(int thread, int key) {
+      return "k" + thread + "-" + key;
+   }
+
+   private XSiteAdminOperations admin(String site, int cache) {
+      return cache(site, cache).getAdvancedCache().getComponentRegistry().getComponent(XSiteAdminOperations.class);
+   }
+}
@@ -24,7 +24,7 @@ package org.infinispan.server.core
 
 import org.infinispan.Cache
 import Operation._
-import java.util.concurrent.TimeUnit
+import java.util.concurrent.{RejectedExecutionException, TimeUnit}
 import transport._
 import java.io.StreamCorruptedException
 import transport.ExtendedChannelBuffer._
@@ -53,6 +53,19 @@ abstract class AbstractProtocolDecoder[K, V <: CacheValue](transport: NettyTrans
 
    var versionGenerator: ClusterIdGenerator = _
 
+   /**
+    * When set, get, put, replace and remove requests are executed by this executor once they've been fully decoded,
+    * so that the next requests sent on the same channel can be decoded and executed without waiting for them.
+    * Responses are then written in completion order, so this can only be used by protocols whose responses
+    * carry the id of the request they answer. Any other request waits for the pipelined requests of the channel
+    * to complete before being executed.
+    */
+   var pipelineExecutor: PipelineExecutor = _
+
+   // The number of requests of this channel handed to the pipeline executor and not completed yet
+   private var pipelinedRequests = 0
+   private val pipelineLock = new Object
+
    private val isTrace = isTraceEnabled
 
    protected var header: SuitableHeader = null.asInstanceOf[SuitableHeader]
@@ -99,6 +112,8 @@ abstract class AbstractProtocolDecoder[K, V <: CacheValue](transport: NettyTrans
       }
 
       cache = getCache
+      if (pipelineExecutor != null && !isPipelined(header.op))
+         awaitPipelinedRequests()
       if (endOfOp.get) {
          header.op match {
             case StatsRequest => writeResponse(ch, createStatsResponse)
@@ -112,10 +127,15 @@ abstract class AbstractProtocolDecoder[K, V <: CacheValue](transport: NettyTrans
    private def decodeKey(ch: Channel, buffer: ChannelBuffer, state: DecoderState): AnyRef = {
       header.op match {
          // Get, put and remove are the most typical operations, so they're first
-         case GetRequest => writeResponse(ch, get(buffer))
+         case GetRequest | GetWithVersionRequest =>
+            if (pipelineExecutor == null) {
+               writeResponse(ch, get(buffer))
+            } else {
+               key = readKey(buffer)._1
+               executeRequest(ch)
+            }
          case PutRequest => handleModification(ch, buffer)
          case RemoveRequest => handleModification(ch, buffer)
-         case GetWithVersionRequest => writeResponse(ch, get(buffer))
          case PutIfAbsentRequest | ReplaceRequest | ReplaceIfUnmodifiedRequest =>
             handleModification(ch, buffer)
          case _ => customDecodeKey(ch, buffer)
@@ -127,7 +147,7 @@ abstract class AbstractProtocolDecoder[K, V <: CacheValue](transport: NettyTrans
       key = k
       if (endOfOp) {
          // If it's the end of the operation, it can only be a remove
-         writeResponse(ch, remove)
+         executeRequest(ch)
       } else {
          checkpointTo(DECODE_PARAMETERS)
       }
@@ -149,20 +169,113 @@ abstract class AbstractProtocolDecoder[K, V <: CacheValue](transport: NettyTrans
    }
 
    private def decodeValue(ch: Channel, buffer: ChannelBuffer, state: DecoderState): AnyRef = {
-      val ret = header.op match {
+      header.op match {
          case PutRequest | PutIfAbsentRequest | ReplaceRequest | ReplaceIfUnmodifiedRequest  => {
             readValue(buffer)
-            header.op match {
-               case PutRequest => put
-               case PutIfAbsentRequest => putIfAbsent
-               case ReplaceRequest => replace
-               case ReplaceIfUnmodifiedRequest => replaceIfUnmodified
+            executeRequest(ch)
+         }
+         case RemoveRequest => executeRequest(ch)
+         case _ => writeResponse(ch, customDecodeValue(ch, buffer))
+      }
+   }
+
+   private def isPipelined(op: Enumeration#Value): Boolean = op match {
+      case GetRequest | GetWithVersionRequest | PutRequest | RemoveRequest => true
+      case PutIfAbsentRequest | ReplaceRequest | ReplaceIfUnmodifiedRequest => true
+      case _ => false
+   }
+
+   /**
+    * Blocks until the pipelined requests of this channel have completed, so that the requests executed by the
+    * I/O thread, like clear or bulk get, see their outcome.
+    */
+   private def awaitPipelinedRequests() {
+      pipelineLock.synchronized {
+         while (pipelinedRequests > 0) pipelineLock.wait()
+      }
+   }
+
+   private[core] def pipelinedRequestDone() {
+      pipelineLock.synchronized {
+         pipelinedRequests -= 1
+         if (pipelinedRequests == 0) pipelineLock.notifyAll()
+      }
+   }
+
+   /**
+    * Executes a fully decoded get, put, replace or remove request and writes its response, either straight away
+    * or, if requests are pipelined, from the pipeline executor once the request has completed.
+    */
+   private def executeRequest(ch: Channel): AnyRef = {
+      val executor = pipelineExecutor
+      if (executor == null) {
+         writeResponse(ch, executeOperation)
+      } else {
+         val request = new PipelinedRequest(ch, header, params, key, rawValue, cache, this)
+         pipelineLock.synchronized {
+            pipelinedRequests += 1
+         }
+         try {
+            executor.execute(request)
+         } catch {
+            case e: RejectedExecutionException => {
+               pipelinedRequestDone()
+               throw e
             }
          }
+         resetParams
+      }
+   }
+
+   private def executeOperation: AnyRef = {
+      header.op match {
+         case GetRequest | GetWithVersionRequest => createGetResponse(key, cache.get(key))
+         case PutRequest => put
+         case PutIfAbsentRequest => putIfAbsent
+         case ReplaceRequest => replace
+         case ReplaceIfUnmodifiedRequest => replaceIfUnmodified
          case RemoveRequest => remove
-         case _ => customDecodeValue(ch, buffer)
       }
-      writeResponse(ch, ret)
+   }
+
+   /**
+    * Executes a request handed over by the decoder which read it, with this decoder's fields set to the state of
+    * the request. Only ever called by the thread of a pipeline executor lane.
+    */
+   private[core] def executePipelined(request: PipelinedRequest) {
+      header = request.header.asInstanceOf[SuitableHeader]
+      params = request.params.asInstanceOf[SuitableParameters]
+      key = request.key.asInstanceOf[K]
+      rawValue = request.rawValue
+      cache = request.cache.asInstanceOf[Cache[K, V]]
+      try {
+         executeAndWrite(request.ch)
+      } finally {
+         header = null.asInstanceOf[SuitableHeader]
+         params = null.asInstanceOf[SuitableParameters]
+         key = null.asInstanceOf[K]
+         rawValue = null.asInstanceOf[Array[Byte]]
+         cache = null
+         request.origin.pipelinedRequestDone()
+      }
+   }
+
+   private def executeAndWrite(ch: Channel) {
+      val response =
+         try {
+            executeOperation
+         } catch {
+            case e: Exception => {
+               // Same outcome as a server error thrown by the I/O thread, but written in response to this request
+               val (serverException, _) = createServerException(e, null)
+               debug(serverException, "Exception caught executing pipelined request")
+               createErrorResponse(serverException)
+            }
+         }
+      if (response != null) {
+         if (isTrace) trace("Write pipelined response %s", response)
+         write(ch, response)
+      }
    }
 
    override def decodeLast(ctx: ChannelHandlerContext, ch: Channel, buffer: ChannelBuffer, state: DecoderState): AnyRef = null // no-op
@@ -171,13 +284,7 @@ abstract class AbstractProtocolDecoder[K, V <: CacheValue](transport: NettyTrans
       try {
          if (response != null) {
             if (isTrace) trace("Write response %s", response)
-            response match {
-               // We only expect Lists of ChannelBuffer instances, so don't worry about type erasure
-               case l: List[ChannelBuffer] => l.foreach(ch.write(_))
-               case a: Array[Byte] => ch.write(wrappedBuffer(a))
-               case cs: CharSequence => ch.write(ChannelBuffers.copiedBuffer(cs, CharsetUtil.UTF_8))
-               case _ => ch.write(response)
-            }
+            write(ch, response)
          }
          null
       } finally {
@@ -185,6 +292,16 @@ abstract class AbstractProtocolDecoder[K, V <: CacheValue](transport: NettyTrans
       }
    }
 
+   private def write(ch: Channel, response: AnyRef) {
+      response match {
+         // We only expect Lists of ChannelBuffer instances, so don't worry about type erasure
+         case l: List[ChannelBuffer] => l.foreach(ch.write(_))
+         case a: Array[Byte] => ch.write(wrappedBuffer(a))
+         case cs: CharSequence => ch.write(ChannelBuffers.copiedBuffer(cs, CharsetUtil.UTF_8))
+         case _ => ch.write(response)
+      }
+   }
+
    private def resetParams: AnyRef = {
       checkpointTo(DECODE_HEADER)
       // Reset parameters to avoid leaking previous params
@@ -0,0 +1,83 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.server.core
+
+import java.util.concurrent.{ThreadFactory, Executors, ExecutorService}
+import org.jboss.netty.channel.Channel
+import org.infinispan.Cache
+
+/**
+ * Executes the get, put, replace and remove requests pipelined by clients, once they've been fully decoded.
+ *
+ * Requests are routed by key to one of a fixed number of lanes, each executing its requests one after the other on a
+ * thread of its own. Requests on the same key are therefore executed in the order they were decoded, while requests
+ * on other keys can overtake them. Each lane executes its requests with a decoder of its own, created on demand, so
+ * the decoders reading the requests off the connections keep their state to themselves.
+ *
+ * @since 5.2
+ */
+class PipelineExecutor(numLanes: Int, threadNamePrefix: String, newDecoder: () => AbstractProtocolDecoder[_, _]) {
+
+   if (numLanes < 1)
+      throw new IllegalArgumentException("The number of pipeline lanes must be strictly positive: " + numLanes)
+
+   private val lanes = Array.tabulate(numLanes)(i => new Lane(threadNamePrefix + "-" + (i + 1)))
+
+   private[core] def execute(request: PipelinedRequest) {
+      lanes((request.key.hashCode & Int.MaxValue) % lanes.length).execute(request)
+   }
+
+   def shutdown() {
+      lanes.foreach(_.executor.shutdown())
+   }
+
+   private class Lane(threadName: String) {
+      val executor: ExecutorService = Executors.newSingleThreadExecutor(new ThreadFactory {
+         override def newThread(r: Runnable): Thread = {
+            val t = new Thread(r, threadName)
+            t.setDaemon(true)
+            t
+         }
+      })
+
+      // Only ever used by the lane's thread
+      private var decoder: AbstractProtocolDecoder[_, _] = _
+
+      def execute(request: PipelinedRequest) {
+         executor.execute(new Runnable {
+            override def run() {
+               if (decoder == null) decoder = newDecoder()
+               decoder.executePipelined(request)
+            }
+         })
+      }
+   }
+
+}
+
+/**
+ * The state of a fully decoded request, handed over from the decoder reading it to the decoder executing it.
+ */
+private[core] class PipelinedRequest(val ch: Channel, val header: RequestHeader, val params: RequestParameters,
+                                     val key: Any, val rawValue: Array[Byte], val cache: Cache[_, _],
+                                     val origin: AbstractProtocolDecoder[_, _])
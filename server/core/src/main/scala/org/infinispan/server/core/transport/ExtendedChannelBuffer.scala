@@ -65,6 +65,28 @@ object ExtendedChannelBuffer {
       bf.writeBytes(src)
    }
 
+   /**
+    * Arrays of at least this many bytes are wrapped rather than copied by writeRangedBytesNoCopy.
+    */
+   val NoCopyThreshold = 8 * 1024
+
+   /**
+    * Writes the length of the array to the buffer and returns a buffer that holds the buffer contents followed by
+    * the array. Small arrays are copied into the given buffer, which is returned, but large arrays, like big cache
+    * values, are wrapped in a composite buffer along with the given buffer, so that their contents are never copied
+    * nor make the buffer grow. As nothing written to the given buffer afterwards would be part of the composite
+    * buffer, this can only be used for the last field of a message.
+    */
+   def writeRangedBytesNoCopy(src: Array[Byte], bf: ChannelBuffer): ChannelBuffer = {
+      if (src.length < NoCopyThreshold) {
+         writeRangedBytes(src, bf)
+         bf
+      } else {
+         writeUnsignedInt(src.length, bf)
+         ChannelBuffers.wrappedBuffer(bf, ChannelBuffers.wrappedBuffer(src))
+      }
+   }
+
    def writeString(msg: String, bf: ChannelBuffer) = writeRangedBytes(msg.getBytes(CharsetUtil.UTF_8), bf)
 
 }
\ No newline at end of file
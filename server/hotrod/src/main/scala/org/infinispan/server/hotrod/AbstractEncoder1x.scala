@@ -67,13 +67,14 @@ abstract class AbstractEncoder1x extends AbstractVersionedEncoder with Constants
    }
 
    override def writeResponse(r: Response, buf: ChannelBuffer,
-           cacheManager: EmbeddedCacheManager, server: HotRodServer) {
+           cacheManager: EmbeddedCacheManager, server: HotRodServer): ChannelBuffer = {
+      // Values are always the last field of a response, so they're written without copying them when large
       r match {
          case r: ResponseWithPrevious => {
             if (r.previous == None)
                writeUnsignedInt(0, buf)
             else
-               writeRangedBytes(r.previous.get, buf)
+               return writeRangedBytesNoCopy(r.previous.get, buf)
          }
          case s: StatsResponse => {
             writeUnsignedInt(s.stats.size, buf)
@@ -85,7 +86,7 @@ abstract class AbstractEncoder1x extends AbstractVersionedEncoder with Constants
          case g: GetWithVersionResponse => {
             if (g.status == Success) {
                buf.writeLong(g.dataVersion)
-               writeRangedBytes(g.data.get, buf)
+               return writeRangedBytesNoCopy(g.data.get, buf)
             }
          }
          case g: GetWithMetadataResponse => {
@@ -101,7 +102,7 @@ abstract class AbstractEncoder1x extends AbstractVersionedEncoder with Constants
                   writeUnsignedInt(g.maxIdle, buf)
                }
                buf.writeLong(g.dataVersion)
-               writeRangedBytes(g.data.get, buf)
+               return writeRangedBytesNoCopy(g.data.get, buf)
             }
          }
          case g: BulkGetResponse => {
@@ -122,12 +123,22 @@ abstract class AbstractEncoder1x extends AbstractVersionedEncoder with Constants
                buf.writeByte(0) // Done
             }
          }
+         case g: GetAllResponse => {
+            if (g.status == Success) {
+               writeUnsignedInt(g.entries.size, buf)
+               for ((key, value) <- g.entries) {
+                  writeRangedBytes(key.getData, buf)
+                  writeRangedBytes(value, buf)
+               }
+            }
+         }
          case g: GetResponse =>
-            if (g.status == Success) writeRangedBytes(g.data.get, buf)
+            if (g.status == Success) return writeRangedBytesNoCopy(g.data.get, buf)
          case e: ErrorResponse => writeString(e.msg, buf)
          case _ => if (buf == null)
             throw new IllegalArgumentException("Response received is unknown: " + r);
       }
+      buf
    }
 
    def getTopologyResponse(r: Response, addressCache: Cache[Address, ServerAddress],
@@ -0,0 +1,95 @@
+/*
+ * Copyright 2012 Red Hat, Inc. and/or its affiliates.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ * 02110-1301 USA
+ */
+
+package org.infinispan.server.hotrod
+
+import logging.Log
+import org.jboss.netty.buffer.ChannelBuffer
+import org.infinispan.Cache
+import org.infinispan.remoting.transport.Address
+import org.infinispan.server.core.transport.ExtendedChannelBuffer._
+import collection.JavaConversions._
+import org.infinispan.configuration.cache.Configuration
+import org.infinispan.distribution.ch.ConsistentHash
+
+/**
+ * Hot Rod encoder for protocol version 1.3, which sends the owners of every segment of the consistent hash instead
+ * of hash ids, so that clients can route each key to its primary owner.
+ *
+ * The topology is sent as the list of servers, followed by the hash function version and, for each segment, the
+ * number of owners and the index of each owner in the list of servers.
+ *
+ * @since 5.2
+ */
+abstract class AbstractSegmentAwareEncoder1x extends AbstractTopologyAwareEncoder1x with Constants with Log {
+
+   override protected def createHashDistAwareResp(lastViewId: Int,
+            cfg: Configuration): AbstractHashDistAwareResponse = {
+      HashDistAwareResponse(lastViewId, cfg.clustering().hash().numOwners(),
+            DEFAULT_HASH_FUNCTION_VERSION, Integer.MAX_VALUE)
+   }
+
+   override protected def writeHashTopologyHeader(
+            topoResp: AbstractTopologyResponse, buf: ChannelBuffer, r: Response,
+            members: Cache[Address, ServerAddress], server: HotRodServer) {
+      topoResp match {
+         case h: AbstractHashDistAwareResponse => {
+            trace("Write segment ownership change response header %s", h)
+            val cache = server.getCacheInstance(r.cacheName, members.getCacheManager, false)
+            val ch = cache.getAdvancedCache.getDistributionManager.getConsistentHash
+            writeSegmentTopologyHeader(buf, h.viewId, members, h.hashFunction, ch)
+         }
+         case t: TopologyAwareResponse => {
+            trace("Return servers without segment ownership in spite of having a hash aware client %s", t)
+            writeSegmentTopologyHeader(buf, t.viewId, members, 0, null)
+         }
+         case _ => throw new IllegalStateException(
+            "Expected version 1.3 specific response: " + topoResp)
+      }
+   }
+
+   private def writeSegmentTopologyHeader(buf: ChannelBuffer, viewId: Int,
+            members: Cache[Address, ServerAddress], hashFct: Byte, ch: ConsistentHash) {
+      val servers = members.toSeq
+      buf.writeByte(1) // Topology changed
+      writeUnsignedInt(viewId, buf)
+      writeUnsignedInt(servers.size, buf)
+      servers.foreach { case (_, serverAddress) =>
+         writeString(serverAddress.host, buf)
+         writeUnsignedShort(serverAddress.port, buf)
+      }
+      buf.writeByte(hashFct)
+      if (ch == null) {
+         writeUnsignedInt(0, buf) // Num segments
+      } else {
+         // Owners are referred to by their position in the list of servers sent above
+         val serverIndexes = servers.map(_._1).zipWithIndex.toMap
+         val numSegments = ch.getNumSegments
+         writeUnsignedInt(numSegments, buf)
+         for (segmentIdx <- 0 until numSegments) {
+            // Owners without a Hot Rod endpoint registered yet are left out
+            val owners = ch.locateOwnersForSegment(segmentIdx).flatMap(serverIndexes.get(_))
+            buf.writeByte(owners.size)
+            owners.foreach(writeUnsignedInt(_, buf))
+         }
+      }
+      trace("Topology contains %d servers", servers.size)
+   }
+
+}
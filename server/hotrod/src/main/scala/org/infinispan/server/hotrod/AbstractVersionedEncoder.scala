@@ -40,8 +40,9 @@ abstract class AbstractVersionedEncoder {
          addressCache: Cache[Address, ServerAddress], server: HotRodServer)
 
    /**
-    * Write operation response using the given channel buffer
+    * Write operation response using the given channel buffer, and return the buffer to send. This is the given
+    * buffer, unless the response ends with a value large enough to be sent without copying it into the buffer.
     */
-   def writeResponse(r: Response, buf: ChannelBuffer, cacheManager: EmbeddedCacheManager, server: HotRodServer)
+   def writeResponse(r: Response, buf: ChannelBuffer, cacheManager: EmbeddedCacheManager, server: HotRodServer): ChannelBuffer
 
 }
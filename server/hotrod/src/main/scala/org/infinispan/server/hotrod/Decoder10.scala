@@ -52,7 +52,7 @@ import org.infinispan.container.entries.InternalCacheEntry
  * @author Galder Zamarreño
  * @since 4.1
  */
-object Decoder10 extends AbstractVersionedDecoder with ServerConstants with Log {
+object Decoder10 extends AbstractVersionedDecoder with ServerConstants with Constants with Log {
    import OperationResponse._
    import ProtocolFlag._
    type SuitableHeader = HotRodHeader
@@ -75,6 +75,9 @@ object Decoder10 extends AbstractVersionedDecoder with ServerConstants with Log
          case 0x17 => (PingRequest, true)
          case 0x19 => (BulkGetRequest, false)
          case 0x1B => (GetWithMetadataRequest, false)
+         // Bulk operations were introduced along with version 1.3
+         case 0x1D if version >= VERSION_13 => (GetAllRequest, false)
+         case 0x1F if version >= VERSION_13 => (PutAllRequest, false)
          case _ => throw new HotRodUnknownOperationException(
                "Unknown operation: " + streamOp, version, messageId)
       }
@@ -129,6 +132,16 @@ object Decoder10 extends AbstractVersionedDecoder with ServerConstants with Log
       }
    }
 
+   override def readPutAllEntries(header: HotRodHeader, buffer: ChannelBuffer): (RequestParameters, Seq[(ByteArrayKey, Array[Byte])]) = {
+      val lifespan = readLifespanOrMaxIdle(buffer, hasFlag(header, ProtocolFlag.DefaultLifespan))
+      val maxIdle = readLifespanOrMaxIdle(buffer, hasFlag(header, ProtocolFlag.DefaultMaxIdle))
+      val count = readUnsignedInt(buffer)
+      val entries = new mutable.ArrayBuffer[(ByteArrayKey, Array[Byte])](count)
+      for (i <- 0 until count)
+         entries += ((readKey(buffer), readRangedBytes(buffer)))
+      (new RequestParameters(-1, lifespan, maxIdle, -1), entries)
+   }
+
    private def hasFlag(h: HotRodHeader, f: ProtocolFlag): Boolean = {
       (h.flag & f.id) == f.id
    }
@@ -233,6 +246,20 @@ object Decoder10 extends AbstractVersionedDecoder with ServerConstants with Log
             val k = readKey(buffer)
             getKeyMetadata(h, k, cache)
          }
+         case GetAllRequest => {
+            val count = readUnsignedInt(buffer)
+            // Read all keys before touching the cache, so that a replayed decode does not repeat any lookups
+            val keys = new mutable.ArrayBuffer[ByteArrayKey](count)
+            for (i <- 0 until count) keys += readKey(buffer)
+            if (isTrace) trace("About to create get all response for %d keys", count)
+            val entries = mutable.LinkedHashMap.empty[ByteArrayKey, Array[Byte]]
+            for (k <- keys) {
+               val v = cache.get(k)
+               if (v != null) entries += (k -> v.data)
+            }
+            new GetAllResponse(h.version, h.messageId, h.cacheName, h.clientIntel,
+                               GetAllResponse, Success, h.topologyId, entries)
+         }
       }
    }
 
@@ -310,6 +337,8 @@ object Decoder10 extends AbstractVersionedDecoder with ServerConstants with Log
          case PingRequest => PingResponse
          case BulkGetRequest => BulkGetResponse
          case GetWithMetadataRequest => GetWithMetadataResponse
+         case GetAllRequest => GetAllResponse
+         case PutAllRequest => PutAllResponse
       }
    }
 
@@ -331,6 +360,8 @@ object OperationResponse extends Enumeration {
    val PingResponse = Value(0x18)
    val BulkGetResponse = Value(0x1A)
    val GetWithMetadataResponse = Value(0x1C)
+   val GetAllResponse = Value(0x1E)
+   val PutAllResponse = Value(0x20)
    val ErrorResponse = Value(0x50)
 }
 
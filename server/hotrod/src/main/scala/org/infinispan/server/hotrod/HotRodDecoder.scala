@@ -35,6 +35,8 @@ import java.io.{IOException, StreamCorruptedException}
 import org.jboss.netty.buffer.ChannelBuffer
 import org.jboss.netty.channel.Channel
 import java.lang.StringBuilder
+import java.util.concurrent.TimeUnit.MILLISECONDS
+import org.infinispan.context.Flag.IGNORE_RETURN_VALUES
 
 /**
  * Top level Hot Rod decoder that after figuring out the version, delegates the rest of the reading to the
@@ -77,7 +79,7 @@ class HotRodDecoder(cacheManager: EmbeddedCacheManager, transport: NettyTranspor
 
       try {
          val decoder = version match {
-            case VERSION_10 | VERSION_11 | VERSION_12 => Decoder10
+            case VERSION_10 | VERSION_11 | VERSION_12 | VERSION_13 => Decoder10
             case _ => throw new UnknownVersionException(
                "Unknown version:" + version, version, messageId)
          }
@@ -156,8 +158,31 @@ class HotRodDecoder(cacheManager: EmbeddedCacheManager, transport: NettyTranspor
    override protected def customDecodeHeader(ch: Channel, buffer: ChannelBuffer): AnyRef =
       writeResponse(ch, header.decoder.customReadHeader(header, buffer, cache))
 
-   override protected def customDecodeKey(ch: Channel, buffer: ChannelBuffer): AnyRef =
-      writeResponse(ch, header.decoder.customReadKey(header, buffer, cache))
+   override protected def customDecodeKey(ch: Channel, buffer: ChannelBuffer): AnyRef = {
+      header.op match {
+         case HotRodOperation.PutAllRequest => writeResponse(ch, putAll(buffer))
+         case _ => writeResponse(ch, header.decoder.customReadKey(header, buffer, cache))
+      }
+   }
+
+   private def putAll(buffer: ChannelBuffer): AnyRef = {
+      val (parameters, rawEntries) = header.decoder.readPutAllEntries(header, buffer)
+      val entries = new java.util.HashMap[ByteArrayKey, CacheValue](rawEntries.size)
+      for ((k, rawValue) <- rawEntries)
+         entries.put(k, header.decoder.createValue(parameters, generateVersion(cache), rawValue))
+
+      // Previous values are never returned for multi-key puts
+      val c = cache.getAdvancedCache.withFlags(IGNORE_RETURN_VALUES)
+      (parameters.lifespan, parameters.maxIdle) match {
+         case (EXPIRATION_DEFAULT, EXPIRATION_DEFAULT) => c.putAll(entries)
+         case (_, EXPIRATION_DEFAULT) => c.putAll(entries, toMillis(parameters.lifespan), MILLISECONDS)
+         case (_, _) => c.putAll(entries,
+               toMillis(parameters.lifespan), MILLISECONDS,
+               toMillis(parameters.maxIdle), MILLISECONDS)
+      }
+      new Response(header.version, header.messageId, header.cacheName, header.clientIntel,
+                   OperationResponse.PutAllResponse, Success, header.topologyId)
+   }
 
    override protected def customDecodeValue(ch: Channel, buffer: ChannelBuffer): AnyRef =
       writeResponse(ch, header.decoder.customReadValue(header, buffer, cache))
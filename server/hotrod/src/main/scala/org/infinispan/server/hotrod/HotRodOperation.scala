@@ -38,4 +38,6 @@ object HotRodOperation extends Enumeration(20) {
    val PingRequest = Value
    val BulkGetRequest = Value
    val GetWithMetadataRequest = Value
+   val GetAllRequest = Value
+   val PutAllRequest = Value
 }
@@ -26,7 +26,7 @@ import logging.Log
 import scala.collection.JavaConversions._
 import org.infinispan.manager.EmbeddedCacheManager
 import java.util.Properties
-import org.infinispan.server.core.{CacheValue, AbstractProtocolServer}
+import org.infinispan.server.core.{PipelineExecutor, CacheValue, AbstractProtocolServer}
 import org.infinispan.eviction.EvictionStrategy
 import org.infinispan.util.{TypedProperties, ByteArrayKey}
 import org.infinispan.server.core.Main._
@@ -63,6 +63,7 @@ class HotRodServer extends AbstractProtocolServer("HotRod") with Log {
    private var addressCache: Cache[Address, ServerAddress] = _
    private var topologyUpdateTimeout: Long = _
    private var viewId: Int = DEFAULT_VIEW_ID
+   private var pipelineExecutor: PipelineExecutor = _
    private val knownCaches : java.util.Map[String, Cache[ByteArrayKey, CacheValue]] = ConcurrentMapFactory.makeConcurrentMap(4, 0.9f, 16)
    private val isTrace = isTraceEnabled
 
@@ -80,6 +81,7 @@ class HotRodServer extends AbstractProtocolServer("HotRod") with Log {
    override def getDecoder : HotRodDecoder = {
       val hotRodDecoder = new HotRodDecoder(getCacheManager, transport, this)
       hotRodDecoder.versionGenerator = this.versionGenerator
+      hotRodDecoder.pipelineExecutor = this.pipelineExecutor
       hotRodDecoder
    }
 
@@ -113,6 +115,18 @@ class HotRodServer extends AbstractProtocolServer("HotRod") with Log {
       // Start predefined caches
       preStartCaches()
 
+      // Hot Rod responses carry the id of their request, so they can be sent back out of order
+      val pipelineThreads = typedProps.getIntProperty(PROP_KEY_PIPELINE_THREADS, PIPELINE_THREADS_DEFAULT, true)
+      if (pipelineThreads < 0)
+         throw new IllegalArgumentException("Pipeline threads can't be lower than 0: " + pipelineThreads)
+      if (pipelineThreads > 0)
+         pipelineExecutor = new PipelineExecutor(pipelineThreads, "HotRodServerPipeline", () => {
+            // Only executes the requests handed over by the decoders of the connections
+            val hotRodDecoder = new HotRodDecoder(getCacheManager, transport, this)
+            hotRodDecoder.versionGenerator = this.versionGenerator
+            hotRodDecoder
+         })
+
       super.startTransport(idleTimeout, tcpNoDelay, sendBufSize, recvBufSize, typedProps)
    }
 
@@ -174,6 +188,15 @@ class HotRodServer extends AbstractProtocolServer("HotRod") with Log {
       builder
    }
 
+   override def stop {
+      super.stop
+      if (pipelineExecutor != null) {
+         // The transport is stopped, so no more requests can be queued
+         pipelineExecutor.shutdown()
+         pipelineExecutor = null
+      }
+   }
+
    def isCacheNameKnown(cacheName: String) = {
       cacheName != null && !cacheName.isEmpty && !(knownCaches containsKey cacheName)
    }
@@ -0,0 +1,85 @@
+/*
+ * Copyright 2012 Red Hat, Inc. and/or its affiliates.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ * 02110-1301 USA
+ */
+
+package org.infinispan.server.hotrod
+
+import org.infinispan.config.Configuration
+import org.infinispan.test.AbstractCacheTest._
+import org.infinispan.config.Configuration.CacheMode
+import java.lang.reflect.Method
+import test.HotRodTestingUtil._
+import org.testng.Assert._
+import test.HotRodClient
+import org.infinispan.server.hotrod.OperationStatus._
+import org.testng.annotations.Test
+
+/**
+ * Tests Hot Rod distribution mode using Hot Rod's 1.3 protocol, where the segment owners are sent to the clients.
+ *
+ * @since 5.2
+ */
+@Test(groups = Array("functional"), testName = "server.hotrod.HotRod13DistributionTest")
+class HotRod13DistributionTest extends HotRodMultiNodeTest {
+
+   override protected def cacheName = "distributedVersion13"
+
+   override protected def createCacheConfig: Configuration = {
+      val cfg = getDefaultClusteredConfig(CacheMode.DIST_SYNC)
+      cfg.fluent().l1().disable() // Disable L1 explicitly
+      cfg
+   }
+
+   override protected def protocolVersion : Byte = 13
+
+   def testDistributedPutWithTopologyChanges(m: Method) {
+      var resp = clients.head.ping(3, 0)
+      assertStatus(resp, Success)
+      assertSegmentTopologyReceived(resp.topologyResponse.get, servers, cacheName)
+
+      resp = clients.head.put(k(m) , 0, 0, v(m), 3, 0)
+      assertStatus(resp, Success)
+      assertSegmentTopologyReceived(resp.topologyResponse.get, servers, cacheName)
+      assertSuccess(clients.tail.head.get(k(m), 0), v(m))
+
+      resp = clients.head.put(k(m) , 0, 0, v(m, "v1-"), 2, 0)
+      assertStatus(resp, Success)
+      assertTopologyReceived(resp.topologyResponse.get, servers)
+
+      val newServer = startClusteredServer(servers.tail.head.getPort + 25)
+      val newClient = new HotRodClient(
+            "127.0.0.1", newServer.getPort, cacheName, 60, protocolVersion)
+      val addressRemovalLatches = getAddressCacheRemovalLatches(servers)
+      try {
+         resp = newClient.put(k(m) , 0, 0, v(m, "v2-"), 3, 0)
+         assertStatus(resp, Success)
+         assertSegmentTopologyReceived(resp.topologyResponse.get, newServer :: servers, cacheName)
+         assertSuccess(clients.tail.head.get(k(m), 0), v(m, "v2-"))
+      } finally {
+         newClient.stop
+         stopClusteredServer(newServer)
+         waitAddressCacheRemoval(addressRemovalLatches)
+      }
+
+      resp = clients.tail.head.put(k(m) , 0, 0, v(m, "v3-"), 3, 2)
+      assertStatus(resp, Success)
+      assertSegmentTopologyReceived(resp.topologyResponse.get, servers, cacheName)
+      assertSuccess(clients.tail.head.get(k(m), 0), v(m, "v3-"))
+   }
+
+}
@@ -453,6 +453,16 @@ class HotRodFunctionalTest extends HotRodSingleNodeTest {
       assertStatus(client.put(k(m), 0, 0, value), Success)
    }
 
+   def testGetBigSizeValue(m: Method) {
+      // Big enough for the encoder to send it without copying it into the response buffer
+      val value = generateRandomString(1024 * 1024).getBytes
+      assertStatus(client.put(k(m), 0, 0, value), Success)
+      assertSuccess(client.assertGet(m), value)
+      assertSuccess(client.getWithVersion(k(m), 0), value, 0)
+      val resp = client.put(k(m), 0, 0, v(m), 1).asInstanceOf[TestResponseWithPrevious]
+      assertSuccess(resp, value)
+   }
+
    def testStoreAsBinaryOverrideOnNamedCache(m: Method) {
       Stoppable.useCacheManager(createTestCacheManager) { cm =>
          Stoppable.useServer(startHotRodServer(cm, server.getPort + 33)) { server =>
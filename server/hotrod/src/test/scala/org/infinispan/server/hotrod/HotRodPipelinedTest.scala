@@ -0,0 +1,94 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.server.hotrod
+
+import org.testng.annotations.Test
+import java.lang.reflect.Method
+import test.HotRodTestingUtil._
+import org.testng.Assert._
+import org.infinispan.server.hotrod.OperationStatus._
+import org.infinispan.server.hotrod.OperationResponse._
+import org.infinispan.server.hotrod.test._
+import org.infinispan.server.core.Main._
+import org.infinispan.manager.EmbeddedCacheManager
+import java.util.Properties
+
+/**
+ * Runs the Hot Rod functional tests against a server executing pipelined requests out of order, and checks that
+ * responses to requests pipelined on one connection are matched to their requests.
+ *
+ * @since 5.2
+ */
+@Test(groups = Array("functional"), testName = "server.hotrod.HotRodPipelinedTest")
+class HotRodPipelinedTest extends HotRodFunctionalTest {
+
+   override protected def createStartHotRodServer(cacheManager: EmbeddedCacheManager) = {
+      val properties = new Properties
+      properties.setProperty(PROP_KEY_PIPELINE_THREADS, "4")
+      startHotRodServer(cacheManager, UniquePortThreadLocal.get.intValue, properties)
+   }
+
+   def testPipelinedPutsAndGets(m: Method) {
+      val count = 100
+      val puts = (0 until count).map(i =>
+         new Op(0xA0, 10, 0x01, cacheName, k(m, i + "-"), 0, 0, v(m, i + "-"), 0, 0, 1, 0))
+      val putResponses = client.executePipelined(puts)
+      for ((op, resp) <- puts.zip(putResponses)) {
+         assertNotNull(resp, "No response received for " + op)
+         assertEquals(resp.messageId, op.id)
+         assertEquals(resp.operation, PutResponse)
+         assertStatus(resp, Success)
+      }
+
+      val gets = (0 until count).map(i =>
+         new Op(0xA0, 10, 0x03, cacheName, k(m, i + "-"), 0, 0, null, 0, 0, 1, 0))
+      val getResponses = client.executePipelined(gets)
+      for (i <- 0 until count) {
+         val resp = getResponses(i).asInstanceOf[TestGetResponse]
+         assertEquals(resp.messageId, gets(i).id)
+         assertSuccess(resp, v(m, i + "-"))
+      }
+   }
+
+   def testPipelinedRequestsOnSameKeyAreOrdered(m: Method) {
+      val count = 100
+      val puts = (0 until count).map(i =>
+         new Op(0xA0, 10, 0x01, cacheName, k(m), 0, 0, v(m, i + "-"), 0, 0, 1, 0))
+      val get = new Op(0xA0, 10, 0x03, cacheName, k(m), 0, 0, null, 0, 0, 1, 0)
+      val responses = client.executePipelined(puts :+ get)
+      for (resp <- responses.init) assertStatus(resp, Success)
+      assertSuccess(responses.last.asInstanceOf[TestGetResponse], v(m, (count - 1) + "-"))
+   }
+
+   def testClearWaitsForPipelinedRequests(m: Method) {
+      val count = 100
+      val puts = (0 until count).map(i =>
+         new Op(0xA0, 10, 0x01, cacheName, k(m, i + "-"), 0, 0, v(m, i + "-"), 0, 0, 1, 0))
+      val clear = new Op(0xA0, 10, 0x13, cacheName, null, 0, 0, null, 0, 0, 1, 0)
+      val responses = client.executePipelined(puts :+ clear)
+      for (resp <- responses) assertStatus(resp, Success)
+      for (i <- 0 until count)
+         assertKeyDoesNotExist(client.get(k(m, i + "-"), 0))
+   }
+
+}
@@ -172,6 +172,15 @@ class HotRodClient(host: String, port: Int, defaultCacheName: String, rspTimeout
       handler.getResponse(expectedResponseMessageId)
    }
 
+   /**
+    * Writes all the operations before waiting for any response, and returns the responses in operation order.
+    */
+   def executePipelined(ops: Seq[Op]): Seq[TestResponse] = {
+      ops.foreach(writeOp(_))
+      val handler = ch.getPipeline.getLast.asInstanceOf[ClientHandler]
+      ops.map(op => handler.getResponse(op.id))
+   }
+
    private def writeOp(op: Op) {
       idToOp.put(op.id, op)
       val future = ch.write(op)
@@ -326,6 +335,8 @@ private class Decoder(client: HotRodClient) extends ReplayingDecoder[VoidEnum] w
                   viewArray(i) = new ServerAddress(host, port)
                }
                Some(TestTopologyAwareResponse(topologyId, viewArray.toList))
+            } else if (op.clientIntel == 3 && op.version >= 13) {
+               read13SegmentAwareHeader(buf, topologyId)
             } else if (op.clientIntel == 3) {
                val numOwners = readUnsignedShort(buf)
                val hashFunction = buf.readByte
@@ -543,6 +554,21 @@ private class Decoder(client: HotRodClient) extends ReplayingDecoder[VoidEnum] w
             numOwners, hashFunction, hashSpace, numVirtualNodes))
    }
 
+   private def read13SegmentAwareHeader(buf: ChannelBuffer, topologyId: Int): Option[AbstractTopologyResponse] = {
+      val numServers = readUnsignedInt(buf)
+      val members = new Array[ServerAddress](numServers)
+      for (i <- 0 until numServers)
+         members(i) = new ServerAddress(readString(buf), readUnsignedShort(buf))
+      val hashFunction = buf.readByte
+      val numSegments = readUnsignedInt(buf)
+      val segmentOwners = new Array[Seq[ServerAddress]](numSegments)
+      for (i <- 0 until numSegments) {
+         val numOwners = buf.readUnsignedByte
+         segmentOwners(i) = (0 until numOwners).map(_ => members(readUnsignedInt(buf)))
+      }
+      Some(TestSegmentAware13Response(topologyId, members.toList, hashFunction, segmentOwners.toList))
+   }
+
 }
 
 private class ClientHandler(rspTimeoutSeconds: Int) extends SimpleChannelUpstreamHandler {
@@ -737,3 +763,8 @@ case class TestHashDistAware11Response(override val viewId: Int,
                         numOwners: Int, hashFunction: Byte, hashSpace: Int,
                         numVirtualNodes: Int)
       extends AbstractTopologyResponse(viewId)
+
+case class TestSegmentAware13Response(override val viewId: Int,
+                        val members: Iterable[ServerAddress], hashFunction: Byte,
+                        segmentOwners: Seq[Seq[ServerAddress]])
+      extends AbstractTopologyResponse(viewId)
@@ -206,6 +206,9 @@ object HotRodTestingUtil extends Log {
          case h11: TestHashDistAware11Response =>
             assertEquals(h11.membersToHash.size, 2)
             h11.membersToHash.foreach(member => servers.map(_.getAddress).exists(_ == member))
+         case s13: TestSegmentAware13Response =>
+            assertEquals(s13.members.size, 2)
+            s13.members.foreach(member => servers.map(_.getAddress).exists(_ == member))
       }
    }
 
@@ -278,6 +281,24 @@ object HotRodTestingUtil extends Log {
       }
    }
 
+   def assertSegmentTopologyReceived(topoResp: AbstractTopologyResponse,
+                                     servers: List[HotRodServer], cacheName: String) {
+      val segmentTopologyResp = topoResp.asInstanceOf[TestSegmentAware13Response]
+      assertTopologyId(segmentTopologyResp.viewId, servers.head.getCacheManager)
+      assertEquals(segmentTopologyResp.members.toSet, servers.map(_.getAddress).toSet)
+      assertEquals(segmentTopologyResp.hashFunction, EXPECTED_HASH_FUNCTION_VERSION)
+
+      val cache = servers.head.getCacheManager.getCache(cacheName)
+      val stateTransferManager = TestingUtil.extractComponent(cache, classOf[StateTransferManager])
+      val consistentHash = stateTransferManager.getCacheTopology.getCurrentCH
+      assertEquals(segmentTopologyResp.segmentOwners.size, consistentHash.getNumSegments)
+      for (i <- 0 until consistentHash.getNumSegments) {
+         val chOwners = consistentHash.locateOwnersForSegment(i)
+               .map(a => clusterAddressToServerAddress(servers, a))
+         assertEquals(segmentTopologyResp.segmentOwners(i), chOwners)
+      }
+   }
+
    def assertReplicatedHashIds(hashIds: Map[ServerAddress, Seq[Int]], servers: List[HotRodServer], cacheName: String) {
       val cache = servers.head.getCacheManager.getCache(cacheName)
       val stateTransferManager = TestingUtil.extractComponent(cache, classOf[StateTransferManager])
@@ -0,0 +1,482 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.server.memcached
+
+import logging.Log
+import org.infinispan.server.core.Operation._
+import org.infinispan.server.memcached.MemcachedOperation._
+import org.infinispan.server.memcached.BinaryProtocolUtil._
+import org.infinispan.server.memcached.TextProtocolUtil.{concat, MAX_UNSIGNED_LONG, CHARSET}
+import org.infinispan.context.Flag
+import java.util.concurrent.{TimeUnit, ScheduledExecutorService}
+import java.nio.ByteBuffer
+import java.nio.channels.ClosedChannelException
+import org.infinispan.server.core._
+import org.infinispan.{AdvancedCache, Version, CacheException, Cache}
+import collection.mutable.ListBuffer
+import org.jboss.netty.buffer.ChannelBuffer
+import transport.NettyTransport
+import DecoderState._
+import java.lang.StringBuilder
+import java.io.{IOException, StreamCorruptedException}
+import org.jboss.netty.channel._
+
+/**
+ * A decoder for the Memcached binary protocol. Requests are mapped to the same cache operations as in the text
+ * protocol, so both protocols can be used against the same data.
+ * <p/>
+ * Responses are queued while the requests received in a single read are decoded, and written together once the
+ * read has been fully processed. Combined with the quiet opcodes, this means that a pipelined multi-get sent as a
+ * sequence of getkq requests followed by a noop is answered with a single write, only containing the hits.
+ *
+ * @since 5.2
+ */
+class MemcachedBinaryDecoder(memcachedCache: Cache[String, MemcachedValue], scheduler: ScheduledExecutorService, transport: NettyTransport)
+      extends AbstractProtocolDecoder[String, MemcachedValue](transport) {
+
+   cache = memcachedCache
+
+   type SuitableParameters = MemcachedParameters
+   type SuitableHeader = MemcachedBinaryHeader
+
+   private lazy val isStatsEnabled = cache.getConfiguration.isExposeJmxStatistics
+   private final val stats = new MemcachedStats
+   private val isTrace = isTraceEnabled
+   private val pendingResponses = new ListBuffer[MemcachedBinaryResponse]
+   // Version of the last value created, returned as the CAS of storage operations
+   private var lastVersion: Long = 0
+
+   override def createHeader: MemcachedBinaryHeader = new MemcachedBinaryHeader
+
+   override def readHeader(b: ChannelBuffer, header: MemcachedBinaryHeader): Option[Boolean] = {
+      val magic = b.readByte
+      if (magic != MAGIC_REQUEST)
+         throw new UnrecoverableStreamException("Invalid magic byte: 0x%02x".format(magic))
+      header.opcode = b.readByte
+      header.keyLength = b.readUnsignedShort
+      header.extrasLength = b.readUnsignedByte
+      b.skipBytes(3) // data type and vbucket id, both unused
+      header.bodyLength = b.readInt
+      header.opaque = b.readInt
+      header.cas = b.readLong
+      header.quiet = isQuiet(header.opcode)
+      if (header.bodyLength < 0)
+         throw new UnrecoverableStreamException("Invalid body length: " + header.bodyLength)
+
+      header.op = toRequest(header.opcode, header.cas, b)
+      val valueLength = header.bodyLength - header.extrasLength - header.keyLength
+      val (validExtras, keyed, takesValue) = header.op match {
+         case PutRequest | PutIfAbsentRequest | ReplaceRequest | ReplaceIfUnmodifiedRequest =>
+            (header.extrasLength == 8, true, true)
+         case AppendRequest | PrependRequest => (header.extrasLength == 0, true, true)
+         case IncrementRequest | DecrementRequest => (header.extrasLength == 20, true, false)
+         case GetRequest | RemoveRequest | RemoveIfUnmodifiedRequest => (header.extrasLength == 0, true, false)
+         case FlushAllRequest => (header.extrasLength == 0 || header.extrasLength == 4, false, false)
+         case StatsRequest => (header.extrasLength == 0, header.keyLength > 0, false)
+         case _ => (header.extrasLength == 0, false, false)
+      }
+      if (!validExtras || valueLength < 0 || (valueLength > 0 && !takesValue)
+            || keyed != (header.keyLength > 0) || header.keyLength > MAX_KEY_LENGTH) {
+         b.skipBytes(header.bodyLength) // Skip the whole request to carry on with the next one
+         throw new StreamCorruptedException("Invalid arguments for opcode 0x%02x: key length %d, extras length %d, body length %d"
+               .format(header.opcode, header.keyLength, header.extrasLength, header.bodyLength))
+      }
+
+      header.op match {
+         case PutRequest | PutIfAbsentRequest | ReplaceRequest | ReplaceIfUnmodifiedRequest => {
+            header.flags = b.readUnsignedInt
+            header.expiration = b.readInt
+         }
+         case IncrementRequest | DecrementRequest => {
+            header.delta = b.readLong
+            header.initial = b.readLong
+            header.expiration = b.readInt
+         }
+         case FlushAllRequest if header.extrasLength == 4 => header.expiration = b.readInt
+         case StatsRequest => b.skipBytes(header.keyLength) // Stat groups are not supported, all stats are sent back
+         case _ => // No extras
+      }
+      Some(header.keyLength == 0 || header.op == StatsRequest)
+   }
+
+   private def toRequest(opcode: Byte, cas: Long, b: ChannelBuffer): Enumeration#Value = {
+      if (isTrace) trace("Opcode: 0x%02x", opcode)
+      opcode match {
+         case GET | GETQ | GETK | GETKQ => GetRequest
+         case SET | SETQ => if (cas != 0) ReplaceIfUnmodifiedRequest else PutRequest
+         case ADD | ADDQ => PutIfAbsentRequest
+         case REPLACE | REPLACEQ => if (cas != 0) ReplaceIfUnmodifiedRequest else ReplaceRequest
+         case DELETE | DELETEQ => if (cas != 0) RemoveIfUnmodifiedRequest else RemoveRequest
+         case INCREMENT | INCREMENTQ => IncrementRequest
+         case DECREMENT | DECREMENTQ => DecrementRequest
+         case APPEND | APPENDQ => AppendRequest
+         case PREPEND | PREPENDQ => PrependRequest
+         case FLUSH | FLUSHQ => FlushAllRequest
+         case STAT => StatsRequest
+         case VERSION => VersionRequest
+         case NOOP => NoOpRequest
+         case QUIT | QUITQ => QuitRequest
+         case _ => {
+            b.skipBytes(header.bodyLength) // Skip the whole request to carry on with the next one
+            throw new UnknownOperationException("Unknown opcode: 0x%02x".format(opcode))
+         }
+      }
+   }
+
+   override def readKey(b: ChannelBuffer): (String, Boolean) = {
+      val keyBytes = new Array[Byte](header.keyLength)
+      b.readBytes(keyBytes)
+      // Removes are the only modifications without a value
+      (new String(keyBytes, CHARSET), header.op == RemoveRequest)
+   }
+
+   override def readParameters(ch: Channel, b: ChannelBuffer): Boolean = {
+      val lifespan = if (header.expiration <= 0) -1 else header.expiration
+      val valueLength = header.bodyLength - header.extrasLength - header.keyLength
+      params = new MemcachedParameters(valueLength, lifespan, -1, header.cas, header.quiet, header.flags, "", 0)
+      if (isTrace) trace("Operation parameters: %s", params)
+      false
+   }
+
+   override protected def readValue(b: ChannelBuffer) {
+      b.readBytes(rawValue)
+   }
+
+   override def createValue(nextVersion: Long): MemcachedValue = {
+      lastVersion = nextVersion
+      new MemcachedValue(rawValue, nextVersion, params.flags)
+   }
+
+   override def getCache: Cache[String, MemcachedValue] = cache
+
+   override protected def customDecodeHeader(ch: Channel, buffer: ChannelBuffer): AnyRef = {
+      header.op match {
+         case FlushAllRequest => flushAll(ch)
+         case VersionRequest => writeResponse(ch, response(NO_ERROR, 0, Version.VERSION.getBytes(CHARSET)))
+         case NoOpRequest => writeResponse(ch, response(NO_ERROR))
+         case QuitRequest => quit(ch)
+      }
+   }
+
+   override protected def customDecodeKey(ch: Channel, buffer: ChannelBuffer): AnyRef = {
+      header.op match {
+         case AppendRequest | PrependRequest => {
+            key = readKey(buffer)._1
+            checkpointTo(DECODE_PARAMETERS)
+         }
+         case IncrementRequest | DecrementRequest => {
+            key = readKey(buffer)._1
+            writeResponse(ch, incrDecr)
+         }
+         case RemoveIfUnmodifiedRequest => {
+            key = readKey(buffer)._1
+            writeResponse(ch, removeIfUnmodified)
+         }
+      }
+   }
+
+   override protected def customDecodeValue(ch: Channel, buffer: ChannelBuffer): AnyRef = {
+      header.op match {
+         case AppendRequest | PrependRequest => {
+            readValue(buffer)
+            val prev = cache.get(key)
+            if (prev == null) {
+               response(ITEM_NOT_STORED)
+            } else if (header.cas != 0 && header.cas != prev.version) {
+               response(KEY_EXISTS)
+            } else {
+               val concatenated = header.op match {
+                  case AppendRequest => concat(prev.data, rawValue)
+                  case PrependRequest => concat(rawValue, prev.data)
+               }
+               val next = new MemcachedValue(concatenated, generateVersion(cache), prev.flags)
+               // If there's a concurrent modification on this key, treat it as we couldn't replace it
+               if (cache.replace(key, prev, next))
+                  successResponse(next.version)
+               else
+                  response(ITEM_NOT_STORED)
+            }
+         }
+      }
+   }
+
+   private def incrDecr: AnyRef = {
+      val op = header.op
+      val prev = cache.get(key)
+      if (prev == null) {
+         if (isStatsEnabled) if (op == IncrementRequest) stats.incrMisses.incrementAndGet else stats.decrMisses.incrementAndGet
+         if (header.expiration == NO_INITIAL_VALUE) {
+            response(KEY_NOT_FOUND)
+         } else {
+            val initial = unsigned(header.initial)
+            val next = new MemcachedValue(initial.toString.getBytes, generateVersion(cache), 0)
+            val existing =
+               if (header.expiration > 0)
+                  cache.putIfAbsent(key, next, toMillis(header.expiration), TimeUnit.MILLISECONDS)
+               else
+                  cache.putIfAbsent(key, next)
+            if (existing != null)
+               throw new CacheException("Value created since we checked whether the counter existed")
+            counterResponse(initial, next.version)
+         }
+      } else {
+         val prevCounter =
+            try {
+               BigInt(new String(prev.data, CHARSET))
+            } catch {
+               case n: NumberFormatException => null
+            }
+         if (prevCounter == null || prevCounter < 0 || prevCounter > MAX_UNSIGNED_LONG) {
+            response(NON_NUMERIC_VALUE)
+         } else {
+            val delta = unsigned(header.delta)
+            val newCounter = op match {
+               case IncrementRequest => (prevCounter + delta) & MAX_UNSIGNED_LONG // Wraps around on overflow
+               case DecrementRequest => if (prevCounter < delta) BigInt(0) else prevCounter - delta
+            }
+            val next = new MemcachedValue(newCounter.toString.getBytes, generateVersion(cache), prev.flags)
+            if (cache.replace(key, prev, next)) {
+               if (isStatsEnabled) if (op == IncrementRequest) stats.incrHits.incrementAndGet else stats.decrHits.incrementAndGet
+               counterResponse(newCounter, next.version)
+            } else {
+               // If there's a concurrent modification on this key, the spec does not say what to do, so treat it as exceptional
+               throw new CacheException("Value modified since we retrieved from the cache, old value was " + prevCounter)
+            }
+         }
+      }
+   }
+
+   private def unsigned(l: Long): BigInt = BigInt(l) & MAX_UNSIGNED_LONG
+
+   private def counterResponse(counter: BigInt, version: Long): AnyRef = {
+      if (header.quiet) null
+      else response(NO_ERROR, version, ByteBuffer.allocate(8).putLong(counter.longValue).array)
+   }
+
+   private def removeIfUnmodified: AnyRef = {
+      val prev = cache.get(key)
+      if (prev == null) {
+         createNotExistResponse
+      } else if (prev.version != header.cas || !cache.remove(key, prev)) {
+         if (isStatsEnabled) stats.replaceIfUnmodifiedBadval.incrementAndGet
+         response(KEY_EXISTS)
+      } else {
+         if (isStatsEnabled) stats.replaceIfUnmodifiedHits.incrementAndGet
+         if (header.quiet) null else response(NO_ERROR)
+      }
+   }
+
+   private def flushAll(ch: Channel): AnyRef = {
+      val flushFunction = (cache: AdvancedCache[String, MemcachedValue]) => cache.withFlags(Flag.CACHE_MODE_LOCAL, Flag.SKIP_CACHE_STORE).clear
+      if (header.expiration <= 0)
+         flushFunction(cache.getAdvancedCache)
+      else
+         scheduler.schedule(new DelayedFlushAll(cache, flushFunction), toMillis(header.expiration), TimeUnit.MILLISECONDS)
+      writeResponse(ch, if (header.quiet) null else response(NO_ERROR))
+   }
+
+   private def quit(ch: Channel): AnyRef = {
+      val ret = writeResponse(ch, if (header.quiet) null else response(NO_ERROR))
+      val future = flushResponses(ch)
+      if (future != null) future.addListener(ChannelFutureListener.CLOSE) else ch.close
+      ret
+   }
+
+   override def createSuccessResponse(prev: MemcachedValue): AnyRef = {
+      if (isStatsEnabled && header.op == ReplaceIfUnmodifiedRequest)
+         stats.replaceIfUnmodifiedHits.incrementAndGet
+      header.op match {
+         case RemoveRequest => if (header.quiet) null else response(NO_ERROR)
+         case _ => successResponse(lastVersion)
+      }
+   }
+
+   private def successResponse(version: Long): AnyRef =
+      if (header.quiet) null else response(NO_ERROR, version, EMPTY)
+
+   override def createNotExecutedResponse(prev: MemcachedValue): AnyRef = {
+      if (isStatsEnabled && header.op == ReplaceIfUnmodifiedRequest)
+         stats.replaceIfUnmodifiedBadval.incrementAndGet
+      header.op match {
+         case ReplaceRequest => response(KEY_NOT_FOUND) // Nothing to replace
+         case _ => response(KEY_EXISTS)
+      }
+   }
+
+   override def createNotExistResponse: AnyRef = {
+      // only CAS misses are counted, like in the text protocol
+      if (isStatsEnabled && header.op == ReplaceIfUnmodifiedRequest)
+         stats.replaceIfUnmodifiedMisses.incrementAndGet
+      response(KEY_NOT_FOUND)
+   }
+
+   override def createGetResponse(k: String, v: MemcachedValue): AnyRef = {
+      val withKey = header.opcode == GETK || header.opcode == GETKQ
+      val keyBytes = if (withKey) k.getBytes(CHARSET) else EMPTY
+      if (v != null)
+         new MemcachedBinaryResponse(header.opcode, NO_ERROR, header.opaque, v.version, v.flags, keyBytes, v.data)
+      else if (header.quiet)
+         null // Misses of quiet gets are not reported
+      else
+         new MemcachedBinaryResponse(header.opcode, KEY_NOT_FOUND, header.opaque, 0, -1, keyBytes, EMPTY)
+   }
+
+   override def createMultiGetResponse(pairs: Map[String, MemcachedValue]): AnyRef =
+      pairs.map { case (k, v) => createGetResponse(k, v) }.filter(_ != null).toList
+
+   override def createStatsResponse: AnyRef = {
+      val statResponses = stats.collect(cache, transport).map { case (stat, value) =>
+         new MemcachedBinaryResponse(STAT, NO_ERROR, header.opaque, 0, -1, stat.getBytes(CHARSET), value.toString.getBytes(CHARSET))
+      }
+      // An empty stat ends the list
+      statResponses :+ response(NO_ERROR)
+   }
+
+   /**
+    * Queues the error response, so that it's sent after the responses of the requests that preceded the failed one.
+    */
+   override def createErrorResponse(t: Throwable): AnyRef = {
+      val errorResponse = t match {
+         case m: MemcachedException => {
+            m.getCause match {
+               case u: UnknownOperationException => {
+                  logExceptionReported(u)
+                  response(UNKNOWN_COMMAND, 0, u.getMessage)
+               }
+               case c: ClosedChannelException => {
+                  logExceptionReported(c)
+                  null // no-op, only log
+               }
+               case e @ (_: IOException | _: NumberFormatException | _: IllegalStateException) => {
+                  logExceptionReported(e)
+                  response(INVALID_ARGUMENTS, 0, m.getMessage)
+               }
+               case _ => response(INTERNAL_ERROR, 0, m.getMessage)
+            }
+         }
+         case c: ClosedChannelException => {
+            logExceptionReported(c)
+            null // no-op, only log
+         }
+         case _ => response(INTERNAL_ERROR, 0, t.getMessage)
+      }
+      if (errorResponse != null) pendingResponses += errorResponse
+      null
+   }
+
+   override protected def createServerException(e: Exception, b: ChannelBuffer): (MemcachedException, Boolean) = {
+      e match {
+         case u: UnrecoverableStreamException => (new MemcachedException(u.getMessage, u), false)
+         case i: IOException => (new MemcachedException(i.getMessage, i), true)
+         case n: NumberFormatException => (new MemcachedException(n.getMessage, n), true)
+         case _ => (new MemcachedException(e.toString, e), false)
+      }
+   }
+
+   private def response(status: Short): MemcachedBinaryResponse = response(status, 0, EMPTY)
+
+   private def response(status: Short, cas: Long, message: String): MemcachedBinaryResponse =
+      response(status, cas, if (message == null) EMPTY else message.getBytes(CHARSET))
+
+   private def response(status: Short, cas: Long, value: Array[Byte]): MemcachedBinaryResponse = {
+      // The header can be missing if the connection failed before any request was received
+      if (header == null) new MemcachedBinaryResponse(NOOP, status, 0, cas, -1, EMPTY, value)
+      else new MemcachedBinaryResponse(header.opcode, status, header.opaque, cas, -1, EMPTY, value)
+   }
+
+   override protected def writeResponse(ch: Channel, response: AnyRef): AnyRef = {
+      response match {
+         case r: MemcachedBinaryResponse => pendingResponses += r
+         // We only expect Lists of responses, so don't worry about type erasure
+         case l: List[MemcachedBinaryResponse] => pendingResponses ++= l
+         case null => // Nothing to send back
+      }
+      super.writeResponse(ch, null)
+   }
+
+   /**
+    * Writes all the queued responses at once, returning the future of the write, or null if there was nothing to write.
+    */
+   private def flushResponses(ch: Channel): ChannelFuture = {
+      if (pendingResponses.isEmpty) {
+         null
+      } else {
+         val responses = pendingResponses.toList
+         pendingResponses.clear()
+         if (isTrace) trace("Write responses %s", responses)
+         ch.write(responses)
+      }
+   }
+
+   override def messageReceived(ctx: ChannelHandlerContext, e: MessageEvent) {
+      try {
+         super.messageReceived(ctx, e)
+      } finally {
+         flushResponses(ctx.getChannel)
+      }
+   }
+
+   override def exceptionCaught(ctx: ChannelHandlerContext, e: ExceptionEvent) {
+      super.exceptionCaught(ctx, e)
+      val ch = ctx.getChannel
+      val future = flushResponses(ch)
+      e.getCause match {
+         // There's no way to tell where the next request starts
+         case m: MemcachedException if m.getCause.isInstanceOf[UnrecoverableStreamException] =>
+            if (future != null) future.addListener(ChannelFutureListener.CLOSE) else ch.close
+         case _ => // Carry on with the next request
+      }
+   }
+}
+
+class MemcachedBinaryHeader extends RequestHeader {
+   var opcode: Byte = _
+   var keyLength: Int = _
+   var extrasLength: Int = _
+   var bodyLength: Int = _
+   var opaque: Int = _
+   var cas: Long = _
+   var quiet: Boolean = _
+   var flags: Long = _
+   var expiration: Int = _
+   var delta: Long = _
+   var initial: Long = _
+
+   override def toString = {
+      new StringBuilder().append("MemcachedBinaryHeader").append("{")
+         .append("op=").append(op)
+         .append(", opcode=").append(opcode)
+         .append(", keyLength=").append(keyLength)
+         .append(", extrasLength=").append(extrasLength)
+         .append(", bodyLength=").append(bodyLength)
+         .append(", opaque=").append(opaque)
+         .append(", cas=").append(cas)
+         .append(", quiet=").append(quiet)
+         .append("}").toString
+   }
+}
+
+/**
+ * Thrown when the stream can't be parsed any further, in which case the connection is closed.
+ */
+class UnrecoverableStreamException(reason: String) extends Exception(reason)
@@ -0,0 +1,95 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.server.memcached
+
+import logging.Log
+import org.infinispan.server.memcached.BinaryProtocolUtil._
+import org.infinispan.server.core.transport.ExtendedChannelBuffer._
+import org.infinispan.util.Util
+import org.jboss.netty.buffer.{ChannelBuffers, ChannelBuffer}
+import org.jboss.netty.channel.{Channel, ChannelHandlerContext}
+import org.jboss.netty.channel.ChannelHandler.Sharable
+import org.jboss.netty.handler.codec.oneone.OneToOneEncoder
+import java.lang.StringBuilder
+
+/**
+ * Memcached binary protocol encoder. It holds no state, so a single instance can be shared by all connections.
+ * <p/>
+ * A list of responses is encoded into a single buffer. Values are wrapped rather than copied, so only the headers,
+ * extras and keys of the responses are written into newly allocated buffers.
+ *
+ * @since 5.2
+ */
+@Sharable
+class MemcachedBinaryEncoder extends OneToOneEncoder with Log {
+
+   private val isTrace = isTraceEnabled
+
+   override def encode(ctx: ChannelHandlerContext, ch: Channel, msg: AnyRef): AnyRef = {
+      if (isTrace) trace("Encode msg %s", msg)
+      msg match {
+         case r: MemcachedBinaryResponse => encodeResponse(r)
+         // We only expect Lists of responses, so don't worry about type erasure
+         case l: List[MemcachedBinaryResponse] => ChannelBuffers.wrappedBuffer(l.map(encodeResponse): _*)
+         case _ => msg
+      }
+   }
+
+   private def encodeResponse(r: MemcachedBinaryResponse): ChannelBuffer = {
+      val extrasLength = if (r.flags >= 0) 4 else 0
+      val buf = buffer(HEADER_LENGTH + extrasLength + r.key.length)
+      buf.writeByte(MAGIC_RESPONSE)
+      buf.writeByte(r.opcode)
+      buf.writeShort(r.key.length)
+      buf.writeByte(extrasLength)
+      buf.writeByte(0) // raw bytes data type
+      buf.writeShort(r.status)
+      buf.writeInt(extrasLength + r.key.length + r.value.length)
+      buf.writeInt(r.opaque)
+      buf.writeLong(r.cas)
+      if (extrasLength > 0) buf.writeInt(r.flags.toInt)
+      buf.writeBytes(r.key)
+      if (r.value.length > 0) ChannelBuffers.wrappedBuffer(buf, ChannelBuffers.wrappedBuffer(r.value)) else buf
+   }
+
+}
+
+/**
+ * A Memcached binary protocol response. Flags are only sent, as extras, when they're not negative.
+ *
+ * @since 5.2
+ */
+class MemcachedBinaryResponse(val opcode: Byte, val status: Short, val opaque: Int, val cas: Long,
+                              val flags: Long, val key: Array[Byte], val value: Array[Byte]) {
+   override def toString = {
+      new StringBuilder().append("MemcachedBinaryResponse").append("{")
+         .append("opcode=").append(opcode)
+         .append(", status=").append(status)
+         .append(", opaque=").append(opaque)
+         .append(", cas=").append(cas)
+         .append(", flags=").append(flags)
+         .append(", key=").append(Util.printArray(key, false))
+         .append(", value=").append(Util.printArray(value, false))
+         .append("}").toString
+   }
+}
@@ -0,0 +1,60 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.server.memcached
+
+import org.infinispan.server.memcached.BinaryProtocolUtil._
+import org.infinispan.server.core.transport.NettyTransport
+import org.jboss.netty.buffer.ChannelBuffer
+import org.jboss.netty.channel.{ChannelStateEvent, Channel, ChannelHandlerContext}
+import org.jboss.netty.handler.codec.frame.FrameDecoder
+
+/**
+ * Chooses the protocol spoken over a connection based on the first byte received: binary protocol requests start
+ * with a magic byte which can't start a text protocol command. The selector then replaces itself with the decoder
+ * of that protocol, and the encoder if needed, and forwards it the bytes received so far.
+ *
+ * @since 5.2
+ */
+class MemcachedProtocolSelector(server: MemcachedServer, transport: NettyTransport) extends FrameDecoder {
+
+   override def decode(ctx: ChannelHandlerContext, ch: Channel, buffer: ChannelBuffer): AnyRef = {
+      if (!buffer.readable) return null
+
+      val pipeline = ctx.getPipeline
+      if (buffer.getByte(buffer.readerIndex) == MAGIC_REQUEST) {
+         pipeline.addAfter(ctx.getName, "binaryDecoder", server.getBinaryDecoder)
+         pipeline.addAfter("binaryDecoder", "binaryEncoder", server.getBinaryEncoder)
+      } else {
+         pipeline.addAfter(ctx.getName, "textDecoder", server.getTextDecoder)
+      }
+      pipeline.remove(this)
+      buffer.readBytes(buffer.readableBytes)
+   }
+
+   override def channelOpen(ctx: ChannelHandlerContext, e: ChannelStateEvent) {
+      // The decoders are only added once the channel is open, so keep track of it here
+      transport.acceptedChannels.add(e.getChannel)
+      super.channelOpen(ctx, e)
+   }
+
+}
@@ -28,10 +28,12 @@ import org.infinispan.manager.EmbeddedCacheManager
 import java.util.Properties
 import org.infinispan.config.Configuration
 import org.infinispan.Cache
+import org.jboss.netty.channel.ChannelHandler
 
 /**
- * Memcached server defining its decoder/encoder settings. In fact, Memcached does not use an encoder since there's
- * no really common headers between protocol operations.
+ * Memcached server defining its decoder/encoder settings. The protocol, either text or binary, is chosen for each
+ * connection by {@link MemcachedProtocolSelector}. The text protocol does not use an encoder since there's no really
+ * common headers between protocol operations, whereas the binary one does.
  *
  * @author Galder Zamarreño
  * @since 4.1
@@ -41,6 +43,7 @@ class MemcachedServer extends AbstractProtocolServer("Memcached") {
 
    protected lazy val scheduler = Executors.newScheduledThreadPool(1)
    private var memcachedCache: Cache[String, MemcachedValue] = _
+   private lazy val binaryEncoder = new MemcachedBinaryEncoder
 
    override def start(p: Properties, cacheManager: EmbeddedCacheManager) {
       val properties = if (p == null) new Properties else p
@@ -52,12 +55,22 @@ class MemcachedServer extends AbstractProtocolServer("Memcached") {
 
    override def getEncoder = null
 
-   override def getDecoder: MemcachedDecoder = {
+   override def getDecoder: ChannelHandler = new MemcachedProtocolSelector(this, transport)
+
+   def getTextDecoder: MemcachedDecoder = {
       val dec = new MemcachedDecoder(memcachedCache, scheduler, transport)
       dec.versionGenerator = this.versionGenerator
       dec
    }
 
+   def getBinaryDecoder: MemcachedBinaryDecoder = {
+      val dec = new MemcachedBinaryDecoder(memcachedCache, scheduler, transport)
+      dec.versionGenerator = this.versionGenerator
+      dec
+   }
+
+   def getBinaryEncoder: MemcachedBinaryEncoder = binaryEncoder
+
    override def stop {
       super.stop
       scheduler.shutdown
@@ -0,0 +1,90 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.server.memcached
+
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicLong
+import org.infinispan.Cache
+import org.infinispan.server.core.transport.NettyTransport
+
+/**
+ * Counters of the Memcached specific operations which the cache statistics can't track, along with the list of
+ * statistics reported by the 'stats' command in both the text and binary protocols.
+ *
+ * @since 5.2
+ */
+class MemcachedStats {
+   final val incrMisses = new AtomicLong(0)
+   final val incrHits = new AtomicLong(0)
+   final val decrMisses = new AtomicLong(0)
+   final val decrHits = new AtomicLong(0)
+   final val replaceIfUnmodifiedMisses = new AtomicLong(0)
+   final val replaceIfUnmodifiedHits = new AtomicLong(0)
+   final val replaceIfUnmodifiedBadval = new AtomicLong(0)
+
+   /**
+    * Returns the name and value of every statistic, in the order they're reported.
+    */
+   def collect(cache: Cache[String, MemcachedValue], transport: NettyTransport): List[(String, Any)] = {
+      val stats = cache.getAdvancedCache.getStats
+      List[(String, Any)] (
+         ("pid", 0),
+         ("uptime", stats.getTimeSinceStart),
+         ("uptime", stats.getTimeSinceStart),
+         ("time", TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis)),
+         ("version", cache.getVersion),
+         ("pointer_size", 0), // Unsupported
+         ("rusage_user", 0), // Unsupported
+         ("rusage_system", 0), // Unsupported
+         ("curr_items", stats.getCurrentNumberOfEntries),
+         ("total_items", stats.getTotalNumberOfEntries),
+         ("bytes", 0), // Unsupported
+         ("curr_connections", 0), // TODO: Through netty?
+         ("total_connections", 0), // TODO: Through netty?
+         ("connection_structures", 0), // Unsupported
+         ("cmd_get", stats.getRetrievals),
+         ("cmd_set", stats.getStores),
+         ("get_hits", stats.getHits),
+         ("get_misses", stats.getMisses),
+         ("delete_misses", stats.getRemoveMisses),
+         ("delete_hits", stats.getRemoveHits),
+         ("incr_misses", incrMisses),
+         ("incr_hits", incrHits),
+         ("decr_misses", decrMisses),
+         ("decr_hits", decrHits),
+         ("cas_misses", replaceIfUnmodifiedMisses),
+         ("cas_hits", replaceIfUnmodifiedHits),
+         ("cas_badval", replaceIfUnmodifiedBadval),
+         ("auth_cmds", 0), // Unsupported
+         ("auth_errors", 0), // Unsupported
+         //TODO: Evictions are measure by evict calls, but not by nodes are that are expired after the entry's lifespan has expired.
+         ("evictions", stats.getEvictions),
+         ("bytes_read", transport.getTotalBytesRead),
+         ("bytes_written", transport.getTotalBytesWritten),
+         ("limit_maxbytes", 0), // Unsupported
+         ("threads", 0), // TODO: Through netty?
+         ("conn_yields", 0), // Unsupported
+         ("reclaimed", 0) // Unsupported
+      )
+   }
+}
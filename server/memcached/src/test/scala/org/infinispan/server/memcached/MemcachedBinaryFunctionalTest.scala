@@ -0,0 +1,195 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.server.memcached
+
+import java.lang.reflect.Method
+import java.net.Socket
+import java.io.DataInputStream
+import java.nio.ByteBuffer
+import org.testng.Assert._
+import org.testng.annotations.Test
+import net.spy.memcached.{CASResponse, MemcachedClient}
+import org.infinispan.test.TestingUtil._
+import java.util.concurrent.TimeUnit
+import org.infinispan.server.memcached.BinaryProtocolUtil._
+import test.MemcachedTestingUtil._
+
+/**
+ * Tests the Memcached binary protocol against Infinispan Memcached server.
+ *
+ * @since 5.2
+ */
+@Test(groups = Array("functional"), testName = "server.memcached.MemcachedBinaryFunctionalTest")
+class MemcachedBinaryFunctionalTest extends MemcachedSingleNodeTest {
+
+   override protected def createClient(timeout: Long, port: Int): MemcachedClient =
+      createMemcachedBinaryClient(timeout, port)
+
+   def testSetBasic(m: Method) {
+      val f = client.set(k(m), 0, v(m))
+      assertTrue(f.get(timeout, TimeUnit.SECONDS).booleanValue)
+      assertEquals(client.get(k(m)), v(m))
+   }
+
+   def testSetWithExpirySeconds(m: Method) {
+      val f = client.set(k(m), 1, v(m))
+      assertTrue(f.get(timeout, TimeUnit.SECONDS).booleanValue)
+      sleepThread(1100)
+      assertNull(client.get(k(m)))
+   }
+
+   def testGetMultipleKeys(m: Method) {
+      for (i <- 1 to 3)
+         assertTrue(client.set(k(m, "k" + i + "-"), 0, v(m, "v" + i + "-")).get(timeout, TimeUnit.SECONDS).booleanValue)
+      val keys = List(k(m, "k1-"), k(m, "k2-"), k(m, "k3-"), k(m, "missing-"))
+      val ret = client.getBulk(keys: _*)
+      assertEquals(ret.size, 3)
+      for (i <- 1 to 3)
+         assertEquals(ret.get(k(m, "k" + i + "-")), v(m, "v" + i + "-"))
+   }
+
+   def testAddAndReplace(m: Method) {
+      assertFalse(client.replace(k(m), 0, v(m)).get(timeout, TimeUnit.SECONDS).booleanValue)
+      assertTrue(client.add(k(m), 0, v(m)).get(timeout, TimeUnit.SECONDS).booleanValue)
+      assertFalse(client.add(k(m), 0, v(m, "v1-")).get(timeout, TimeUnit.SECONDS).booleanValue)
+      assertTrue(client.replace(k(m), 0, v(m, "v1-")).get(timeout, TimeUnit.SECONDS).booleanValue)
+      assertEquals(client.get(k(m)), v(m, "v1-"))
+   }
+
+   def testAppendAndPrepend(m: Method) {
+      assertFalse(client.append(0, k(m), "x").get(timeout, TimeUnit.SECONDS).booleanValue)
+      assertTrue(client.set(k(m), 0, "b").get(timeout, TimeUnit.SECONDS).booleanValue)
+      assertTrue(client.append(0, k(m), "c").get(timeout, TimeUnit.SECONDS).booleanValue)
+      assertTrue(client.prepend(0, k(m), "a").get(timeout, TimeUnit.SECONDS).booleanValue)
+      assertEquals(client.get(k(m)), "abc")
+   }
+
+   def testCas(m: Method) {
+      assertTrue(client.set(k(m), 0, v(m)).get(timeout, TimeUnit.SECONDS).booleanValue)
+      val value = client.gets(k(m))
+      assertEquals(value.getValue, v(m))
+      assertEquals(client.cas(k(m), value.getCas, v(m, "v1-")), CASResponse.OK)
+      assertEquals(client.cas(k(m), value.getCas, v(m, "v2-")), CASResponse.EXISTS)
+      assertEquals(client.cas(k(m, "missing-"), value.getCas, v(m, "v2-")), CASResponse.NOT_FOUND)
+      assertEquals(client.get(k(m)), v(m, "v1-"))
+   }
+
+   def testDelete(m: Method) {
+      assertTrue(client.set(k(m), 0, v(m)).get(timeout, TimeUnit.SECONDS).booleanValue)
+      assertTrue(client.delete(k(m)).get(timeout, TimeUnit.SECONDS).booleanValue)
+      assertFalse(client.delete(k(m)).get(timeout, TimeUnit.SECONDS).booleanValue)
+      assertNull(client.get(k(m)))
+   }
+
+   def testIncrDecr(m: Method) {
+      assertEquals(client.incr(k(m), 1), -1)
+      assertEquals(client.incr(k(m), 1, 5), 5)
+      assertEquals(client.incr(k(m), 2), 7)
+      assertEquals(client.decr(k(m), 3), 4)
+      assertEquals(client.decr(k(m), 10), 0)
+   }
+
+   def testIncrNonNumeric(m: Method) {
+      assertTrue(client.set(k(m), 0, "abc").get(timeout, TimeUnit.SECONDS).booleanValue)
+      assertEquals(sendBinary(request(INCREMENT, k(m), ByteBuffer.allocate(20).putLong(1).putLong(0).putInt(0).array))._2,
+                   NON_NUMERIC_VALUE)
+   }
+
+   def testVersion {
+      val version = client.getVersions.values.iterator.next
+      assertEquals(version, org.infinispan.Version.VERSION)
+   }
+
+   def testQuietGetsOnlyReturnHits(m: Method) {
+      assertTrue(client.set(k(m), 0, v(m)).get(timeout, TimeUnit.SECONDS).booleanValue)
+      val socket = new Socket(server.getHost, server.getPort)
+      try {
+         val out = socket.getOutputStream
+         out.write(request(GETKQ, k(m, "missing-"), EMPTY, 1))
+         out.write(request(GETKQ, k(m), EMPTY, 2))
+         out.write(request(NOOP, "", EMPTY, 3))
+         val in = new DataInputStream(socket.getInputStream)
+         val (hitOpcode, hitStatus, hitOpaque, hitKey) = readResponse(in)
+         assertEquals(hitOpcode, GETKQ)
+         assertEquals(hitStatus, NO_ERROR)
+         assertEquals(hitOpaque, 2)
+         assertEquals(hitKey, k(m))
+         val (noopOpcode, noopStatus, noopOpaque, _) = readResponse(in)
+         assertEquals(noopOpcode, NOOP)
+         assertEquals(noopStatus, NO_ERROR)
+         assertEquals(noopOpaque, 3)
+      } finally {
+         socket.close()
+      }
+   }
+
+   def testUnknownOpcode {
+      val (opcode, status) = sendBinary(request(0x7f.toByte, "", EMPTY))
+      assertEquals(opcode, 0x7f.toByte)
+      assertEquals(status, UNKNOWN_COMMAND)
+   }
+
+   def testTextProtocolStillSupported(m: Method) {
+      assertTrue(client.set(k(m), 0, v(m)).get(timeout, TimeUnit.SECONDS).booleanValue)
+      val resp = sendMulti("get " + k(m) + "\r\n", 2, wait = true)
+      assertEquals(resp(1), v(m))
+   }
+
+   private def request(opcode: Byte, key: String, extras: Array[Byte], opaque: Int = 0): Array[Byte] = {
+      val keyBytes = key.getBytes
+      val buf = ByteBuffer.allocate(HEADER_LENGTH + extras.length + keyBytes.length)
+      buf.put(MAGIC_REQUEST).put(opcode).putShort(keyBytes.length.toShort).put(extras.length.toByte)
+      buf.put(0.toByte).putShort(0).putInt(extras.length + keyBytes.length).putInt(opaque).putLong(0)
+      buf.put(extras).put(keyBytes)
+      buf.array
+   }
+
+   private def sendBinary(req: Array[Byte]): (Byte, Short) = {
+      val socket = new Socket(server.getHost, server.getPort)
+      try {
+         socket.getOutputStream.write(req)
+         val (opcode, status, _, _) = readResponse(new DataInputStream(socket.getInputStream))
+         (opcode, status)
+      } finally {
+         socket.close()
+      }
+   }
+
+   private def readResponse(in: DataInputStream): (Byte, Short, Int, String) = {
+      assertEquals(in.readByte, MAGIC_RESPONSE)
+      val opcode = in.readByte
+      val keyLength = in.readUnsignedShort
+      val extrasLength = in.readUnsignedByte
+      in.readByte // data type
+      val status = in.readShort
+      val bodyLength = in.readInt
+      val opaque = in.readInt
+      in.readLong // cas
+      in.skipBytes(extrasLength)
+      val key = new Array[Byte](keyLength)
+      in.readFully(key)
+      in.skipBytes(bodyLength - extrasLength - keyLength)
+      (opcode, status, opaque, new String(key))
+   }
+
+}
@@ -0,0 +1,61 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.server.memcached
+
+import org.testng.annotations.Test
+import org.infinispan.test.fwk.TestCacheManagerFactory
+import java.lang.reflect.Method
+import org.testng.Assert._
+import java.util.concurrent.TimeUnit
+import test.MemcachedTestingUtil._
+import org.infinispan.manager.EmbeddedCacheManager
+import net.spy.memcached.{CASResponse, MemcachedClient}
+
+/**
+ * Tests the stats kept for the Memcached binary protocol.
+ *
+ * @since 5.2
+ */
+@Test(groups = Array("functional"), testName = "server.memcached.MemcachedBinaryStatsTest")
+class MemcachedBinaryStatsTest extends MemcachedSingleNodeTest {
+
+   private val jmxDomain = classOf[MemcachedBinaryStatsTest].getSimpleName
+
+   override def createTestCacheManager: EmbeddedCacheManager =
+      TestCacheManagerFactory.createCacheManagerEnforceJmxDomain(jmxDomain)
+
+   override protected def createClient(timeout: Long, port: Int): MemcachedClient =
+      createMemcachedBinaryClient(timeout, port)
+
+   def testOnlyCasMissesAreCounted(m: Method) {
+      assertFalse(client.replace(k(m), 0, v(m)).get(timeout, TimeUnit.SECONDS).booleanValue)
+      assertFalse(client.delete(k(m)).get(timeout, TimeUnit.SECONDS).booleanValue)
+      assertEquals(casMisses, "0")
+
+      assertEquals(client.cas(k(m), 1234, v(m)), CASResponse.NOT_FOUND)
+      assertEquals(casMisses, "1")
+   }
+
+   private def casMisses: String = client.getStats.values.iterator.next.get("cas_misses")
+
+}
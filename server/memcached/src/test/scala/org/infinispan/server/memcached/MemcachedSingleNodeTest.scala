@@ -48,13 +48,15 @@ abstract class MemcachedSingleNodeTest extends SingleCacheManagerTest {
    override def createCacheManager: EmbeddedCacheManager = {
       cacheManager = createTestCacheManager
       memcachedServer = startMemcachedTextServer(cacheManager)
-      memcachedClient = createMemcachedClient(60000, server.getPort)
+      memcachedClient = createClient(60000, server.getPort)
       cache = cacheManager.getCache[AnyRef, AnyRef](MemcachedServer.cacheName)
       cacheManager
    }
 
    protected def createTestCacheManager: EmbeddedCacheManager = TestCacheManagerFactory.createLocalCacheManager(false)
 
+   protected def createClient(timeout: Long, port: Int): MemcachedClient = createMemcachedClient(timeout, port)
+
    @AfterClass(alwaysRun = true)
    override def destroyAfterClass() {
       super.destroyAfterClass()
@@ -65,11 +65,30 @@ public void updateHashFunction(final Map<SocketAddress, Set<Integer>> servers2Ha
             final int numKeyOwners, final short hashFunctionVersion, final int hashSpace) {
    }
 
+   @Override
+   public void updateHashFunction(final SocketAddress[][] segmentOwners, final short hashFunctionVersion) {
+   }
+
    @Override
    public Transport getTransport(final byte[] key) {
       return null;
    }
 
+   @Override
+   public Transport getTransport(final SocketAddress server) {
+      return null;
+   }
+
+   @Override
+   public SocketAddress getServer(final byte[] key) {
+      return null;
+   }
+
+   @Override
+   public Collection<SocketAddress> getServers() {
+      return null;
+   }
+
    @Override
    public boolean isTcpNoDelay() {
       return false;